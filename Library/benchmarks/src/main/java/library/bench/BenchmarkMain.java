@@ -0,0 +1,35 @@
+package library.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the library benchmarks once per thread count, with the GC profiler attached,
+ * and writes one JSON result file per thread count for regression tracking.
+ * <p>
+ * Usage: {@code BenchmarkMain [threadCounts] [benchmarkRegex]}, for example
+ * {@code BenchmarkMain 1,2,4,8 borrow}. Catalog and member sizes can be narrowed with
+ * the usual JMH {@code -p} options when running {@code org.openjdk.jmh.Main} directly.
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws RunnerException {
+        String threadCounts = args.length > 0 ? args[0] : "1,2,4,8";
+        String include = args.length > 1 ? args[1] : LibraryManagerBenchmark.class.getSimpleName();
+
+        for (String threadCount : threadCounts.split(",")) {
+            int threads = Integer.parseInt(threadCount.trim());
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("jmh-threads-" + threads + ".json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
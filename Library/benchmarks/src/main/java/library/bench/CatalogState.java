@@ -0,0 +1,68 @@
+package library.bench;
+
+import library.model.Loan;
+import library.service.BookFactory;
+import library.service.Library;
+import library.service.LibraryManager;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * A populated library shared by all benchmark threads.
+ * Every tenth book is on loan, and half of those loans are overdue, so that the
+ * return, summary and overdue paths all have realistic work to do.
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+    private static final String[] TYPES = {"fiction", "non-fiction", "reference"};
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int catalogSize;
+
+    @Param({"1000", "100000"})
+    public int memberCount;
+
+    public Library library;
+    public LibraryManager manager;
+    public String[] bookIds;
+    public String[] memberIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        library = new Library();
+        manager = new LibraryManager(library, new BookFactory());
+
+        bookIds = new String[catalogSize];
+        for (int i = 0; i < catalogSize; i++) {
+            bookIds[i] = "B" + i;
+            manager.addBook(TYPES[i % TYPES.length], bookIds[i], "Title " + i, "Author " + (i % 5_000), 1900 + i % 120);
+        }
+        memberIds = new String[memberCount];
+        for (int i = 0; i < memberCount; i++) {
+            memberIds[i] = "M" + i;
+            manager.addMember(memberIds[i], "Member " + i);
+        }
+
+        for (int i = 0; i < catalogSize; i += 10) {
+            manager.borrowBook(bookIds[i], memberIds[i % memberCount]);
+            if (i % 20 == 0) {
+                Loan loan = library.findActiveLoanForBook(bookIds[i]);
+                loan.setDueTime(loan.getBorrowTime() - 1);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a book was lent out during setup and stays on loan for the whole run.
+     *
+     * @param index The book index.
+     * @return true if the book is one of the long-running loans.
+     */
+    public static boolean isPermanentlyLent(int index) {
+        return index % 10 == 0;
+    }
+}
@@ -0,0 +1,108 @@
+package library.bench;
+
+import library.model.LibrarySummary;
+import library.model.Loan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the library service hot paths.
+ * Throughput, average time and sampled latency percentiles are reported for every benchmark;
+ * run with the GC profiler ({@code -prof gc}) to see the allocation rate.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class LibraryManagerBenchmark {
+
+    @Benchmark
+    public void addBook(CatalogState catalog, ThreadState thread) {
+        catalog.manager.addBook("fiction", thread.nextAddedBookId(), "Benchmark Title", "Benchmark Author", 2024);
+    }
+
+    @Benchmark
+    public boolean borrowThenReturn(CatalogState catalog, ThreadState thread) {
+        String bookId = thread.lendableBookId(catalog);
+        return catalog.manager.borrowBook(bookId, thread.memberId) && catalog.manager.returnBook(bookId);
+    }
+
+    @Benchmark
+    public boolean borrowBook(CatalogState catalog, ThreadState thread, BorrowedBook borrowed) {
+        String bookId = thread.lendableBookId(catalog);
+        boolean success = catalog.manager.borrowBook(bookId, thread.memberId);
+        if (success) {
+            // Only a book this thread borrowed is returned, never one another thread holds
+            borrowed.bookId = bookId;
+        }
+        return success;
+    }
+
+    @Benchmark
+    public boolean returnBook(CatalogState catalog, LentBook lent) {
+        return catalog.manager.returnBook(lent.bookId);
+    }
+
+    @Benchmark
+    public LibrarySummary getLibrarySummary(CatalogState catalog) {
+        return catalog.manager.getLibrarySummary();
+    }
+
+    @Benchmark
+    public String duplicateBook(CatalogState catalog, ThreadState thread) {
+        return catalog.manager.duplicateBook(thread.anyBookId(catalog));
+    }
+
+    @Benchmark
+    public List<Loan> getOverdueLoans(CatalogState catalog) {
+        return catalog.library.getOverdueLoans();
+    }
+
+    /**
+     * Returns the book borrowed by the measured call after every invocation, if the call succeeded,
+     * so that {@link #borrowBook} always finds most of the catalog available.
+     */
+    @State(Scope.Thread)
+    public static class BorrowedBook {
+        String bookId;
+
+        @TearDown(Level.Invocation)
+        public void returnIt(CatalogState catalog) {
+            if (bookId != null) {
+                catalog.manager.returnBook(bookId);
+                bookId = null;
+            }
+        }
+    }
+
+    /**
+     * Borrows a book before every invocation, so that {@link #returnBook} always has a loan to return.
+     * Invocation-level fixtures add a little timing overhead, which matters most for the
+     * sampled latencies of very short calls.
+     */
+    @State(Scope.Thread)
+    public static class LentBook {
+        String bookId;
+
+        @Setup(Level.Invocation)
+        public void lend(CatalogState catalog, ThreadState thread) {
+            do {
+                bookId = thread.lendableBookId(catalog);
+            } while (!catalog.manager.borrowBook(bookId, thread.memberId));
+        }
+    }
+}
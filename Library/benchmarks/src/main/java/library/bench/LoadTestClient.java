@@ -0,0 +1,102 @@
+package library.bench;
+
+import library.model.LatencySnapshot;
+import library.util.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives a running library HTTP server with many concurrent clients and prints the throughput and
+ * latency percentiles of the requests. Each client is a virtual thread with its own book and member,
+ * which it borrows and returns in a loop; every client holds its own connection, so the number of
+ * clients is the number of concurrent connections.
+ * <p>
+ * Usage: {@code LoadTestClient [baseUrl] [clients] [seconds]}, for example
+ * {@code LoadTestClient http://localhost:8080 10000 30} against {@code LibrarySystem --server 8080}.
+ * Large client counts need a raised open-file limit on both ends.
+ */
+public class LoadTestClient {
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder failures = new LongAdder();
+
+        // Give every client its own book and member, so that the load measures the server, not contention
+        try (ExecutorService setup = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                String id = String.format("%06d", i);
+                setup.submit(() -> {
+                    post(http, baseUrl + "/books", "{\"type\":\"fiction\",\"id\":\"LT" + id
+                            + "\",\"title\":\"Load test " + id + "\",\"author\":\"Load\",\"year\":2000}");
+                    post(http, baseUrl + "/members", "{\"id\":\"LTM" + id + "\",\"name\":\"Load " + id + "\"}");
+                    return null;
+                });
+            }
+        }
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        long started = System.nanoTime();
+        try (ExecutorService load = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                String id = String.format("%06d", i);
+                String borrow = "{\"bookId\":\"LT" + id + "\",\"memberId\":\"LTM" + id + "\"}";
+                load.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        timed(http, latency, failures, HttpRequest.newBuilder(URI.create(baseUrl + "/loans"))
+                                .POST(HttpRequest.BodyPublishers.ofString(borrow)).build());
+                        timed(http, latency, failures, HttpRequest.newBuilder(URI.create(baseUrl + "/loans/LT" + id))
+                                .DELETE().build());
+                    }
+                });
+            }
+        }
+        double elapsed = (System.nanoTime() - started) / 1e9;
+
+        LatencySnapshot snapshot = latency.snapshot();
+        System.out.printf("%d clients, %.1f s: %d requests, %.0f req/s, %d failed%n", clients, elapsed,
+                snapshot.getCount(), snapshot.getCount() / elapsed, failures.sum());
+        System.out.printf("latency us: mean %d, p50 %d, p99 %d, p99.9 %d, max %d%n",
+                snapshot.getMeanNanos() / 1000, snapshot.getP50Nanos() / 1000, snapshot.getP99Nanos() / 1000,
+                snapshot.getP999Nanos() / 1000, snapshot.getMaxNanos() / 1000);
+    }
+
+    private static void post(HttpClient http, String url, String body) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(url))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IOException("POST " + url + " failed with " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private static void timed(HttpClient http, LatencyHistogram latency, LongAdder failures, HttpRequest request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                failures.increment();
+            }
+        } catch (IOException e) {
+            failures.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        latency.recordSince(start);
+    }
+}
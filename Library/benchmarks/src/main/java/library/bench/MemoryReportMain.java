@@ -0,0 +1,55 @@
+package library.bench;
+
+import library.model.Book;
+import library.model.MemoryReport;
+import library.service.BookFactory;
+import library.service.Library;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the same catalog as plain objects and in columnar storage and prints the memory report
+ * of each, together with the heap growth measured after a full GC, so that the bytes per book
+ * before and after string pooling and compaction can be compared.
+ * <p>
+ * Usage: {@code MemoryReportMain [catalogSize]}, for example {@code MemoryReportMain 1000000}.
+ */
+public class MemoryReportMain {
+    private static final String[] TYPES = {"fiction", "non-fiction", "reference"};
+
+    public static void main(String[] args) {
+        int catalogSize = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        BookFactory bookFactory = new BookFactory();
+        report("objects", new Library(), bookFactory, catalogSize);
+        report("columnar", Library.withColumnarStorage(bookFactory), bookFactory, catalogSize);
+    }
+
+    private static void report(String label, Library library, BookFactory bookFactory, int catalogSize) {
+        long before = usedHeap();
+        List<Book> batch = new ArrayList<>();
+        for (int i = 0; i < catalogSize; i++) {
+            // Build every string afresh, as a parser would, so that nothing is shared by accident
+            String author = new String("Author " + (i % 5_000));
+            batch.add(bookFactory.createBook(TYPES[i % TYPES.length], String.format("B%07d", i), "Title " + i, author, 1900 + i % 120));
+            if (batch.size() == 10_000) {
+                library.addBooks(batch);
+                batch.clear();
+            }
+        }
+        library.addBooks(batch);
+        batch.clear();
+        long measured = (usedHeap() - before) / Math.max(1, catalogSize);
+        MemoryReport report = library.getMemoryReport();
+        System.out.printf("%-8s plain %d B/book, held %d B/book, measured %d B/book, %s%n", label,
+                report.getPlainBytesPerBook(), report.getBytesPerBook(), measured, report);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
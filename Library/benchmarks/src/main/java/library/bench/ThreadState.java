@@ -0,0 +1,70 @@
+package library.bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-thread benchmark state: a private random source, a member of its own,
+ * and a small pool of IDs used to add books without growing the catalog without bound.
+ */
+@State(Scope.Thread)
+public class ThreadState {
+    private static final int ADDED_ID_POOL = 1024;
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    public SplittableRandom random;
+    public String memberId;
+    public String[] addedBookIds;
+    private int nextAdded;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogState catalog) {
+        int thread = THREADS.getAndIncrement();
+        random = new SplittableRandom(thread);
+        memberId = catalog.memberIds[thread % catalog.memberIds.length];
+        addedBookIds = new String[ADDED_ID_POOL];
+        for (int i = 0; i < ADDED_ID_POOL; i++) {
+            addedBookIds[i] = "T" + thread + "-" + i;
+        }
+    }
+
+    /**
+     * Picks a random book that is not one of the permanent loans.
+     *
+     * @param catalog The shared catalog.
+     * @return The ID of the chosen book.
+     */
+    public String lendableBookId(CatalogState catalog) {
+        int index;
+        do {
+            index = random.nextInt(catalog.catalogSize);
+        } while (CatalogState.isPermanentlyLent(index));
+        return catalog.bookIds[index];
+    }
+
+    /**
+     * Picks a random book from the whole catalog.
+     *
+     * @param catalog The shared catalog.
+     * @return The ID of the chosen book.
+     */
+    public String anyBookId(CatalogState catalog) {
+        return catalog.bookIds[random.nextInt(catalog.catalogSize)];
+    }
+
+    /**
+     * Cycles through this thread's pool of IDs for newly added books.
+     *
+     * @return The next ID to add under.
+     */
+    public String nextAddedBookId() {
+        String id = addedBookIds[nextAdded];
+        nextAdded = (nextAdded + 1) % addedBookIds.length;
+        return id;
+    }
+}
@@ -1,24 +1,68 @@
 package library;
 
 import library.gui.LibraryManagementSystemGUI;
+import library.persistence.LibraryJournal;
+import library.persistence.LibrarySnapshot;
+import library.persistence.SyncPolicy;
+import library.server.LibraryHttpServer;
 import library.service.LibraryManager;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /**
  * The LibrarySystem class serves as the entry point for the library management application.
- * It initializes the LibraryManager, adds sample data, and launches the graphical user interface.
+ * It initializes the LibraryManager, restores its state from the snapshot and journal, and launches the graphical user interface.
+ * <p>
+ * The snapshot file is taken from the {@code library.snapshot} system property (default {@code library.snapshot}),
+ * the journal file from {@code library.journal} (default {@code library.journal}) and the journal's sync policy
+ * from {@code library.journal.sync}: {@code every-op} (the default), {@code os}, or an interval such as {@code 100ms}.
+ * A new snapshot is written when the application exits, which empties the journal.
+ * Setting {@code library.storage} to {@code columnar} keeps imported books in compact columnar storage.
+ * Loans run for {@code library.loanPeriodDays} days (default 14).
+ * <p>
+ * Started with {@code --server [port]}, the application runs headless and serves the library as a JSON API
+ * over HTTP on the given port (default 8080) instead of launching the GUI; see {@link LibraryHttpServer}.
  */
 public class LibrarySystem {
     /**
      * The main method that starts the library management system.
      *
-     * @param args Command line arguments (not used in this application)
+     * @param args Command line arguments: {@code --server [port]} to serve HTTP instead of launching the GUI
      */
     public static void main(String[] args) {
         // Initialize the LibraryManager
         LibraryManager libraryManager = LibraryManager.getInstance();
 
-        // Add some sample data
-        addSampleData(libraryManager);
+        // Restore the snapshot and replay the journal, and add some sample data to a new library
+        Path snapshotPath = Paths.get(System.getProperty("library.snapshot", "library.snapshot"));
+        LibrarySnapshot snapshot = restoreSnapshot(libraryManager, snapshotPath);
+        LibraryJournal journal = openJournal(libraryManager, snapshot == null ? 0 : snapshot.getGeneration());
+        if (snapshot == null && journal.getReplayedRecordCount() == 0) {
+            addSampleData(libraryManager);
+        }
+
+        // Serve HTTP instead of the GUI if asked to; the server's threads keep the application running
+        LibraryHttpServer server = args.length > 0 && args[0].equals("--server")
+                ? startServer(libraryManager, args.length > 1 ? Integer.parseInt(args[1]) : 8080) : null;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                if (server != null) {
+                    server.close();
+                }
+                libraryManager.checkpoint(snapshotPath);
+                journal.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }));
+        if (server != null) {
+            return;
+        }
 
         // Launch the GUI
         javax.swing.SwingUtilities.invokeLater(() -> {
@@ -27,6 +71,61 @@ public class LibrarySystem {
         });
     }
 
+    /**
+     * Restores the library from its last snapshot, if there is one.
+     *
+     * @param libraryManager The LibraryManager instance to restore
+     * @param snapshotPath   The snapshot file
+     * @return The snapshot, or null if none has been written yet
+     */
+    private static LibrarySnapshot restoreSnapshot(LibraryManager libraryManager, Path snapshotPath) {
+        if (!Files.exists(snapshotPath)) {
+            return null;
+        }
+        try {
+            return libraryManager.restoreSnapshot(snapshotPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read snapshot " + snapshotPath, e);
+        }
+    }
+
+    /**
+     * Opens the journal, replays it into the library manager and attaches it,
+     * so that every later change is recorded.
+     *
+     * @param libraryManager The LibraryManager instance to restore
+     * @param generation     The generation of the snapshot the library was restored from, or 0
+     * @return The open journal
+     */
+    private static LibraryJournal openJournal(LibraryManager libraryManager, long generation) {
+        Path path = Paths.get(System.getProperty("library.journal", "library.journal"));
+        SyncPolicy policy = SyncPolicy.parse(System.getProperty("library.journal.sync", "every-op"));
+        try {
+            LibraryJournal journal = LibraryJournal.open(path, policy, generation, libraryManager::replay);
+            libraryManager.attachJournal(journal);
+            return journal;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open journal " + path, e);
+        }
+    }
+
+    /**
+     * Starts the HTTP server on all interfaces.
+     *
+     * @param libraryManager The LibraryManager instance to serve
+     * @param port           The port to listen on
+     * @return The running server
+     */
+    private static LibraryHttpServer startServer(LibraryManager libraryManager, int port) {
+        try {
+            LibraryHttpServer server = LibraryHttpServer.start(libraryManager, new InetSocketAddress(port));
+            System.out.println("Serving the library on port " + server.getPort());
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen on port " + port, e);
+        }
+    }
+
     /**
      * Adds sample data to the library management system.
      * This method is used for demonstration purposes and populates the system with
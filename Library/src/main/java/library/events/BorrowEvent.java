@@ -0,0 +1,47 @@
+package library.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for a book borrowed through the library manager, including the wait
+ * for its journal record to become durable.
+ */
+@Name("library.Borrow")
+@Label("Borrow Book")
+@Category({"Library", "Loans"})
+@Description("A member borrowing a book")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class BorrowEvent extends Event {
+    @Label("Book ID")
+    String bookId;
+
+    @Label("Member ID")
+    String memberId;
+
+    @Label("Outcome")
+    String outcome;
+
+    /**
+     * Ends the event and commits it if it is enabled and exceeded its threshold.
+     *
+     * @param bookId   The ID of the book.
+     * @param memberId The ID of the member.
+     * @param outcome  The outcome, such as {@code SUCCESS} or {@code UNAVAILABLE}.
+     */
+    public void complete(String bookId, String memberId, String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.bookId = bookId;
+            this.memberId = memberId;
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package library.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for a batch of journal records written, and possibly forced, to disk.
+ */
+@Name("library.JournalWrite")
+@Label("Journal Write")
+@Category({"Library", "Persistence"})
+@Description("A group commit of journal records")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class JournalWriteEvent extends Event {
+    @Label("Records")
+    long records;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Forced")
+    boolean forced;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    /**
+     * Ends the event and commits it if it is enabled and exceeded its threshold.
+     *
+     * @param records   The number of records in the batch.
+     * @param bytes     The size of the batch.
+     * @param forced    true if the batch was forced to disk.
+     * @param succeeded false if the write or force failed.
+     */
+    public void complete(long records, long bytes, boolean forced, boolean succeeded) {
+        end();
+        if (shouldCommit()) {
+            this.records = records;
+            this.bytes = bytes;
+            this.forced = forced;
+            this.succeeded = succeeded;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package library.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for telling a book's observers that it has become available.
+ */
+@Name("library.Notification")
+@Label("Availability Notification")
+@Category({"Library", "Notifications"})
+@Description("The observers of a book being told that it is available")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class NotificationEvent extends Event {
+    @Label("Book ID")
+    String bookId;
+
+    @Label("Observers")
+    int observers;
+
+    /**
+     * Ends the event and commits it if it is enabled and exceeded its threshold.
+     *
+     * @param bookId    The ID of the book.
+     * @param observers The number of observers notified.
+     */
+    public void complete(String bookId, int observers) {
+        end();
+        if (shouldCommit()) {
+            this.bookId = bookId;
+            this.observers = observers;
+            commit();
+        }
+    }
+}
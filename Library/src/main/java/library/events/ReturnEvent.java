@@ -0,0 +1,42 @@
+package library.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for a book returned through the library manager, including the wait
+ * for its journal record to become durable.
+ */
+@Name("library.Return")
+@Label("Return Book")
+@Category({"Library", "Loans"})
+@Description("A borrowed book being returned")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class ReturnEvent extends Event {
+    @Label("Book ID")
+    String bookId;
+
+    @Label("Outcome")
+    String outcome;
+
+    /**
+     * Ends the event and commits it if it is enabled and exceeded its threshold.
+     *
+     * @param bookId  The ID of the book.
+     * @param outcome The outcome, such as {@code SUCCESS} or {@code NOT_BORROWED}.
+     */
+    public void complete(String bookId, String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.bookId = bookId;
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package library.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for a full-text search of the catalog.
+ */
+@Name("library.Search")
+@Label("Search Books")
+@Category({"Library", "Catalog"})
+@Description("A full-text search of titles and authors")
+@Threshold("5 ms")
+@StackTrace(false)
+public final class SearchEvent extends Event {
+    @Label("Query")
+    String query;
+
+    @Label("Limit")
+    int limit;
+
+    @Label("Results")
+    int results;
+
+    /**
+     * Ends the event and commits it if it is enabled and exceeded its threshold.
+     *
+     * @param query   The query.
+     * @param limit   The maximum number of results asked for.
+     * @param results The number of results found, or -1 if the search failed.
+     */
+    public void complete(String query, int limit, int results) {
+        end();
+        if (shouldCommit()) {
+            this.query = query;
+            this.limit = limit;
+            this.results = results;
+            commit();
+        }
+    }
+}
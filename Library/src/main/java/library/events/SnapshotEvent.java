@@ -0,0 +1,58 @@
+package library.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for writing or opening a library snapshot. Snapshots are rare and
+ * large, so every one is recorded.
+ */
+@Name("library.Snapshot")
+@Label("Snapshot I/O")
+@Category({"Library", "Persistence"})
+@Description("A library snapshot being written or opened")
+@StackTrace(false)
+public final class SnapshotEvent extends Event {
+    @Label("Path")
+    String path;
+
+    @Label("Write")
+    @Description("true if the snapshot was written, false if it was opened")
+    boolean write;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Books")
+    int books;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    /**
+     * Ends the event and commits it if it is enabled.
+     *
+     * @param path      The snapshot file.
+     * @param write     true if the snapshot was written, false if it was opened.
+     * @param bytes     The size of the snapshot file, or -1 if unknown.
+     * @param books     The number of books in an opened snapshot, or -1 for a written one or a failure.
+     * @param succeeded false if the operation failed.
+     */
+    public void complete(String path, boolean write, long bytes, int books, boolean succeeded) {
+        end();
+        if (shouldCommit()) {
+            this.path = path;
+            this.write = write;
+            this.bytes = bytes;
+            this.books = books;
+            this.succeeded = succeeded;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package library.gui;
+
+import library.search.Completion;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Suggests completions below a text field while the user types.
+ * Lookups start once typing pauses and run on a background thread, so the event dispatch thread
+ * never waits for them; results that arrive after the text has changed again are discarded.
+ */
+class CompletionPopup {
+    private static final int DELAY_MILLIS = 150;
+
+    private final JTextField field;
+    private final Function<String, List<Completion>> source;
+    private final Function<Completion, String> insertion;
+    private final JPopupMenu popup;
+    private final Timer timer;
+    private SwingWorker<List<Completion>, Void> worker;
+    private boolean inserting;
+
+    /**
+     * Installs completion on a text field.
+     *
+     * @param field     The field to complete.
+     * @param source    Looks up the completions for the text typed so far; called off the event dispatch thread.
+     * @param insertion Gives the text a chosen completion puts into the field.
+     */
+    static void install(JTextField field, Function<String, List<Completion>> source,
+                        Function<Completion, String> insertion) {
+        new CompletionPopup(field, source, insertion);
+    }
+
+    private CompletionPopup(JTextField field, Function<String, List<Completion>> source,
+                            Function<Completion, String> insertion) {
+        this.field = field;
+        this.source = source;
+        this.insertion = insertion;
+        this.popup = new JPopupMenu();
+        this.popup.setFocusable(false);
+        this.timer = new Timer(DELAY_MILLIS, e -> lookUp());
+        this.timer.setRepeats(false);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                timer.stop();
+                popup.setVisible(false);
+            }
+        });
+    }
+
+    /**
+     * Restarts the delay before a lookup, so that a lookup only runs once typing pauses.
+     */
+    private void textChanged() {
+        if (!inserting) {
+            timer.restart();
+        }
+    }
+
+    /**
+     * Looks up completions for the field's text in the background.
+     */
+    private void lookUp() {
+        if (worker != null) {
+            worker.cancel(false);
+        }
+        String prefix = field.getText().trim();
+        if (prefix.isEmpty()) {
+            popup.setVisible(false);
+            return;
+        }
+        worker = new SwingWorker<>() {
+            @Override
+            protected List<Completion> doInBackground() {
+                return source.apply(prefix);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || !prefix.equals(field.getText().trim())) {
+                    return;
+                }
+                try {
+                    show(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    popup.setVisible(false);
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    /**
+     * Shows completions below the field, or hides the popup if there are none.
+     */
+    private void show(List<Completion> completions) {
+        popup.setVisible(false);
+        popup.removeAll();
+        if (completions.isEmpty() || !field.isFocusOwner()) {
+            return;
+        }
+        for (Completion completion : completions) {
+            JMenuItem item = new JMenuItem(label(completion));
+            item.addActionListener(e -> accept(completion));
+            popup.add(item);
+        }
+        popup.show(field, 0, field.getHeight());
+    }
+
+    private static String label(Completion completion) {
+        switch (completion.getKind()) {
+            case TITLE:
+            case AUTHOR:
+            case MEMBER_NAME:
+                return completion.getText() + " (" + completion.getId() + ")";
+            default:
+                return completion.getText();
+        }
+    }
+
+    /**
+     * Puts a chosen completion into the field without starting another lookup.
+     */
+    private void accept(Completion completion) {
+        inserting = true;
+        try {
+            field.setText(insertion.apply(completion));
+        } finally {
+            inserting = false;
+        }
+        popup.setVisible(false);
+        field.requestFocusInWindow();
+    }
+}
@@ -1,21 +1,39 @@
 package library.gui;
 
-import library.model.LibrarySummary;
+import library.model.Book;
+import library.model.Loan;
+import library.search.Completion;
 import library.service.LibraryManager;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 /**
  * The LibraryManagementSystemGUI class provides a graphical user interface for the Library Management System.
  * It allows users to perform operations such as adding books and members, borrowing and returning books,
  * and viewing a summary of the library's current state.
+ * <p>
+ * Library operations run on background workers, so the window stays responsive while they wait for the
+ * journal or recount the library. The catalog and the active loans are shown in tables that load only
+ * the pages in view, so they stay responsive with millions of rows.
  */
 public class LibraryManagementSystemGUI extends JFrame {
+    private static final int COMPLETION_LIMIT = 10;
+    private static final Set<Completion.Kind> BOOK_COMPLETIONS = EnumSet.of(Completion.Kind.BOOK_ID, Completion.Kind.TITLE);
+    private static final Set<Completion.Kind> AUTHOR_COMPLETIONS = EnumSet.of(Completion.Kind.AUTHOR);
+    private static final Set<Completion.Kind> MEMBER_COMPLETIONS = EnumSet.of(Completion.Kind.MEMBER_ID, Completion.Kind.MEMBER_NAME);
+
     private LibraryManager libraryManager;
     private JTextField bookIdField, bookTitleField, bookAuthorField, bookYearField, bookTypeField;
     private JTextField memberIdField, memberNameField;
-    private JTextArea outputArea;
+    private JLabel statusLabel;
+    private PagedTableModel<Book> catalogModel;
+    private PagedTableModel<Loan> loansModel;
     private JButton addBookButton, addMemberButton, borrowBookButton, returnBookButton, showSummaryButton;
 
     /**
@@ -40,8 +58,8 @@ public class LibraryManagementSystemGUI extends JFrame {
         // Create panels
         JPanel inputPanel = new JPanel(new GridLayout(0, 2, 5, 5));
         JPanel buttonPanel = new JPanel(new FlowLayout());
-        outputArea = new JTextArea(10, 40);
-        JScrollPane scrollPane = new JScrollPane(outputArea);
+        statusLabel = new JLabel(" ");
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
 
         // Add components to input panel
         inputPanel.add(new JLabel("Book ID:"));
@@ -72,6 +90,14 @@ public class LibraryManagementSystemGUI extends JFrame {
         memberNameField = new JTextField(10);
         inputPanel.add(memberNameField);
 
+        // Suggest IDs by ID, title or name, and authors by name, while the user types
+        CompletionPopup.install(bookIdField,
+                prefix -> libraryManager.complete(prefix, COMPLETION_LIMIT, BOOK_COMPLETIONS), Completion::getId);
+        CompletionPopup.install(bookAuthorField,
+                prefix -> libraryManager.complete(prefix, COMPLETION_LIMIT, AUTHOR_COMPLETIONS), Completion::getText);
+        CompletionPopup.install(memberIdField,
+                prefix -> libraryManager.complete(prefix, COMPLETION_LIMIT, MEMBER_COMPLETIONS), Completion::getId);
+
         // Add buttons
         addBookButton = new JButton("Add Book");
         addMemberButton = new JButton("Add Member");
@@ -92,10 +118,53 @@ public class LibraryManagementSystemGUI extends JFrame {
         returnBookButton.addActionListener(e -> returnBook());
         showSummaryButton.addActionListener(e -> showSummary());
 
+        // Add tables of the catalog and the active loans; choosing a row fills in its IDs
+        catalogModel = PagedTableModel.catalog(libraryManager);
+        loansModel = PagedTableModel.activeLoans(libraryManager);
+        catalogModel.setFailureListener(e -> setStatus("Error loading catalog: " + e.getMessage()));
+        loansModel.setFailureListener(e -> setStatus("Error loading loans: " + e.getMessage()));
+        JTable catalogTable = createTable(catalogModel);
+        JTable loansTable = createTable(loansModel);
+        catalogTable.getSelectionModel().addListSelectionListener(e -> {
+            Book book = selectedRow(catalogTable, catalogModel);
+            if (!e.getValueIsAdjusting() && book != null) {
+                bookIdField.setText(book.getId());
+            }
+        });
+        loansTable.getSelectionModel().addListSelectionListener(e -> {
+            Loan loan = selectedRow(loansTable, loansModel);
+            if (!e.getValueIsAdjusting() && loan != null) {
+                bookIdField.setText(loan.getBook().getId());
+                memberIdField.setText(loan.getMember().getId());
+            }
+        });
+        JTabbedPane tables = new JTabbedPane();
+        tables.addTab("Catalog", new JScrollPane(catalogTable));
+        tables.addTab("Loans", new JScrollPane(loansTable));
+
         // Add panels to frame
-        add(inputPanel, BorderLayout.NORTH);
-        add(buttonPanel, BorderLayout.CENTER);
-        add(scrollPane, BorderLayout.SOUTH);
+        JPanel controlPanel = new JPanel(new BorderLayout());
+        controlPanel.add(inputPanel, BorderLayout.CENTER);
+        controlPanel.add(buttonPanel, BorderLayout.SOUTH);
+        add(controlPanel, BorderLayout.NORTH);
+        add(tables, BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+        refreshTables();
+    }
+
+    /**
+     * Creates a table over a paged model. Sorting is left off, since it would have to load every page.
+     */
+    private static JTable createTable(PagedTableModel<?> model) {
+        JTable table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        return table;
+    }
+
+    private static <T> T selectedRow(JTable table, PagedTableModel<T> model) {
+        int row = table.getSelectedRow();
+        return row >= 0 ? model.getRow(row) : null;
     }
 
     /**
@@ -121,13 +190,16 @@ public class LibraryManagementSystemGUI extends JFrame {
                 return;
             }
 
-            libraryManager.addBook(type, id, title, author, year);
-            outputArea.append("Book added: " + title + " by " + author + "\n");
-            clearBookFields();
+            runInBackground("Error adding book: ", () -> {
+                libraryManager.addBook(type, id, title, author, year);
+                return null;
+            }, result -> {
+                setStatus("Book added: " + title + " by " + author);
+                clearBookFields();
+                refreshTables();
+            });
         } catch (NumberFormatException e) {
             showError("Invalid year format. Please enter a valid number.");
-        } catch (IllegalArgumentException e) {
-            showError("Error adding book: " + e.getMessage());
         }
     }
 
@@ -144,13 +216,13 @@ public class LibraryManagementSystemGUI extends JFrame {
             return;
         }
 
-        try {
+        runInBackground("Error adding member: ", () -> {
             libraryManager.addMember(id, name);
-            outputArea.append("Member added: " + name + " (ID: " + id + ")\n");
+            return null;
+        }, result -> {
+            setStatus("Member added: " + name + " (ID: " + id + ")");
             clearMemberFields();
-        } catch (IllegalArgumentException e) {
-            showError("Error adding member: " + e.getMessage());
-        }
+        });
     }
 
     /**
@@ -166,16 +238,14 @@ public class LibraryManagementSystemGUI extends JFrame {
             return;
         }
 
-        try {
-            boolean success = libraryManager.borrowBook(bookId, memberId);
+        runInBackground("Error borrowing book: ", () -> libraryManager.borrowBook(bookId, memberId), success -> {
             if (success) {
-                outputArea.append("Book (ID: " + bookId + ") borrowed by member (ID: " + memberId + ")\n");
+                setStatus("Book (ID: " + bookId + ") borrowed by member (ID: " + memberId + ")");
+                refreshTables();
             } else {
                 showError("Failed to borrow book. Please check if the book is available and the member exists.");
             }
-        } catch (IllegalArgumentException e) {
-            showError("Error borrowing book: " + e.getMessage());
-        }
+        });
     }
 
     /**
@@ -190,32 +260,71 @@ public class LibraryManagementSystemGUI extends JFrame {
             return;
         }
 
-        try {
-            boolean success = libraryManager.returnBook(bookId);
+        runInBackground("Error returning book: ", () -> libraryManager.returnBook(bookId), success -> {
             if (success) {
-                outputArea.append("Book (ID: " + bookId + ") returned successfully\n");
+                setStatus("Book (ID: " + bookId + ") returned successfully");
+                refreshTables();
             } else {
                 showError("Failed to return book. Please check if the book was borrowed.");
             }
-        } catch (IllegalArgumentException e) {
-            showError("Error returning book: " + e.getMessage());
-        }
+        });
     }
 
     /**
      * Displays a summary of the library's current state.
      */
     private void showSummary() {
-        try {
-            LibrarySummary summary = libraryManager.getLibrarySummary();
-            outputArea.append("Library Summary:\n");
-            outputArea.append("Available Books: " + summary.getAvailableBooks() + "\n");
-            outputArea.append("Borrowed Books: " + summary.getBorrowedBooks() + "\n");
-            outputArea.append("Active Members: " + summary.getActiveMembers() + "\n");
-            outputArea.append("Total Loans: " + summary.getTotalLoans() + "\n");
-        } catch (Exception e) {
-            showError("Error getting library summary: " + e.getMessage());
-        }
+        runInBackground("Error getting library summary: ", libraryManager::getLibrarySummary,
+                summary -> setStatus("Library Summary: "
+                        + "Available Books: " + summary.getAvailableBooks()
+                        + ", Borrowed Books: " + summary.getBorrowedBooks()
+                        + ", Active Members: " + summary.getActiveMembers()
+                        + ", Total Loans: " + summary.getTotalLoans()));
+    }
+
+    /**
+     * Runs a library operation on a background worker and handles its result on the event dispatch thread.
+     *
+     * @param errorPrefix The text put before the message of an exception thrown by the operation
+     * @param operation   The operation to run
+     * @param onSuccess   Handles the operation's result
+     * @param <T>         The type of the result
+     */
+    private <T> void runInBackground(String errorPrefix, Callable<T> operation, Consumer<T> onSuccess) {
+        new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return operation.call();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    onSuccess.accept(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    showError(errorPrefix + e.getCause().getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Reloads the catalog and loan tables, after an operation changed them.
+     */
+    private void refreshTables() {
+        catalogModel.refresh();
+        loansModel.refresh();
+    }
+
+    /**
+     * Shows the outcome of the last operation in the status bar.
+     *
+     * @param message the message to show
+     */
+    private void setStatus(String message) {
+        statusLabel.setText(message);
     }
 
     /**
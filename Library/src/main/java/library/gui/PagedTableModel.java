@@ -0,0 +1,305 @@
+package library.gui;
+
+import library.model.Book;
+import library.model.BookPage;
+import library.model.Loan;
+import library.model.LoanPage;
+import library.service.LibraryManager;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * A table model over a cursor-paged view, such as the catalog ordered by title, that loads only the
+ * pages the table asks for. A row whose page has not arrived yet reads as empty; its page is fetched
+ * by a background worker and the rows are repainted when it arrives.
+ * <p>
+ * Recently viewed pages are kept in a bounded cache, so memory does not grow with the size of the view.
+ * Each page is fetched in one call, starting at an offset from the nearest page whose cursor is known.
+ * The view passes over the rows in between by its index entries, without loading them, but one entry
+ * at a time: a jump costs time in proportion to its distance from the nearest known page, so the first
+ * jump to the end of millions of rows walks them all once. Every fetch records the cursor of the page
+ * after it, so scrolling on from there is cheap. All state is confined to the event dispatch thread;
+ * only the fetches run in the background. Failed fetches are reported to the failure listener, if one is set.
+ *
+ * @param <T> The type of the rows.
+ */
+class PagedTableModel<T> extends AbstractTableModel {
+    static final int PAGE_SIZE = 200;
+    private static final int CACHED_PAGES = 32;
+    private static final int QUEUED_PAGES = 8;
+
+    private final String[] columnNames;
+    private final BiFunction<T, Integer, Object> cells;
+    private final PageSource<T> source;
+    private final IntSupplier rowCounter;
+    private final Map<Integer, List<T>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+    private final NavigableMap<Integer, String> cursors = new TreeMap<>();
+    private final Deque<Integer> queued = new ArrayDeque<>();
+    private Consumer<Throwable> failureListener = e -> {
+    };
+    private int rowCount;
+    private int generation;
+    private boolean loading;
+
+    /**
+     * Constructs a new PagedTableModel. Call {@link #refresh()} to load it.
+     *
+     * @param columnNames The column names.
+     * @param cells       Gets the value of a row's column.
+     * @param source      Fetches a page of the view; called off the event dispatch thread.
+     * @param rowCounter  Counts the rows of the view; called off the event dispatch thread.
+     */
+    PagedTableModel(String[] columnNames, BiFunction<T, Integer, Object> cells, PageSource<T> source,
+                    IntSupplier rowCounter) {
+        this.columnNames = columnNames.clone();
+        this.cells = cells;
+        this.source = source;
+        this.rowCounter = rowCounter;
+        this.cursors.put(0, null);
+    }
+
+    /**
+     * Creates a model of the catalog ordered by title.
+     *
+     * @param libraryManager The library manager to read from.
+     * @return The new model.
+     */
+    static PagedTableModel<Book> catalog(LibraryManager libraryManager) {
+        return new PagedTableModel<>(new String[]{"Book ID", "Title", "Author", "Year", "Status"},
+                (book, column) -> {
+                    switch (column) {
+                        case 0: return book.getId();
+                        case 1: return book.getTitle();
+                        case 2: return book.getAuthor();
+                        case 3: return book.getPublicationYear();
+                        default: return book.getStatus();
+                    }
+                },
+                (cursor, offset, limit) -> {
+                    BookPage page = libraryManager.getBooksByTitle(cursor, offset, limit);
+                    return new Page<>(page.getBooks(), page.getNextCursor());
+                },
+                libraryManager::getBookCount);
+    }
+
+    /**
+     * Creates a model of the active loans, earliest due date first.
+     *
+     * @param libraryManager The library manager to read from.
+     * @return The new model.
+     */
+    static PagedTableModel<Loan> activeLoans(LibraryManager libraryManager) {
+        return new PagedTableModel<>(new String[]{"Book ID", "Title", "Member ID", "Member", "Due"},
+                (loan, column) -> {
+                    switch (column) {
+                        case 0: return loan.getBook().getId();
+                        case 1: return loan.getBook().getTitle();
+                        case 2: return loan.getMember().getId();
+                        case 3: return loan.getMember().getName();
+                        default: return Instant.ofEpochMilli(loan.getDueTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+                    }
+                },
+                (cursor, offset, limit) -> {
+                    LoanPage page = libraryManager.getActiveLoans(cursor, offset, limit);
+                    return new Page<>(page.getLoans(), page.getNextCursor());
+                },
+                libraryManager::getActiveLoanCount);
+    }
+
+    /**
+     * Sets the listener told on the event dispatch thread when a page or the row count cannot be fetched.
+     *
+     * @param failureListener The listener.
+     */
+    void setFailureListener(Consumer<Throwable> failureListener) {
+        this.failureListener = failureListener;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        T row = getRow(rowIndex);
+        return row != null ? cells.apply(row, columnIndex) : null;
+    }
+
+    /**
+     * Gets a row if its page has been loaded, and otherwise asks for the page.
+     *
+     * @param rowIndex The index of the row.
+     * @return The row, or null if its page is still loading.
+     */
+    T getRow(int rowIndex) {
+        int pageNumber = rowIndex / PAGE_SIZE;
+        List<T> page = pages.get(pageNumber);
+        if (page == null) {
+            requestPage(pageNumber);
+            return null;
+        }
+        int index = rowIndex % PAGE_SIZE;
+        return index < page.size() ? page.get(index) : null;
+    }
+
+    /**
+     * Drops every loaded page and cursor and recounts the rows in the background,
+     * for example after the view has changed. Pages are fetched again as the table asks for them.
+     */
+    void refresh() {
+        int refreshed = ++generation;
+        pages.clear();
+        cursors.clear();
+        cursors.put(0, null);
+        queued.clear();
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return rowCounter.getAsInt();
+            }
+
+            @Override
+            protected void done() {
+                if (refreshed != generation) {
+                    return;
+                }
+                try {
+                    rowCount = get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    rowCount = 0;
+                    failureListener.accept(e.getCause());
+                }
+                fireTableDataChanged();
+            }
+        }.execute();
+    }
+
+    /**
+     * Queues a page to be fetched, keeping only the pages asked for most recently,
+     * since those are the ones on screen.
+     */
+    private void requestPage(int pageNumber) {
+        if (queued.contains(pageNumber)) {
+            return;
+        }
+        queued.addLast(pageNumber);
+        if (queued.size() > QUEUED_PAGES) {
+            queued.removeFirst();
+        }
+        if (!loading) {
+            loadNext();
+        }
+    }
+
+    /**
+     * Starts fetching the most recently asked-for page that is not yet loaded.
+     */
+    private void loadNext() {
+        Integer target;
+        do {
+            target = queued.pollLast();
+        } while (target != null && pages.containsKey(target));
+        if (target == null) {
+            return;
+        }
+        loading = true;
+        int pageNumber = target;
+        int loadGeneration = generation;
+        Map.Entry<Integer, String> start = cursors.floorEntry(pageNumber);
+        int offset = (pageNumber - start.getKey()) * PAGE_SIZE;
+        new SwingWorker<Page<T>, Void>() {
+            @Override
+            protected Page<T> doInBackground() {
+                // Seek from the nearest page whose cursor is known; the rows in between are never loaded
+                return source.fetch(start.getValue(), offset, PAGE_SIZE);
+            }
+
+            @Override
+            protected void done() {
+                loading = false;
+                if (loadGeneration == generation) {
+                    try {
+                        Page<T> page = get();
+                        if (page.nextCursor != null) {
+                            cursors.put(pageNumber + 1, page.nextCursor);
+                        }
+                        pages.put(pageNumber, page.rows);
+                        int first = pageNumber * PAGE_SIZE;
+                        int last = Math.min(rowCount, first + PAGE_SIZE) - 1;
+                        if (first <= last) {
+                            fireTableRowsUpdated(first, last);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException e) {
+                        failureListener.accept(e.getCause());
+                    }
+                }
+                loadNext();
+            }
+        }.execute();
+    }
+
+    /**
+     * Fetches one page of a view.
+     *
+     * @param <T> The type of the rows.
+     */
+    @FunctionalInterface
+    interface PageSource<T> {
+        /**
+         * Fetches a page.
+         *
+         * @param cursor The cursor to start from, or null for the start of the view.
+         * @param offset The number of rows to skip after the cursor.
+         * @param limit  The maximum number of rows on the page.
+         * @return The page.
+         */
+        Page<T> fetch(String cursor, int offset, int limit);
+    }
+
+    /**
+     * The rows of one page and the cursor of the following page, or null if it is the last.
+     */
+    static final class Page<T> {
+        private final List<T> rows;
+        private final String nextCursor;
+
+        Page(List<T> rows, String nextCursor) {
+            this.rows = rows;
+            this.nextCursor = nextCursor;
+        }
+    }
+}
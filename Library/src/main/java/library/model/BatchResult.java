@@ -0,0 +1,90 @@
+package library.model;
+
+/**
+ * Represents the per-item outcome of a batch operation, such as borrowing a tray of books.
+ * Outcomes are stored one byte per item, in the order the items were given.
+ */
+public class BatchResult {
+    /**
+     * The possible outcomes of one item of a batch.
+     */
+    public enum Outcome {
+        /** The item was processed. */
+        SUCCESS,
+        /** No book has the given ID. */
+        BOOK_NOT_FOUND,
+        /** No member has the given ID. */
+        MEMBER_NOT_FOUND,
+        /** The book could not be borrowed because it is borrowed, reserved for someone else or under maintenance. */
+        UNAVAILABLE,
+        /** The book could not be returned because it is not on loan. */
+        NOT_BORROWED,
+        /** The book could not be added because a book with the same ID already exists. */
+        DUPLICATE_ID
+    }
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final byte[] outcomes;
+    private int successCount;
+
+    /**
+     * Constructs a new BatchResult for the given number of items, all marked successful.
+     *
+     * @param size The number of items in the batch.
+     */
+    public BatchResult(int size) {
+        this.outcomes = new byte[size];
+        this.successCount = size;
+    }
+
+    /**
+     * Sets the outcome of an item while the batch is processed.
+     *
+     * @param index   The position of the item in the batch.
+     * @param outcome The outcome of the item.
+     */
+    public void set(int index, Outcome outcome) {
+        boolean wasSuccess = outcomes[index] == 0;
+        outcomes[index] = (byte) outcome.ordinal();
+        successCount += (outcome == Outcome.SUCCESS ? 1 : 0) - (wasSuccess ? 1 : 0);
+    }
+
+    /**
+     * Gets the outcome of an item.
+     *
+     * @param index The position of the item in the batch.
+     * @return The outcome of the item.
+     */
+    public Outcome getOutcome(int index) {
+        return OUTCOMES[outcomes[index]];
+    }
+
+    /**
+     * Checks whether an item was processed.
+     *
+     * @param index The position of the item in the batch.
+     * @return true if the item succeeded, false otherwise.
+     */
+    public boolean isSuccess(int index) {
+        return outcomes[index] == 0;
+    }
+
+    // Getters
+
+    public int size() {
+        return outcomes.length;
+    }
+
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "size=" + outcomes.length +
+                ", successCount=" + successCount +
+                '}';
+    }
+}
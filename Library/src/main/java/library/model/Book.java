@@ -1,24 +1,49 @@
 package library.model;
 
+import library.events.NotificationEvent;
 import library.util.BookAvailabilityObserver;
+import library.util.BookChangeListener;
 import library.util.BookAvailabilitySubject;
 import library.util.BookStatus;
 
-import java.util.ArrayList;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Represents a book in the library system.
  * This class implements the Prototype pattern for easy duplication
  * and the Observer pattern for notifying members about availability changes.
+ * <p>
+ * The status and whether a change listener is attached are kept together in a single
+ * state word that is only updated by compare-and-set, so status transitions never lock
+ * and every transition is reported exactly once to the listener that was attached at the time.
+ * The list of observers is only created when the first observer is added, since most books
+ * in a large catalog are never watched.
  */
 public class Book implements Cloneable, BookAvailabilitySubject {
+    private static final BookStatus[] STATUSES = BookStatus.values();
+    private static final int STATUS_MASK = 0xFF;
+    private static final int ATTACHED = 1 << 8;
+    private static final int ATTACHING = 1 << 9;
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(Book.class, "state", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private String id;
     private String title;
     private String author;
     private int publicationYear;
-    private BookStatus status;
-    private List<BookAvailabilityObserver> observers;
+    private volatile int state;
+    private volatile List<BookAvailabilityObserver> observers;
+    private volatile BookChangeListener changeListener;
 
     /**
      * Constructs a new Book with the given details.
@@ -33,8 +58,7 @@ public class Book implements Cloneable, BookAvailabilitySubject {
         this.title = title;
         this.author = author;
         this.publicationYear = publicationYear;
-        this.status = BookStatus.AVAILABLE;
-        this.observers = new ArrayList<>();
+        this.state = BookStatus.AVAILABLE.ordinal();
     }
 
     /**
@@ -71,6 +95,7 @@ public class Book implements Cloneable, BookAvailabilitySubject {
      */
     public void setTitle(String title) {
         this.title = title;
+        metadataChanged();
     }
 
     /**
@@ -89,6 +114,7 @@ public class Book implements Cloneable, BookAvailabilitySubject {
      */
     public void setAuthor(String author) {
         this.author = author;
+        metadataChanged();
     }
 
     /**
@@ -107,6 +133,19 @@ public class Book implements Cloneable, BookAvailabilitySubject {
      */
     public void setPublicationYear(int publicationYear) {
         this.publicationYear = publicationYear;
+        metadataChanged();
+    }
+
+    /**
+     * Reports a change of the book's details to the change listener, if one is attached.
+     */
+    private void metadataChanged() {
+        if ((state & ATTACHED) != 0) {
+            BookChangeListener listener = changeListener;
+            if (listener != null) {
+                listener.metadataChanged(this);
+            }
+        }
     }
 
     /**
@@ -115,22 +154,104 @@ public class Book implements Cloneable, BookAvailabilitySubject {
      * @return The book's status.
      */
     public BookStatus getStatus() {
-        return status;
+        return STATUSES[state & STATUS_MASK];
     }
 
     /**
-     * Sets the status of the book and notifies observers if the book becomes available.
+     * Sets the status of the book, reports the transition to the change listener
+     * and notifies observers if the book becomes available.
      *
      * @param status The new status of the book.
      */
     public void setStatus(BookStatus status) {
-        BookStatus oldStatus = this.status;
-        this.status = status;
+        int prev;
+        do {
+            prev = state;
+        } while (!STATE.compareAndSet(this, prev, (prev & ~STATUS_MASK) | status.ordinal()));
+        statusTransitioned(prev, status);
+    }
+
+    /**
+     * Atomically sets the status of the book if it currently has the expected status.
+     * Of several threads racing on the same transition exactly one succeeds, and only that
+     * thread reports the transition and notifies observers.
+     *
+     * @param expected The status the book must currently have.
+     * @param next     The new status of the book.
+     * @return true if the status was changed, false if the book did not have the expected status.
+     */
+    public boolean compareAndSetStatus(BookStatus expected, BookStatus next) {
+        int prev;
+        do {
+            prev = state;
+            if ((prev & STATUS_MASK) != expected.ordinal()) {
+                return false;
+            }
+        } while (!STATE.compareAndSet(this, prev, (prev & ~STATUS_MASK) | next.ordinal()));
+        statusTransitioned(prev, next);
+        return true;
+    }
+
+    /**
+     * Reports a completed status transition to the change listener and the observers.
+     * If the change listener takes over availability notifications, the observers are notified by it.
+     *
+     * @param prev   The state word before the transition.
+     * @param status The new status of the book.
+     */
+    private void statusTransitioned(int prev, BookStatus status) {
+        BookStatus oldStatus = STATUSES[prev & STATUS_MASK];
+        if (oldStatus != status && (prev & ATTACHED) != 0) {
+            changeListener.statusChanged(this, oldStatus, status);
+        }
         if (oldStatus != BookStatus.AVAILABLE && status == BookStatus.AVAILABLE) {
-            notifyObservers();
+            if ((prev & ATTACHED) == 0 || !changeListener.dispatchAvailability(this)) {
+                notifyObservers();
+            }
         }
     }
 
+    /**
+     * Attaches the listener that is told about status changes of this book.
+     * The library owning the book attaches itself while the book is in its catalog.
+     *
+     * @param changeListener The listener to attach.
+     * @return The status at the moment of attaching, from which the listener starts tracking,
+     * or null if a listener was already attached, in which case that listener stays attached.
+     */
+    public BookStatus attachChangeListener(BookChangeListener changeListener) {
+        // Claim the book first, so that a book already attached elsewhere keeps its listener
+        int prev;
+        do {
+            prev = state;
+            if ((prev & (ATTACHED | ATTACHING)) != 0) {
+                return null;
+            }
+        } while (!STATE.compareAndSet(this, prev, prev | ATTACHING));
+        this.changeListener = changeListener;
+        do {
+            prev = state;
+        } while (!STATE.compareAndSet(this, prev, (prev & ~ATTACHING) | ATTACHED));
+        return STATUSES[prev & STATUS_MASK];
+    }
+
+    /**
+     * Detaches the change listener. Transitions that completed before this call
+     * have been reported to it; later ones are not.
+     *
+     * @return The status at the moment of detaching, or null if no listener was attached.
+     */
+    public BookStatus detachChangeListener() {
+        int prev;
+        do {
+            prev = state;
+            if ((prev & ATTACHED) == 0) {
+                return null;
+            }
+        } while (!STATE.compareAndSet(this, prev, prev & ~ATTACHED));
+        return STATUSES[prev & STATUS_MASK];
+    }
+
     /**
      * Creates and returns a copy of this book.
      *
@@ -140,7 +261,9 @@ public class Book implements Cloneable, BookAvailabilitySubject {
     @Override
     public Book clone() throws CloneNotSupportedException {
         Book clonedBook = (Book) super.clone();
-        clonedBook.observers = new ArrayList<>();
+        clonedBook.observers = null;
+        clonedBook.state = state & STATUS_MASK;
+        clonedBook.changeListener = null;
         return clonedBook;
     }
 
@@ -151,7 +274,17 @@ public class Book implements Cloneable, BookAvailabilitySubject {
      */
     @Override
     public void addObserver(BookAvailabilityObserver observer) {
-        observers.add(observer);
+        List<BookAvailabilityObserver> current = observers;
+        if (current == null) {
+            synchronized (this) {
+                current = observers;
+                if (current == null) {
+                    current = new CopyOnWriteArrayList<>();
+                    observers = current;
+                }
+            }
+        }
+        current.add(observer);
     }
 
     /**
@@ -161,7 +294,10 @@ public class Book implements Cloneable, BookAvailabilitySubject {
      */
     @Override
     public void removeObserver(BookAvailabilityObserver observer) {
-        observers.remove(observer);
+        List<BookAvailabilityObserver> current = observers;
+        if (current != null) {
+            current.remove(observer);
+        }
     }
 
     /**
@@ -169,9 +305,16 @@ public class Book implements Cloneable, BookAvailabilitySubject {
      */
     @Override
     public void notifyObservers() {
-        for (BookAvailabilityObserver observer : observers) {
+        List<BookAvailabilityObserver> current = observers;
+        if (current == null) {
+            return;
+        }
+        NotificationEvent event = new NotificationEvent();
+        event.begin();
+        for (BookAvailabilityObserver observer : current) {
             observer.update(this);
         }
+        event.complete(id, current.size());
     }
 
     /**
@@ -186,7 +329,7 @@ public class Book implements Cloneable, BookAvailabilitySubject {
                 ", title='" + title + '\'' +
                 ", author='" + author + '\'' +
                 ", publicationYear=" + publicationYear +
-                ", status=" + status +
+                ", status=" + getStatus() +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package library.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents one page of books from an ordered view of the catalog.
+ * The cursor of a page resumes the view after its last book, even if books were added or removed in between.
+ */
+public class BookPage {
+    private final List<Book> books;
+    private final String nextCursor;
+
+    /**
+     * Constructs a new BookPage.
+     *
+     * @param books      The books on the page, in view order.
+     * @param nextCursor The cursor of the following page, or null if this is the last page.
+     */
+    public BookPage(List<Book> books, String nextCursor) {
+        this.books = Collections.unmodifiableList(books);
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "BookPage{" +
+                "books=" + books.size() +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
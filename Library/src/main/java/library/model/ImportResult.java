@@ -0,0 +1,103 @@
+package library.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents the outcome of a bulk catalog import.
+ * This class reports how many rows were read, imported and rejected, and why rows were rejected.
+ */
+public class ImportResult {
+    private final long rowsRead;
+    private final long booksImported;
+    private final long rowsRejected;
+    private final List<RowError> errors;
+    private final long elapsedMillis;
+
+    /**
+     * Constructs a new ImportResult with the given figures.
+     *
+     * @param rowsRead      The number of data rows read.
+     * @param booksImported The number of books added to the library.
+     * @param rowsRejected  The number of rows that failed validation.
+     * @param errors        The errors of the rejected rows, possibly only the first of them.
+     * @param elapsedMillis The duration of the import in milliseconds.
+     */
+    public ImportResult(long rowsRead, long booksImported, long rowsRejected, List<RowError> errors, long elapsedMillis) {
+        this.rowsRead = rowsRead;
+        this.booksImported = booksImported;
+        this.rowsRejected = rowsRejected;
+        this.errors = Collections.unmodifiableList(errors);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // Getters
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getBooksImported() {
+        return booksImported;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    /**
+     * Gets the errors of rejected rows in file order. Only the first errors are kept
+     * when very many rows are rejected; {@link #getRowsRejected()} counts all of them.
+     *
+     * @return The row errors.
+     */
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportResult{" +
+                "rowsRead=" + rowsRead +
+                ", booksImported=" + booksImported +
+                ", rowsRejected=" + rowsRejected +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+
+    /**
+     * Describes why a row of an import file was rejected.
+     */
+    public static class RowError {
+        private final long lineNumber;
+        private final String message;
+
+        /**
+         * Constructs a new RowError.
+         *
+         * @param lineNumber The line of the file on which the row starts, counting from 1.
+         * @param message    The reason the row was rejected.
+         */
+        public RowError(long lineNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.message = message;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + lineNumber + ": " + message;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package library.model;
+
+/**
+ * Represents a summary of the latencies recorded by a histogram at one point in time.
+ * All latencies are in nanoseconds; percentiles are accurate to about 6%.
+ */
+public class LatencySnapshot {
+    private final long count;
+    private final long meanNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+
+    /**
+     * Constructs a new LatencySnapshot with the given figures.
+     *
+     * @param count     The number of recorded latencies.
+     * @param meanNanos The mean latency.
+     * @param p50Nanos  The median latency.
+     * @param p99Nanos  The 99th percentile latency.
+     * @param p999Nanos The 99.9th percentile latency.
+     * @param maxNanos  The highest latency.
+     */
+    public LatencySnapshot(long count, long meanNanos, long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+        this.count = count;
+        this.meanNanos = meanNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    // Getters
+    public long getCount() {
+        return count;
+    }
+
+    public long getMeanNanos() {
+        return meanNanos;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySnapshot{" +
+                "count=" + count +
+                ", meanNanos=" + meanNanos +
+                ", p50Nanos=" + p50Nanos +
+                ", p99Nanos=" + p99Nanos +
+                ", p999Nanos=" + p999Nanos +
+                ", maxNanos=" + maxNanos +
+                '}';
+    }
+}
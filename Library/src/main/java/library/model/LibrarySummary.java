@@ -1,4 +1,7 @@
 package library.model;
+
+import java.util.Objects;
+
 /**
  * Represents a summary of the library's current state.
  * This class encapsulates key statistics about the library.
@@ -42,6 +45,22 @@ public class LibrarySummary {
         return totalLoans;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LibrarySummary)) return false;
+        LibrarySummary that = (LibrarySummary) o;
+        return availableBooks == that.availableBooks &&
+                borrowedBooks == that.borrowedBooks &&
+                activeMembers == that.activeMembers &&
+                totalLoans == that.totalLoans;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(availableBooks, borrowedBooks, activeMembers, totalLoans);
+    }
+
     @Override
     public String toString() {
         return "LibrarySummary{" +
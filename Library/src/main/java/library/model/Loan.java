@@ -1,18 +1,42 @@
 package library.model;
 
 import library.util.BookStatus;
+import library.util.LoanChangeListener;
 
 import java.util.Date;
 
 /**
  * Represents a loan of a book to a member in the library system.
+ * Dates are held as epoch milliseconds; the {@link Date} accessors create a new Date on each call.
  */
 public class Loan {
+    /**
+     * The return time of a loan that has not been returned.
+     */
+    public static final long NOT_RETURNED = Long.MIN_VALUE;
+
     private Book book;
     private Member member;
-    private Date borrowDate;
-    private Date dueDate;
-    private Date returnDate;
+    private final long borrowTime;
+    private volatile long dueTime;
+    private volatile long returnTime;
+    private volatile LoanChangeListener changeListener;
+
+    /**
+     * Constructs a new Loan with the given details.
+     *
+     * @param book       The book being loaned.
+     * @param member     The member borrowing the book.
+     * @param borrowTime The time the book was borrowed, in epoch milliseconds.
+     * @param dueTime    The time the book is due to be returned, in epoch milliseconds.
+     */
+    public Loan(Book book, Member member, long borrowTime, long dueTime) {
+        this.book = book;
+        this.member = member;
+        this.borrowTime = borrowTime;
+        this.dueTime = dueTime;
+        this.returnTime = NOT_RETURNED;
+    }
 
     /**
      * Constructs a new Loan with the given details.
@@ -23,11 +47,7 @@ public class Loan {
      * @param dueDate    The date the book is due to be returned.
      */
     public Loan(Book book, Member member, Date borrowDate, Date dueDate) {
-        this.book = book;
-        this.member = member;
-        this.borrowDate = borrowDate;
-        this.dueDate = dueDate;
-        this.returnDate = null;
+        this(book, member, borrowDate.getTime(), dueDate.getTime());
     }
 
     // Getters and setters
@@ -40,20 +60,74 @@ public class Loan {
         return member;
     }
 
+    public long getBorrowTime() {
+        return borrowTime;
+    }
+
+    public long getDueTime() {
+        return dueTime;
+    }
+
+    /**
+     * Gets the return time of the loan.
+     *
+     * @return The return time in epoch milliseconds, or {@link #NOT_RETURNED} if the loan is active.
+     */
+    public long getReturnTime() {
+        return returnTime;
+    }
+
     public Date getBorrowDate() {
-        return borrowDate;
+        return new Date(borrowTime);
     }
 
     public Date getDueDate() {
-        return dueDate;
+        return new Date(dueTime);
     }
 
+    /**
+     * Sets the due date of the loan, for example when it is renewed,
+     * and reports the change to the change listener.
+     *
+     * @param dueTime The new due date in epoch milliseconds.
+     */
+    public void setDueTime(long dueTime) {
+        long oldDueTime = this.dueTime;
+        this.dueTime = dueTime;
+        LoanChangeListener changeListener = this.changeListener;
+        if (changeListener != null) {
+            changeListener.dueDateChanged(this, oldDueTime);
+        }
+    }
+
+    /**
+     * Sets the due date of the loan, for example when it is renewed,
+     * and reports the change to the change listener.
+     *
+     * @param dueDate The new due date.
+     */
     public void setDueDate(Date dueDate) {
-        this.dueDate = dueDate;
+        setDueTime(dueDate.getTime());
+    }
+
+    /**
+     * Sets the listener that is told about changes to this loan.
+     * The library installs its due-date index here while the loan is active.
+     *
+     * @param changeListener The listener to install, or null to remove the current one.
+     */
+    public void setChangeListener(LoanChangeListener changeListener) {
+        this.changeListener = changeListener;
     }
 
+    /**
+     * Gets the return date of the loan.
+     *
+     * @return The return date, or null if the loan is active.
+     */
     public Date getReturnDate() {
-        return returnDate;
+        long returnTime = this.returnTime;
+        return returnTime == NOT_RETURNED ? null : new Date(returnTime);
     }
 
     /**
@@ -62,7 +136,7 @@ public class Loan {
      * @param returnDate The date the book was returned.
      */
     public void setReturnDate(Date returnDate) {
-        this.returnDate = returnDate;
+        this.returnTime = returnDate.getTime();
         this.book.setStatus(BookStatus.AVAILABLE);
     }
 
@@ -72,20 +146,35 @@ public class Loan {
      * @return true if the book has not been returned, false otherwise.
      */
     public boolean isActive() {
-        return returnDate == null;
+        return returnTime == NOT_RETURNED;
+    }
+
+    /**
+     * Checks if the loan is overdue at the given time, such as the library clock's current time.
+     *
+     * @param now The time to check against, in epoch milliseconds.
+     * @return true if the time is after the due date and the book has not been returned, false otherwise.
+     */
+    public boolean isOverdue(long now) {
+        return isActive() && now > dueTime;
     }
 
     /**
-     * Checks if the loan is overdue.
+     * Marks the loan as returned at the given time, for example when a journal is replayed.
      *
-     * @return true if the current date is after the due date and the book has not been returned, false otherwise.
+     * @param returnTime The time the book was returned, in epoch milliseconds.
      */
-    public boolean isOverdue() {
-        return isActive() && new Date().after(dueDate);
+    public void returnBook(long returnTime) {
+        this.returnTime = returnTime;
     }
 
-    public void returnBook() {
-        this.returnDate = new Date();
+    /**
+     * Marks the loan as returned at the given time, for example when a journal is replayed.
+     *
+     * @param returnDate The date the book was returned.
+     */
+    public void returnBook(Date returnDate) {
+        returnBook(returnDate.getTime());
     }
 
     @Override
@@ -93,11 +182,10 @@ public class Loan {
         return "Loan{" +
                 "book=" + book.getTitle() +
                 ", member=" + member.getName() +
-                ", borrowDate=" + borrowDate +
-                ", dueDate=" + dueDate +
-                ", returnDate=" + returnDate +
+                ", borrowDate=" + getBorrowDate() +
+                ", dueDate=" + getDueDate() +
+                ", returnDate=" + getReturnDate() +
                 ", isActive=" + isActive() +
-                ", isOverdue=" + isOverdue() +
                 '}';
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package library.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents one page of loans from an ordered view of the active loans.
+ * The cursor of a page resumes the view after its last loan, even if loans were added or removed in between.
+ */
+public class LoanPage {
+    private final List<Loan> loans;
+    private final String nextCursor;
+
+    /**
+     * Constructs a new LoanPage.
+     *
+     * @param loans      The loans on the page, in view order.
+     * @param nextCursor The cursor of the following page, or null if this is the last page.
+     */
+    public LoanPage(List<Loan> loans, String nextCursor) {
+        this.loans = Collections.unmodifiableList(loans);
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+
+    public List<Loan> getLoans() {
+        return loans;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "LoanPage{" +
+                "loans=" + loans.size() +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
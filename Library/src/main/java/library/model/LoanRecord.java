@@ -0,0 +1,103 @@
+package library.model;
+
+import java.util.Objects;
+
+/**
+ * Represents a returned loan as kept in the loan history: the IDs involved and the dates as epoch milliseconds.
+ * Unlike a {@link Loan}, a record holds no references to the book or member objects.
+ */
+public final class LoanRecord {
+    private final String bookId;
+    private final String memberId;
+    private final long borrowDate;
+    private final long dueDate;
+    private final long returnDate;
+
+    /**
+     * Constructs a new LoanRecord with the given details.
+     *
+     * @param bookId     The ID of the borrowed book.
+     * @param memberId   The ID of the borrowing member.
+     * @param borrowDate The borrow date in epoch milliseconds.
+     * @param dueDate    The due date in epoch milliseconds.
+     * @param returnDate The return date in epoch milliseconds.
+     */
+    public LoanRecord(String bookId, String memberId, long borrowDate, long dueDate, long returnDate) {
+        this.bookId = bookId;
+        this.memberId = memberId;
+        this.borrowDate = borrowDate;
+        this.dueDate = dueDate;
+        this.returnDate = returnDate;
+    }
+
+    /**
+     * Creates the record of a returned loan.
+     *
+     * @param loan The loan, which must have been returned.
+     * @return The record.
+     */
+    public static LoanRecord of(Loan loan) {
+        return new LoanRecord(loan.getBook().getId(), loan.getMember().getId(), loan.getBorrowTime(),
+                loan.getDueTime(), loan.getReturnTime());
+    }
+
+    // Getters
+    public String getBookId() {
+        return bookId;
+    }
+
+    public String getMemberId() {
+        return memberId;
+    }
+
+    public long getBorrowDate() {
+        return borrowDate;
+    }
+
+    public long getDueDate() {
+        return dueDate;
+    }
+
+    public long getReturnDate() {
+        return returnDate;
+    }
+
+    /**
+     * Checks whether the book was out at some point of a time range.
+     *
+     * @param from The start of the range in epoch milliseconds (inclusive).
+     * @param to   The end of the range in epoch milliseconds (inclusive).
+     * @return true if the loan was borrowed no later than the end and returned no earlier than the start.
+     */
+    public boolean overlaps(long from, long to) {
+        return borrowDate <= to && returnDate >= from;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LoanRecord)) return false;
+        LoanRecord that = (LoanRecord) o;
+        return borrowDate == that.borrowDate &&
+                dueDate == that.dueDate &&
+                returnDate == that.returnDate &&
+                Objects.equals(bookId, that.bookId) &&
+                Objects.equals(memberId, that.memberId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bookId, memberId, borrowDate, dueDate, returnDate);
+    }
+
+    @Override
+    public String toString() {
+        return "LoanRecord{" +
+                "bookId='" + bookId + '\'' +
+                ", memberId='" + memberId + '\'' +
+                ", borrowDate=" + borrowDate +
+                ", dueDate=" + dueDate +
+                ", returnDate=" + returnDate +
+                '}';
+    }
+}
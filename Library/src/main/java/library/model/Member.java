@@ -2,17 +2,27 @@ package library.model;
 import library.util.BookAvailabilityObserver;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Represents a member of the library.
  * This class implements the Observer pattern to receive updates about book availability.
+ * Loans and interests are kept in concurrent identity-keyed sets, so adding and removing them
+ * takes constant time and they can be read from any thread without locking or copying.
  */
 public class Member implements BookAvailabilityObserver {
     private String id;
-    private String name;
-    private List<Loan> loans;
-    private List<Book> interestedBooks;
+    private volatile String name;
+    private Set<Loan> loans;
+    private Collection<Loan> loansView;
+    private AtomicInteger activeLoanCount;
+    private Set<Book> interestedBooks;
 
     /**
      * Constructs a new Member with the given details.
@@ -23,8 +33,10 @@ public class Member implements BookAvailabilityObserver {
     public Member(String id, String name) {
         this.id = id;
         this.name = name;
-        this.loans = new ArrayList<>();
-        this.interestedBooks = new ArrayList<>();
+        this.loans = ConcurrentHashMap.newKeySet();
+        this.loansView = Collections.unmodifiableCollection(loans);
+        this.activeLoanCount = new AtomicInteger();
+        this.interestedBooks = ConcurrentHashMap.newKeySet();
     }
 
     // Getters and setters
@@ -37,30 +49,75 @@ public class Member implements BookAvailabilityObserver {
         return name;
     }
 
+    /**
+     * Sets the name of the member.
+     * A member of a library is renamed through {@code Library.renameMember} instead, so that the
+     * library's indexes see the new name.
+     *
+     * @param name The new name of the member.
+     */
     public void setName(String name) {
         this.name = name;
     }
 
+    /**
+     * Gets a copy of the member's current loans.
+     * Prefer {@link #getLoansView()} or {@link #forEachLoan(Consumer)} on hot paths.
+     *
+     * @return A new list containing the member's loans.
+     */
     public List<Loan> getLoans() {
         return new ArrayList<>(loans);
     }
 
     /**
-     * Adds a loan to the member's loan list.
+     * Gets a read-only live view of the member's current loans.
+     * The view reflects later changes and may be iterated while loans are added or removed.
+     *
+     * @return An unmodifiable view of the member's loans.
+     */
+    public Collection<Loan> getLoansView() {
+        return loansView;
+    }
+
+    /**
+     * Performs an action for each of the member's current loans without copying them.
+     *
+     * @param action The action to perform.
+     */
+    public void forEachLoan(Consumer<? super Loan> action) {
+        loans.forEach(action);
+    }
+
+    /**
+     * Gets the number of loans the member currently holds.
+     *
+     * @return The number of active loans.
+     */
+    public int getActiveLoanCount() {
+        return activeLoanCount.get();
+    }
+
+    /**
+     * Adds a loan to the member's loans.
      *
      * @param loan The loan to add.
      */
     public void addLoan(Loan loan) {
-        loans.add(loan);
+        if (loans.add(loan)) {
+            activeLoanCount.incrementAndGet();
+        }
     }
 
     /**
-     * Removes a loan from the member's loan list.
+     * Removes a loan from the member's loans.
      *
      * @param loan The loan to remove.
      */
     public void removeLoan(Loan loan) {
-        loans.remove(loan);
+        if (loans.remove(loan)) {
+            activeLoanCount.decrementAndGet();
+        }
     }
 
     /**
@@ -95,12 +152,21 @@ public class Member implements BookAvailabilityObserver {
         }
     }
 
+    /**
+     * Tells the member that a book they reserved is now being held for them.
+     *
+     * @param book The reserved book.
+     */
+    public void notifyReservationReady(Book book) {
+        System.out.println("Notification for member " + name + ": The book '" + book.getTitle() + "' is being held for you.");
+    }
+
     @Override
     public String toString() {
         return "Member{" +
                 "id='" + id + '\'' +
                 ", name='" + name + '\'' +
-                ", loans=" + loans.size() +
+                ", loans=" + activeLoanCount.get() +
                 ", interestedBooks=" + interestedBooks.size() +
                 '}';
     }
@@ -0,0 +1,92 @@
+package library.model;
+
+/**
+ * Represents an estimate of the heap taken by a library's catalog.
+ * It compares the catalog as it is held, with pooled strings and columnar storage, against
+ * the same books held as plain objects that each own their strings.
+ */
+public class MemoryReport {
+    private final int loadedBooks;
+    private final int storedBooks;
+    private final long plainBytes;
+    private final long actualBytes;
+    private final int pooledStrings;
+    private final long sharedStrings;
+
+    /**
+     * Constructs a new MemoryReport with the given estimates.
+     *
+     * @param loadedBooks   The number of books held as objects.
+     * @param storedBooks   The number of books held in columnar storage.
+     * @param plainBytes    The estimated bytes the books would take as objects that each own their strings.
+     * @param actualBytes   The estimated bytes the books take as they are held.
+     * @param pooledStrings The number of distinct strings in the catalog's string pool.
+     * @param sharedStrings The number of string copies replaced by a pooled string.
+     */
+    public MemoryReport(int loadedBooks, int storedBooks, long plainBytes, long actualBytes,
+                        int pooledStrings, long sharedStrings) {
+        this.loadedBooks = loadedBooks;
+        this.storedBooks = storedBooks;
+        this.plainBytes = plainBytes;
+        this.actualBytes = actualBytes;
+        this.pooledStrings = pooledStrings;
+        this.sharedStrings = sharedStrings;
+    }
+
+    // Getters
+    public int getLoadedBooks() {
+        return loadedBooks;
+    }
+
+    public int getStoredBooks() {
+        return storedBooks;
+    }
+
+    public long getPlainBytes() {
+        return plainBytes;
+    }
+
+    public long getActualBytes() {
+        return actualBytes;
+    }
+
+    public int getPooledStrings() {
+        return pooledStrings;
+    }
+
+    public long getSharedStrings() {
+        return sharedStrings;
+    }
+
+    /**
+     * Gets the estimated bytes per book if every book were a plain object owning its strings.
+     *
+     * @return The bytes per book before pooling and compaction, or 0 for an empty catalog.
+     */
+    public long getPlainBytesPerBook() {
+        int books = loadedBooks + storedBooks;
+        return books == 0 ? 0 : plainBytes / books;
+    }
+
+    /**
+     * Gets the estimated bytes per book as the catalog is held.
+     *
+     * @return The bytes per book after pooling and compaction, or 0 for an empty catalog.
+     */
+    public long getBytesPerBook() {
+        int books = loadedBooks + storedBooks;
+        return books == 0 ? 0 : actualBytes / books;
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryReport{" +
+                "loadedBooks=" + loadedBooks +
+                ", storedBooks=" + storedBooks +
+                ", plainBytesPerBook=" + getPlainBytesPerBook() +
+                ", bytesPerBook=" + getBytesPerBook() +
+                ", pooledStrings=" + pooledStrings +
+                ", sharedStrings=" + sharedStrings +
+                '}';
+    }
+}
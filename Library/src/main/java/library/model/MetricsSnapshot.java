@@ -0,0 +1,73 @@
+package library.model;
+
+import java.util.List;
+
+/**
+ * Represents the service-level metrics of a library at one point in time: the counters and
+ * latencies of each operation, how long callers waited for the journal to make their changes
+ * durable, and how far availability notifications lag behind the returns that caused them.
+ */
+public class MetricsSnapshot {
+    private final List<OperationStats> operations;
+    private final LatencySnapshot journalWait;
+    private final LatencySnapshot dispatchLag;
+    private final int pendingNotifications;
+
+    /**
+     * Constructs a new MetricsSnapshot with the given figures.
+     *
+     * @param operations           The statistics of each operation.
+     * @param journalWait          The time callers waited for their journal records to become durable.
+     * @param dispatchLag          The time from queueing an availability notification to delivering it.
+     * @param pendingNotifications The number of availability notifications waiting to be delivered.
+     */
+    public MetricsSnapshot(List<OperationStats> operations, LatencySnapshot journalWait,
+                           LatencySnapshot dispatchLag, int pendingNotifications) {
+        this.operations = List.copyOf(operations);
+        this.journalWait = journalWait;
+        this.dispatchLag = dispatchLag;
+        this.pendingNotifications = pendingNotifications;
+    }
+
+    // Getters
+    public List<OperationStats> getOperations() {
+        return operations;
+    }
+
+    public LatencySnapshot getJournalWait() {
+        return journalWait;
+    }
+
+    public LatencySnapshot getDispatchLag() {
+        return dispatchLag;
+    }
+
+    public int getPendingNotifications() {
+        return pendingNotifications;
+    }
+
+    /**
+     * Finds the statistics of an operation by name.
+     *
+     * @param name The name of the operation, such as {@code borrowBook}.
+     * @return The statistics, or null if there is no operation with that name.
+     */
+    public OperationStats getOperation(String name) {
+        for (OperationStats stats : operations) {
+            if (stats.getName().equals(name)) {
+                return stats;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{" +
+                "operations=" + operations +
+                ", journalWait=" + journalWait +
+                ", dispatchLag=" + dispatchLag +
+                ", pendingNotifications=" + pendingNotifications +
+                '}';
+    }
+}
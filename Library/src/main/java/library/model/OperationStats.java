@@ -0,0 +1,64 @@
+package library.model;
+
+import java.util.Map;
+
+/**
+ * Represents the counters and latencies of one kind of library operation, such as borrowing a book.
+ */
+public class OperationStats {
+    private final String name;
+    private final long calls;
+    private final long failures;
+    private final Map<String, Long> failuresByReason;
+    private final LatencySnapshot latency;
+
+    /**
+     * Constructs a new OperationStats with the given figures.
+     *
+     * @param name             The name of the operation.
+     * @param calls            The number of calls, successful or not.
+     * @param failures         The number of failed calls, or failed items of batch calls.
+     * @param failuresByReason The failures by reason, such as {@code BOOK_NOT_FOUND} or {@code EXCEPTION}.
+     * @param latency          The latencies of all calls.
+     */
+    public OperationStats(String name, long calls, long failures, Map<String, Long> failuresByReason,
+                          LatencySnapshot latency) {
+        this.name = name;
+        this.calls = calls;
+        this.failures = failures;
+        this.failuresByReason = Map.copyOf(failuresByReason);
+        this.latency = latency;
+    }
+
+    // Getters
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public Map<String, Long> getFailuresByReason() {
+        return failuresByReason;
+    }
+
+    public LatencySnapshot getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return "OperationStats{" +
+                "name='" + name + '\'' +
+                ", calls=" + calls +
+                ", failures=" + failures +
+                ", failuresByReason=" + failuresByReason +
+                ", latency=" + latency +
+                '}';
+    }
+}
@@ -0,0 +1,308 @@
+package library.persistence;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A single mutation recorded in the library journal.
+ * <p>
+ * Records are stored in a compact binary form: an operation code, the time of the operation
+ * in epoch milliseconds, and only the fields that operation needs, with strings written as a
+ * variable-length byte count followed by their UTF-8 bytes.
+ */
+public final class JournalRecord {
+    /**
+     * The mutations that are journalled.
+     */
+    public enum Operation {
+        ADD_BOOK(1),
+        REMOVE_BOOK(2),
+        ADD_MEMBER(3),
+        REMOVE_MEMBER(4),
+        BORROW_BOOK(5),
+        RETURN_BOOK(6),
+        DUPLICATE_BOOK(7);
+
+        private final byte code;
+
+        Operation(int code) {
+            this.code = (byte) code;
+        }
+
+        static Operation fromCode(byte code) {
+            for (Operation operation : values()) {
+                if (operation.code == code) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown journal operation code: " + code);
+        }
+    }
+
+    private final Operation operation;
+    private final long timestamp;
+    private final String bookType;
+    private final String bookId;
+    private final String title;
+    private final String author;
+    private final int publicationYear;
+    private final String memberId;
+    private final String memberName;
+
+    private JournalRecord(Operation operation, long timestamp, String bookType, String bookId, String title,
+                          String author, int publicationYear, String memberId, String memberName) {
+        this.operation = operation;
+        this.timestamp = timestamp;
+        this.bookType = bookType;
+        this.bookId = bookId;
+        this.title = title;
+        this.author = author;
+        this.publicationYear = publicationYear;
+        this.memberId = memberId;
+        this.memberName = memberName;
+    }
+
+    /**
+     * Creates a record of a book being added.
+     *
+     * @param type            The type of book, as accepted by the book factory.
+     * @param id              The ID of the book.
+     * @param title           The title of the book.
+     * @param author          The author of the book.
+     * @param publicationYear The publication year of the book.
+     * @param timestamp       The time of the operation in epoch milliseconds.
+     * @return The record.
+     */
+    public static JournalRecord addBook(String type, String id, String title, String author, int publicationYear, long timestamp) {
+        return new JournalRecord(Operation.ADD_BOOK, timestamp, type, id, title, author, publicationYear, null, null);
+    }
+
+    /**
+     * Creates a record of a book being removed.
+     *
+     * @param bookId    The ID of the removed book.
+     * @param timestamp The time of the operation in epoch milliseconds.
+     * @return The record.
+     */
+    public static JournalRecord removeBook(String bookId, long timestamp) {
+        return new JournalRecord(Operation.REMOVE_BOOK, timestamp, null, bookId, null, null, 0, null, null);
+    }
+
+    /**
+     * Creates a record of a member being added.
+     *
+     * @param id        The ID of the member.
+     * @param name      The name of the member.
+     * @param timestamp The time of the operation in epoch milliseconds.
+     * @return The record.
+     */
+    public static JournalRecord addMember(String id, String name, long timestamp) {
+        return new JournalRecord(Operation.ADD_MEMBER, timestamp, null, null, null, null, 0, id, name);
+    }
+
+    /**
+     * Creates a record of a member being removed.
+     *
+     * @param memberId  The ID of the removed member.
+     * @param timestamp The time of the operation in epoch milliseconds.
+     * @return The record.
+     */
+    public static JournalRecord removeMember(String memberId, long timestamp) {
+        return new JournalRecord(Operation.REMOVE_MEMBER, timestamp, null, null, null, null, 0, memberId, null);
+    }
+
+    /**
+     * Creates a record of a book being borrowed. The timestamp is the borrow date of the loan.
+     *
+     * @param bookId    The ID of the borrowed book.
+     * @param memberId  The ID of the borrowing member.
+     * @param timestamp The time of the operation in epoch milliseconds.
+     * @return The record.
+     */
+    public static JournalRecord borrowBook(String bookId, String memberId, long timestamp) {
+        return new JournalRecord(Operation.BORROW_BOOK, timestamp, null, bookId, null, null, 0, memberId, null);
+    }
+
+    /**
+     * Creates a record of a borrowed book being returned. The timestamp is the return date of the loan.
+     *
+     * @param bookId    The ID of the returned book.
+     * @param timestamp The time of the operation in epoch milliseconds.
+     * @return The record.
+     */
+    public static JournalRecord returnBook(String bookId, long timestamp) {
+        return new JournalRecord(Operation.RETURN_BOOK, timestamp, null, bookId, null, null, 0, null, null);
+    }
+
+    /**
+     * Creates a record of a book being duplicated.
+     *
+     * @param bookId    The ID of the original book.
+     * @param timestamp The time of the operation in epoch milliseconds.
+     * @return The record.
+     */
+    public static JournalRecord duplicateBook(String bookId, long timestamp) {
+        return new JournalRecord(Operation.DUPLICATE_BOOK, timestamp, null, bookId, null, null, 0, null, null);
+    }
+
+    // Getters
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getBookType() {
+        return bookType;
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public int getPublicationYear() {
+        return publicationYear;
+    }
+
+    public String getMemberId() {
+        return memberId;
+    }
+
+    public String getMemberName() {
+        return memberName;
+    }
+
+    /**
+     * Writes the record body into a buffer.
+     *
+     * @param buffer The buffer to write to, with at least {@link #maxEncodedSize()} bytes remaining.
+     */
+    void encode(ByteBuffer buffer) {
+        buffer.put(operation.code);
+        buffer.putLong(timestamp);
+        switch (operation) {
+            case ADD_BOOK:
+                putString(buffer, bookType);
+                putString(buffer, bookId);
+                putString(buffer, title);
+                putString(buffer, author);
+                buffer.putInt(publicationYear);
+                break;
+            case ADD_MEMBER:
+                putString(buffer, memberId);
+                putString(buffer, memberName);
+                break;
+            case REMOVE_MEMBER:
+                putString(buffer, memberId);
+                break;
+            case BORROW_BOOK:
+                putString(buffer, bookId);
+                putString(buffer, memberId);
+                break;
+            default:
+                putString(buffer, bookId);
+                break;
+        }
+    }
+
+    /**
+     * Gets an upper bound for the size of the encoded record body.
+     *
+     * @return The maximum number of bytes {@link #encode(ByteBuffer)} writes.
+     */
+    int maxEncodedSize() {
+        return 1 + Long.BYTES + Integer.BYTES
+                + maxStringSize(bookType) + maxStringSize(bookId) + maxStringSize(title)
+                + maxStringSize(author) + maxStringSize(memberId) + maxStringSize(memberName);
+    }
+
+    /**
+     * Reads a record body from a buffer.
+     *
+     * @param buffer The buffer positioned at the start of the body.
+     * @return The decoded record.
+     * @throws IllegalArgumentException If the body is malformed.
+     */
+    static JournalRecord decode(ByteBuffer buffer) {
+        try {
+            Operation operation = Operation.fromCode(buffer.get());
+            long timestamp = buffer.getLong();
+            switch (operation) {
+                case ADD_BOOK:
+                    return addBook(getString(buffer), getString(buffer), getString(buffer), getString(buffer),
+                            buffer.getInt(), timestamp);
+                case REMOVE_BOOK:
+                    return removeBook(getString(buffer), timestamp);
+                case ADD_MEMBER:
+                    return addMember(getString(buffer), getString(buffer), timestamp);
+                case REMOVE_MEMBER:
+                    return removeMember(getString(buffer), timestamp);
+                case BORROW_BOOK:
+                    return borrowBook(getString(buffer), getString(buffer), timestamp);
+                case RETURN_BOOK:
+                    return returnBook(getString(buffer), timestamp);
+                default:
+                    return duplicateBook(getString(buffer), timestamp);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated journal record", e);
+        }
+    }
+
+    private static int maxStringSize(String value) {
+        return value == null ? 0 : 5 + value.length() * 3;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        while ((length & ~0x7F) != 0) {
+            buffer.put((byte) ((length & 0x7F) | 0x80));
+            length >>>= 7;
+        }
+        buffer.put((byte) length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 28) {
+                throw new IllegalArgumentException("Malformed string length in journal record");
+            }
+            b = buffer.get();
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("String length exceeds journal record");
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "JournalRecord{" +
+                "operation=" + operation +
+                ", timestamp=" + timestamp +
+                (bookId != null ? ", bookId='" + bookId + '\'' : "") +
+                (memberId != null ? ", memberId='" + memberId + '\'' : "") +
+                '}';
+    }
+}
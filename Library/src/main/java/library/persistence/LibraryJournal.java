@@ -0,0 +1,544 @@
+package library.persistence;
+
+import library.events.JournalWriteEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only write-ahead journal of library mutations.
+ * <p>
+ * Each record is framed by its body length and a CRC32 of the body. Appends only copy the
+ * encoded record into an in-memory buffer; making records durable is done by group commit:
+ * the first thread that needs its record on disk writes and forces everything appended so far,
+ * while threads arriving in the meantime append to a fresh buffer and are served together by
+ * the next single write and force. A burst of concurrent writers therefore costs one force per
+ * batch rather than one per record.
+ * <p>
+ * When the journal is opened its records are replayed in order. Replay stops at the first record
+ * that is incomplete or fails its checksum, which is what a crash in the middle of a write leaves
+ * behind, and the file is truncated there so that new records follow the last intact one.
+ * <p>
+ * The file starts with a header holding the journal's generation. Writing a snapshot moves the
+ * journal to the next generation and truncates it, since the snapshot holds everything recorded
+ * so far; a journal older than the snapshot it is opened with is known to be covered by it.
+ */
+public final class LibraryJournal implements AutoCloseable {
+    private static final int MAGIC = 0x4C424A4E; // "LBJN"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 2 * Integer.BYTES + Long.BYTES;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private final SyncPolicy policy;
+    private final long replayedRecords;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchDone = lock.newCondition();
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService syncer;
+
+    // Guarded by lock
+    private ByteBuffer pending;
+    private ByteBuffer spare;
+    private long appendedSeq;
+    private long writtenSeq;
+    private long syncedSeq;
+    private boolean flushing;
+    private boolean closed;
+    private IOException failure;
+    private long generation;
+
+    private LibraryJournal(FileChannel channel, SyncPolicy policy, long generation, long replayedRecords) {
+        this.channel = channel;
+        this.policy = policy;
+        this.generation = generation;
+        this.replayedRecords = replayedRecords;
+        this.pending = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+        this.spare = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+        if (policy.getMode() == SyncPolicy.Mode.INTERVAL) {
+            this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "library-journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncer.scheduleWithFixedDelay(this::backgroundSync,
+                    policy.getIntervalMillis(), policy.getIntervalMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.syncer = null;
+        }
+    }
+
+    /**
+     * Opens a journal, creating the file if it does not exist, and replays its records.
+     * A torn record at the end of the file is discarded.
+     *
+     * @param path          The journal file.
+     * @param policy        When appended records are forced to disk.
+     * @param replayHandler Receives every intact record in the order it was appended.
+     * @return The open journal, positioned after the last intact record.
+     * @throws IOException If the file cannot be read or written.
+     */
+    public static LibraryJournal open(Path path, SyncPolicy policy, Consumer<JournalRecord> replayHandler) throws IOException {
+        return open(path, policy, 0, replayHandler);
+    }
+
+    /**
+     * Opens a journal that continues from a snapshot, creating the file if it does not exist.
+     * The journal's records are replayed only if it belongs to the snapshot's generation; a journal
+     * from an earlier generation is already contained in the snapshot and is emptied instead.
+     *
+     * @param path          The journal file.
+     * @param policy        When appended records are forced to disk.
+     * @param generation    The generation of the snapshot the library was restored from, or 0 if there is none.
+     * @param replayHandler Receives every intact record in the order it was appended.
+     * @return The open journal, positioned after the last intact record.
+     * @throws IOException If the file cannot be read or written, is not a journal,
+     *                     or is newer than the snapshot so that records would be missing.
+     */
+    public static LibraryJournal open(Path path, SyncPolicy policy, long generation,
+                                      Consumer<JournalRecord> replayHandler) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long journalGeneration = generation;
+            long validEnd = FILE_HEADER_BYTES;
+            long[] replayed = new long[1];
+            if (channel.size() < FILE_HEADER_BYTES) {
+                writeFileHeader(channel, generation);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+                while (header.hasRemaining()) {
+                    if (channel.read(header, header.position()) < 0) {
+                        break;
+                    }
+                }
+                if (header.getInt(0) != MAGIC || header.getInt(Integer.BYTES) != VERSION) {
+                    throw new IOException(path + " is not a library journal");
+                }
+                journalGeneration = header.getLong(2 * Integer.BYTES);
+                if (journalGeneration > generation) {
+                    throw new IOException("Journal generation " + journalGeneration
+                            + " is newer than snapshot generation " + generation + "; the snapshot is missing or stale");
+                }
+                if (journalGeneration < generation) {
+                    writeFileHeader(channel, generation);
+                    journalGeneration = generation;
+                } else {
+                    validEnd = replay(channel, FILE_HEADER_BYTES, record -> {
+                        replayHandler.accept(record);
+                        replayed[0]++;
+                    });
+                }
+            }
+            if (validEnd < channel.size()) {
+                channel.truncate(validEnd);
+                channel.force(true);
+            }
+            channel.position(validEnd);
+            return new LibraryJournal(channel, policy, journalGeneration, replayed[0]);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Empties the channel and writes a file header for the given generation.
+     *
+     * @param channel    The journal channel.
+     * @param generation The generation of the journal.
+     * @throws IOException If the channel cannot be written.
+     */
+    private static void writeFileHeader(FileChannel channel, long generation) throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putLong(generation).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+    }
+
+    /**
+     * Reads records from the start of the channel until the end or the first damaged record.
+     *
+     * @param channel The journal channel.
+     * @param start   The offset of the first record.
+     * @param handler Receives every intact record.
+     * @return The offset just past the last intact record.
+     * @throws IOException If the channel cannot be read.
+     */
+    private static long replay(FileChannel channel, long start, Consumer<JournalRecord> handler) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + MAX_RECORD_BYTES);
+        buffer.flip();
+        CRC32 crc = new CRC32();
+        long offset = start;
+        long readOffset = start;
+        while (true) {
+            if (buffer.remaining() < HEADER_BYTES) {
+                readOffset = fill(channel, buffer, readOffset, HEADER_BYTES);
+                if (buffer.remaining() < HEADER_BYTES) {
+                    return offset;
+                }
+            }
+            int length = buffer.getInt(buffer.position());
+            int checksum = buffer.getInt(buffer.position() + Integer.BYTES);
+            if (length <= 0 || length > MAX_RECORD_BYTES) {
+                return offset;
+            }
+            if (buffer.remaining() < HEADER_BYTES + length) {
+                readOffset = fill(channel, buffer, readOffset, HEADER_BYTES + length);
+                if (buffer.remaining() < HEADER_BYTES + length) {
+                    return offset;
+                }
+            }
+            int bodyStart = buffer.position() + HEADER_BYTES;
+            crc.reset();
+            crc.update(buffer.array(), buffer.arrayOffset() + bodyStart, length);
+            if ((int) crc.getValue() != checksum) {
+                return offset;
+            }
+            ByteBuffer body = buffer.duplicate();
+            body.position(bodyStart).limit(bodyStart + length);
+            JournalRecord record;
+            try {
+                record = JournalRecord.decode(body);
+            } catch (IllegalArgumentException e) {
+                return offset;
+            }
+            if (body.hasRemaining()) {
+                return offset;
+            }
+            buffer.position(bodyStart + length);
+            offset += HEADER_BYTES + length;
+            handler.accept(record);
+        }
+    }
+
+    /**
+     * Reads more of the channel into the buffer until it holds the needed number of bytes or the channel ends.
+     *
+     * @param channel    The channel to read.
+     * @param buffer     The buffer in read mode; unread bytes are kept.
+     * @param readOffset The channel offset to read from.
+     * @param needed     The number of bytes wanted in the buffer.
+     * @return The channel offset after the bytes read.
+     * @throws IOException If the channel cannot be read.
+     */
+    private static long fill(FileChannel channel, ByteBuffer buffer, long readOffset, int needed) throws IOException {
+        buffer.compact();
+        while (buffer.position() < needed) {
+            int read = channel.read(buffer, readOffset);
+            if (read < 0) {
+                break;
+            }
+            readOffset += read;
+        }
+        buffer.flip();
+        return readOffset;
+    }
+
+    /**
+     * Appends a record to the journal. The record is not yet durable;
+     * call {@link #awaitDurable(long)} with the returned sequence number for that.
+     *
+     * @param record The record to append.
+     * @return The sequence number of the record.
+     * @throws IllegalStateException If the journal is closed or an earlier write failed.
+     * @throws IllegalArgumentException If the record is too large.
+     */
+    public long append(JournalRecord record) {
+        int maxSize = HEADER_BYTES + record.maxEncodedSize();
+        lock.lock();
+        try {
+            ensureWritable();
+            if (pending.remaining() < maxSize) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + maxSize));
+                pending.flip();
+                grown.put(pending);
+                pending = grown;
+            }
+            int start = pending.position();
+            pending.position(start + HEADER_BYTES);
+            record.encode(pending);
+            int length = pending.position() - start - HEADER_BYTES;
+            if (length > MAX_RECORD_BYTES) {
+                pending.position(start);
+                throw new IllegalArgumentException("Journal record exceeds " + MAX_RECORD_BYTES + " bytes");
+            }
+            crc.reset();
+            crc.update(pending.array(), pending.arrayOffset() + start + HEADER_BYTES, length);
+            pending.putInt(start, length);
+            pending.putInt(start + Integer.BYTES, (int) crc.getValue());
+            return ++appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends several records at once, taking the journal's lock a single time.
+     *
+     * @param records The records to append, in order.
+     * @return The sequence number of the last record, to pass to {@link #awaitDurable(long)};
+     * 0 if there were no records.
+     * @throws IllegalStateException If the journal is closed or an earlier write failed.
+     * @throws IllegalArgumentException If a record is too large; the records before it are appended.
+     */
+    public long appendAll(List<JournalRecord> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            long seq = 0;
+            for (JournalRecord record : records) {
+                seq = append(record);
+            }
+            return seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a record is as durable as the sync policy promises: forced to disk for
+     * {@link SyncPolicy.Mode#EVERY_OPERATION}, handed to the operating system for
+     * {@link SyncPolicy.Mode#OS_MANAGED}, and not at all for {@link SyncPolicy.Mode#INTERVAL},
+     * whose records are forced by a background thread.
+     *
+     * @param seq The sequence number returned by {@link #append(JournalRecord)}.
+     * @throws UncheckedIOException If writing the journal failed.
+     */
+    public void awaitDurable(long seq) {
+        switch (policy.getMode()) {
+            case EVERY_OPERATION:
+                sync(seq, true);
+                break;
+            case OS_MANAGED:
+                sync(seq, false);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Writes and forces every record appended so far.
+     *
+     * @throws UncheckedIOException If writing the journal failed.
+     */
+    public void flush() {
+        long seq;
+        lock.lock();
+        try {
+            seq = appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+        sync(seq, true);
+    }
+
+    /**
+     * Makes sure the records up to a sequence number are written, and forced if asked.
+     * One caller at a time writes the whole pending buffer; the others wait for it and
+     * return if its batch covered their record.
+     *
+     * @param seq   The sequence number that must be covered.
+     * @param force true to force the written records to disk.
+     */
+    private void sync(long seq, boolean force) {
+        ByteBuffer batch;
+        long batchSeq;
+        long batchRecords;
+        lock.lock();
+        try {
+            while (true) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Journal write failed", failure);
+                }
+                if ((force ? syncedSeq : writtenSeq) >= seq) {
+                    return;
+                }
+                if (!flushing) {
+                    break;
+                }
+                batchDone.awaitUninterruptibly();
+            }
+            flushing = true;
+            batch = pending;
+            batchSeq = appendedSeq;
+            batchRecords = appendedSeq - writtenSeq;
+            pending = spare != null ? spare : ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+            spare = null;
+        } finally {
+            lock.unlock();
+        }
+
+        IOException error = null;
+        JournalWriteEvent event = new JournalWriteEvent();
+        event.begin();
+        batch.flip();
+        int batchBytes = batch.remaining();
+        try {
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            if (force) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+        event.complete(batchRecords, batchBytes, force, error == null);
+
+        lock.lock();
+        try {
+            flushing = false;
+            if (error != null) {
+                failure = error;
+            } else {
+                writtenSeq = batchSeq;
+                if (force) {
+                    syncedSeq = batchSeq;
+                }
+            }
+            batch.clear();
+            if (spare == null && batch.capacity() == INITIAL_BUFFER_BYTES) {
+                spare = batch;
+            }
+            batchDone.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (error != null) {
+            throw new UncheckedIOException("Journal write failed", error);
+        }
+    }
+
+    /**
+     * Discards every record and moves the journal to a new generation, after a snapshot
+     * containing those records has been made durable. Records appended concurrently with
+     * this call are discarded as well, so callers must stop appending while it runs.
+     *
+     * @param generation The new generation, the one of the snapshot just written.
+     * @throws IOException If the journal file cannot be rewritten.
+     */
+    public void reset(long generation) throws IOException {
+        lock.lock();
+        try {
+            while (flushing) {
+                batchDone.awaitUninterruptibly();
+            }
+            ensureWritable();
+            try {
+                writeFileHeader(channel, generation);
+                channel.position(FILE_HEADER_BYTES);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+            pending.clear();
+            writtenSeq = appendedSeq;
+            syncedSeq = appendedSeq;
+            this.generation = generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the generation of the journal, which matches the snapshot its records follow.
+     *
+     * @return The generation, 0 if no snapshot has been written.
+     */
+    public long getGeneration() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces the journal on behalf of the interval policy. A failure is kept and
+     * reported by the next append.
+     */
+    private void backgroundSync() {
+        try {
+            flush();
+        } catch (UncheckedIOException e) {
+            // Recorded in failure and surfaced to writers
+        }
+    }
+
+    /**
+     * Checks that the journal still accepts records. Must be called while holding the lock.
+     */
+    private void ensureWritable() {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Journal write failed", failure);
+        }
+    }
+
+    /**
+     * Gets the number of records replayed when the journal was opened.
+     *
+     * @return The number of intact records found in the file.
+     */
+    public long getReplayedRecordCount() {
+        return replayedRecords;
+    }
+
+    /**
+     * Gets the sync policy of the journal.
+     *
+     * @return The sync policy.
+     */
+    public SyncPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Forces every appended record to disk and closes the journal file.
+     *
+     * @throws IOException If the final write or closing the file fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        lock.lock();
+        try {
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            channel.close();
+        }
+    }
+}
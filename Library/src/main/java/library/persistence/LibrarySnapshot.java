@@ -0,0 +1,798 @@
+package library.persistence;
+
+import library.events.SnapshotEvent;
+import library.model.Book;
+import library.model.Loan;
+import library.model.LoanRecord;
+import library.model.Member;
+import library.service.BookFactory;
+import library.service.Library;
+import library.util.BookStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A point-in-time image of a library's books, members and loans in a compact binary file.
+ * <p>
+ * A snapshot is opened by mapping the file into memory; nothing is decoded up front. Books are
+ * located through an index of record offsets sorted by the UTF-8 bytes of their IDs, so finding
+ * one book is a binary search that touches only a few pages, and a book is decoded only when it
+ * is asked for. Members and active loans follow the books and are read sequentially. Loans that
+ * were already returned are kept as raw records and are only counted, unless they are streamed
+ * with {@link #forEachHistoricLoan(LoanVisitor)}.
+ * <p>
+ * Each snapshot carries the generation of the journal whose records follow it and is written to a
+ * file of its own, named after the snapshot path and the generation, which is forced to disk before
+ * a small pointer file at the snapshot path is replaced to name it. So a snapshot file is always
+ * complete, and the file a library was restored from is never replaced while it is mapped, which
+ * some platforms refuse. Older generations are deleted by later snapshots once they can be.
+ */
+public final class LibrarySnapshot {
+    private static final int MAGIC = 0x4C42534E; // "LBSN"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 128;
+    private static final int STATUS_SLOTS = 8;
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_BYTES = 1L << CHUNK_SHIFT;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final BookStatus[] STATUSES = BookStatus.values();
+
+    /**
+     * Receives the fields of a loan record.
+     */
+    public interface LoanVisitor {
+        /**
+         * Visits one loan.
+         *
+         * @param bookId     The ID of the borrowed book.
+         * @param memberId   The ID of the borrowing member.
+         * @param borrowDate The borrow date in epoch milliseconds.
+         * @param dueDate    The due date in epoch milliseconds.
+         * @param returnDate The return date in epoch milliseconds, or -1 if the loan is active.
+         */
+        void visit(String bookId, String memberId, long borrowDate, long dueDate, long returnDate);
+    }
+
+    private final Path file;
+    private final ByteBuffer[] chunks;
+    private final BookFactory bookFactory;
+    private final long generation;
+    private final int bookCount;
+    private final int memberCount;
+    private final int activeLoanCount;
+    private final long historicLoanCount;
+    private final long[] statusCounts;
+    private final long indexOffset;
+    private final long membersOffset;
+    private final long loansOffset;
+    private final long historyOffset;
+    private final long endOffset;
+
+    private LibrarySnapshot(Path file, ByteBuffer[] chunks, BookFactory bookFactory) throws IOException {
+        this.file = file;
+        this.chunks = chunks;
+        this.bookFactory = bookFactory;
+        ByteBuffer header = chunks[0];
+        if (header.limit() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+            throw new IOException("Not a library snapshot");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + header.getInt(4));
+        }
+        this.generation = header.getLong(8);
+        this.bookCount = header.getInt(16);
+        this.memberCount = header.getInt(20);
+        this.activeLoanCount = header.getInt(24);
+        this.historicLoanCount = header.getLong(32);
+        this.statusCounts = new long[STATUSES.length];
+        for (int i = 0; i < statusCounts.length; i++) {
+            statusCounts[i] = header.getInt(48 + i * Integer.BYTES);
+        }
+        this.indexOffset = header.getLong(80);
+        this.membersOffset = header.getLong(96);
+        this.loansOffset = header.getLong(104);
+        this.historyOffset = header.getLong(112);
+        this.endOffset = header.getLong(120);
+    }
+
+    /**
+     * Opens the snapshot a pointer file names by mapping the snapshot's file into memory.
+     * Only the header is read; books, members and loans are decoded when they are asked for.
+     *
+     * @param path        The pointer file at the snapshot path.
+     * @param bookFactory The factory used to recreate books of their original type.
+     * @return The opened snapshot.
+     * @throws IOException If the file cannot be mapped or is not a snapshot.
+     */
+    public static LibrarySnapshot open(Path path, BookFactory bookFactory) throws IOException {
+        SnapshotEvent event = new SnapshotEvent();
+        event.begin();
+        LibrarySnapshot snapshot = null;
+        try {
+            String name = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim();
+            snapshot = map(path.resolveSibling(name), bookFactory);
+            return snapshot;
+        } finally {
+            event.complete(path.toString(), false, snapshot != null ? snapshot.endOffset : -1,
+                    snapshot != null ? snapshot.bookCount : -1, snapshot != null);
+        }
+    }
+
+    private static LibrarySnapshot map(Path path, BookFactory bookFactory) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunkCount = (int) Math.max(1, (size + CHUNK_BYTES - 1) >>> CHUNK_SHIFT);
+            ByteBuffer[] chunks = new ByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                // Chunks overlap by the largest record, so every record lies within the chunk it starts in
+                long start = (long) i << CHUNK_SHIFT;
+                long length = Math.min(size - start, CHUNK_BYTES + MAX_RECORD_BYTES);
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                chunks[i] = chunk;
+            }
+            LibrarySnapshot snapshot = new LibrarySnapshot(path, chunks, bookFactory);
+            if (snapshot.endOffset != size) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+            return snapshot;
+        }
+    }
+
+    // Getters
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int getBookCount() {
+        return bookCount;
+    }
+
+    public int getMemberCount() {
+        return memberCount;
+    }
+
+    public int getActiveLoanCount() {
+        return activeLoanCount;
+    }
+
+    public long getHistoricLoanCount() {
+        return historicLoanCount;
+    }
+
+    /**
+     * Gets the number of books that had a status when the snapshot was taken.
+     *
+     * @param status The status to count.
+     * @return The number of books with that status.
+     */
+    public long getStatusCount(BookStatus status) {
+        return statusCounts[status.ordinal()];
+    }
+
+    /**
+     * Decodes the book with the given ID.
+     *
+     * @param id The ID of the book.
+     * @return A new Book object, or null if the snapshot holds no such book.
+     */
+    public Book loadBook(String id) {
+        int index = indexOf(id.getBytes(StandardCharsets.UTF_8));
+        return index < 0 ? null : loadBook(index);
+    }
+
+    /**
+     * Checks whether the snapshot holds a book, without decoding it.
+     *
+     * @param id The ID of the book.
+     * @return true if the snapshot holds a book with the ID, false otherwise.
+     */
+    public boolean containsBook(String id) {
+        return indexOf(id.getBytes(StandardCharsets.UTF_8)) >= 0;
+    }
+
+    /**
+     * Decodes the book at a position of the ID-ordered index.
+     *
+     * @param index The position, from 0 to {@link #getBookCount()} - 1.
+     * @return A new Book object.
+     */
+    public Book loadBook(int index) {
+        Reader reader = new Reader(bookOffset(index));
+        String id = reader.string();
+        String type = reader.string();
+        BookStatus status = STATUSES[reader.u8()];
+        int publicationYear = reader.int32();
+        String title = reader.string();
+        String author = reader.string();
+        Book book = type == null
+                ? new Book(id, title, author, publicationYear)
+                : bookFactory.createBook(type, id, title, author, publicationYear);
+        if (status != BookStatus.AVAILABLE) {
+            book.setStatus(status);
+        }
+        return book;
+    }
+
+    /**
+     * Gets the ID of the book at a position of the ID-ordered index.
+     *
+     * @param index The position, from 0 to {@link #getBookCount()} - 1.
+     * @return The book's ID.
+     */
+    public String bookIdAt(int index) {
+        return new Reader(bookOffset(index)).string();
+    }
+
+    /**
+     * Decodes every member in the snapshot.
+     *
+     * @param action Receives each member's ID and name.
+     */
+    public void forEachMember(BiConsumer<String, String> action) {
+        Reader reader = new Reader(membersOffset);
+        for (int i = 0; i < memberCount; i++) {
+            String id = reader.string();
+            String name = reader.string();
+            action.accept(id, name);
+        }
+    }
+
+    /**
+     * Decodes every loan that was active when the snapshot was taken.
+     *
+     * @param visitor Receives each loan, with a return date of -1.
+     */
+    public void forEachActiveLoan(LoanVisitor visitor) {
+        Reader reader = new Reader(loansOffset);
+        for (int i = 0; i < activeLoanCount; i++) {
+            visitor.visit(reader.string(), reader.string(), reader.int64(), reader.int64(), -1);
+        }
+    }
+
+    /**
+     * Streams the loans that had been returned when the snapshot was taken, in the order they were archived.
+     *
+     * @param visitor Receives each returned loan.
+     */
+    public void forEachHistoricLoan(LoanVisitor visitor) {
+        Reader reader = new Reader(historyOffset);
+        for (long i = 0; i < historicLoanCount; i++) {
+            visitor.visit(reader.string(), reader.string(), reader.int64(), reader.int64(), reader.int64());
+        }
+    }
+
+    /**
+     * Streams the loans that had been returned when the snapshot was taken, in the order they were archived.
+     * Records are decoded as the stream is consumed, so a stream that is stopped early reads only a prefix.
+     *
+     * @return The returned loans.
+     */
+    public Stream<LoanRecord> historicLoans() {
+        Reader reader = new Reader(historyOffset);
+        Spliterator<LoanRecord> records = new Spliterators.AbstractSpliterator<>(historicLoanCount,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED) {
+            private long remaining = historicLoanCount;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super LoanRecord> action) {
+                if (remaining == 0) {
+                    return false;
+                }
+                remaining--;
+                action.accept(new LoanRecord(reader.string(), reader.string(), reader.int64(), reader.int64(),
+                        reader.int64()));
+                return true;
+            }
+        };
+        return StreamSupport.stream(records, false);
+    }
+
+    private long bookOffset(int index) {
+        if (index < 0 || index >= bookCount) {
+            throw new IndexOutOfBoundsException("Book index " + index + " out of range 0.." + bookCount);
+        }
+        long entry = indexOffset + (long) index * Long.BYTES;
+        return chunk(entry).getLong(local(entry));
+    }
+
+    /**
+     * Binary searches the index for an ID, comparing UTF-8 bytes in place.
+     *
+     * @param id The UTF-8 bytes of the ID.
+     * @return The position of the book, or a negative number if it is absent.
+     */
+    int indexOf(byte[] id) {
+        int low = 0;
+        int high = bookCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareId(bookOffset(mid), id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Compares the ID of the record at an offset with the given bytes, as unsigned bytes.
+     */
+    private int compareId(long offset, byte[] id) {
+        Reader reader = new Reader(offset);
+        int length = reader.varint() - 1;
+        ByteBuffer chunk = reader.chunk;
+        int start = reader.position;
+        int common = Math.min(length, id.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Integer.compare(chunk.get(start + i) & 0xFF, id[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, id.length);
+    }
+
+    /**
+     * Gets the UTF-8 bytes of the ID of the book at a position of the index.
+     */
+    private byte[] idBytesAt(int index) {
+        Reader reader = new Reader(bookOffset(index));
+        byte[] bytes = new byte[reader.varint() - 1];
+        reader.chunk.get(reader.position, bytes);
+        return bytes;
+    }
+
+    /**
+     * Copies the encoded record of the book at a position of the index.
+     *
+     * @return The status of the copied book.
+     */
+    private BookStatus copyBookRecord(int index, RegionWriter out) throws IOException {
+        long offset = bookOffset(index);
+        Reader reader = new Reader(offset);
+        reader.skipString();
+        reader.skipString();
+        BookStatus status = STATUSES[reader.u8()];
+        reader.int32();
+        reader.skipString();
+        reader.skipString();
+        out.copy(reader.chunk, local(offset), reader.position - local(offset));
+        return status;
+    }
+
+    private ByteBuffer chunk(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)];
+    }
+
+    private static int local(long offset) {
+        return (int) (offset & (CHUNK_BYTES - 1));
+    }
+
+    /**
+     * Writes a snapshot of a library. The caller must keep the library from changing while this runs.
+     * Books that were never loaded from the snapshot the library was restored from are copied
+     * without being decoded. Reserved books are written as available, since reservation queues
+     * are not part of a snapshot.
+     *
+     * @param path        The snapshot path, where the pointer file to replace is.
+     * @param generation  The generation of the journal that will follow this snapshot.
+     * @param library     The library to write.
+     * @param bookFactory The factory that knows the types of the library's books.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    public static void write(Path path, long generation, Library library, BookFactory bookFactory) throws IOException {
+        SnapshotEvent event = new SnapshotEvent();
+        event.begin();
+        long bytes = -1;
+        try {
+            bytes = writeFile(path, generation, library, bookFactory);
+        } finally {
+            event.complete(path.toString(), true, bytes, -1, bytes >= 0);
+        }
+    }
+
+    /**
+     * Writes a snapshot as described by {@link #write(Path, long, Library, BookFactory)}.
+     *
+     * @return The size of the snapshot file.
+     */
+    private static long writeFile(Path path, long generation, Library library, BookFactory bookFactory) throws IOException {
+        Path file = path.resolveSibling(path.getFileName() + "." + generation);
+        long size = writeGeneration(file, generation, library, bookFactory);
+        writePointer(path, file);
+        deleteOlderGenerations(path, generation, library.getSnapshot());
+        return size;
+    }
+
+    /**
+     * Writes the file of one generation through a temporary file, so that the file is always complete.
+     *
+     * @return The size of the file.
+     */
+    private static long writeGeneration(Path path, long generation, Library library, BookFactory bookFactory) throws IOException {
+        LibrarySnapshot previous = library.getSnapshot();
+        List<Book> loaded = new ArrayList<>();
+        library.forEachLoadedBook(loaded::add);
+        byte[][] loadedIds = new byte[loaded.size()][];
+        Integer[] order = new Integer[loaded.size()];
+        for (int i = 0; i < loadedIds.length; i++) {
+            loadedIds[i] = loaded.get(i).getId().getBytes(StandardCharsets.UTF_8);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(loadedIds[a], loadedIds[b]));
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long size;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int previousCount = previous == null ? 0 : previous.bookCount;
+            long maxBooks = (long) loaded.size() + previousCount;
+            long indexOffset = HEADER_BYTES;
+            long booksOffset = indexOffset + maxBooks * Long.BYTES;
+            RegionWriter index = new RegionWriter(channel, indexOffset);
+            RegionWriter data = new RegionWriter(channel, booksOffset);
+            long[] statusCounts = new long[STATUS_SLOTS];
+            int bookCount = 0;
+
+            // Merge the loaded books with the untouched records of the previous snapshot in ID order
+            int i = 0;
+            int j = 0;
+            while (i < previousCount || j < order.length) {
+                byte[] previousId = i < previousCount ? previous.idBytesAt(i) : null;
+                int cmp = previousId == null ? 1 : j == order.length ? -1
+                        : Arrays.compareUnsigned(previousId, loadedIds[order[j]]);
+                BookStatus status;
+                if (cmp < 0) {
+                    i++;
+                    if (!library.isSnapshotEntryCurrent(new String(previousId, StandardCharsets.UTF_8))) {
+                        continue;
+                    }
+                    index.putLong(data.position());
+                    status = previous.copyBookRecord(i - 1, data);
+                } else {
+                    if (cmp == 0) {
+                        i++;
+                    }
+                    Book book = loaded.get(order[j++]);
+                    index.putLong(data.position());
+                    status = writeBook(data, book, bookFactory.typeOf(book));
+                }
+                statusCounts[status.ordinal()]++;
+                bookCount++;
+            }
+
+            long membersOffset = data.position();
+            int[] memberCount = new int[1];
+            library.forEachMember(member -> {
+                data.putString(member.getId());
+                data.putString(member.getName());
+                memberCount[0]++;
+            });
+
+            long loansOffset = data.position();
+            List<Loan> activeLoans = library.getActiveLoans();
+            int activeLoanCount = 0;
+            for (Loan loan : activeLoans) {
+                data.putString(loan.getBook().getId());
+                data.putString(loan.getMember().getId());
+                data.putLong(loan.getBorrowTime());
+                data.putLong(loan.getDueTime());
+                activeLoanCount++;
+            }
+
+            long historyOffset = data.position();
+            long[] historicLoanCount = new long[1];
+            if (previous != null) {
+                previous.forEachHistoricLoan((bookId, memberId, borrowDate, dueDate, returnDate) -> {
+                    writeLoan(data, bookId, memberId, borrowDate, dueDate, returnDate);
+                    historicLoanCount[0]++;
+                });
+            }
+            library.forEachReturnedLoan(loan -> {
+                writeLoan(data, loan.getBookId(), loan.getMemberId(), loan.getBorrowDate(),
+                        loan.getDueDate(), loan.getReturnDate());
+                historicLoanCount[0]++;
+            });
+            long endOffset = data.position();
+            index.flush();
+            data.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, generation)
+                    .putInt(16, bookCount).putInt(20, memberCount[0]).putInt(24, activeLoanCount)
+                    .putLong(32, historicLoanCount[0]).putLong(40, historicLoanCount[0] + activeLoanCount);
+            for (int s = 0; s < STATUS_SLOTS; s++) {
+                header.putInt(48 + s * Integer.BYTES, (int) statusCounts[s]);
+            }
+            header.putLong(80, indexOffset).putLong(88, booksOffset).putLong(96, membersOffset)
+                    .putLong(104, loansOffset).putLong(112, historyOffset).putLong(120, endOffset);
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.truncate(endOffset);
+            channel.force(true);
+            size = endOffset;
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(temp);
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return size;
+    }
+
+    /**
+     * Replaces the pointer file at the snapshot path with one naming a generation's file.
+     * The pointer is never mapped, so it can be replaced on every platform.
+     */
+    private static void writePointer(Path path, Path file) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer name = ByteBuffer.wrap(file.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+            while (name.hasRemaining()) {
+                channel.write(name);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes the files of the generations before a new one, except the file the library was restored
+     * from, which it still maps. A file that cannot be deleted yet, for example because another reader
+     * still maps it, is left for a later snapshot to delete.
+     */
+    private static void deleteOlderGenerations(Path path, long generation, LibrarySnapshot mapped) {
+        String prefix = path.getFileName() + ".";
+        Path inUse = mapped == null ? null : mapped.file.toAbsolutePath().normalize();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path.toAbsolutePath().getParent(),
+                candidate -> isGenerationFile(candidate.getFileName().toString(), prefix))) {
+            for (Path candidate : files) {
+                long candidateGeneration = Long.parseLong(candidate.getFileName().toString().substring(prefix.length()));
+                if (candidateGeneration < generation && !candidate.toAbsolutePath().normalize().equals(inUse)) {
+                    try {
+                        Files.deleteIfExists(candidate);
+                    } catch (IOException e) {
+                        // Still mapped somewhere; the next snapshot tries again
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // The snapshot is written; old generations are only left behind
+        }
+    }
+
+    private static boolean isGenerationFile(String name, String prefix) {
+        if (name.length() <= prefix.length() || name.length() > prefix.length() + 18 || !name.startsWith(prefix)) {
+            return false;
+        }
+        for (int i = prefix.length(); i < name.length(); i++) {
+            if (name.charAt(i) < '0' || name.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static BookStatus writeBook(RegionWriter out, Book book, String type) {
+        BookStatus status = book.getStatus() == BookStatus.RESERVED ? BookStatus.AVAILABLE : book.getStatus();
+        long start = out.position();
+        out.putString(book.getId());
+        out.putString(type);
+        out.putByte(status.ordinal());
+        out.putInt(book.getPublicationYear());
+        out.putString(book.getTitle());
+        out.putString(book.getAuthor());
+        if (out.position() - start > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Book " + book.getId() + " is too large for a snapshot");
+        }
+        return status;
+    }
+
+    private static void writeLoan(RegionWriter out, String bookId, String memberId,
+                                  long borrowDate, long dueDate, long returnDate) {
+        out.putString(bookId);
+        out.putString(memberId);
+        out.putLong(borrowDate);
+        out.putLong(dueDate);
+        out.putLong(returnDate);
+    }
+
+    /**
+     * Reads consecutive fields starting at an absolute offset of the mapped file.
+     * Strings are stored as their UTF-8 length plus one, so that 0 can stand for null.
+     */
+    private final class Reader {
+        private ByteBuffer chunk;
+        private int position;
+        private long base;
+
+        Reader(long offset) {
+            seek(offset);
+        }
+
+        private void seek(long offset) {
+            chunk = chunk(offset);
+            base = offset - local(offset);
+            position = local(offset);
+        }
+
+        /**
+         * Moves to the chunk that starts next, once reading has passed into the overlap with it.
+         * Called at the start of every string, and so of every record.
+         */
+        private void settle() {
+            if (position >= CHUNK_BYTES) {
+                seek(base + position);
+            }
+        }
+
+        int u8() {
+            return chunk.get(position++) & 0xFF;
+        }
+
+        int int32() {
+            int value = chunk.getInt(position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        long int64() {
+            long value = chunk.getLong(position);
+            position += Long.BYTES;
+            return value;
+        }
+
+        int varint() {
+            settle();
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = u8();
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        String string() {
+            int length = varint() - 1;
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            chunk.get(position, bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void skipString() {
+            int length = varint() - 1;
+            if (length > 0) {
+                position += length;
+            }
+        }
+    }
+
+    /**
+     * Buffers sequential writes to one region of a file.
+     */
+    private static final class RegionWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(256 * 1024);
+        private long flushed;
+
+        RegionWriter(FileChannel channel, long offset) {
+            this.channel = channel;
+            this.flushed = offset;
+        }
+
+        long position() {
+            return flushed + buffer.position();
+        }
+
+        void putByte(int value) {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        void putInt(int value) {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putString(String value) {
+            if (value == null) {
+                putByte(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int length = bytes.length + 1;
+            ensure(5);
+            while ((length & ~0x7F) != 0) {
+                buffer.put((byte) ((length & 0x7F) | 0x80));
+                length >>>= 7;
+            }
+            buffer.put((byte) length);
+            put(bytes, 0, bytes.length);
+        }
+
+        void copy(ByteBuffer source, int offset, int length) throws IOException {
+            ensure(Math.min(length, buffer.capacity()));
+            if (length > buffer.remaining()) {
+                flush();
+                ByteBuffer slice = source.slice(offset, length);
+                while (slice.hasRemaining()) {
+                    flushed += channel.write(slice, flushed);
+                }
+            } else {
+                buffer.put(buffer.position(), source, offset, length);
+                buffer.position(buffer.position() + length);
+            }
+        }
+
+        private void put(byte[] bytes, int offset, int length) {
+            while (length > 0) {
+                ensure(1);
+                int n = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, n);
+                offset += n;
+                length -= n;
+            }
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                flushed += channel.write(buffer, flushed);
+            }
+            buffer.clear();
+        }
+    }
+}
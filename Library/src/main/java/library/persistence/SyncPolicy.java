@@ -0,0 +1,95 @@
+package library.persistence;
+
+/**
+ * Describes when journal writes are forced to stable storage.
+ */
+public final class SyncPolicy {
+    /**
+     * The ways in which a journal can make its records durable.
+     */
+    public enum Mode {
+        /** Every append waits until its record has been forced to disk; concurrent appends share one force. */
+        EVERY_OPERATION,
+        /** Records are written and forced by a background thread at a fixed interval. */
+        INTERVAL,
+        /** Records are written immediately and the operating system decides when to flush them. */
+        OS_MANAGED
+    }
+
+    private final Mode mode;
+    private final long intervalMillis;
+
+    private SyncPolicy(Mode mode, long intervalMillis) {
+        this.mode = mode;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Creates a policy that makes every operation durable before it completes.
+     *
+     * @return The policy.
+     */
+    public static SyncPolicy everyOperation() {
+        return new SyncPolicy(Mode.EVERY_OPERATION, 0);
+    }
+
+    /**
+     * Creates a policy that forces the journal every given number of milliseconds.
+     * Operations completed within the last interval can be lost on a crash.
+     *
+     * @param intervalMillis The time between forces, in milliseconds.
+     * @return The policy.
+     */
+    public static SyncPolicy interval(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Sync interval must be positive");
+        }
+        return new SyncPolicy(Mode.INTERVAL, intervalMillis);
+    }
+
+    /**
+     * Creates a policy that leaves flushing to the operating system.
+     *
+     * @return The policy.
+     */
+    public static SyncPolicy osManaged() {
+        return new SyncPolicy(Mode.OS_MANAGED, 0);
+    }
+
+    /**
+     * Parses a policy from text: {@code every-op}, {@code os}, or a number of milliseconds such as {@code 100ms}.
+     *
+     * @param text The text to parse.
+     * @return The policy.
+     * @throws IllegalArgumentException If the text is not a valid policy.
+     */
+    public static SyncPolicy parse(String text) {
+        String value = text.trim().toLowerCase();
+        switch (value) {
+            case "every-op":
+                return everyOperation();
+            case "os":
+                return osManaged();
+            default:
+                String millis = value.endsWith("ms") ? value.substring(0, value.length() - 2) : value;
+                try {
+                    return interval(Long.parseLong(millis));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Unknown sync policy: " + text);
+                }
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    @Override
+    public String toString() {
+        return mode == Mode.INTERVAL ? "SyncPolicy{" + intervalMillis + "ms}" : "SyncPolicy{" + mode + "}";
+    }
+}
@@ -0,0 +1,447 @@
+package library.search;
+
+import library.model.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over the titles and authors of the books in a catalog.
+ * <p>
+ * Each indexed book gets a document number, assigned in increasing order, and each term keeps a
+ * posting list of the documents containing it as a sorted int array, together with the term's
+ * positions in each document. A book whose details change, or that is removed, has its document
+ * marked deleted in a bitset and is indexed again under a new number, so posting lists are only
+ * ever appended to. Once at least half of the documents are deleted, the index is compacted.
+ * <p>
+ * Queries are answered by intersecting posting lists, smallest first, and ranking the matches by
+ * how often the query terms occur, weighted by how rare the terms are and counting matches in the
+ * title double. Only the best matches are kept while the posting lists are scanned.
+ * <p>
+ * The index is safe for concurrent use: searches share a read lock and updates take a write lock.
+ */
+public class BookSearchIndex implements CatalogIndex {
+    private static final int TITLE_WEIGHT = 2;
+    private static final int AUTHOR_WEIGHT = 1;
+    private static final int MIN_COMPACTION_DELETES = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, Integer> documents = new HashMap<>();
+    private String[] bookIds = new String[64];
+    private int[] titleLengths = new int[64];
+    private long[] deleted = new long[1];
+    private int documentCount;
+    private int deletedCount;
+
+    @Override
+    public void bookAdded(Book book) {
+        lock.writeLock().lock();
+        try {
+            delete(book.getId());
+            index(book);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        lock.writeLock().lock();
+        try {
+            delete(book.getId());
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookChanged(Book book) {
+        lock.writeLock().lock();
+        try {
+            if (delete(book.getId())) {
+                index(book);
+                compactIfSparse();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the titles and authors of the indexed books.
+     * See {@link SearchQuery} for the query syntax.
+     *
+     * @param query The query, for example {@code tolkien "the hobbit" OR silmarillion}.
+     * @param limit The maximum number of results.
+     * @return The IDs of the best matching books, best first.
+     */
+    public List<String> search(String query, int limit) {
+        List<List<String[]>> alternatives = SearchQuery.parse(query).getAlternatives();
+        if (limit <= 0 || alternatives.isEmpty()) {
+            return Collections.emptyList();
+        }
+        TopDocuments top = new TopDocuments(limit);
+        lock.readLock().lock();
+        try {
+            if (alternatives.size() == 1) {
+                match(alternatives.get(0), top::offer);
+            } else {
+                // A book matching several alternatives scores the sum of its matches
+                Map<Integer, Double> scores = new HashMap<>();
+                for (List<String[]> clauses : alternatives) {
+                    match(clauses, (document, score) -> scores.merge(document, score, Double::sum));
+                }
+                scores.forEach(top::offer);
+            }
+            return top.bookIds(bookIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of books in the index.
+     *
+     * @return The number of indexed books.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes a book under a new document number. Title positions are followed by author positions,
+     * with a gap between them so that no phrase spans both.
+     */
+    private void index(Book book) {
+        List<String> title = TextAnalyzer.analyze(book.getTitle());
+        List<String> author = TextAnalyzer.analyze(book.getAuthor());
+        Map<String, int[]> positions = new LinkedHashMap<>();
+        for (int i = 0; i < title.size(); i++) {
+            addPosition(positions, title.get(i), i);
+        }
+        for (int i = 0; i < author.size(); i++) {
+            addPosition(positions, author.get(i), title.size() + 1 + i);
+        }
+
+        int document = documentCount++;
+        if (document == bookIds.length) {
+            bookIds = Arrays.copyOf(bookIds, document * 2);
+            titleLengths = Arrays.copyOf(titleLengths, document * 2);
+        }
+        if (document >> 6 == deleted.length) {
+            deleted = Arrays.copyOf(deleted, deleted.length * 2);
+        }
+        bookIds[document] = book.getId();
+        titleLengths[document] = title.size();
+        documents.put(book.getId(), document);
+        for (Map.Entry<String, int[]> entry : positions.entrySet()) {
+            int[] termPositions = entry.getValue();
+            postings.computeIfAbsent(entry.getKey(), term -> new Postings())
+                    .add(document, termPositions, termPositions[0]);
+        }
+    }
+
+    /**
+     * Appends a position to a term's positions, which are stored after their count.
+     */
+    private static void addPosition(Map<String, int[]> positions, String term, int position) {
+        int[] termPositions = positions.get(term);
+        if (termPositions == null) {
+            termPositions = new int[2];
+        } else if (termPositions[0] + 1 == termPositions.length) {
+            termPositions = Arrays.copyOf(termPositions, termPositions.length * 2);
+        }
+        termPositions[++termPositions[0]] = position;
+        positions.put(term, termPositions);
+    }
+
+    /**
+     * Marks the document of a book deleted.
+     *
+     * @return true if the book was indexed, false otherwise.
+     */
+    private boolean delete(String bookId) {
+        Integer document = documents.remove(bookId);
+        if (document == null) {
+            return false;
+        }
+        deleted[document >> 6] |= 1L << document;
+        deletedCount++;
+        return true;
+    }
+
+    private boolean isDeleted(int document) {
+        return (deleted[document >> 6] & (1L << document)) != 0;
+    }
+
+    private void compactIfSparse() {
+        if (deletedCount >= MIN_COMPACTION_DELETES && deletedCount * 2 >= documentCount) {
+            compact();
+        }
+    }
+
+    /**
+     * Renumbers the live documents densely and drops deleted documents from every posting list.
+     * Renumbering preserves order, so the posting lists stay sorted.
+     */
+    private void compact() {
+        int[] renumbered = new int[documentCount];
+        int live = 0;
+        for (int document = 0; document < documentCount; document++) {
+            if (isDeleted(document)) {
+                renumbered[document] = -1;
+            } else {
+                renumbered[document] = live;
+                bookIds[live] = bookIds[document];
+                titleLengths[live] = titleLengths[document];
+                live++;
+            }
+        }
+        Arrays.fill(bookIds, live, documentCount, null);
+        Iterator<Postings> iterator = postings.values().iterator();
+        while (iterator.hasNext()) {
+            Postings list = iterator.next();
+            list.renumber(renumbered);
+            if (list.size == 0) {
+                iterator.remove();
+            }
+        }
+        documents.replaceAll((bookId, document) -> renumbered[document]);
+        documentCount = live;
+        deletedCount = 0;
+        deleted = new long[Math.max(1, (live >> 6) + 1)];
+    }
+
+    /**
+     * Finds the live documents matching all clauses of an alternative and scores them.
+     */
+    private void match(List<String[]> clauses, ScoredDocumentConsumer consumer) {
+        Map<String, Integer> termSlots = new LinkedHashMap<>();
+        List<Postings> lists = new ArrayList<>();
+        for (String[] clause : clauses) {
+            for (String term : clause) {
+                if (!termSlots.containsKey(term)) {
+                    Postings list = postings.get(term);
+                    if (list == null) {
+                        return;
+                    }
+                    termSlots.put(term, lists.size());
+                    lists.add(list);
+                }
+            }
+        }
+        int terms = lists.size();
+        Integer[] order = new Integer[terms];
+        for (int i = 0; i < terms; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(lists.get(a).size, lists.get(b).size));
+        double liveDocuments = documentCount - deletedCount;
+        double[] weights = new double[terms];
+        for (int i = 0; i < terms; i++) {
+            weights[i] = Math.log(1 + liveDocuments / lists.get(i).size);
+        }
+
+        Postings lead = lists.get(order[0]);
+        int[] cursors = new int[terms];
+        candidates:
+        for (int i = 0; i < lead.size; i++) {
+            int document = lead.documents[i];
+            if (isDeleted(document)) {
+                continue;
+            }
+            cursors[order[0]] = i;
+            for (int k = 1; k < terms; k++) {
+                int slot = order[k];
+                Postings list = lists.get(slot);
+                int cursor = list.seek(cursors[slot], document);
+                cursors[slot] = cursor;
+                if (cursor == list.size) {
+                    return;
+                }
+                if (list.documents[cursor] != document) {
+                    continue candidates;
+                }
+            }
+            for (String[] clause : clauses) {
+                if (clause.length > 1 && !matchesPhrase(clause, termSlots, lists, cursors)) {
+                    continue candidates;
+                }
+            }
+            double score = 0;
+            int titleLength = titleLengths[document];
+            for (int slot = 0; slot < terms; slot++) {
+                score += weights[slot] * lists.get(slot).weightedFrequency(cursors[slot], titleLength);
+            }
+            consumer.accept(document, score);
+        }
+    }
+
+    /**
+     * Checks whether the terms of a phrase occur at consecutive positions of the current document.
+     */
+    private static boolean matchesPhrase(String[] phrase, Map<String, Integer> termSlots, List<Postings> lists,
+                                         int[] cursors) {
+        int firstSlot = termSlots.get(phrase[0]);
+        Postings first = lists.get(firstSlot);
+        int from = first.starts[cursors[firstSlot]];
+        int to = first.starts[cursors[firstSlot] + 1];
+        starts:
+        for (int p = from; p < to; p++) {
+            int start = first.positions[p];
+            for (int k = 1; k < phrase.length; k++) {
+                int slot = termSlots.get(phrase[k]);
+                Postings list = lists.get(slot);
+                int cursor = cursors[slot];
+                if (Arrays.binarySearch(list.positions, list.starts[cursor], list.starts[cursor + 1], start + k) < 0) {
+                    continue starts;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * The documents containing a term, in increasing order, with the term's positions in each.
+     * The positions of the i-th document are {@code positions[starts[i]]} to {@code positions[starts[i + 1] - 1]}.
+     */
+    private static final class Postings {
+        int[] documents = new int[2];
+        int[] starts = new int[3];
+        int[] positions = new int[2];
+        int size;
+
+        void add(int document, int[] termPositions, int count) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, documents.length * 2);
+                starts = Arrays.copyOf(starts, documents.length + 1);
+            }
+            int end = starts[size];
+            if (end + count > positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(positions.length * 2, end + count));
+            }
+            System.arraycopy(termPositions, 1, positions, end, count);
+            documents[size] = document;
+            starts[++size] = end + count;
+        }
+
+        /**
+         * Finds the first entry at or after a cursor whose document is at least the target,
+         * probing ahead in doubling steps before searching.
+         */
+        int seek(int cursor, int target) {
+            int step = 1;
+            int low = cursor;
+            int high = cursor;
+            while (high < size && documents[high] < target) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            high = Math.min(high + 1, size);
+            int found = Arrays.binarySearch(documents, low, high, target);
+            return found >= 0 ? found : -found - 1;
+        }
+
+        int weightedFrequency(int cursor, int titleLength) {
+            int frequency = 0;
+            for (int p = starts[cursor]; p < starts[cursor + 1]; p++) {
+                frequency += positions[p] < titleLength ? TITLE_WEIGHT : AUTHOR_WEIGHT;
+            }
+            return frequency;
+        }
+
+        void renumber(int[] renumbered) {
+            int kept = 0;
+            int end = 0;
+            for (int i = 0; i < size; i++) {
+                int document = renumbered[documents[i]];
+                if (document < 0) {
+                    continue;
+                }
+                int from = starts[i];
+                int count = starts[i + 1] - from;
+                System.arraycopy(positions, from, positions, end, count);
+                documents[kept] = document;
+                starts[kept] = end;
+                end += count;
+                kept++;
+            }
+            starts[kept] = end;
+            size = kept;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ScoredDocumentConsumer {
+        void accept(int document, double score);
+    }
+
+    /**
+     * Keeps the highest scoring documents seen, in a heap whose head is the weakest kept document.
+     * Of equal scores the earlier indexed document ranks higher.
+     */
+    private static final class TopDocuments {
+        private final int limit;
+        private final PriorityQueue<ScoredDocument> heap;
+
+        TopDocuments(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(Math.min(limit, 1024) + 1, TopDocuments::compareStrength);
+        }
+
+        private static int compareStrength(ScoredDocument a, ScoredDocument b) {
+            int byScore = Double.compare(a.score, b.score);
+            return byScore != 0 ? byScore : Integer.compare(b.document, a.document);
+        }
+
+        void offer(int document, double score) {
+            if (heap.size() == limit) {
+                ScoredDocument weakest = heap.peek();
+                if (score < weakest.score || (score == weakest.score && document > weakest.document)) {
+                    return;
+                }
+                heap.poll();
+            }
+            heap.add(new ScoredDocument(document, score));
+        }
+
+        List<String> bookIds(String[] bookIds) {
+            ScoredDocument[] ranked = heap.toArray(new ScoredDocument[0]);
+            Arrays.sort(ranked, (a, b) -> compareStrength(b, a));
+            List<String> result = new ArrayList<>(ranked.length);
+            for (ScoredDocument scored : ranked) {
+                result.add(bookIds[scored.document]);
+            }
+            return result;
+        }
+    }
+
+    private static final class ScoredDocument {
+        final int document;
+        final double score;
+
+        ScoredDocument(int document, double score) {
+            this.document = document;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package library.search;
+
+import library.model.Book;
+import library.model.Member;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Completes book IDs, titles, authors, member IDs and member names from a typed prefix.
+ * <p>
+ * Every completable text is kept as a key in a {@link PrefixIndex}: a character for its kind,
+ * the text folded like search terms, a separator and the ID it belongs to. Completions are the
+ * keys following the typed prefix, in alphabetical order, so a lookup only decodes the keys it returns.
+ * <p>
+ * Keys are removed when a book or member leaves the catalog. When a book's details change its
+ * new keys are added, and the old ones are dropped the next time a lookup finds that they no
+ * longer match the book; the catalog is always consulted before a key is returned, and outside
+ * the index's lock.
+ */
+public class CatalogCompleter implements CatalogIndex {
+    private static final char SEPARATOR = '\0';
+    private static final int MAX_TEXT_LENGTH = 128;
+
+    private final PrefixIndex keys = new PrefixIndex();
+    private final Function<String, Book> books;
+    private final Function<String, Member> members;
+
+    /**
+     * Constructs a new CatalogCompleter.
+     *
+     * @param books   Looks up the current book with an ID, or null if there is none.
+     * @param members Looks up the current member with an ID, or null if there is none.
+     */
+    public CatalogCompleter(Function<String, Book> books, Function<String, Member> members) {
+        this.books = books;
+        this.members = members;
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        addKey(Completion.Kind.BOOK_ID, book.getId(), book.getId());
+        addKey(Completion.Kind.TITLE, book.getTitle(), book.getId());
+        addKey(Completion.Kind.AUTHOR, book.getAuthor(), book.getId());
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        removeKey(Completion.Kind.BOOK_ID, book.getId(), book.getId());
+        removeKey(Completion.Kind.TITLE, book.getTitle(), book.getId());
+        removeKey(Completion.Kind.AUTHOR, book.getAuthor(), book.getId());
+    }
+
+    @Override
+    public void bookChanged(Book book) {
+        bookAdded(book);
+    }
+
+    @Override
+    public void memberAdded(Member member) {
+        addKey(Completion.Kind.MEMBER_ID, member.getId(), member.getId());
+        addKey(Completion.Kind.MEMBER_NAME, member.getName(), member.getId());
+    }
+
+    @Override
+    public void memberChanged(Member member) {
+        memberAdded(member);
+    }
+
+    @Override
+    public void memberRemoved(Member member) {
+        removeKey(Completion.Kind.MEMBER_ID, member.getId(), member.getId());
+        removeKey(Completion.Kind.MEMBER_NAME, member.getName(), member.getId());
+    }
+
+    /**
+     * Completes a prefix. Case and accents are ignored. Titles, authors and member names are
+     * completed once per distinct text, with the ID of one book or member carrying it.
+     *
+     * @param prefix The text typed so far.
+     * @param limit  The maximum number of completions.
+     * @param kinds  The kinds of text to complete.
+     * @return The completions in alphabetical order.
+     */
+    public List<Completion> complete(String prefix, int limit, Set<Completion.Kind> kinds) {
+        String folded = fold(prefix);
+        if (folded.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<Completion> result = new ArrayList<>();
+        for (Completion.Kind kind : kinds) {
+            complete(kind, folded, limit, result);
+        }
+        if (kinds.size() > 1) {
+            result.sort(Comparator.comparing((Completion c) -> fold(c.getText())).thenComparing(Completion::getKind));
+            if (result.size() > limit) {
+                result = new ArrayList<>(result.subList(0, limit));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Collects up to limit completions of one kind, reading keys in batches and checking each against the catalog.
+     */
+    private void complete(Completion.Kind kind, String folded, int limit, List<Completion> result) {
+        String prefix = kind(kind) + folded;
+        String after = null;
+        String lastText = null;
+        int found = 0;
+        while (found < limit) {
+            int batch = limit - found + 8;
+            List<String> candidates = keys.withPrefix(prefix, after, batch);
+            for (String key : candidates) {
+                int separator = key.indexOf(SEPARATOR);
+                String text = key.substring(1, separator);
+                if (text.equals(lastText)) {
+                    continue;
+                }
+                Completion completion = resolve(kind, key, key.substring(separator + 1));
+                if (completion == null) {
+                    keys.remove(key);
+                    continue;
+                }
+                result.add(completion);
+                lastText = kind == Completion.Kind.BOOK_ID || kind == Completion.Kind.MEMBER_ID ? null : text;
+                if (++found == limit) {
+                    return;
+                }
+            }
+            if (candidates.size() < batch) {
+                return;
+            }
+            after = candidates.get(candidates.size() - 1);
+        }
+    }
+
+    /**
+     * Builds the completion for a key, or returns null if the key no longer matches the catalog.
+     */
+    private Completion resolve(Completion.Kind kind, String key, String id) {
+        String text;
+        switch (kind) {
+            case BOOK_ID:
+            case TITLE:
+            case AUTHOR:
+                Book book = books.apply(id);
+                if (book == null) {
+                    return null;
+                }
+                text = kind == Completion.Kind.BOOK_ID ? book.getId()
+                        : kind == Completion.Kind.TITLE ? book.getTitle() : book.getAuthor();
+                break;
+            default:
+                Member member = members.apply(id);
+                if (member == null) {
+                    return null;
+                }
+                text = kind == Completion.Kind.MEMBER_ID ? member.getId() : member.getName();
+                break;
+        }
+        return key.equals(key(kind, text, id)) ? new Completion(kind, text, id) : null;
+    }
+
+    private void addKey(Completion.Kind kind, String text, String id) {
+        String key = key(kind, text, id);
+        if (key != null) {
+            keys.add(key);
+        }
+    }
+
+    private void removeKey(Completion.Kind kind, String text, String id) {
+        String key = key(kind, text, id);
+        if (key != null) {
+            keys.remove(key);
+        }
+    }
+
+    private static String key(Completion.Kind kind, String text, String id) {
+        String folded = text != null ? fold(text) : "";
+        if (folded.isEmpty()) {
+            return null;
+        }
+        return kind(kind) + folded + SEPARATOR + id;
+    }
+
+    private static char kind(Completion.Kind kind) {
+        return (char) ('a' + kind.ordinal());
+    }
+
+    /**
+     * Folds text like search terms, keeping its spacing and punctuation, and caps its length.
+     */
+    private static String fold(String text) {
+        String folded = TextAnalyzer.fold(text.strip());
+        if (folded.length() > MAX_TEXT_LENGTH) {
+            folded = folded.substring(0, MAX_TEXT_LENGTH);
+        }
+        return folded.replace(SEPARATOR, ' ');
+    }
+}
@@ -0,0 +1,59 @@
+package library.search;
+
+import library.model.Book;
+import library.model.Member;
+
+/**
+ * Secondary index over a library's catalog.
+ * The library tells its registered indexes about every book that enters or leaves the catalog,
+ * about every change to a catalogued book's details and about members joining, leaving and being renamed. Calls for the same book ID are made
+ * one at a time, in the order the catalog changed.
+ */
+public interface CatalogIndex {
+    /**
+     * Called when a book enters the catalog. A book with the ID of an indexed book replaces it.
+     * A library restored from a snapshot also reports the snapshot's books this way, with copies
+     * that are not part of the catalog.
+     *
+     * @param book The book that was added.
+     */
+    void bookAdded(Book book);
+
+    /**
+     * Called when a book leaves the catalog.
+     *
+     * @param book The book that was removed.
+     */
+    void bookRemoved(Book book);
+
+    /**
+     * Called after a catalogued book's title, author or publication year has changed.
+     *
+     * @param book The book that has changed.
+     */
+    void bookChanged(Book book);
+
+    /**
+     * Called when a member joins the library. A member with the ID of an indexed member replaces it.
+     *
+     * @param member The member that was added.
+     */
+    default void memberAdded(Member member) {
+    }
+
+    /**
+     * Called after a member's name has changed.
+     *
+     * @param member The member that has changed.
+     */
+    default void memberChanged(Member member) {
+    }
+
+    /**
+     * Called when a member leaves the library.
+     *
+     * @param member The member that was removed.
+     */
+    default void memberRemoved(Member member) {
+    }
+}
@@ -0,0 +1,57 @@
+package library.search;
+
+/**
+ * Represents a suggestion for text being typed, such as a book title matching "lord of".
+ */
+public final class Completion {
+    /**
+     * What a completion completes.
+     */
+    public enum Kind {
+        BOOK_ID,
+        TITLE,
+        AUTHOR,
+        MEMBER_ID,
+        MEMBER_NAME
+    }
+
+    private final Kind kind;
+    private final String text;
+    private final String id;
+
+    /**
+     * Constructs a new Completion.
+     *
+     * @param kind What the completion completes.
+     * @param text The completed text, as it is spelled in the catalog.
+     * @param id   The ID of the book or member the text belongs to.
+     */
+    public Completion(Kind kind, String text, String id) {
+        this.kind = kind;
+        this.text = text;
+        this.id = id;
+    }
+
+    // Getters
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "Completion{" +
+                "kind=" + kind +
+                ", text='" + text + '\'' +
+                ", id='" + id + '\'' +
+                '}';
+    }
+}
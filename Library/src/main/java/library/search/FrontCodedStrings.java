@@ -0,0 +1,230 @@
+package library.search;
+
+import java.util.Arrays;
+
+/**
+ * Immutable sorted array of strings stored with front coding.
+ * Strings are grouped in blocks of {@value #BLOCK_SIZE}; the first string of a block is stored whole
+ * and each following one as the length of the prefix it shares with its predecessor plus the rest.
+ * Sorted keys with long common prefixes, such as folded titles, take a fraction of their size as
+ * {@link String} objects and need no object per key. Lookups binary search the block heads and
+ * decode at most one block. A Bloom filter of about ten bits per string answers most lookups of
+ * absent strings without searching at all.
+ */
+final class FrontCodedStrings {
+    private static final int BLOCK_SIZE = 16;
+
+    static final FrontCodedStrings EMPTY = new FrontCodedStrings(new String[0], 0);
+
+    private final char[] data;
+    private final int[] blockStarts;
+    private final int size;
+    private final long[] filter;
+
+    /**
+     * Encodes strings.
+     *
+     * @param sorted The strings, sorted and without duplicates.
+     * @param count  The number of strings to take from the array.
+     */
+    FrontCodedStrings(String[] sorted, int count) {
+        this.size = count;
+        this.blockStarts = new int[(count + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        char[] buffer = new char[1024];
+        int length = 0;
+        String previous = null;
+        for (int i = 0; i < count; i++) {
+            String key = sorted[i];
+            int shared = 0;
+            if (i % BLOCK_SIZE == 0) {
+                blockStarts[i / BLOCK_SIZE] = length;
+            } else {
+                int max = Math.min(previous.length(), key.length());
+                while (shared < max && previous.charAt(shared) == key.charAt(shared)) {
+                    shared++;
+                }
+            }
+            int suffix = key.length() - shared;
+            if (length + suffix + 2 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + suffix + 2));
+            }
+            if (i % BLOCK_SIZE != 0) {
+                buffer[length++] = (char) shared;
+            }
+            buffer[length++] = (char) suffix;
+            key.getChars(shared, key.length(), buffer, length);
+            length += suffix;
+            previous = key;
+        }
+        this.data = Arrays.copyOf(buffer, length);
+        this.filter = new long[Math.max(1, (count * 10 + 63) >>> 6)];
+        for (int i = 0; i < count; i++) {
+            int hash = sorted[i].hashCode();
+            for (int probe = 0; probe < 3; probe++) {
+                int bit = filterBit(hash, probe);
+                filter[bit >>> 6] |= 1L << bit;
+            }
+        }
+    }
+
+    private int filterBit(int hash, int probe) {
+        int mixed = (hash + probe * 0x9E3779B9) * 0x85EBCA6B;
+        mixed ^= mixed >>> 15;
+        return (int) ((mixed & 0xFFFFFFFFL) % ((long) filter.length << 6));
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Finds the position of the first string that is greater than or equal to a key.
+     *
+     * @param key The key to look for.
+     * @return The position, or {@link #size()} if every string is smaller.
+     */
+    int lowerBound(String key) {
+        int low = 0;
+        int high = blockStarts.length - 1;
+        // Find the last block whose head is smaller than the key
+        int block = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compareHead(mid, key) < 0) {
+                block = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (block < 0) {
+            return 0;
+        }
+        Cursor cursor = new Cursor(block * BLOCK_SIZE);
+        int end = Math.min(size, (block + 1) * BLOCK_SIZE);
+        while (cursor.position < end) {
+            if (cursor.compareTo(key) >= 0) {
+                return cursor.position;
+            }
+            cursor.advance();
+        }
+        return end;
+    }
+
+    /**
+     * Checks whether a string is present.
+     *
+     * @param key The string to look for.
+     * @return true if the array holds the string, false otherwise.
+     */
+    boolean contains(String key) {
+        int hash = key.hashCode();
+        for (int probe = 0; probe < 3; probe++) {
+            int bit = filterBit(hash, probe);
+            if ((filter[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        int position = lowerBound(key);
+        return position < size && cursor(position).current().equals(key);
+    }
+
+    /**
+     * Opens a cursor on the string at a position.
+     *
+     * @param position The position, from 0 to {@link #size()}; at {@link #size()} the cursor is exhausted.
+     * @return The cursor.
+     */
+    Cursor cursor(int position) {
+        Cursor cursor = new Cursor(position - position % BLOCK_SIZE);
+        while (cursor.position < position) {
+            cursor.advance();
+        }
+        return cursor;
+    }
+
+    private int compareHead(int block, String key) {
+        int offset = blockStarts[block];
+        int length = data[offset++];
+        int max = Math.min(length, key.length());
+        for (int i = 0; i < max; i++) {
+            int diff = data[offset + i] - key.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - key.length();
+    }
+
+    /**
+     * Decodes the strings in order from a position, reusing one buffer.
+     */
+    final class Cursor {
+        private char[] current = new char[64];
+        private int length;
+        private int position;
+        private int offset;
+
+        private Cursor(int blockAlignedPosition) {
+            this.position = blockAlignedPosition;
+            if (position < size) {
+                this.offset = blockStarts[position / BLOCK_SIZE];
+                decode(0);
+            }
+        }
+
+        boolean hasCurrent() {
+            return position < size;
+        }
+
+        String current() {
+            return new String(current, 0, length);
+        }
+
+        boolean startsWith(String prefix) {
+            if (prefix.length() > length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (current[i] != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int compareTo(String key) {
+            int max = Math.min(length, key.length());
+            for (int i = 0; i < max; i++) {
+                int diff = current[i] - key.charAt(i);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return length - key.length();
+        }
+
+        void advance() {
+            position++;
+            if (position >= size) {
+                return;
+            }
+            if (position % BLOCK_SIZE == 0) {
+                offset = blockStarts[position / BLOCK_SIZE];
+                decode(0);
+            } else {
+                decode(data[offset++]);
+            }
+        }
+
+        private void decode(int shared) {
+            int suffix = data[offset++];
+            if (shared + suffix > current.length) {
+                current = Arrays.copyOf(current, Math.max(current.length * 2, shared + suffix));
+            }
+            System.arraycopy(data, offset, current, shared, suffix);
+            offset += suffix;
+            length = shared + suffix;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package library.search;
+
+import library.model.Book;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Keeps the catalog's books in order of a sort key, such as the publication year, with ties broken by book ID.
+ * <p>
+ * Entries live in a concurrent skip list, so finding the start of a range takes logarithmic time
+ * and each following book constant time. The entry of every book is also kept by ID, so a book whose
+ * key changes can be moved without knowing its old key.
+ * <p>
+ * Pages are resumed with a cursor naming the last entry returned, rather than an offset, so paging
+ * through the view is not thrown off by books added or removed before the cursor.
+ *
+ * @param <V> The type of the sort key.
+ */
+public class OrderedBookIndex<V extends Comparable<V>> implements CatalogIndex {
+    private static final char CURSOR_SEPARATOR = '\0';
+
+    private final Function<Book, V> sortKey;
+    private final Function<String, V> keyParser;
+    private final NavigableSet<Entry<V>> entries = new ConcurrentSkipListSet<>();
+    private final Map<String, Entry<V>> entriesByBook = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new OrderedBookIndex.
+     *
+     * @param sortKey   Gets a book's sort key.
+     * @param keyParser Recreates a sort key from its {@link Object#toString()} form, for reading cursors.
+     */
+    public OrderedBookIndex(Function<Book, V> sortKey, Function<String, V> keyParser) {
+        this.sortKey = sortKey;
+        this.keyParser = keyParser;
+    }
+
+    /**
+     * Creates an index ordering books by publication year.
+     *
+     * @return The new index.
+     */
+    public static OrderedBookIndex<Integer> byPublicationYear() {
+        return new OrderedBookIndex<>(Book::getPublicationYear, Integer::valueOf);
+    }
+
+    /**
+     * Creates an index ordering books by title, ignoring case and accents.
+     *
+     * @return The new index.
+     */
+    public static OrderedBookIndex<String> byTitle() {
+        return new OrderedBookIndex<>(book -> book.getTitle() != null ? TextAnalyzer.fold(book.getTitle()) : "",
+                Function.identity());
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        Entry<V> entry = new Entry<>(sortKey.apply(book), book.getId());
+        Entry<V> previous = entriesByBook.put(book.getId(), entry);
+        if (previous != null && !previous.equals(entry)) {
+            entries.remove(previous);
+        }
+        entries.add(entry);
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        Entry<V> entry = entriesByBook.remove(book.getId());
+        if (entry != null) {
+            entries.remove(entry);
+        }
+    }
+
+    @Override
+    public void bookChanged(Book book) {
+        if (entriesByBook.containsKey(book.getId())) {
+            bookAdded(book);
+        }
+    }
+
+    /**
+     * Gets the number of books in the index.
+     *
+     * @return The number of indexed books.
+     */
+    public int size() {
+        return entriesByBook.size();
+    }
+
+    /**
+     * Gets a page of the books whose sort key lies within a range, in order.
+     *
+     * @param from   The lowest sort key, inclusive, or null for no lower bound.
+     * @param to     The highest sort key, inclusive, or null for no upper bound.
+     * @param cursor The cursor of the previous page, or null for the first page.
+     * @param limit  The maximum number of books on the page.
+     * @return The page.
+     * @throws IllegalArgumentException If the cursor was not made by this index.
+     */
+    public Page page(V from, V to, String cursor, int limit) {
+        return page(from, to, cursor, 0, limit);
+    }
+
+    /**
+     * Gets a page of the books whose sort key lies within a range, in order, starting a number of books
+     * after a cursor. Skipped books are passed over by their index entries alone, one entry at a time:
+     * seeking far ahead never loads the books in between, but its cost grows with the offset.
+     *
+     * @param from   The lowest sort key, inclusive, or null for no lower bound.
+     * @param to     The highest sort key, inclusive, or null for no upper bound.
+     * @param cursor The cursor to start from, or null for the start of the range.
+     * @param offset The number of books to skip after the cursor.
+     * @param limit  The maximum number of books on the page.
+     * @return The page.
+     * @throws IllegalArgumentException If the cursor was not made by this index.
+     */
+    public Page page(V from, V to, String cursor, int offset, int limit) {
+        Entry<V> lower = from != null ? new Entry<>(from, null, false) : null;
+        boolean lowerInclusive = true;
+        if (cursor != null) {
+            Entry<V> after = parseCursor(cursor);
+            if (lower == null || after.compareTo(lower) >= 0) {
+                lower = after;
+                lowerInclusive = false;
+            }
+        }
+        Entry<V> upper = to != null ? new Entry<>(to, null, true) : null;
+        NavigableSet<Entry<V>> range;
+        if (lower != null && upper != null) {
+            if (lower.compareTo(upper) > 0) {
+                return new Page(new ArrayList<>(), null);
+            }
+            range = entries.subSet(lower, lowerInclusive, upper, true);
+        } else if (lower != null) {
+            range = entries.tailSet(lower, lowerInclusive);
+        } else if (upper != null) {
+            range = entries.headSet(upper, true);
+        } else {
+            range = entries;
+        }
+        List<String> bookIds = new ArrayList<>(Math.min(limit, 1024));
+        Entry<V> last = null;
+        Iterator<Entry<V>> iterator = range.iterator();
+        for (int skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            last = iterator.next();
+        }
+        while (iterator.hasNext() && bookIds.size() < limit) {
+            last = iterator.next();
+            bookIds.add(last.bookId);
+        }
+        String nextCursor = last != null && iterator.hasNext() ? last.key + String.valueOf(CURSOR_SEPARATOR) + last.bookId : null;
+        return new Page(bookIds, nextCursor);
+    }
+
+    private Entry<V> parseCursor(String cursor) {
+        int separator = cursor.lastIndexOf(CURSOR_SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        try {
+            return new Entry<>(keyParser.apply(cursor.substring(0, separator)), cursor.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * A page of book IDs and the cursor of the following page.
+     */
+    public static final class Page {
+        private final List<String> bookIds;
+        private final String nextCursor;
+
+        private Page(List<String> bookIds, String nextCursor) {
+            this.bookIds = bookIds;
+            this.nextCursor = nextCursor;
+        }
+
+        // Getters
+
+        public List<String> getBookIds() {
+            return bookIds;
+        }
+
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+
+    /**
+     * A position in the order: a sort key and a book ID. Bounds of a range have no book ID
+     * and sort before or after every book with their key.
+     */
+    private static final class Entry<V extends Comparable<V>> implements Comparable<Entry<V>> {
+        private final V key;
+        private final String bookId;
+        private final boolean upperBound;
+
+        Entry(V key, String bookId) {
+            this(key, bookId, false);
+        }
+
+        Entry(V key, String bookId, boolean upperBound) {
+            this.key = key;
+            this.bookId = bookId;
+            this.upperBound = upperBound;
+        }
+
+        @Override
+        public int compareTo(Entry<V> other) {
+            int byKey = key.compareTo(other.key);
+            if (byKey != 0) {
+                return byKey;
+            }
+            if (bookId == null || other.bookId == null) {
+                int rank = bookId != null ? 0 : upperBound ? 1 : -1;
+                int otherRank = other.bookId != null ? 0 : other.upperBound ? 1 : -1;
+                return Integer.compare(rank, otherRank);
+            }
+            return bookId.compareTo(other.bookId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?> entry = (Entry<?>) o;
+            return key.equals(entry.key) && Objects.equals(bookId, entry.bookId) && upperBound == entry.upperBound;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(key, bookId);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package library.search;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sorted set of strings that can be listed from any prefix.
+ * <p>
+ * Strings are added to a small sorted overlay. When it fills up it is frozen into a compact
+ * {@link FrontCodedStrings} run, and runs of similar size are merged, so there are only
+ * logarithmically many runs and each string is rewritten logarithmically often. Removed strings
+ * are kept as tombstones until the run holding them is merged. A listing walks every run and the
+ * overlay side by side.
+ * <p>
+ * The set is safe for concurrent use: listings share a read lock and changes take a write lock.
+ */
+final class PrefixIndex {
+    private static final int OVERLAY_CAPACITY = 4096;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<FrontCodedStrings> runs = new ArrayList<>();
+    private final NavigableSet<String> added = new TreeSet<>();
+    private final Set<String> removed = new HashSet<>();
+    private int runSize;
+
+    void add(String key) {
+        lock.writeLock().lock();
+        try {
+            if ((!removed.isEmpty() && removed.remove(key)) || added.contains(key) || inRuns(key)) {
+                return;
+            }
+            added.add(key);
+            if (added.size() >= OVERLAY_CAPACITY) {
+                freeze();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            if (!added.remove(key) && !removed.contains(key) && inRuns(key)) {
+                removed.add(key);
+                if (removed.size() >= OVERLAY_CAPACITY && removed.size() * 4 >= runSize) {
+                    mergeRuns(0);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return runSize - removed.size() + added.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets strings starting with a prefix in ascending order, resuming after an earlier result.
+     *
+     * @param prefix The prefix.
+     * @param after  The last string of an earlier call to continue after, or null to start at the prefix.
+     * @param limit  The maximum number of strings.
+     * @return The strings, at most limit of them.
+     */
+    List<String> withPrefix(String prefix, String after, int limit) {
+        List<String> result = new ArrayList<>(Math.min(limit, 64));
+        String from = after != null ? after : prefix;
+        lock.readLock().lock();
+        try {
+            int sources = runs.size();
+            FrontCodedStrings.Cursor[] cursors = new FrontCodedStrings.Cursor[sources];
+            String[] heads = new String[sources + 1];
+            for (int i = 0; i < sources; i++) {
+                FrontCodedStrings run = runs.get(i);
+                cursors[i] = run.cursor(run.lowerBound(from));
+                if (after != null && cursors[i].hasCurrent() && cursors[i].compareTo(after) == 0) {
+                    cursors[i].advance();
+                }
+                heads[i] = next(cursors[i], prefix);
+            }
+            Iterator<String> fromAdded = added.tailSet(from, after == null).iterator();
+            heads[sources] = next(fromAdded, prefix);
+            while (result.size() < limit) {
+                int smallest = smallest(heads);
+                if (smallest < 0) {
+                    break;
+                }
+                String key = heads[smallest];
+                heads[smallest] = smallest < sources ? next(cursors[smallest], prefix) : next(fromAdded, prefix);
+                if (!removed.contains(key)) {
+                    result.add(key);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int smallest(String[] heads) {
+        int smallest = -1;
+        for (int i = 0; i < heads.length; i++) {
+            if (heads[i] != null && (smallest < 0 || heads[i].compareTo(heads[smallest]) < 0)) {
+                smallest = i;
+            }
+        }
+        return smallest;
+    }
+
+    private static String next(FrontCodedStrings.Cursor cursor, String prefix) {
+        if (!cursor.hasCurrent() || !cursor.startsWith(prefix)) {
+            return null;
+        }
+        String key = cursor.current();
+        cursor.advance();
+        return key;
+    }
+
+    private static String next(Iterator<String> iterator, String prefix) {
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        String key = iterator.next();
+        return key.startsWith(prefix) ? key : null;
+    }
+
+    private boolean inRuns(String key) {
+        for (FrontCodedStrings run : runs) {
+            if (run.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Turns the overlay into a run, then merges the newest runs while the newer one is at least half the older one's size.
+     */
+    private void freeze() {
+        runs.add(new FrontCodedStrings(added.toArray(new String[0]), added.size()));
+        runSize += added.size();
+        added.clear();
+        int count = runs.size();
+        while (count >= 2 && runs.get(count - 1).size() * 2 >= runs.get(count - 2).size()) {
+            mergeRuns(count - 2);
+            count = runs.size();
+        }
+    }
+
+    /**
+     * Merges every run from a position on into one, dropping the strings removed from them.
+     */
+    private void mergeRuns(int from) {
+        List<FrontCodedStrings> merging = runs.subList(from, runs.size());
+        int total = 0;
+        FrontCodedStrings.Cursor[] cursors = new FrontCodedStrings.Cursor[merging.size()];
+        String[] heads = new String[merging.size()];
+        for (int i = 0; i < cursors.length; i++) {
+            total += merging.get(i).size();
+            cursors[i] = merging.get(i).cursor(0);
+            heads[i] = next(cursors[i], "");
+        }
+        String[] merged = new String[total];
+        int count = 0;
+        for (int smallest = smallest(heads); smallest >= 0; smallest = smallest(heads)) {
+            String key = heads[smallest];
+            heads[smallest] = next(cursors[smallest], "");
+            if (removed.isEmpty() || !removed.remove(key)) {
+                merged[count++] = key;
+            }
+        }
+        merging.clear();
+        runs.add(new FrontCodedStrings(merged, count));
+        runSize += count - total;
+    }
+}
@@ -0,0 +1,82 @@
+package library.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A parsed search query. Words must all match, {@code OR} between words separates alternatives,
+ * and text in double quotes must match as a phrase, so {@code "the hobbit" tolkien OR silmarillion}
+ * finds books matching both the phrase and "tolkien", or matching "silmarillion".
+ * A word that analyzes into several terms, such as "o'brien", is matched as a phrase.
+ */
+final class SearchQuery {
+    private final List<List<String[]>> alternatives;
+
+    private SearchQuery(List<List<String[]>> alternatives) {
+        this.alternatives = alternatives;
+    }
+
+    /**
+     * Parses a query.
+     *
+     * @param query The query text.
+     * @return The parsed query, with no alternatives if the text has no searchable terms.
+     */
+    static SearchQuery parse(String query) {
+        List<List<String[]>> alternatives = new ArrayList<>();
+        List<String[]> clauses = new ArrayList<>();
+        int i = 0;
+        int length = query.length();
+        while (i < length) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int end = query.indexOf('"', i + 1);
+                if (end < 0) {
+                    end = length;
+                }
+                addClause(clauses, query.substring(i + 1, end));
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < length && !Character.isWhitespace(query.charAt(end)) && query.charAt(end) != '"') {
+                    end++;
+                }
+                String word = query.substring(i, end);
+                if (word.equals("OR")) {
+                    addAlternative(alternatives, clauses);
+                    clauses = new ArrayList<>();
+                } else {
+                    addClause(clauses, word);
+                }
+                i = end;
+            }
+        }
+        addAlternative(alternatives, clauses);
+        return new SearchQuery(alternatives);
+    }
+
+    private static void addClause(List<String[]> clauses, String text) {
+        List<String> terms = TextAnalyzer.analyze(text);
+        if (!terms.isEmpty()) {
+            clauses.add(terms.toArray(new String[0]));
+        }
+    }
+
+    private static void addAlternative(List<List<String[]>> alternatives, List<String[]> clauses) {
+        if (!clauses.isEmpty()) {
+            alternatives.add(clauses);
+        }
+    }
+
+    /**
+     * Gets the alternatives of the query, any of which a book may match.
+     * Each alternative is a list of clauses that must all match; a clause is a term or, with several terms, a phrase.
+     *
+     * @return The alternatives of the query.
+     */
+    List<List<String[]>> getAlternatives() {
+        return alternatives;
+    }
+}
@@ -0,0 +1,69 @@
+package library.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits text into the terms that are indexed and searched for.
+ * Terms are maximal runs of letters and digits, lower-cased and stripped of accents,
+ * so that "Gödel, Escher" yields "godel" and "escher".
+ */
+public final class TextAnalyzer {
+    private TextAnalyzer() {
+    }
+
+    /**
+     * Splits text into terms.
+     *
+     * @param text The text to analyze, or null.
+     * @return The terms in the order they occur, empty if the text is null or has no letters or digits.
+     */
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i < folded.length(); i++) {
+            if (Character.isLetterOrDigit(folded.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                terms.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            terms.add(folded.substring(start));
+        }
+        return terms;
+    }
+
+    /**
+     * Lower-cases text and removes its accents. Plain ASCII text skips the Unicode decomposition.
+     */
+    static String fold(String text) {
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            ascii = text.charAt(i) < 0x80;
+        }
+        if (!ascii) {
+            text = Normalizer.normalize(text, Normalizer.Form.NFD);
+            StringBuilder sb = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                int type = Character.getType(c);
+                if (type != Character.NON_SPACING_MARK && type != Character.COMBINING_SPACING_MARK
+                        && type != Character.ENCLOSING_MARK) {
+                    sb.append(c);
+                }
+            }
+            text = sb.toString();
+        }
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,146 @@
+package library.server;
+
+import library.model.BatchResult;
+import library.model.Book;
+import library.model.BookPage;
+import library.model.LatencySnapshot;
+import library.model.LibrarySummary;
+import library.model.MetricsSnapshot;
+import library.model.OperationStats;
+import library.util.FlatJson;
+import library.util.JsonWriter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts the library's model objects to and from the JSON of the HTTP API, field by field.
+ */
+final class JsonCodec {
+    private JsonCodec() {
+    }
+
+    /**
+     * Reads a request body, which must be a flat JSON object.
+     *
+     * @param body The body text.
+     * @return The body's members.
+     * @throws IllegalArgumentException If the body is not a flat JSON object.
+     */
+    static Map<String, String> readObject(String body) {
+        return FlatJson.parse(body);
+    }
+
+    /**
+     * Gets a required member of a request body.
+     *
+     * @param object The body's members.
+     * @param name   The member name.
+     * @return The member's value.
+     * @throws IllegalArgumentException If the member is missing or null.
+     */
+    static String required(Map<String, String> object, String name) {
+        String value = object.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing field: " + name);
+        }
+        return value;
+    }
+
+    static String book(Book book) {
+        JsonWriter json = new JsonWriter();
+        writeBook(json, book);
+        return json.toString();
+    }
+
+    static String books(List<Book> books) {
+        JsonWriter json = new JsonWriter().beginObject().name("books");
+        writeBooks(json, books);
+        return json.endObject().toString();
+    }
+
+    static String page(BookPage page) {
+        JsonWriter json = new JsonWriter().beginObject().name("books");
+        writeBooks(json, page.getBooks());
+        return json.member("nextCursor", page.getNextCursor()).endObject().toString();
+    }
+
+    static String summary(LibrarySummary summary) {
+        return new JsonWriter().beginObject()
+                .member("availableBooks", summary.getAvailableBooks())
+                .member("borrowedBooks", summary.getBorrowedBooks())
+                .member("activeMembers", summary.getActiveMembers())
+                .member("totalLoans", summary.getTotalLoans())
+                .endObject().toString();
+    }
+
+    static String outcome(BatchResult.Outcome outcome) {
+        return new JsonWriter().beginObject().member("outcome", outcome.name()).endObject().toString();
+    }
+
+    static String batch(BatchResult result) {
+        JsonWriter json = new JsonWriter().beginObject().member("successCount", result.getSuccessCount())
+                .name("outcomes").beginArray();
+        for (int i = 0; i < result.size(); i++) {
+            json.value(result.getOutcome(i).name());
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    static String metrics(MetricsSnapshot metrics) {
+        JsonWriter json = new JsonWriter().beginObject().name("operations").beginArray();
+        for (OperationStats stats : metrics.getOperations()) {
+            json.beginObject().member("name", stats.getName()).member("calls", stats.getCalls())
+                    .member("failures", stats.getFailures()).name("failuresByReason").beginObject();
+            for (Map.Entry<String, Long> failure : stats.getFailuresByReason().entrySet()) {
+                json.member(failure.getKey(), failure.getValue());
+            }
+            json.endObject().name("latency");
+            writeLatency(json, stats.getLatency());
+            json.endObject();
+        }
+        json.endArray().name("journalWait");
+        writeLatency(json, metrics.getJournalWait());
+        json.name("dispatchLag");
+        writeLatency(json, metrics.getDispatchLag());
+        return json.member("pendingNotifications", metrics.getPendingNotifications()).endObject().toString();
+    }
+
+    static String failure(BatchResult.Outcome outcome, String message) {
+        return new JsonWriter().beginObject().member("outcome", outcome.name()).member("error", message)
+                .endObject().toString();
+    }
+
+    static String error(String message) {
+        return new JsonWriter().beginObject().member("error", message).endObject().toString();
+    }
+
+    private static void writeBooks(JsonWriter json, List<Book> books) {
+        json.beginArray();
+        for (Book book : books) {
+            writeBook(json, book);
+        }
+        json.endArray();
+    }
+
+    private static void writeBook(JsonWriter json, Book book) {
+        json.beginObject()
+                .member("id", book.getId())
+                .member("title", book.getTitle())
+                .member("author", book.getAuthor())
+                .member("year", book.getPublicationYear())
+                .member("status", book.getStatus().name())
+                .endObject();
+    }
+
+    private static void writeLatency(JsonWriter json, LatencySnapshot latency) {
+        json.beginObject()
+                .member("count", latency.getCount())
+                .member("meanNanos", latency.getMeanNanos())
+                .member("p50Nanos", latency.getP50Nanos())
+                .member("p99Nanos", latency.getP99Nanos())
+                .member("p999Nanos", latency.getP999Nanos())
+                .member("maxNanos", latency.getMaxNanos())
+                .endObject();
+    }
+}
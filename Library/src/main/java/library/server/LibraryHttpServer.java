@@ -0,0 +1,366 @@
+package library.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import library.model.BatchResult;
+import library.model.Book;
+import library.service.LibraryManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the operations of a {@link LibraryManager} as a JSON API over HTTP, using the JDK's
+ * built-in server. Every exchange runs on its own virtual thread, so a request that waits for
+ * the journal parks cheaply and tens of thousands of connections can be open at once.
+ * <p>
+ * Request bodies are flat JSON objects; numbers may be sent as numbers or strings. Responses are
+ * JSON objects, with an {@code error} member when the status is not 2xx. A failed borrow, return or add
+ * answers 404 for an unknown book or member and 409 for a book in the wrong state or an ID already taken,
+ * and names the {@code outcome}.
+ * <ul>
+ *     <li>{@code GET /health}, {@code GET /summary}, {@code GET /metrics}</li>
+ *     <li>{@code GET /books?q=text&limit=n} searches; {@code GET /books?cursor=c&limit=n} pages by title</li>
+ *     <li>{@code POST /books} with {@code type, id, title, author, year}; {@code GET} or {@code DELETE /books/{id}}</li>
+ *     <li>{@code POST /members} with {@code id, name}; {@code DELETE /members/{id}}</li>
+ *     <li>{@code POST /loans} with {@code memberId, bookId}; {@code DELETE /loans/{bookId}} returns the book</li>
+ *     <li>{@code POST /loans/batch} with {@code memberId, bookIds}, and {@code POST /returns} with {@code bookIds},
+ *     where {@code bookIds} is a comma-separated list</li>
+ * </ul>
+ */
+public class LibraryHttpServer implements AutoCloseable {
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 1000;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int BACKLOG = 4096;
+
+    private final LibraryManager manager;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private LibraryHttpServer(LibraryManager manager, HttpServer server, ExecutorService executor) {
+        this.manager = manager;
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts a server for a library manager.
+     *
+     * @param manager The library manager to serve.
+     * @param address The address to listen on; port 0 picks a free port.
+     * @return The running server.
+     * @throws IOException If the address cannot be bound.
+     */
+    public static LibraryHttpServer start(LibraryManager manager, InetSocketAddress address) throws IOException {
+        HttpServer server = HttpServer.create(address, BACKLOG);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        LibraryHttpServer libraryServer = new LibraryHttpServer(manager, server, executor);
+        server.createContext("/health", libraryServer.route(libraryServer::health));
+        server.createContext("/summary", libraryServer.route(libraryServer::summary));
+        server.createContext("/metrics", libraryServer.route(libraryServer::metrics));
+        server.createContext("/books", libraryServer.route(libraryServer::books));
+        server.createContext("/members", libraryServer.route(libraryServer::members));
+        server.createContext("/loans", libraryServer.route(libraryServer::loans));
+        server.createContext("/returns", libraryServer.route(libraryServer::returns));
+        server.setExecutor(executor);
+        server.start();
+        return libraryServer;
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waits up to a second for the exchanges in progress and stops the server.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.close();
+    }
+
+    private Response health(Request request) {
+        request.requireMethod("GET");
+        return Response.ok("{\"status\":\"ok\"}");
+    }
+
+    private Response summary(Request request) {
+        request.requireMethod("GET");
+        return Response.ok(JsonCodec.summary(manager.getLibrarySummary()));
+    }
+
+    private Response metrics(Request request) {
+        request.requireMethod("GET");
+        return Response.ok(JsonCodec.metrics(manager.getMetrics()));
+    }
+
+    private Response books(Request request) throws IOException {
+        String id = request.subPath();
+        if (id == null) {
+            if (request.method.equals("POST")) {
+                Map<String, String> body = request.body();
+                String bookId = JsonCodec.required(body, "id");
+                Book book = manager.addBookIfAbsent(JsonCodec.required(body, "type"), bookId,
+                        JsonCodec.required(body, "title"), body.get("author"),
+                        parseInt(JsonCodec.required(body, "year"), "year"));
+                return book != null ? new Response(201, JsonCodec.book(book))
+                        : outcome(BatchResult.Outcome.DUPLICATE_ID, "Book " + bookId + " already exists");
+            }
+            request.requireMethod("GET");
+            int limit = request.limit();
+            String query = request.query.get("q");
+            if (query != null) {
+                return Response.ok(JsonCodec.books(manager.searchBooks(query, limit)));
+            }
+            return Response.ok(JsonCodec.page(manager.getBooksByTitle(request.query.get("cursor"), limit)));
+        }
+        switch (request.method) {
+            case "GET":
+                Book book = manager.findBook(id);
+                return book != null ? Response.ok(JsonCodec.book(book)) : Response.notFound("No book " + id);
+            case "DELETE":
+                return manager.removeBook(id) ? Response.ok(JsonCodec.outcome(BatchResult.Outcome.SUCCESS))
+                        : Response.notFound("No book " + id);
+            default:
+                throw new MethodNotAllowed();
+        }
+    }
+
+    private Response members(Request request) throws IOException {
+        String id = request.subPath();
+        if (id == null) {
+            request.requireMethod("POST");
+            Map<String, String> body = request.body();
+            String memberId = JsonCodec.required(body, "id");
+            return manager.addMemberIfAbsent(memberId, JsonCodec.required(body, "name")) != null
+                    ? new Response(201, JsonCodec.outcome(BatchResult.Outcome.SUCCESS))
+                    : outcome(BatchResult.Outcome.DUPLICATE_ID, "Member " + memberId + " already exists");
+        }
+        request.requireMethod("DELETE");
+        return manager.removeMember(id) ? Response.ok(JsonCodec.outcome(BatchResult.Outcome.SUCCESS))
+                : Response.notFound("No member " + id);
+    }
+
+    private Response loans(Request request) throws IOException {
+        String path = request.subPath();
+        if (path == null) {
+            request.requireMethod("POST");
+            Map<String, String> body = request.body();
+            String bookId = JsonCodec.required(body, "bookId");
+            String memberId = JsonCodec.required(body, "memberId");
+            return outcome(manager.tryBorrowBook(bookId, memberId),
+                    "Book " + bookId + " cannot be borrowed by member " + memberId);
+        }
+        if (path.equals("batch")) {
+            request.requireMethod("POST");
+            Map<String, String> body = request.body();
+            BatchResult result = manager.borrowBooks(JsonCodec.required(body, "memberId"),
+                    splitIds(JsonCodec.required(body, "bookIds")));
+            return Response.ok(JsonCodec.batch(result));
+        }
+        request.requireMethod("DELETE");
+        return outcome(manager.tryReturnBook(path), "Book " + path + " cannot be returned");
+    }
+
+    private Response returns(Request request) throws IOException {
+        request.requireMethod("POST");
+        if (request.subPath() != null) {
+            throw new NotFound();
+        }
+        BatchResult result = manager.returnBooks(splitIds(JsonCodec.required(request.body(), "bookIds")));
+        return Response.ok(JsonCodec.batch(result));
+    }
+
+    /**
+     * Answers with the outcome of a single-item operation: 200 on success, 404 for an unknown book
+     * or member, and 409 when the item is in the wrong state for the operation or its ID is taken.
+     */
+    private static Response outcome(BatchResult.Outcome outcome, String failure) {
+        switch (outcome) {
+            case SUCCESS:
+                return Response.ok(JsonCodec.outcome(outcome));
+            case BOOK_NOT_FOUND:
+            case MEMBER_NOT_FOUND:
+                return new Response(404, JsonCodec.failure(outcome, failure));
+            default:
+                return new Response(409, JsonCodec.failure(outcome, failure));
+        }
+    }
+
+    private static List<String> splitIds(String ids) {
+        return Arrays.stream(ids.split(",")).map(String::trim).filter(id -> !id.isEmpty()).toList();
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    /**
+     * Wraps an endpoint so that its response, or the error it raised, is sent and the exchange closed.
+     */
+    private HttpHandler route(Endpoint endpoint) {
+        return exchange -> {
+            Response response;
+            try {
+                response = endpoint.handle(new Request(exchange));
+            } catch (IllegalArgumentException e) {
+                response = new Response(400, JsonCodec.error(e.getMessage()));
+            } catch (NotFound e) {
+                response = Response.notFound("No such resource: " + exchange.getRequestURI().getPath());
+            } catch (MethodNotAllowed e) {
+                response = new Response(405, JsonCodec.error("Method not allowed: " + exchange.getRequestMethod()));
+            } catch (BodyTooLarge e) {
+                response = new Response(413, JsonCodec.error("Request body exceeds " + MAX_BODY_BYTES + " bytes"));
+            } catch (RuntimeException e) {
+                response = new Response(500, JsonCodec.error(String.valueOf(e.getMessage())));
+            }
+            try {
+                byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(response.status, bytes.length);
+                exchange.getResponseBody().write(bytes);
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    /**
+     * One endpoint of the API.
+     */
+    @FunctionalInterface
+    private interface Endpoint {
+        Response handle(Request request) throws IOException;
+    }
+
+    /**
+     * A parsed request: its method, the path below the endpoint's context and the query parameters.
+     */
+    private static final class Request {
+        private final HttpExchange exchange;
+        private final String method;
+        private final String path;
+        private final Map<String, String> query;
+
+        Request(HttpExchange exchange) {
+            this.exchange = exchange;
+            this.method = exchange.getRequestMethod();
+            String context = exchange.getHttpContext().getPath();
+            this.path = exchange.getRequestURI().getPath().substring(context.length());
+            this.query = parseQuery(exchange.getRequestURI().getRawQuery());
+        }
+
+        /**
+         * Gets the single path segment below the context, or null if the context itself was requested.
+         */
+        String subPath() {
+            if (path.isEmpty() || path.equals("/")) {
+                return null;
+            }
+            if (path.charAt(0) != '/' || path.indexOf('/', 1) >= 0) {
+                throw new NotFound();
+            }
+            return path.substring(1);
+        }
+
+        void requireMethod(String expected) {
+            if (!method.equals(expected)) {
+                throw new MethodNotAllowed();
+            }
+        }
+
+        int limit() {
+            String limit = query.get("limit");
+            int value = limit == null ? DEFAULT_LIMIT : parseInt(limit, "limit");
+            if (value <= 0 || value > MAX_LIMIT) {
+                throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+            }
+            return value;
+        }
+
+        Map<String, String> body() throws IOException {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+                if (bytes.length > MAX_BODY_BYTES) {
+                    throw new BodyTooLarge();
+                }
+                return JsonCodec.readObject(new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+
+        private static Map<String, String> parseQuery(String rawQuery) {
+            Map<String, String> parameters = new HashMap<>();
+            if (rawQuery == null || rawQuery.isEmpty()) {
+                return parameters;
+            }
+            for (String pair : rawQuery.split("&")) {
+                int equals = pair.indexOf('=');
+                String name = equals < 0 ? pair : pair.substring(0, equals);
+                String value = equals < 0 ? "" : pair.substring(equals + 1);
+                parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                        URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+            return parameters;
+        }
+    }
+
+    /**
+     * A status code and a JSON body.
+     */
+    private static final class Response {
+        private final int status;
+        private final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Response ok(String body) {
+            return new Response(200, body);
+        }
+
+        static Response notFound(String message) {
+            return new Response(404, JsonCodec.error(message));
+        }
+    }
+
+    private static final class NotFound extends RuntimeException {
+        NotFound() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class MethodNotAllowed extends RuntimeException {
+        MethodNotAllowed() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class BodyTooLarge extends RuntimeException {
+        BodyTooLarge() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -44,6 +44,25 @@ public class BookFactory {
                 throw new IllegalArgumentException("Unknown book type: " + type);
         }
     }
+
+    /**
+     * Gets the type under which a book was created, so that it can be created again.
+     *
+     * @param book The book to inspect.
+     * @return The type accepted by {@link #createBook}, or null if the book is not of a factory type.
+     */
+    public String typeOf(Book book) {
+        if (book instanceof FictionBook) {
+            return "fiction";
+        }
+        if (book instanceof NonFictionBook) {
+            return "non-fiction";
+        }
+        if (book instanceof ReferenceBook) {
+            return "reference";
+        }
+        return null;
+    }
 }
 
 /**
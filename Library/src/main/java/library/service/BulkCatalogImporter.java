@@ -0,0 +1,539 @@
+package library.service;
+
+import library.model.Book;
+import library.model.ImportResult;
+import library.model.ImportResult.RowError;
+import library.util.FlatJson;
+import library.util.ImportProgressListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Imports books in bulk from CSV or JSON-lines files.
+ * <p>
+ * The file is read through a {@link FileChannel} in fixed-size chunks that are cut at record
+ * boundaries, so memory use does not grow with the file. Chunks are parsed and validated in
+ * parallel with the rules of {@link BookFactory#createBook}, and the books of each chunk are
+ * handed to the batch sink in file order, so a later row replaces an earlier row with the same ID
+ * just as it would with one call per row. Rows that fail validation are reported with their line
+ * number and do not stop the import.
+ * <p>
+ * CSV files have the columns type, id, title, author and year. A header row naming these columns
+ * is optional and lets them appear in any order, alongside other columns that are ignored. Fields
+ * may be quoted, with doubled quotes inside. JSON-lines files hold one flat object per line with
+ * the members type, id, title, author and publicationYear (or year).
+ */
+public class BulkCatalogImporter {
+    /**
+     * The supported file formats.
+     */
+    public enum Format {
+        CSV,
+        JSON_LINES;
+
+        /**
+         * Guesses the format of a file from its extension: {@code .jsonl} and {@code .ndjson}
+         * are JSON lines, anything else is CSV.
+         *
+         * @param path The file.
+         * @return The format.
+         */
+        public static Format of(Path path) {
+            String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".jsonl") || name.endsWith(".ndjson") ? JSON_LINES : CSV;
+        }
+    }
+
+    private static final int DEFAULT_CHUNK_BYTES = 4 * 1024 * 1024;
+    private static final int DEFAULT_MAX_ERRORS = 1000;
+    private static final int TYPE = 0;
+    private static final int ID = 1;
+    private static final int TITLE = 2;
+    private static final int AUTHOR = 3;
+    private static final int YEAR = 4;
+    private static final int[] DEFAULT_COLUMNS = {0, 1, 2, 3, 4};
+
+    private final BookFactory bookFactory;
+    private final Consumer<List<Book>> batchSink;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int chunkBytes = DEFAULT_CHUNK_BYTES;
+    private int maxErrors = DEFAULT_MAX_ERRORS;
+    private ImportProgressListener progressListener;
+
+    /**
+     * Constructs an importer that adds books straight to a library.
+     *
+     * @param library     The library to add the books to.
+     * @param bookFactory The factory that validates rows and creates the books.
+     */
+    public BulkCatalogImporter(Library library, BookFactory bookFactory) {
+        this(bookFactory, library::addBooks);
+    }
+
+    /**
+     * Constructs an importer that hands each batch of books to a sink.
+     *
+     * @param bookFactory The factory that validates rows and creates the books.
+     * @param batchSink   Receives the valid books of each chunk of the file, in file order.
+     */
+    public BulkCatalogImporter(BookFactory bookFactory, Consumer<List<Book>> batchSink) {
+        this.bookFactory = bookFactory;
+        this.batchSink = batchSink;
+    }
+
+    /**
+     * Sets the number of threads that parse chunks. Defaults to the number of processors.
+     *
+     * @param parallelism The number of parser threads.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets the size of the chunks the file is read in, which is also the granularity of batches.
+     * A chunk grows when a single record does not fit.
+     *
+     * @param chunkBytes The chunk size in bytes.
+     */
+    public void setChunkBytes(int chunkBytes) {
+        if (chunkBytes < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Sets how many row errors are kept in the result. All rejected rows are counted regardless.
+     *
+     * @param maxErrors The number of errors to keep.
+     */
+    public void setMaxErrors(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Sets the listener that is told about progress after each batch.
+     *
+     * @param progressListener The listener, or null for none.
+     */
+    public void setProgressListener(ImportProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Imports a file whose format is guessed from its extension.
+     *
+     * @param path The file to import.
+     * @return The result of the import.
+     * @throws IOException If the file cannot be read.
+     */
+    public ImportResult importFile(Path path) throws IOException {
+        return importFile(path, Format.of(path));
+    }
+
+    /**
+     * Imports a file in the given format.
+     *
+     * @param path   The file to import.
+     * @param format The format of the file.
+     * @return The result of the import.
+     * @throws IOException If the file cannot be read.
+     */
+    public ImportResult importFile(Path path, Format format) throws IOException {
+        long start = System.nanoTime();
+        Progress progress = new Progress();
+        ExecutorService parsers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            progress.totalBytes = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(chunkBytes);
+            boolean csv = format == Format.CSV;
+            int[] columns = DEFAULT_COLUMNS;
+            long lineNumber = 1;
+            boolean first = true;
+            boolean eof = false;
+            while (!eof) {
+                eof = fill(channel, buffer);
+                byte[] data = buffer.array();
+                int limit = buffer.position();
+                int offset = 0;
+                if (first) {
+                    if (limit >= 3 && (data[0] & 0xFF) == 0xEF && (data[1] & 0xFF) == 0xBB && (data[2] & 0xFF) == 0xBF) {
+                        offset = 3;
+                    }
+                    int end = indexOf(data, offset, limit, (byte) '\n');
+                    if (end < 0 && !eof) {
+                        // The first line, which may be the header, does not fit in the buffer yet
+                        buffer = grow(buffer, data, limit);
+                        continue;
+                    }
+                    first = false;
+                    if (csv) {
+                        int headerEnd = end >= 0 ? end : limit;
+                        int[] header = headerColumns(new String(data, offset, headerEnd - offset, StandardCharsets.UTF_8));
+                        if (header != null) {
+                            columns = header;
+                            offset = end >= 0 ? end + 1 : limit;
+                            lineNumber++;
+                        }
+                    }
+                    progress.bytesRead += offset;
+                }
+
+                // Cut the chunk after the last line break that is not inside a quoted field
+                int boundary = offset;
+                long lines = 0;
+                long linesAtBoundary = 0;
+                boolean quoted = false;
+                for (int i = offset; i < limit; i++) {
+                    byte b = data[i];
+                    if (b == '"' && csv) {
+                        quoted = !quoted;
+                    } else if (b == '\n') {
+                        lines++;
+                        if (!quoted) {
+                            boundary = i + 1;
+                            linesAtBoundary = lines;
+                        }
+                    }
+                }
+                if (eof) {
+                    boundary = limit;
+                    linesAtBoundary = lines;
+                }
+                if (boundary == offset && !eof && offset == 0) {
+                    // A single record fills the whole buffer
+                    buffer = grow(buffer, data, limit);
+                    continue;
+                }
+                if (boundary > offset) {
+                    byte[] bytes = Arrays.copyOfRange(data, offset, boundary);
+                    long firstLine = lineNumber;
+                    int[] chunkColumns = columns;
+                    inFlight.add(parsers.submit(() -> csv
+                            ? parseCsv(bytes, firstLine, chunkColumns)
+                            : parseJsonLines(bytes, firstLine)));
+                }
+                lineNumber += linesAtBoundary;
+                System.arraycopy(data, boundary, data, 0, limit - boundary);
+                buffer.position(limit - boundary);
+
+                while (!inFlight.isEmpty() && (inFlight.size() >= 2 * parallelism || inFlight.peek().isDone())) {
+                    deliver(inFlight.poll(), progress);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                deliver(inFlight.poll(), progress);
+            }
+        } finally {
+            parsers.shutdownNow();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return new ImportResult(progress.rowsRead, progress.booksImported, progress.rowsRejected, progress.errors, elapsedMillis);
+    }
+
+    /**
+     * Doubles a full buffer, keeping the bytes read so far.
+     */
+    private static ByteBuffer grow(ByteBuffer buffer, byte[] data, int limit) {
+        ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+        grown.put(data, 0, limit);
+        return grown;
+    }
+
+    /**
+     * Reads from the channel until the buffer is full or the file ends.
+     *
+     * @return true if the end of the file was reached.
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOf(byte[] data, int from, int to, byte value) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Interprets the first CSV row as a header if it names the expected columns.
+     *
+     * @param line The first row.
+     * @return The positions of the type, id, title, author and year columns, or null if the row is not a header.
+     */
+    private static int[] headerColumns(String line) {
+        List<String> names = new ArrayList<>();
+        splitCsv(line, 0, names, new long[1]);
+        int[] columns = {-1, -1, -1, -1, -1};
+        for (int i = 0; i < names.size(); i++) {
+            switch (names.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "type": columns[TYPE] = i; break;
+                case "id": columns[ID] = i; break;
+                case "title": columns[TITLE] = i; break;
+                case "author": columns[AUTHOR] = i; break;
+                case "year":
+                case "publicationyear":
+                case "publication_year":
+                    columns[YEAR] = i;
+                    break;
+                default: break;
+            }
+        }
+        for (int column : columns) {
+            if (column < 0) {
+                return null;
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Adds the books of a parsed chunk to the library and updates the totals.
+     */
+    private void deliver(Future<Chunk> future, Progress progress) {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Import failed", e.getCause());
+        }
+        if (!chunk.books.isEmpty()) {
+            batchSink.accept(chunk.books);
+        }
+        progress.rowsRead += chunk.rows;
+        progress.booksImported += chunk.books.size();
+        progress.rowsRejected += chunk.errors.size();
+        for (RowError error : chunk.errors) {
+            if (progress.errors.size() >= maxErrors) {
+                break;
+            }
+            progress.errors.add(error);
+        }
+        progress.bytesRead += chunk.byteCount;
+        if (progressListener != null) {
+            progressListener.progressed(progress.bytesRead, progress.totalBytes, progress.booksImported, progress.rowsRejected);
+        }
+    }
+
+    /**
+     * Parses and validates the CSV records of a chunk.
+     */
+    private Chunk parseCsv(byte[] bytes, long firstLine, int[] columns) {
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        Chunk chunk = new Chunk(bytes.length);
+        List<String> fields = new ArrayList<>(8);
+        long[] line = {firstLine};
+        // Without a header the row must have exactly the expected columns; with one, extra columns are ignored
+        boolean header = columns != DEFAULT_COLUMNS;
+        int required = 0;
+        for (int column : columns) {
+            required = Math.max(required, column + 1);
+        }
+        int position = 0;
+        while (position < text.length()) {
+            long recordLine = line[0];
+            fields.clear();
+            try {
+                position = splitCsv(text, position, fields, line);
+            } catch (IllegalArgumentException e) {
+                chunk.rows++;
+                chunk.errors.add(new RowError(recordLine, e.getMessage()));
+                break;
+            }
+            if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                continue;
+            }
+            chunk.rows++;
+            if (header ? fields.size() < required : fields.size() != required) {
+                chunk.errors.add(new RowError(recordLine, "Expected " + required + " fields but found " + fields.size()));
+                continue;
+            }
+            addBook(chunk, recordLine, fields.get(columns[TYPE]), fields.get(columns[ID]), fields.get(columns[TITLE]),
+                    fields.get(columns[AUTHOR]), fields.get(columns[YEAR]));
+        }
+        return chunk;
+    }
+
+    /**
+     * Splits one CSV record into fields.
+     *
+     * @param text     The text holding the record.
+     * @param position The position at which the record starts.
+     * @param fields   Receives the fields.
+     * @param line     The current line number, advanced past the record's line breaks.
+     * @return The position after the record and its line break.
+     * @throws IllegalArgumentException If a quoted field is not terminated.
+     */
+    private static int splitCsv(String text, int position, List<String> fields, long[] line) {
+        int length = text.length();
+        while (true) {
+            if (position < length && text.charAt(position) == '"') {
+                StringBuilder field = new StringBuilder();
+                position++;
+                while (true) {
+                    if (position >= length) {
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    char c = text.charAt(position++);
+                    if (c == '"') {
+                        if (position < length && text.charAt(position) == '"') {
+                            field.append('"');
+                            position++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line[0]++;
+                        }
+                        field.append(c);
+                    }
+                }
+                while (position < length && text.charAt(position) != ',' && text.charAt(position) != '\n') {
+                    char c = text.charAt(position++);
+                    if (c != '\r') {
+                        field.append(c);
+                    }
+                }
+                fields.add(field.toString());
+            } else {
+                int start = position;
+                while (position < length && text.charAt(position) != ',' && text.charAt(position) != '\n') {
+                    position++;
+                }
+                int end = position;
+                if (end > start && text.charAt(end - 1) == '\r' && (end == length || text.charAt(end) == '\n')) {
+                    end--;
+                }
+                fields.add(text.substring(start, end));
+            }
+            if (position < length && text.charAt(position) == ',') {
+                position++;
+                continue;
+            }
+            if (position < length) {
+                position++;
+                line[0]++;
+            }
+            return position;
+        }
+    }
+
+    /**
+     * Parses and validates the JSON lines of a chunk.
+     */
+    private Chunk parseJsonLines(byte[] bytes, long firstLine) {
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        Chunk chunk = new Chunk(bytes.length);
+        long lineNumber = firstLine;
+        int position = 0;
+        while (position < text.length()) {
+            int end = text.indexOf('\n', position);
+            if (end < 0) {
+                end = text.length();
+            }
+            String line = text.substring(position, end).trim();
+            long recordLine = lineNumber++;
+            position = end + 1;
+            if (line.isEmpty()) {
+                continue;
+            }
+            chunk.rows++;
+            Map<String, String> row;
+            try {
+                row = FlatJson.parse(line);
+            } catch (IllegalArgumentException e) {
+                chunk.errors.add(new RowError(recordLine, "Invalid JSON: " + e.getMessage()));
+                continue;
+            }
+            String year = row.containsKey("publicationYear") ? row.get("publicationYear") : row.get("year");
+            addBook(chunk, recordLine, row.get("type"), row.get("id"), row.get("title"), row.get("author"), year);
+        }
+        return chunk;
+    }
+
+    /**
+     * Validates one row with the book factory and adds the book or the error to the chunk.
+     */
+    private void addBook(Chunk chunk, long line, String type, String id, String title, String author, String year) {
+        if (year == null || year.trim().isEmpty()) {
+            chunk.errors.add(new RowError(line, "Publication year cannot be empty"));
+            return;
+        }
+        int publicationYear;
+        try {
+            publicationYear = Integer.parseInt(year.trim());
+        } catch (NumberFormatException e) {
+            chunk.errors.add(new RowError(line, "Invalid publication year: " + year));
+            return;
+        }
+        try {
+            chunk.books.add(bookFactory.createBook(type == null ? null : type.trim(), id, title, author, publicationYear));
+        } catch (IllegalArgumentException e) {
+            chunk.errors.add(new RowError(line, e.getMessage()));
+        }
+    }
+
+    /**
+     * The books and errors parsed from one chunk of the file.
+     */
+    private static final class Chunk {
+        final List<Book> books = new ArrayList<>();
+        final List<RowError> errors = new ArrayList<>();
+        final int byteCount;
+        long rows;
+
+        Chunk(int byteCount) {
+            this.byteCount = byteCount;
+        }
+    }
+
+    /**
+     * The running totals of an import, only touched by the importing thread.
+     */
+    private static final class Progress {
+        final List<RowError> errors = new ArrayList<>();
+        long totalBytes;
+        long bytesRead;
+        long rowsRead;
+        long booksImported;
+        long rowsRejected;
+    }
+}
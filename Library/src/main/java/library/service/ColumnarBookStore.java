@@ -0,0 +1,448 @@
+package library.service;
+
+import library.model.Book;
+import library.util.BookStatus;
+import library.util.CompactId;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Books stored as columns of primitives instead of as one object graph per book.
+ * <p>
+ * Each book is a dense int handle into parallel arrays: its type and status as bytes, its
+ * publication year as a short, and its title and author as references into one
+ * {@link StringArena} shared by all books, in which every distinct author is stored once.
+ * Structured IDs are kept as {@link CompactId} codes and only rendered as strings when a book
+ * is decoded; other IDs go to the arena as well. IDs are found through an open-addressing table
+ * of handles. A book costs about twenty bytes of columns plus its text, where a {@link Book}
+ * costs several objects and a map entry.
+ * <p>
+ * Books are decoded into new {@link Book} objects on demand. Removing a book frees its handle;
+ * once freed handles make up half of the columns, the live books are packed together again.
+ * The store is safe for concurrent use: reads share a read lock and changes take a write lock.
+ */
+final class ColumnarBookStore {
+    private static final BookStatus[] STATUSES = BookStatus.values();
+    private static final byte FREE = -1;
+    private static final short WIDE_YEAR = Short.MIN_VALUE;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final BookFactory bookFactory;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<String> typeNames = new ArrayList<>();
+    private final int[] statusCounts = new int[STATUSES.length];
+    private StringArena strings;
+    private long[] ids;
+    private int[] titles;
+    private int[] authors;
+    private short[] years;
+    private byte[] types;
+    private byte[] statuses;
+    private Map<Integer, Integer> wideYears;
+    private int[] table;
+    private int handleCount;
+    private int size;
+
+    /**
+     * Constructs a new, empty ColumnarBookStore.
+     *
+     * @param bookFactory The factory that recreates books of the types it knows.
+     */
+    ColumnarBookStore(BookFactory bookFactory) {
+        this.bookFactory = bookFactory;
+        allocate(MIN_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        strings = new StringArena();
+        ids = new long[capacity];
+        titles = new int[capacity];
+        authors = new int[capacity];
+        years = new short[capacity];
+        types = new byte[capacity];
+        statuses = new byte[capacity];
+        wideYears = new HashMap<>();
+        table = new int[tableSizeFor(capacity)];
+        handleCount = 0;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(Math.max(MIN_CAPACITY, capacity) - 1) << 2;
+    }
+
+    /**
+     * Gets the number of books in the store.
+     *
+     * @return The number of books.
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of stored books with a status.
+     *
+     * @param status The status.
+     * @return The number of books with that status.
+     */
+    int getStatusCount(BookStatus status) {
+        lock.readLock().lock();
+        try {
+            return statusCounts[status.ordinal()];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether the store holds a book, without decoding it.
+     *
+     * @param id The ID of the book.
+     * @return true if a book with the ID is stored, false otherwise.
+     */
+    boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return find(id) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores a copy of a book's details and status. The book object itself is not kept.
+     * The store must not already hold a book with the same ID.
+     *
+     * @param book The book to store.
+     */
+    void add(Book book) {
+        String type = bookFactory.typeOf(book);
+        lock.writeLock().lock();
+        try {
+            if (handleCount == ids.length) {
+                grow();
+            }
+            int handle = handleCount++;
+            long code = CompactId.encode(book.getId());
+            ids[handle] = code != CompactId.NONE ? code : ~(long) strings.add(book.getId());
+            titles[handle] = strings.add(book.getTitle());
+            authors[handle] = strings.intern(book.getAuthor());
+            setYear(handle, book.getPublicationYear());
+            types[handle] = typeCode(type);
+            statuses[handle] = (byte) book.getStatus().ordinal();
+            statusCounts[statuses[handle]]++;
+            size++;
+            insert(handle);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a book from the store.
+     *
+     * @param id The ID of the book.
+     * @return The status the book had, or null if the store did not hold it.
+     */
+    BookStatus remove(String id) {
+        lock.writeLock().lock();
+        try {
+            int handle = find(id);
+            if (handle < 0) {
+                return null;
+            }
+            BookStatus status = STATUSES[statuses[handle]];
+            free(handle);
+            return status;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a book from the store and decodes it, so that it can be kept as an object from now on.
+     *
+     * @param id The ID of the book.
+     * @return A new Book object with the stored details and status, or null if the store did not hold it.
+     */
+    Book take(String id) {
+        lock.writeLock().lock();
+        try {
+            int handle = find(id);
+            if (handle < 0) {
+                return null;
+            }
+            Book book = decode(handle);
+            free(handle);
+            return book;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Decodes a stored book without removing it from the store.
+     *
+     * @param id The ID of the book.
+     * @return A new Book object with the stored details and status, or null if the store does not hold it.
+     */
+    Book get(String id) {
+        lock.readLock().lock();
+        try {
+            int handle = find(id);
+            return handle >= 0 ? decode(handle) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lists the IDs of the stored books, without decoding their other details.
+     *
+     * @return A new list of the IDs.
+     */
+    List<String> ids() {
+        lock.readLock().lock();
+        try {
+            List<String> result = new ArrayList<>(size);
+            for (int handle = 0; handle < handleCount; handle++) {
+                if (statuses[handle] != FREE) {
+                    result.add(decodeId(handle));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Decodes every stored book for an action, without removing any.
+     *
+     * @param action The action to perform on each decoded copy.
+     */
+    void forEach(Consumer<? super Book> action) {
+        lock.readLock().lock();
+        try {
+            for (int handle = 0; handle < handleCount; handle++) {
+                if (statuses[handle] != FREE) {
+                    action.accept(decode(handle));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates the heap taken by the store.
+     *
+     * @return The size of its arrays and arena in bytes.
+     */
+    long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long columns = (long) ids.length * (Long.BYTES + 2 * Integer.BYTES + Short.BYTES + 2);
+            return columns + (long) table.length * Integer.BYTES + strings.allocatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates the heap the stored books would take as book objects in a map, each owning its strings.
+     *
+     * @return The size in bytes.
+     */
+    long estimatedPlainBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (int handle = 0; handle < handleCount; handle++) {
+                if (statuses[handle] != FREE) {
+                    long id = ids[handle];
+                    int idLength = id >= 0 ? CompactId.decode(id).length() : strings.length((int) ~id);
+                    bytes += HeapEstimates.BOOK_BYTES + HeapEstimates.MAP_ENTRY_BYTES
+                            + HeapEstimates.stringBytes(idLength)
+                            + plainStringBytes(titles[handle]) + plainStringBytes(authors[handle]);
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long plainStringBytes(int ref) {
+        return ref == StringArena.NULL ? 0 : HeapEstimates.stringBytes(strings.length(ref));
+    }
+
+    private String decodeId(int handle) {
+        return ids[handle] >= 0 ? CompactId.decode(ids[handle]) : strings.get((int) ~ids[handle]);
+    }
+
+    private Book decode(int handle) {
+        String id = decodeId(handle);
+        String title = strings.get(titles[handle]);
+        String author = strings.get(authors[handle]);
+        int year = years[handle] == WIDE_YEAR ? wideYears.get(handle) : years[handle];
+        Book book = types[handle] == 0
+                ? new Book(id, title, author, year)
+                : bookFactory.createBook(typeNames.get(types[handle] - 1), id, title, author, year);
+        BookStatus status = STATUSES[statuses[handle]];
+        if (status != BookStatus.AVAILABLE) {
+            book.setStatus(status);
+        }
+        return book;
+    }
+
+    private void setYear(int handle, int year) {
+        if (year > Short.MIN_VALUE && year <= Short.MAX_VALUE) {
+            years[handle] = (short) year;
+        } else {
+            years[handle] = WIDE_YEAR;
+            wideYears.put(handle, year);
+        }
+    }
+
+    /**
+     * Gets the code of a book type, numbering types in the order they are first seen; 0 stands for a plain book.
+     */
+    private byte typeCode(String type) {
+        if (type == null) {
+            return 0;
+        }
+        int index = typeNames.indexOf(type);
+        if (index < 0) {
+            typeNames.add(type);
+            index = typeNames.size() - 1;
+        }
+        return (byte) (index + 1);
+    }
+
+    /**
+     * Finds the handle of a stored book.
+     *
+     * @return The handle, or -1 if no book with the ID is stored.
+     */
+    private int find(String id) {
+        long code = CompactId.encode(id);
+        byte[] utf8 = code == CompactId.NONE ? id.getBytes(StandardCharsets.UTF_8) : null;
+        int mask = table.length - 1;
+        int slot = (code != CompactId.NONE ? hash(code) : StringArena.mix(StringArena.hash(utf8))) & mask;
+        for (; table[slot] != 0; slot = (slot + 1) & mask) {
+            int handle = table[slot] - 1;
+            long stored = ids[handle];
+            if (statuses[handle] != FREE && (code != CompactId.NONE
+                    ? stored == code
+                    : stored < 0 && strings.matches((int) ~stored, utf8))) {
+                return handle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the table hash of a stored ID: a mix of its code, or of the hash of its UTF-8 bytes.
+     */
+    private int idHash(int handle) {
+        long stored = ids[handle];
+        return stored >= 0 ? hash(stored) : StringArena.mix(strings.hash((int) ~stored));
+    }
+
+    private static int hash(long code) {
+        return StringArena.mix((int) (code ^ (code >>> 32)));
+    }
+
+    /**
+     * Adds a handle to the ID table. Freed handles stay in the table until the columns are packed.
+     */
+    private void insert(int handle) {
+        int mask = table.length - 1;
+        int slot = idHash(handle) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = handle + 1;
+    }
+
+    private void free(int handle) {
+        statusCounts[statuses[handle]]--;
+        statuses[handle] = FREE;
+        wideYears.remove(handle);
+        size--;
+        if (handleCount - size >= MIN_CAPACITY && (handleCount - size) * 2 >= handleCount) {
+            pack(Math.max(MIN_CAPACITY, size * 2));
+        }
+    }
+
+    /**
+     * Makes room for more handles: packs the live books together if enough handles are free,
+     * and otherwise doubles the columns in place.
+     */
+    private void grow() {
+        if (size * 4 < handleCount * 3) {
+            pack(ids.length);
+            return;
+        }
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        authors = Arrays.copyOf(authors, capacity);
+        years = Arrays.copyOf(years, capacity);
+        types = Arrays.copyOf(types, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        table = new int[tableSizeFor(capacity)];
+        for (int handle = 0; handle < handleCount; handle++) {
+            insert(handle);
+        }
+    }
+
+    /**
+     * Copies the live books into new columns and a new arena, renumbering their handles densely.
+     * Strings are copied as raw bytes, and each author once.
+     */
+    private void pack(int capacity) {
+        StringArena oldStrings = strings;
+        long[] oldIds = ids;
+        int[] oldTitles = titles;
+        int[] oldAuthors = authors;
+        short[] oldYears = years;
+        byte[] oldTypes = types;
+        byte[] oldStatuses = statuses;
+        Map<Integer, Integer> oldWideYears = wideYears;
+        int oldCount = handleCount;
+        allocate(capacity);
+        Map<Integer, Integer> authorRefs = new HashMap<>();
+        for (int old = 0; old < oldCount; old++) {
+            if (oldStatuses[old] == FREE) {
+                continue;
+            }
+            int handle = handleCount++;
+            ids[handle] = oldIds[old] >= 0 ? oldIds[old] : ~(long) strings.copy(oldStrings, (int) ~oldIds[old]);
+            titles[handle] = strings.copy(oldStrings, oldTitles[old]);
+            authors[handle] = authorRefs.computeIfAbsent(oldAuthors[old], ref -> strings.intern(oldStrings.get(ref)));
+            if (oldYears[old] == WIDE_YEAR) {
+                setYear(handle, oldWideYears.get(old));
+            } else {
+                years[handle] = oldYears[old];
+            }
+            types[handle] = oldTypes[old];
+            statuses[handle] = oldStatuses[old];
+            insert(handle);
+        }
+    }
+}
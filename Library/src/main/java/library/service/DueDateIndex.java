@@ -0,0 +1,154 @@
+package library.service;
+
+import library.model.Loan;
+import library.model.LoanPage;
+import library.util.LoanChangeListener;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index of active loans ordered by due date.
+ * Finding the loans due before or within a given time costs time proportional to the result.
+ * The index listens to its loans so that renewals move them to their new position.
+ * It is backed by concurrent collections and is safe for use from multiple threads.
+ */
+class DueDateIndex implements LoanChangeListener {
+    private final NavigableMap<Key, Loan> byDueDate = new ConcurrentSkipListMap<>();
+    private final Map<Loan, Key> keys = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Adds an active loan to the index.
+     *
+     * @param loan The loan to add.
+     */
+    void add(Loan loan) {
+        Key key = new Key(loan.getDueTime(), sequence.incrementAndGet());
+        keys.put(loan, key);
+        byDueDate.put(key, loan);
+        loan.setChangeListener(this);
+    }
+
+    /**
+     * Removes a loan from the index, typically because it was returned.
+     *
+     * @param loan The loan to remove.
+     */
+    void remove(Loan loan) {
+        loan.setChangeListener(null);
+        Key key = keys.remove(loan);
+        if (key != null) {
+            byDueDate.remove(key);
+        }
+    }
+
+    /**
+     * Gets the active loans whose due date is strictly before the given time.
+     *
+     * @param asOf The point in time to check against, in epoch milliseconds.
+     * @return The overdue loans, earliest due date first.
+     */
+    List<Loan> overdueAsOf(long asOf) {
+        return new ArrayList<>(byDueDate.headMap(new Key(asOf, Long.MIN_VALUE), false).values());
+    }
+
+    /**
+     * Gets the active loans due within the given range, both ends inclusive.
+     *
+     * @param from The start of the range, in epoch milliseconds.
+     * @param to   The end of the range, in epoch milliseconds.
+     * @return The matching loans, earliest due date first.
+     */
+    List<Loan> dueBetween(long from, long to) {
+        if (from > to) {
+            return new ArrayList<>();
+        }
+        Key lower = new Key(from, Long.MIN_VALUE);
+        Key upper = new Key(to, Long.MAX_VALUE);
+        return new ArrayList<>(byDueDate.subMap(lower, true, upper, true).values());
+    }
+
+    /**
+     * Gets a page of the active loans, earliest due date first.
+     * The cursor names the position of the last loan returned, so paging is not thrown off
+     * by loans added or returned before it.
+     *
+     * @param cursor The cursor to start from, or null for the first loan.
+     * @param offset The number of loans to skip after the cursor, without copying them; they are still
+     *               walked one entry at a time, so the cost grows with the offset.
+     * @param limit  The maximum number of loans on the page.
+     * @return The page.
+     * @throws IllegalArgumentException If the cursor was not made by this index.
+     */
+    LoanPage page(String cursor, int offset, int limit) {
+        NavigableMap<Key, Loan> range = cursor == null ? byDueDate : byDueDate.tailMap(Key.parse(cursor), false);
+        List<Loan> loans = new ArrayList<>(Math.min(limit, 1024));
+        Key last = null;
+        Iterator<Map.Entry<Key, Loan>> iterator = range.entrySet().iterator();
+        for (int skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            last = iterator.next().getKey();
+        }
+        while (iterator.hasNext() && loans.size() < limit) {
+            Map.Entry<Key, Loan> entry = iterator.next();
+            last = entry.getKey();
+            loans.add(entry.getValue());
+        }
+        return new LoanPage(loans, last != null && iterator.hasNext() ? last.toString() : null);
+    }
+
+    @Override
+    public void dueDateChanged(Loan loan, long oldDueTime) {
+        // Re-key while holding the loan's entry, so a concurrent remove waits for the new key
+        // to be in place and then removes it, rather than leaving it behind
+        keys.computeIfPresent(loan, (changed, oldKey) -> {
+            Key newKey = new Key(changed.getDueTime(), oldKey.sequence);
+            byDueDate.remove(oldKey);
+            byDueDate.put(newKey, changed);
+            return newKey;
+        });
+    }
+
+    /**
+     * Position of a loan in the index: its due time, with the insertion sequence
+     * breaking ties between loans due at the same instant.
+     */
+    private static final class Key implements Comparable<Key> {
+        private final long dueTime;
+        private final long sequence;
+
+        Key(long dueTime, long sequence) {
+            this.dueTime = dueTime;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byTime = Long.compare(dueTime, other.dueTime);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+
+        /**
+         * Recreates a key from its {@link #toString()} form, for reading cursors.
+         */
+        static Key parse(String cursor) {
+            int separator = cursor.indexOf(':');
+            try {
+                return new Key(Long.parseLong(cursor.substring(0, separator)), Long.parseLong(cursor.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return dueTime + ":" + sequence;
+        }
+    }
+}
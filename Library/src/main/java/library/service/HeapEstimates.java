@@ -0,0 +1,44 @@
+package library.service;
+
+/**
+ * Rough heap sizes of the objects that make up a catalog, for a 64-bit JVM with compressed
+ * references and compact strings. They are used for memory reports, not for any decision.
+ */
+final class HeapEstimates {
+    /**
+     * A book object of one of the factory types, with its fields.
+     */
+    static final int BOOK_BYTES = 48;
+
+    /**
+     * An entry of a concurrent hash map, with its share of the table.
+     */
+    static final int MAP_ENTRY_BYTES = 40;
+
+    private HeapEstimates() {
+    }
+
+    /**
+     * Estimates the size of a string and its byte array.
+     *
+     * @param length The number of characters, assumed to fit in one byte each.
+     * @return The size in bytes.
+     */
+    static long stringBytes(int length) {
+        return 24 + align(16 + length);
+    }
+
+    /**
+     * Estimates the size of a string and its byte array.
+     *
+     * @param value The string, or null.
+     * @return The size in bytes, or 0 for null.
+     */
+    static long stringBytes(String value) {
+        return value == null ? 0 : stringBytes(value.length());
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -1,39 +1,668 @@
 package library.service;
 import library.model.Book;
+import library.model.BookPage;
 import library.model.LibrarySummary;
 import library.model.Loan;
+import library.model.LoanPage;
+import library.model.LoanRecord;
+import library.model.MemoryReport;
 import library.model.Member;
+import library.persistence.LibrarySnapshot;
+import library.search.BookSearchIndex;
+import library.search.CatalogCompleter;
+import library.search.CatalogIndex;
+import library.search.Completion;
+import library.search.OrderedBookIndex;
+import library.util.BookAvailabilityDispatcher;
+import library.util.BookChangeListener;
 import library.util.BookStatus;
+import library.util.LibraryClock;
+import library.util.StringPool;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Represents the main library system, managing books, members, and loans.
+ * Books and members are indexed by their ID so that lookups and removals run in constant time,
+ * and the figures reported by {@link #getLibrarySummary()} are kept as running counters.
+
+ * <p>
+ * The library is safe for concurrent use. Book status transitions are made with
+ * {@link Book#compareAndSetStatus(BookStatus, BookStatus)}, so borrows and returns take no
+ * library-wide or per-book lock and exactly one of several racing borrowers wins a book.
+ * Updates to the set of members with loans hold the affected member's monitor, so a member's
+ * loan count and its membership of that set always change together.
+ * <p>
+ * Members can queue for a book. When a reserved book is returned it moves straight to
+ * {@link BookStatus#RESERVED} for the member at the head of its queue, and only that member
+ * is notified, instead of all observers racing for it. Each reservation queue is guarded by
+ * its own monitor.
+ * <p>
+ * A library restored from a {@link LibrarySnapshot} loads its books lazily: a book is decoded
+ * from the snapshot the first time it is looked up, and the status counters start from the
+ * snapshot's totals. Books replaced or removed since are remembered as shadowed, so their
+ * snapshot records are never loaded again.
+ * <p>
+ * A library created with {@link #withColumnarStorage(BookFactory)} keeps the books added in
+ * bulk with {@link #addBooks(Collection)} as columns of primitives rather than as objects, which
+ * takes a fraction of the heap for a large catalog. Like a snapshot book, a stored book becomes
+ * a {@link Book} object the first time it is looked up, and stays one.
+ * <p>
+ * Author names repeat across many books, so every book entering the catalog has its author
+ * replaced by a pooled instance, and books by the same author share one string.
+ * <p>
+ * Secondary indexes, such as the full-text index behind {@link #searchBooks(String, int)}, the
+ * prefix index behind {@link #complete(String, int, Set)} and the ordered views behind
+ * {@link #getBooksByYear(int, int, String, int)}, are built on first use. They are
+ * registered as {@link CatalogIndex}es and told about each change to the catalog while the
+ * book's index entry is held, so the changes to one book reach them in order.
  */
 public class Library {
-    private List<Book> books;
-    private List<Member> members;
-    private List<Loan> loans;
+    private static final long DEFAULT_LOAN_PERIOD_MILLIS = 14L * 24 * 60 * 60 * 1000; // 14 days loan period
+    private static final int AUTHOR_POOL_SIZE = 1 << 20;
+
+    private final Map<String, Book> books;
+    private final Map<String, Member> members;
+    private final LoanArchive loanHistory;
+    private final Map<String, Loan> activeLoans;
+    private final DueDateIndex dueDateIndex;
+    private final LongAdder[] bookStatusCounts;
+    private final Set<Member> activeMembers;
+    private final LongAdder totalLoans;
+    private final Map<String, ReservationQueue> reservations;
+    private final Map<String, Member> reservedFor;
+    private volatile boolean counterVerification;
+    private volatile BookAvailabilityDispatcher availabilityDispatcher;
+    private volatile LibraryClock clock = LibraryClock.system();
+    private volatile long loanPeriodMillis = DEFAULT_LOAN_PERIOD_MILLIS;
+    private final BookChangeListener catalogListener = new CatalogListener();
+    private final Set<String> shadowedSnapshotBooks;
+    private volatile LibrarySnapshot snapshot;
+    private final List<CatalogIndex> catalogIndexes;
+    private final ReadWriteLock catalogChanges;
+    private final Map<String, CatalogIndex> builtIndexes;
+    private final ColumnarBookStore storedBooks;
+    private final ReadWriteLock storedBookLoads;
+    private final StringPool authors;
 
     /**
-     * Constructs a new Library with empty lists for books, members, and loans.
+     * Constructs a new Library with empty indexes for books and members and an empty loan list.
      */
     public Library() {
-        this.books = new ArrayList<>();
-        this.members = new ArrayList<>();
-        this.loans = new ArrayList<>();
+        this(null);
+    }
+
+    /**
+     * Creates an empty library that keeps books added in bulk in columnar storage.
+     *
+     * @param bookFactory The factory that recreates stored books of the types it knows.
+     * @return The new library.
+     */
+    public static Library withColumnarStorage(BookFactory bookFactory) {
+        return new Library(new ColumnarBookStore(bookFactory));
+    }
+
+    private Library(ColumnarBookStore storedBooks) {
+        this.books = new ConcurrentHashMap<>();
+        this.members = new ConcurrentHashMap<>();
+        this.loanHistory = new LoanArchive();
+        this.activeLoans = new ConcurrentHashMap<>();
+        this.dueDateIndex = new DueDateIndex();
+        this.bookStatusCounts = new LongAdder[BookStatus.values().length];
+        for (int i = 0; i < bookStatusCounts.length; i++) {
+            bookStatusCounts[i] = new LongAdder();
+        }
+        this.activeMembers = ConcurrentHashMap.newKeySet();
+        this.totalLoans = new LongAdder();
+        this.reservations = new ConcurrentHashMap<>();
+        this.reservedFor = new ConcurrentHashMap<>();
+        this.shadowedSnapshotBooks = ConcurrentHashMap.newKeySet();
+        this.catalogIndexes = new CopyOnWriteArrayList<>();
+        this.catalogChanges = new ReentrantReadWriteLock();
+        this.builtIndexes = new ConcurrentHashMap<>();
+        this.storedBooks = storedBooks;
+        this.storedBookLoads = new ReentrantReadWriteLock();
+        this.authors = new StringPool(AUTHOR_POOL_SIZE);
+    }
+
+    /**
+     * Restores an empty library from a snapshot. Members and active loans are loaded straight away;
+     * books are loaded from the snapshot when they are first looked up.
+     *
+     * @param snapshot The snapshot to restore from.
+     * @throws IllegalStateException If the library is not empty.
+     */
+    public void restoreSnapshot(LibrarySnapshot snapshot) {
+        if (this.snapshot != null || !books.isEmpty() || (storedBooks != null && storedBooks.size() > 0)
+                || !members.isEmpty() || !activeLoans.isEmpty() || loanHistory.size() > 0) {
+            throw new IllegalStateException("A snapshot can only be restored into an empty library");
+        }
+        for (BookStatus status : BookStatus.values()) {
+            bookStatusCounts[status.ordinal()].add(snapshot.getStatusCount(status));
+        }
+        totalLoans.add(snapshot.getHistoricLoanCount());
+        this.snapshot = snapshot;
+        for (CatalogIndex index : catalogIndexes) {
+            indexSnapshotBooks(index);
+        }
+        snapshot.forEachMember((id, name) -> addMember(new Member(id, name)));
+        snapshot.forEachActiveLoan((bookId, memberId, borrowDate, dueDate, returnDate) -> {
+            Book book = findBookById(bookId);
+            Member member = findMemberById(memberId);
+            if (book != null && member != null) {
+                recordLoan(book, member, borrowDate, dueDate);
+            }
+        });
+    }
+
+    /**
+     * Gets the snapshot the library was restored from.
+     *
+     * @return The snapshot, or null if the library was not restored from one.
+     */
+    public LibrarySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Checks whether a book's record in the snapshot is still its only copy,
+     * that is, the book has neither been loaded nor replaced or removed since.
+     *
+     * @param bookId The ID of a book in the snapshot.
+     * @return true if the snapshot record is current and not loaded, false otherwise.
+     */
+    public boolean isSnapshotEntryCurrent(String bookId) {
+        return !books.containsKey(bookId) && !shadowedSnapshotBooks.contains(bookId);
+    }
+
+    /**
+     * Loads a book from columnar storage or from the snapshot the library was restored from, unless it was shadowed.
+     * A loaded book is already counted in the status counters.
+     *
+     * @param id The ID of the book.
+     * @return The loaded book, or null if neither holds a current copy of it.
+     */
+    private Book loadStoredBook(String id) {
+        LibrarySnapshot snapshot = this.snapshot;
+        boolean inSnapshot = snapshot != null && !shadowedSnapshotBooks.contains(id);
+        if (storedBooks == null) {
+            return inSnapshot ? books.computeIfAbsent(id, key -> attachLoaded(loadFromSnapshot(snapshot, key))) : null;
+        }
+        if (!inSnapshot && !storedBooks.contains(id)) {
+            return null;
+        }
+        storedBookLoads.readLock().lock();
+        try {
+            return books.computeIfAbsent(id, key -> {
+                Book loaded = storedBooks.take(key);
+                return attachLoaded(loaded != null ? loaded : loadFromSnapshot(snapshot, key));
+            });
+        } finally {
+            storedBookLoads.readLock().unlock();
+        }
+    }
+
+    /**
+     * Decodes a book from the snapshot unless its record was shadowed.
+     * Must be called while holding the book's index entry.
+     */
+    private Book loadFromSnapshot(LibrarySnapshot snapshot, String id) {
+        return snapshot == null || shadowedSnapshotBooks.contains(id) ? null : snapshot.loadBook(id);
+    }
+
+    private Book attachLoaded(Book loaded) {
+        if (loaded != null) {
+            poolStrings(loaded);
+            loaded.attachChangeListener(catalogListener);
+        }
+        return loaded;
+    }
+
+    /**
+     * Replaces a book's author by the pooled instance of the name.
+     *
+     * @param book The book entering the catalog.
+     */
+    private void poolStrings(Book book) {
+        String author = book.getAuthor();
+        String pooled = authors.intern(author);
+        if (pooled != author) {
+            book.setAuthor(pooled);
+        }
+    }
+
+    /**
+     * Drops the stored copies of a book that is being replaced: its columnar record and its snapshot record.
+     * The records are taken out of the status counters. Must be called while holding the book's index entry,
+     * with no loaded copy present.
+     *
+     * @param id The ID of the book.
+     */
+    private void shadowStoredBook(String id) {
+        if (storedBooks != null) {
+            BookStatus stale = storedBooks.remove(id);
+            if (stale != null) {
+                bookStatusCounts[stale.ordinal()].decrement();
+            }
+        }
+        shadowSnapshotBook(id);
+    }
+
+    /**
+     * Marks a book's snapshot record as superseded, taking it out of the status counters if it was never loaded.
+     * Must be called while holding the book's index entry, with no loaded copy present.
+     *
+     * @param id The ID of the book.
+     */
+    private void shadowSnapshotBook(String id) {
+        LibrarySnapshot snapshot = this.snapshot;
+        if (snapshot == null || shadowedSnapshotBooks.contains(id)) {
+            return;
+        }
+        Book stale = snapshot.loadBook(id);
+        if (stale != null && shadowedSnapshotBooks.add(id)) {
+            bookStatusCounts[stale.getStatus().ordinal()].decrement();
+        }
+    }
+
+    /**
+     * Registers a secondary index and fills it with the books already in the catalog.
+     * Books that are only in the snapshot or in columnar storage are decoded for the index without being loaded.
+     * An index can be registered while the library is in use: changes made from then on report to it, and each
+     * book and member already there is added while its entry is held, so no change made meanwhile is lost.
+     *
+     * @param index The index to keep up to date.
+     */
+    public void addCatalogIndex(CatalogIndex index) {
+        // Wait for the changes that did not see the index; every later change reports to it itself
+        catalogChanges.writeLock().lock();
+        try {
+            catalogIndexes.add(index);
+        } finally {
+            catalogChanges.writeLock().unlock();
+        }
+        indexSnapshotBooks(index);
+        if (storedBooks != null) {
+            for (String id : storedBooks.ids()) {
+                books.compute(id, (key, existing) -> {
+                    Book stored = existing == null ? storedBooks.get(key) : null;
+                    if (stored != null) {
+                        index.bookAdded(stored);
+                    }
+                    return existing;
+                });
+            }
+        }
+        for (String id : books.keySet()) {
+            books.computeIfPresent(id, (key, book) -> {
+                index.bookAdded(book);
+                return book;
+            });
+        }
+        for (Member member : members.values()) {
+            synchronized (member) {
+                if (members.get(member.getId()) == member) {
+                    index.memberAdded(member);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports the snapshot's books that have not been loaded, replaced or removed to an index.
+     *
+     * @param index The index to fill.
+     */
+    private void indexSnapshotBooks(CatalogIndex index) {
+        LibrarySnapshot snapshot = this.snapshot;
+        if (snapshot == null) {
+            return;
+        }
+        for (int i = 0; i < snapshot.getBookCount(); i++) {
+            int position = i;
+            books.compute(snapshot.bookIdAt(i), (id, existing) -> {
+                if (existing == null && !shadowedSnapshotBooks.contains(id)) {
+                    index.bookAdded(snapshot.loadBook(position));
+                }
+                return existing;
+            });
+        }
+    }
+
+    /**
+     * Searches the titles and authors of the catalog. Words must all match, {@code OR} separates
+     * alternatives and text in double quotes must match as a phrase; case and accents are ignored.
+     * The search index is built on first use and kept up to date from then on.
+     *
+     * @param query The query, for example {@code tolkien "the hobbit" OR silmarillion}.
+     * @param limit The maximum number of results.
+     * @return The best matching books, best first.
+     */
+    public List<Book> searchBooks(String query, int limit) {
+        BookSearchIndex index = builtIndex("search", BookSearchIndex::new);
+        return findBooksByIds(index.search(query, limit));
+    }
+
+    /**
+     * Completes book IDs, titles, authors, member IDs or member names from the text typed so far,
+     * ignoring case and accents. The prefix index is built on first use and kept up to date from then on.
+     *
+     * @param prefix The text typed so far.
+     * @param limit  The maximum number of completions.
+     * @param kinds  The kinds of text to complete.
+     * @return The completions in alphabetical order.
+     */
+    public List<Completion> complete(String prefix, int limit, Set<Completion.Kind> kinds) {
+        CatalogCompleter completer = builtIndex("completion",
+                () -> new CatalogCompleter(this::findBookById, this::findMemberById));
+        return completer.complete(prefix, limit, kinds);
+    }
+
+    /**
+     * Gets a page of the books published within a range of years, ordered by year and then by ID.
+     * The year index is built on first use and kept up to date from then on.
+     *
+     * @param fromYear The first year, inclusive.
+     * @param toYear   The last year, inclusive.
+     * @param cursor   The cursor of the previous page, or null for the first page.
+     * @param limit    The maximum number of books on the page.
+     * @return The page of books.
+     * @throws IllegalArgumentException If the cursor did not come from this view.
+     */
+    public BookPage getBooksByYear(int fromYear, int toYear, String cursor, int limit) {
+        OrderedBookIndex<Integer> index = builtIndex("year", OrderedBookIndex::byPublicationYear);
+        return toBookPage(index.page(fromYear, toYear, cursor, limit));
+    }
+
+    /**
+     * Gets a page of the catalog ordered by title, ignoring case and accents, and then by ID.
+     * The title index is built on first use and kept up to date from then on.
+     *
+     * @param cursor The cursor of the previous page, or null for the first page.
+     * @param limit  The maximum number of books on the page.
+     * @return The page of books.
+     * @throws IllegalArgumentException If the cursor did not come from this view.
+     */
+    public BookPage getBooksByTitle(String cursor, int limit) {
+        return getBooksByTitle(cursor, 0, limit);
+    }
+
+    /**
+     * Gets a page of the catalog ordered by title, starting a number of books after a cursor,
+     * for example to jump to a position in a long list. Only the books on the page are loaded, but the
+     * skipped books' index entries are walked one by one, so the cost grows with the offset.
+     *
+     * @param cursor The cursor to start from, or null for the start of the catalog.
+     * @param offset The number of books to skip after the cursor.
+     * @param limit  The maximum number of books on the page.
+     * @return The page of books.
+     * @throws IllegalArgumentException If the cursor did not come from this view.
+     */
+    public BookPage getBooksByTitle(String cursor, int offset, int limit) {
+        OrderedBookIndex<String> index = builtIndex("title", OrderedBookIndex::byTitle);
+        return toBookPage(index.page(null, null, cursor, offset, limit));
+    }
+
+    /**
+     * Gets the number of books in the catalog ordered by title, which is every book in the library.
+     * The title index is built on first use and kept up to date from then on.
+     *
+     * @return The number of books.
+     */
+    public int getBookCount() {
+        return builtIndex("title", OrderedBookIndex::byTitle).size();
+    }
+
+    private BookPage toBookPage(OrderedBookIndex.Page page) {
+        return new BookPage(findBooksByIds(page.getBookIds()), page.getNextCursor());
+    }
+
+    /**
+     * Looks up books found by an index, skipping any removed since.
+     */
+    private List<Book> findBooksByIds(List<String> ids) {
+        List<Book> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Book book = findBookById(id);
+            if (book != null) {
+                result.add(book);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets one of the library's own secondary indexes, building and registering it on first use.
+     *
+     * @param name    The name of the index.
+     * @param factory Creates the empty index.
+     * @return The index.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends CatalogIndex> T builtIndex(String name, Supplier<T> factory) {
+        CatalogIndex index = builtIndexes.get(name);
+        if (index == null) {
+            synchronized (builtIndexes) {
+                index = builtIndexes.get(name);
+                if (index == null) {
+                    index = factory.get();
+                    addCatalogIndex(index);
+                    builtIndexes.put(name, index);
+                }
+            }
+        }
+        return (T) index;
+    }
+
+    /**
+     * Visits every book that is held in memory, leaving books that are only in the snapshot unloaded.
+     * Books in columnar storage are visited as copies decoded for the call, and are not loaded either.
+     *
+     * @param action The action to perform on each book.
+     */
+    public void forEachLoadedBook(Consumer<? super Book> action) {
+        if (storedBooks == null) {
+            books.values().forEach(action);
+            return;
+        }
+        // Collect both sets while no book is moving from one to the other
+        List<Book> inMemory;
+        storedBookLoads.writeLock().lock();
+        try {
+            inMemory = new ArrayList<>(books.values());
+            storedBooks.forEach(inMemory::add);
+        } finally {
+            storedBookLoads.writeLock().unlock();
+        }
+        inMemory.forEach(action);
+    }
+
+    /**
+     * Visits every member of the library.
+     *
+     * @param action The action to perform on each member.
+     */
+    public void forEachMember(Consumer<? super Member> action) {
+        members.values().forEach(action);
+    }
+
+    /**
+     * Visits every loan returned since the library was created or restored, in the order they were archived.
+     *
+     * @param action The action to perform on each loan.
+     */
+    public void forEachReturnedLoan(Consumer<? super LoanRecord> action) {
+        loanHistory.forEach(action);
+    }
+
+    /**
+     * Streams the returned loans of a member, including those in the snapshot the library was restored from.
+     *
+     * @param memberId The ID of the member.
+     * @return The member's returned loans, those in the snapshot first.
+     */
+    public Stream<LoanRecord> getLoanHistoryByMember(String memberId) {
+        return getLoanHistory(null, memberId, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Streams the returned loans of a book, including those in the snapshot the library was restored from.
+     *
+     * @param bookId The ID of the book.
+     * @return The book's returned loans, those in the snapshot first.
+     */
+    public Stream<LoanRecord> getLoanHistoryByBook(String bookId) {
+        return getLoanHistory(bookId, null, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Streams the returned loans during which the book was out at some point of a time range.
+     *
+     * @param from The start of the range (inclusive).
+     * @param to   The end of the range (inclusive).
+     * @return The matching returned loans, those in the snapshot first.
+     */
+    public Stream<LoanRecord> getLoanHistory(Date from, Date to) {
+        return getLoanHistory(null, null, from.getTime(), to.getTime());
+    }
+
+    /**
+     * Streams the returned loans that match all the given conditions.
+     * Archived segments that cannot hold a match are skipped without being decoded.
+     *
+     * @param bookId   The ID of the book, or null for any book.
+     * @param memberId The ID of the member, or null for any member.
+     * @param from     The start of the time range the loans must overlap, in epoch milliseconds.
+     * @param to       The end of that time range, in epoch milliseconds.
+     * @return The matching returned loans, those in the snapshot first.
+     */
+    public Stream<LoanRecord> getLoanHistory(String bookId, String memberId, long from, long to) {
+        Stream<LoanRecord> archived = loanHistory.stream(bookId, memberId, from, to);
+        LibrarySnapshot snapshot = this.snapshot;
+        if (snapshot == null || snapshot.getHistoricLoanCount() == 0) {
+            return archived;
+        }
+        Stream<LoanRecord> restored = snapshot.historicLoans()
+                .filter(record -> (bookId == null || bookId.equals(record.getBookId()))
+                        && (memberId == null || memberId.equals(record.getMemberId()))
+                        && record.overlaps(from, to));
+        return Stream.concat(restored, archived);
+    }
+
+    /**
+     * Lets the loan history spill to a scratch file in a directory once its encoded segments take more
+     * than a given amount of heap. The oldest segments are spilled first and read back when queried.
+     *
+     * @param directory    The directory for the scratch file, which is deleted when the JVM exits.
+     * @param maxHeapBytes The most bytes of loan history to keep on the heap.
+     * @throws IOException If the scratch file cannot be created.
+     */
+    public void spillLoanHistory(Path directory, long maxHeapBytes) throws IOException {
+        loanHistory.spillTo(directory, maxHeapBytes);
     }
 
     /**
      * Adds a book to the library.
+     * A book added with the ID of an existing book replaces it in the index.
      *
      * @param book The book to add.
      */
     public void addBook(Book book) {
-        books.add(book);
+        poolStrings(book);
+        BookStatus status = book.attachChangeListener(catalogListener);
+        if (status != null) {
+            bookStatusCounts[status.ordinal()].increment();
+        }
+        Book replaced;
+        catalogChanges.readLock().lock();
+        try {
+            if (snapshot == null && storedBooks == null && catalogIndexes.isEmpty()) {
+                replaced = books.put(book.getId(), book);
+            } else {
+                Book[] current = new Book[1];
+                books.compute(book.getId(), (id, existing) -> {
+                    if (existing == null) {
+                        shadowStoredBook(id);
+                    }
+                    current[0] = existing;
+                    for (CatalogIndex index : catalogIndexes) {
+                        index.bookAdded(book);
+                    }
+                    return book;
+                });
+                replaced = current[0];
+            }
+        } finally {
+            catalogChanges.readLock().unlock();
+        }
+        if (replaced != null && replaced != book) {
+            detachBook(replaced);
+        }
+    }
+
+    /**
+     * Adds a batch of books to the library, for example from a bulk import.
+     * Books with the ID of an existing book replace it, in the order they are given.
+     * <p>
+     * With columnar storage, the books' details and statuses are copied into the store and the
+     * given objects are not kept: {@link #findBookById(String)} returns a new object for each of them.
+     *
+     * @param books The books to add.
+     */
+    public void addBooks(Collection<? extends Book> books) {
+        if (storedBooks == null) {
+            for (Book book : books) {
+                addBook(book);
+            }
+            return;
+        }
+        for (Book book : books) {
+            storeBook(book);
+        }
+    }
+
+    /**
+     * Adds a book to columnar storage, replacing any book with its ID.
+     *
+     * @param book The book to copy into the store.
+     */
+    private void storeBook(Book book) {
+        Book[] current = new Book[1];
+        catalogChanges.readLock().lock();
+        try {
+            this.books.compute(book.getId(), (id, existing) -> {
+                if (existing == null) {
+                    shadowStoredBook(id);
+                }
+                current[0] = existing;
+                storedBooks.add(book);
+                bookStatusCounts[book.getStatus().ordinal()].increment();
+                for (CatalogIndex index : catalogIndexes) {
+                    index.bookAdded(book);
+                }
+                return null;
+            });
+        } finally {
+            catalogChanges.readLock().unlock();
+        }
+        if (current[0] != null) {
+            detachBook(current[0]);
+        }
     }
 
     /**
@@ -43,16 +672,105 @@ public class Library {
      * @return true if the book was successfully removed, false otherwise.
      */
     public boolean removeBook(Book book) {
-        return books.remove(book);
+        boolean removed;
+        LibrarySnapshot snapshot = this.snapshot;
+        catalogChanges.readLock().lock();
+        try {
+            if (snapshot == null && catalogIndexes.isEmpty()) {
+                removed = books.remove(book.getId(), book);
+            } else {
+                boolean[] found = new boolean[1];
+                books.computeIfPresent(book.getId(), (id, existing) -> {
+                    if (existing != book) {
+                        return existing;
+                    }
+                    if (snapshot != null && snapshot.containsBook(id)) {
+                        shadowedSnapshotBooks.add(id);
+                    }
+                    for (CatalogIndex index : catalogIndexes) {
+                        index.bookRemoved(book);
+                    }
+                    found[0] = true;
+                    return null;
+                });
+                removed = found[0];
+            }
+        } finally {
+            catalogChanges.readLock().unlock();
+        }
+        if (removed) {
+            detachBook(book);
+            reservations.remove(book.getId());
+            reservedFor.remove(book.getId());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Stops tracking a book that has left the catalog.
+     *
+     * @param book The book that was removed.
+     */
+    private void detachBook(Book book) {
+        BookStatus status = book.detachChangeListener();
+        if (status != null) {
+            bookStatusCounts[status.ordinal()].decrement();
+        }
     }
 
     /**
      * Adds a member to the library.
+     * A member added with the ID of an existing member replaces it in the index.
      *
      * @param member The member to add.
      */
     public void addMember(Member member) {
-        members.add(member);
+        Member replaced;
+        catalogChanges.readLock().lock();
+        try {
+            synchronized (member) {
+                replaced = members.put(member.getId(), member);
+                if (member.getActiveLoanCount() > 0) {
+                    activeMembers.add(member);
+                }
+                for (CatalogIndex index : catalogIndexes) {
+                    index.memberAdded(member);
+                }
+            }
+        } finally {
+            catalogChanges.readLock().unlock();
+        }
+        if (replaced != null && replaced != member) {
+            synchronized (replaced) {
+                activeMembers.remove(replaced);
+            }
+        }
+    }
+
+    /**
+     * Renames a member and tells the catalog indexes, so that completions follow the new name.
+     *
+     * @param member The member to rename.
+     * @param name   The new name of the member.
+     * @return true if the member was renamed, false if it is not a member of the library.
+     */
+    public boolean renameMember(Member member, String name) {
+        catalogChanges.readLock().lock();
+        try {
+            synchronized (member) {
+                if (members.get(member.getId()) != member) {
+                    return false;
+                }
+                member.setName(name);
+                for (CatalogIndex index : catalogIndexes) {
+                    index.memberChanged(member);
+                }
+                return true;
+            }
+        } finally {
+            catalogChanges.readLock().unlock();
+        }
     }
 
     /**
@@ -62,54 +780,531 @@ public class Library {
      * @return true if the member was successfully removed, false otherwise.
      */
     public boolean removeMember(Member member) {
-        return members.remove(member);
+        catalogChanges.readLock().lock();
+        try {
+            synchronized (member) {
+                if (members.remove(member.getId(), member)) {
+                    activeMembers.remove(member);
+                    for (CatalogIndex index : catalogIndexes) {
+                        index.memberRemoved(member);
+                    }
+                    return true;
+                }
+                return false;
+            }
+        } finally {
+            catalogChanges.readLock().unlock();
+        }
     }
 
     /**
      * Creates a loan for a book to a member.
+     * The book is claimed with a single compare-and-set; the loan is registered with the
+     * member before it is published in the active-loan index, so it can only be returned
+     * once it is fully recorded.
+     *
+     * A reserved book can only be borrowed by the member it is being held for.
      *
      * @param book   The book to be borrowed.
      * @param member The member borrowing the book.
-     * @return The created Loan object, or null if the book is not available.
+     * @return The created Loan object, or null if the book is not available to the member.
      */
     public Loan borrowBook(Book book, Member member) {
-        if (book.getStatus() == BookStatus.AVAILABLE) {
-            Date borrowDate = new Date();
-            Date dueDate = new Date(borrowDate.getTime() + 14 * 24 * 60 * 60 * 1000); // 14 days loan period
-            Loan loan = new Loan(book, member, borrowDate, dueDate);
-            loans.add(loan);
-            book.setStatus(BookStatus.BORROWED);
+        return borrowBook(book, member, clock.millis());
+    }
+
+    /**
+     * Creates a loan for a book to a member, borrowed at the given time.
+     * Used to reproduce a loan exactly, for example when a journal is replayed.
+     *
+     * @param book       The book to be borrowed.
+     * @param member     The member borrowing the book.
+     * @param borrowDate The date the book was borrowed; the loan is due one loan period later.
+     * @return The created Loan object, or null if the book is not available to the member.
+     */
+    public Loan borrowBook(Book book, Member member, Date borrowDate) {
+        return borrowBook(book, member, borrowDate.getTime());
+    }
+
+    /**
+     * Creates a loan for a book to a member, borrowed at the given time.
+     * Used to reproduce a loan exactly, for example when a journal is replayed.
+     *
+     * @param book       The book to be borrowed.
+     * @param member     The member borrowing the book.
+     * @param borrowTime The time the book was borrowed, in epoch milliseconds; the loan is due one loan period later.
+     * @return The created Loan object, or null if the book is not available to the member.
+     */
+    public Loan borrowBook(Book book, Member member, long borrowTime) {
+        if (!book.compareAndSetStatus(BookStatus.AVAILABLE, BookStatus.BORROWED) && !claimReservation(book, member)) {
+            return null;
+        }
+        return recordLoan(book, member, borrowTime, borrowTime + loanPeriodMillis);
+    }
+
+    /**
+     * Lends several books to one member at once, for example a tray at a self-checkout station.
+     * Each book is claimed as by {@link #borrowBook(Book, Member, Date)}, but the member's loans
+     * are registered under a single hold of the member's monitor.
+     *
+     * @param member     The member borrowing the books.
+     * @param books      The books to be borrowed; null entries are skipped.
+     * @param borrowDate The date the books were borrowed.
+     * @return The created loans, at the positions of their books, with null for books that could not be borrowed.
+     */
+    public Loan[] borrowBooks(Member member, Book[] books, Date borrowDate) {
+        return borrowBooks(member, books, borrowDate.getTime());
+    }
+
+    /**
+     * Lends several books to one member at once, borrowed at the given time.
+     *
+     * @param member     The member borrowing the books.
+     * @param books      The books to be borrowed; null entries are skipped.
+     * @param borrowTime The time the books were borrowed, in epoch milliseconds.
+     * @return The created loans, at the positions of their books, with null for books that could not be borrowed.
+     * @see #borrowBooks(Member, Book[], Date)
+     */
+    public Loan[] borrowBooks(Member member, Book[] books, long borrowTime) {
+        Loan[] result = new Loan[books.length];
+        long dueTime = borrowTime + loanPeriodMillis;
+        int count = 0;
+        for (int i = 0; i < books.length; i++) {
+            Book book = books[i];
+            if (book != null && (book.compareAndSetStatus(BookStatus.AVAILABLE, BookStatus.BORROWED)
+                    || claimReservation(book, member))) {
+                result[i] = new Loan(book, member, borrowTime, dueTime);
+                count++;
+            }
+        }
+        if (count == 0) {
+            return result;
+        }
+        synchronized (member) {
+            for (Loan loan : result) {
+                if (loan != null) {
+                    member.addLoan(loan);
+                }
+            }
+            if (isIndexed(member)) {
+                activeMembers.add(member);
+            }
+        }
+        for (Loan loan : result) {
+            if (loan != null) {
+                dueDateIndex.add(loan);
+                activeLoans.put(loan.getBook().getId(), loan);
+            }
+        }
+        totalLoans.add(count);
+        return result;
+    }
+
+    /**
+     * Records a loan of a book that is already marked as borrowed.
+     *
+     * @param book       The borrowed book.
+     * @param member     The member borrowing the book.
+     * @param borrowTime The time the book was borrowed, in epoch milliseconds.
+     * @param dueTime    The time the book is due to be returned, in epoch milliseconds.
+     * @return The created Loan object.
+     */
+    private Loan recordLoan(Book book, Member member, long borrowTime, long dueTime) {
+        Loan loan = new Loan(book, member, borrowTime, dueTime);
+        synchronized (member) {
             member.addLoan(loan);
-            return loan;
+            if (isIndexed(member)) {
+                activeMembers.add(member);
+            }
         }
-        return null;
+        totalLoans.increment();
+        dueDateIndex.add(loan);
+        activeLoans.put(book.getId(), loan);
+        return loan;
     }
 
     /**
      * Returns a borrowed book.
+     * The caller that removes the loan from the active-loan index performs the return;
+     * the book only becomes available again once the loan has been closed.
      *
      * @param loan The loan to be returned.
+     * @return true if this call returned the loan, false if it was not an active loan of this library.
      */
-    public void returnBook(Loan loan) {
-        if (loan.isActive()) {
-            loan.setReturnDate(new Date());
-            loan.getBook().setStatus(BookStatus.AVAILABLE);
-            loan.getMember().removeLoan(loan);
+    public boolean returnBook(Loan loan) {
+        return returnBook(loan, clock.millis());
+    }
+
+    /**
+     * Returns a borrowed book at the given time.
+     * Used to reproduce a return exactly, for example when a journal is replayed.
+     *
+     * @param loan       The loan to be returned.
+     * @param returnDate The date the book was returned.
+     * @return true if this call returned the loan, false if it was not an active loan of this library.
+     */
+    public boolean returnBook(Loan loan, Date returnDate) {
+        return returnBook(loan, returnDate.getTime());
+    }
+
+    /**
+     * Returns a borrowed book at the given time.
+     *
+     * @param loan       The loan to be returned.
+     * @param returnTime The time the book was returned, in epoch milliseconds.
+     * @return true if this call returned the loan, false if it was not an active loan of this library.
+     */
+    public boolean returnBook(Loan loan, long returnTime) {
+        Book book = loan.getBook();
+        if (!activeLoans.remove(book.getId(), loan)) {
+            return false;
+        }
+        dueDateIndex.remove(loan);
+        Member member = loan.getMember();
+        synchronized (member) {
+            member.removeLoan(loan);
+            if (member.getActiveLoanCount() == 0) {
+                activeMembers.remove(member);
+            }
         }
+        loan.returnBook(returnTime);
+        loanHistory.add(LoanRecord.of(loan));
+        releaseBook(book);
+        return true;
+    }
+
+    /**
+     * Returns several borrowed books at once, for example a drop box emptied by the staff.
+     *
+     * @param loans      The loans to be returned; null entries are skipped.
+     * @param returnDate The date the books were returned.
+     * @return For each loan, whether this call returned it.
+     */
+    public boolean[] returnBooks(Loan[] loans, Date returnDate) {
+        return returnBooks(loans, returnDate.getTime());
+    }
+
+    /**
+     * Returns several borrowed books at once, at the given time.
+     *
+     * @param loans      The loans to be returned; null entries are skipped.
+     * @param returnTime The time the books were returned, in epoch milliseconds.
+     * @return For each loan, whether this call returned it.
+     */
+    public boolean[] returnBooks(Loan[] loans, long returnTime) {
+        boolean[] returned = new boolean[loans.length];
+        for (int i = 0; i < loans.length; i++) {
+            returned[i] = loans[i] != null && returnBook(loans[i], returnTime);
+        }
+        return returned;
+    }
+
+    /**
+     * Makes a returned book available, or holds it for the next member in its reservation queue.
+     *
+     * @param book The book that was returned.
+     */
+    private void releaseBook(Book book) {
+        ReservationQueue queue = reservations.get(book.getId());
+        if (queue != null) {
+            synchronized (queue) {
+                if (!queue.isEmpty() && book.compareAndSetStatus(BookStatus.BORROWED, BookStatus.RESERVED)) {
+                    holdForNext(book, queue);
+                    return;
+                }
+            }
+        }
+        if (book.compareAndSetStatus(BookStatus.BORROWED, BookStatus.AVAILABLE)) {
+            // A reservation may have been queued after the check above, while the book was still borrowed.
+            queue = reservations.get(book.getId());
+            if (queue != null) {
+                synchronized (queue) {
+                    if (!queue.isEmpty() && book.compareAndSetStatus(BookStatus.AVAILABLE, BookStatus.RESERVED)) {
+                        holdForNext(book, queue);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands a reserved book to the next member in its queue and notifies only that member,
+     * or makes the book available if nobody is waiting.
+     * Must be called while holding the queue's monitor, with the book in RESERVED status.
+     *
+     * @param book  The book to hand on.
+     * @param queue The book's reservation queue.
+     */
+    private void holdForNext(Book book, ReservationQueue queue) {
+        Member next = queue.poll();
+        if (next == null) {
+            reservedFor.remove(book.getId());
+            book.compareAndSetStatus(BookStatus.RESERVED, BookStatus.AVAILABLE);
+            return;
+        }
+        reservedFor.put(book.getId(), next);
+        BookAvailabilityDispatcher dispatcher = availabilityDispatcher;
+        if (dispatcher != null) {
+            dispatcher.dispatchNotice(() -> next.notifyReservationReady(book));
+        } else {
+            next.notifyReservationReady(book);
+        }
+    }
+
+    /**
+     * Claims a reserved book for the member it is being held for.
+     *
+     * @param book   The reserved book.
+     * @param member The member borrowing the book.
+     * @return true if the book was held for the member and is now marked borrowed, false otherwise.
+     */
+    private boolean claimReservation(Book book, Member member) {
+        return reservedFor.remove(book.getId(), member)
+                && book.compareAndSetStatus(BookStatus.RESERVED, BookStatus.BORROWED);
+    }
+
+    /**
+     * Reserves a book for a member. A member can hold one place in a book's queue.
+     * If the book is available it is held for the head of the queue straight away.
+     *
+     * @param book   The book to reserve.
+     * @param member The member reserving the book.
+     * @return The member's zero-based position in the queue, or 0 if the book is already being held for the member.
+     */
+    public int reserveBook(Book book, Member member) {
+        if (reservedFor.get(book.getId()) == member) {
+            return 0;
+        }
+        ReservationQueue queue = reservations.computeIfAbsent(book.getId(), id -> new ReservationQueue());
+        synchronized (queue) {
+            int position = queue.enqueue(member);
+            if (book.compareAndSetStatus(BookStatus.AVAILABLE, BookStatus.RESERVED)) {
+                holdForNext(book, queue);
+            }
+            return position;
+        }
+    }
+
+    /**
+     * Cancels a member's reservation of a book. If the book was being held for the member,
+     * it is handed to the next member in the queue or becomes available.
+     *
+     * @param book   The reserved book.
+     * @param member The member cancelling the reservation.
+     * @return true if the member had a reservation, false otherwise.
+     */
+    public boolean cancelReservation(Book book, Member member) {
+        ReservationQueue queue = reservations.get(book.getId());
+        if (queue == null) {
+            return false;
+        }
+        synchronized (queue) {
+            if (queue.cancel(member)) {
+                return true;
+            }
+            if (reservedFor.remove(book.getId(), member)) {
+                holdForNext(book, queue);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Gets a member's position in a book's reservation queue.
+     *
+     * @param book   The reserved book.
+     * @param member The member to look up.
+     * @return The zero-based position, or -1 if the member is not waiting for the book.
+     */
+    public int getReservationPosition(Book book, Member member) {
+        ReservationQueue queue = reservations.get(book.getId());
+        if (queue == null) {
+            return -1;
+        }
+        synchronized (queue) {
+            return queue.positionOf(member);
+        }
+    }
+
+    /**
+     * Gets the member a reserved book is currently being held for.
+     *
+     * @param book The reserved book.
+     * @return The member who may borrow the book, or null if it is not being held.
+     */
+    public Member getReservationHolder(Book book) {
+        return reservedFor.get(book.getId());
+    }
+
+    /**
+     * Checks whether a member is the one registered under its ID.
+     *
+     * @param member The member to check.
+     * @return true if the member is part of this library, false otherwise.
+     */
+    private boolean isIndexed(Member member) {
+        return members.get(member.getId()) == member;
     }
 
     /**
      * Gets a summary of the library's current state.
+     * The figures come from counters maintained on every change, so this runs in constant time.
+     * Each figure is exact once concurrent operations have completed.
      *
      * @return A LibrarySummary object containing current statistics.
+     * @throws IllegalStateException If counter verification is enabled and the counters disagree with a recount.
      */
     public LibrarySummary getLibrarySummary() {
-        int availableBooks = (int) books.stream().filter(b -> b.getStatus() == BookStatus.AVAILABLE).count();
-        int borrowedBooks = (int) books.stream().filter(b -> b.getStatus() == BookStatus.BORROWED).count();
-        int activeMembers = (int) members.stream().filter(m -> !m.getLoans().isEmpty()).count();
-        int totalLoans = loans.size();
+        LibrarySummary summary = new LibrarySummary(
+                bookStatusCounts[BookStatus.AVAILABLE.ordinal()].intValue(),
+                bookStatusCounts[BookStatus.BORROWED.ordinal()].intValue(),
+                activeMembers.size(),
+                totalLoans.intValue());
+        if (counterVerification) {
+            verifyCounters(summary);
+        }
+        return summary;
+    }
+
+    /**
+     * Estimates the heap taken by the catalog's books, as held and as plain objects owning their strings.
+     * Books that are only in a snapshot are left out, since they are not on the heap.
+     * This walks the whole catalog.
+     *
+     * @return The memory report.
+     */
+    public MemoryReport getMemoryReport() {
+        int loaded = 0;
+        long plainBytes = 0;
+        long actualBytes = 0;
+        for (Book book : books.values()) {
+            long own = HeapEstimates.BOOK_BYTES + HeapEstimates.MAP_ENTRY_BYTES
+                    + HeapEstimates.stringBytes(book.getId()) + HeapEstimates.stringBytes(book.getTitle());
+            String author = book.getAuthor();
+            plainBytes += own + HeapEstimates.stringBytes(author);
+            actualBytes += own + (authors.isPooled(author) ? 0 : HeapEstimates.stringBytes(author));
+            loaded++;
+        }
+        List<String> pooled = new ArrayList<>(authors.size());
+        authors.forEach(pooled::add);
+        for (String author : pooled) {
+            actualBytes += HeapEstimates.MAP_ENTRY_BYTES + HeapEstimates.stringBytes(author);
+        }
+        int stored = 0;
+        if (storedBooks != null) {
+            stored = storedBooks.size();
+            plainBytes += storedBooks.estimatedPlainBytes();
+            actualBytes += storedBooks.estimatedBytes();
+        }
+        return new MemoryReport(loaded, stored, plainBytes, actualBytes, pooled.size(), authors.getSharedCount());
+    }
+
+    /**
+     * Sets the dispatcher that delivers availability notifications for catalogued books.
+     * Without a dispatcher, observers are notified synchronously by the thread that made the book available.
+     *
+     * @param availabilityDispatcher The dispatcher to use, or null to notify synchronously.
+     */
+    public void setAvailabilityDispatcher(BookAvailabilityDispatcher availabilityDispatcher) {
+        this.availabilityDispatcher = availabilityDispatcher;
+    }
+
+    /**
+     * Gets the dispatcher that delivers availability notifications.
+     *
+     * @return The dispatcher, or null if notifications are delivered on the returning thread.
+     */
+    public BookAvailabilityDispatcher getAvailabilityDispatcher() {
+        return availabilityDispatcher;
+    }
+
+    /**
+     * Sets the clock that loans are borrowed, returned and found overdue by when no time is given.
+     * The library starts with the system clock.
+     *
+     * @param clock The clock to use.
+     */
+    public void setClock(LibraryClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the clock that loans are borrowed, returned and found overdue by.
+     *
+     * @return The library's clock.
+     */
+    public LibraryClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Sets how long new loans run before they are due. Existing loans keep their due dates.
+     *
+     * @param loanPeriodMillis The loan period in milliseconds; 14 days by default.
+     * @throws IllegalArgumentException If the period is not positive.
+     */
+    public void setLoanPeriodMillis(long loanPeriodMillis) {
+        if (loanPeriodMillis <= 0) {
+            throw new IllegalArgumentException("Loan period must be positive: " + loanPeriodMillis);
+        }
+        this.loanPeriodMillis = loanPeriodMillis;
+    }
+
+    /**
+     * Gets how long new loans run before they are due.
+     *
+     * @return The loan period in milliseconds.
+     */
+    public long getLoanPeriodMillis() {
+        return loanPeriodMillis;
+    }
+
+    /**
+     * Enables or disables checking the summary counters against a full recount.
+     * Verification scans the whole catalog on every summary and is meant for single-threaded tests.
+     *
+     * @param counterVerification true to verify every summary, false otherwise.
+     */
+    public void setCounterVerification(boolean counterVerification) {
+        this.counterVerification = counterVerification;
+    }
 
-        return new LibrarySummary(availableBooks, borrowedBooks, activeMembers, totalLoans);
+    /**
+     * Recounts the library's statistics and compares them with the maintained counters.
+     *
+     * @param summary The summary built from the counters.
+     * @throws IllegalStateException If any counter differs from the recount.
+     */
+    private void verifyCounters(LibrarySummary summary) {
+        LibrarySnapshot snapshot = this.snapshot;
+        int availableBooks = (int) books.values().stream().filter(b -> b.getStatus() == BookStatus.AVAILABLE).count();
+        int borrowedBooks = (int) books.values().stream().filter(b -> b.getStatus() == BookStatus.BORROWED).count();
+        if (snapshot != null) {
+            // Count the snapshot records still current from the snapshot's totals, without loading them
+            long[] unloaded = new long[BookStatus.values().length];
+            for (BookStatus status : BookStatus.values()) {
+                unloaded[status.ordinal()] = snapshot.getStatusCount(status);
+            }
+            for (int i = 0; i < snapshot.getBookCount(); i++) {
+                if (!isSnapshotEntryCurrent(snapshot.bookIdAt(i))) {
+                    unloaded[snapshot.loadBook(i).getStatus().ordinal()]--;
+                }
+            }
+            availableBooks += (int) unloaded[BookStatus.AVAILABLE.ordinal()];
+            borrowedBooks += (int) unloaded[BookStatus.BORROWED.ordinal()];
+        }
+        if (storedBooks != null) {
+            availableBooks += storedBooks.getStatusCount(BookStatus.AVAILABLE);
+            borrowedBooks += storedBooks.getStatusCount(BookStatus.BORROWED);
+        }
+        int activeMembers = (int) members.values().stream().filter(m -> m.getActiveLoanCount() > 0).count();
+        int totalLoans = activeLoans.size() + (int) loanHistory.size() + (snapshot != null ? (int) snapshot.getHistoricLoanCount() : 0);
+
+        LibrarySummary recount = new LibrarySummary(availableBooks, borrowedBooks, activeMembers, totalLoans);
+        if (!recount.equals(summary)) {
+            throw new IllegalStateException("Summary counters " + summary + " do not match recount " + recount);
+        }
     }
 
     /**
@@ -119,7 +1314,8 @@ public class Library {
      * @return The found Book object, or null if not found.
      */
     public Book findBookById(String id) {
-        return books.stream().filter(b -> b.getId().equals(id)).findFirst().orElse(null);
+        Book book = books.get(id);
+        return book != null ? book : loadStoredBook(id);
     }
 
     /**
@@ -129,7 +1325,17 @@ public class Library {
      * @return The found Member object, or null if not found.
      */
     public Member findMemberById(String id) {
-        return members.stream().filter(m -> m.getId().equals(id)).findFirst().orElse(null);
+        return members.get(id);
+    }
+
+    /**
+     * Finds the active loan for a book.
+     *
+     * @param bookId The ID of the borrowed book.
+     * @return The active Loan for the book, or null if the book is not on loan.
+     */
+    public Loan findActiveLoanForBook(String bookId) {
+        return activeLoans.get(bookId);
     }
 
     /**
@@ -138,15 +1344,114 @@ public class Library {
      * @return A list of all active Loan objects.
      */
     public List<Loan> getActiveLoans() {
-        return loans.stream().filter(Loan::isActive).collect(Collectors.toList());
+        return new ArrayList<>(activeLoans.values());
+    }
+
+    /**
+     * Gets the number of active loans.
+     *
+     * @return The number of books on loan.
+     */
+    public int getActiveLoanCount() {
+        return activeLoans.size();
+    }
+
+    /**
+     * Gets a page of the active loans, earliest due date first.
+     *
+     * @param cursor The cursor of the previous page, or null for the first page.
+     * @param limit  The maximum number of loans on the page.
+     * @return The page of loans.
+     * @throws IllegalArgumentException If the cursor did not come from this view.
+     */
+    public LoanPage getActiveLoans(String cursor, int limit) {
+        return getActiveLoans(cursor, 0, limit);
     }
 
     /**
-     * Gets all overdue loans.
+     * Gets a page of the active loans, earliest due date first, starting a number of loans after a cursor.
+     * The skipped loans are walked one by one, so the cost grows with the offset.
      *
-     * @return A list of all overdue Loan objects.
+     * @param cursor The cursor to start from, or null for the first loan.
+     * @param offset The number of loans to skip after the cursor.
+     * @param limit  The maximum number of loans on the page.
+     * @return The page of loans.
+     * @throws IllegalArgumentException If the cursor did not come from this view.
+     */
+    public LoanPage getActiveLoans(String cursor, int offset, int limit) {
+        return dueDateIndex.page(cursor, offset, limit);
+    }
+
+    /**
+     * Gets all loans that are overdue by the library's clock.
+     *
+     * @return A list of all overdue Loan objects, earliest due date first.
      */
     public List<Loan> getOverdueLoans() {
-        return loans.stream().filter(Loan::isOverdue).collect(Collectors.toList());
+        return dueDateIndex.overdueAsOf(clock.millis());
+    }
+
+    /**
+     * Gets all loans that are overdue as of the given time.
+     *
+     * @param asOf The point in time to check against.
+     * @return A list of the loans due before that time, earliest due date first.
+     */
+    public List<Loan> getOverdueLoans(Date asOf) {
+        return dueDateIndex.overdueAsOf(asOf.getTime());
+    }
+
+    /**
+     * Gets all active loans due within the given range, for example the next 48 hours.
+     *
+     * @param from The start of the range (inclusive).
+     * @param to   The end of the range (inclusive).
+     * @return A list of the loans due within the range, earliest due date first.
+     */
+    public List<Loan> getLoansDueBetween(Date from, Date to) {
+        return dueDateIndex.dueBetween(from.getTime(), to.getTime());
+    }
+
+    /**
+     * Keeps the book status counters in step with status changes of catalogued books,
+     * hands their availability notifications to the dispatcher, if one is set,
+     * and passes changes of their details on to the catalog indexes.
+     */
+    private class CatalogListener implements BookChangeListener {
+        @Override
+        public void statusChanged(Book book, BookStatus oldStatus, BookStatus newStatus) {
+            bookStatusCounts[oldStatus.ordinal()].decrement();
+            bookStatusCounts[newStatus.ordinal()].increment();
+        }
+
+        @Override
+        public boolean dispatchAvailability(Book book) {
+            BookAvailabilityDispatcher dispatcher = availabilityDispatcher;
+            if (dispatcher == null) {
+                return false;
+            }
+            dispatcher.dispatch(book);
+            return true;
+        }
+
+        @Override
+        public void metadataChanged(Book book) {
+            catalogChanges.readLock().lock();
+            try {
+                if (catalogIndexes.isEmpty()) {
+                    return;
+                }
+                books.computeIfPresent(book.getId(), (id, current) -> {
+                    if (current == book) {
+                        for (CatalogIndex index : catalogIndexes) {
+                            index.bookChanged(book);
+                        }
+                    }
+                    return current;
+                });
+            } finally {
+                catalogChanges.readLock().unlock();
+            }
+        }
     }
 }
\ No newline at end of file
@@ -1,31 +1,104 @@
 package library.service;
 
+import library.events.BorrowEvent;
+import library.events.ReturnEvent;
+import library.events.SearchEvent;
+import library.model.BatchResult;
 import library.model.Book;
+import library.model.BookPage;
+import library.model.ImportResult;
 import library.model.LibrarySummary;
 import library.model.Loan;
+import library.model.LoanPage;
+import library.model.LoanRecord;
 import library.model.Member;
+import library.model.MemoryReport;
+import library.model.MetricsSnapshot;
+import library.persistence.JournalRecord;
+import library.persistence.LibraryJournal;
+import library.persistence.LibrarySnapshot;
+import library.search.Completion;
+import library.service.LibraryMetrics.Operation;
+import library.util.BookAvailabilityDispatcher;
 import library.util.BookStatus;
+import library.util.CoarseClock;
+import library.util.ImportProgressListener;
+
+import javax.management.JMException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 /**
  * Manages the library system, serving as both a Singleton and a Facade.
  * This class provides a simplified interface for client code to interact with the library system.
+ * It holds no mutable state of its own and may be shared by any number of threads.
+ * <p>
+ * When a journal is attached, every successful mutation is appended to it. A mutation and its
+ * record are made under a lock striped by the IDs involved, so the records of any one book or
+ * member are journalled in the order the mutations took effect. Waiting for the record to become
+ * durable happens after that lock is released, so concurrent callers share a group commit.
+ * A checkpoint takes every stripe, so it sees the library between journalled mutations.
  */
 public class LibraryManager {
+    private static final int LOCK_STRIPES = 64;
+    private static final long CLOCK_TICK_MILLIS = 10;
+
     private static LibraryManager instance;
-    private Library library;
-    private BookFactory bookFactory;
+    private final Library library;
+    private final BookFactory bookFactory;
+    private final ReentrantLock[] journalLocks;
+    private final LibraryMetrics metrics;
+    private volatile LibraryJournal journal;
 
     /**
      * Private constructor to prevent direct instantiation.
+     * The shared instance delivers availability notifications on virtual threads, reads the time from
+     * a coarse clock, keeps imported books in columnar storage if the {@code library.storage} system
+     * property is {@code columnar}, and lends books for {@code library.loanPeriodDays} days if it is set.
+     * Its metrics are registered with the platform MBean server.
      */
     private LibraryManager() {
-        this.library = new Library();
         this.bookFactory = new BookFactory();
+        this.library = "columnar".equalsIgnoreCase(System.getProperty("library.storage"))
+                ? Library.withColumnarStorage(bookFactory)
+                : new Library();
+        this.library.setAvailabilityDispatcher(BookAvailabilityDispatcher.withVirtualThreads());
+        this.library.setClock(new CoarseClock(CLOCK_TICK_MILLIS));
+        String loanPeriodDays = System.getProperty("library.loanPeriodDays");
+        if (loanPeriodDays != null) {
+            this.library.setLoanPeriodMillis(TimeUnit.DAYS.toMillis(Long.parseLong(loanPeriodDays)));
+        }
+        this.journalLocks = newJournalLocks();
+        this.metrics = new LibraryMetrics(library);
+        try {
+            metrics.register(ManagementFactory.getPlatformMBeanServer());
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
     }
 
     public LibraryManager(Library library, BookFactory bookFactory){
         this.library = library;
         this.bookFactory = bookFactory;
+        this.journalLocks = newJournalLocks();
+        this.metrics = new LibraryMetrics(library);
+    }
+
+    private static ReentrantLock[] newJournalLocks() {
+        ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
     }
 
     /**
@@ -50,8 +123,117 @@ public class LibraryManager {
      * @param publicationYear The publication year of the book.
      */
     public void addBook(String type, String id, String title, String author, int publicationYear) {
+        long start = System.nanoTime();
+        try {
+            addBookJournalled(type, id, title, author, publicationYear, true);
+            metrics.record(Operation.ADD_BOOK, start, BatchResult.Outcome.SUCCESS);
+        } catch (RuntimeException e) {
+            metrics.recordException(Operation.ADD_BOOK, start);
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a book to the library unless a book with the same ID already exists.
+     * Unlike {@link #addBook}, it never replaces a book, which might be on loan.
+     *
+     * @param type            The type of book to create.
+     * @param id              The ID of the book.
+     * @param title           The title of the book.
+     * @param author          The author of the book.
+     * @param publicationYear The publication year of the book.
+     * @return The added book, or null if a book with the ID already exists.
+     */
+    public Book addBookIfAbsent(String type, String id, String title, String author, int publicationYear) {
+        long start = System.nanoTime();
+        try {
+            Book book = addBookJournalled(type, id, title, author, publicationYear, false);
+            metrics.record(Operation.ADD_BOOK, start, book != null ? BatchResult.Outcome.SUCCESS : BatchResult.Outcome.DUPLICATE_ID);
+            return book;
+        } catch (RuntimeException e) {
+            metrics.recordException(Operation.ADD_BOOK, start);
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a book, first checking under the book's stripe that its ID is free unless it may replace a book.
+     *
+     * @return The added book, or null if the ID was taken and replacing was not allowed.
+     */
+    private Book addBookJournalled(String type, String id, String title, String author, int publicationYear,
+                                   boolean replace) {
         Book book = bookFactory.createBook(type, id, title, author, publicationYear);
-        library.addBook(book);
+        LibraryJournal journal = this.journal;
+        if (journal == null && replace) {
+            library.addBook(book);
+            return book;
+        }
+        long seq;
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            if (!replace && library.findBookById(id) != null) {
+                return null;
+            }
+            library.addBook(book);
+            if (journal == null) {
+                return book;
+            }
+            seq = journal.append(JournalRecord.addBook(type, id, title, author, publicationYear, library.getClock().millis()));
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(journal, seq);
+        return book;
+    }
+
+    /**
+     * Imports books in bulk from a CSV or JSON-lines file, chosen by the file's extension.
+     * Rows are parsed and validated in parallel; invalid rows are reported in the result
+     * and do not stop the import. With a journal attached, each batch is journalled and
+     * made durable once.
+     *
+     * @param path             The file to import.
+     * @param progressListener The listener told about progress after each batch, or null.
+     * @return The result of the import.
+     * @throws IOException If the file cannot be read.
+     */
+    public ImportResult importBooks(Path path, ImportProgressListener progressListener) throws IOException {
+        BulkCatalogImporter importer = new BulkCatalogImporter(bookFactory, this::addBatch);
+        importer.setProgressListener(progressListener);
+        return importer.importFile(path);
+    }
+
+    /**
+     * Adds a batch of imported books, journalling each one and waiting for durability once per batch.
+     * The stripes of the whole batch are held while it is added, so that the library can store it in one go.
+     */
+    private void addBatch(List<Book> books) {
+        LibraryJournal journal = this.journal;
+        if (journal == null) {
+            library.addBooks(books);
+            return;
+        }
+        long now = library.getClock().millis();
+        String[] ids = new String[books.size()];
+        List<JournalRecord> records = new ArrayList<>(books.size());
+        for (int i = 0; i < ids.length; i++) {
+            Book book = books.get(i);
+            ids[i] = book.getId();
+            records.add(JournalRecord.addBook(bookFactory.typeOf(book), book.getId(), book.getTitle(),
+                    book.getAuthor(), book.getPublicationYear(), now));
+        }
+        long seq;
+        boolean[] stripes = stripesOf(ids);
+        lockStripes(stripes);
+        try {
+            library.addBooks(books);
+            seq = journal.appendAll(records);
+        } finally {
+            unlockStripes(stripes);
+        }
+        awaitDurable(journal, seq);
     }
 
     /**
@@ -61,11 +243,37 @@ public class LibraryManager {
      * @return true if the book was successfully removed, false otherwise.
      */
     public boolean removeBook(String bookId) {
-        Book book = library.findBookById(bookId);
-        if (book != null) {
-            return library.removeBook(book);
+        long start = System.nanoTime();
+        try {
+            BatchResult.Outcome outcome = removeBookJournalled(bookId);
+            metrics.record(Operation.REMOVE_BOOK, start, outcome);
+            return outcome == BatchResult.Outcome.SUCCESS;
+        } catch (RuntimeException e) {
+            metrics.recordException(Operation.REMOVE_BOOK, start);
+            throw e;
         }
-        return false;
+    }
+
+    private BatchResult.Outcome removeBookJournalled(String bookId) {
+        LibraryJournal journal = this.journal;
+        if (journal == null) {
+            Book book = library.findBookById(bookId);
+            return book != null && library.removeBook(book) ? BatchResult.Outcome.SUCCESS : BatchResult.Outcome.BOOK_NOT_FOUND;
+        }
+        long seq;
+        ReentrantLock lock = lockFor(bookId);
+        lock.lock();
+        try {
+            Book book = library.findBookById(bookId);
+            if (book == null || !library.removeBook(book)) {
+                return BatchResult.Outcome.BOOK_NOT_FOUND;
+            }
+            seq = journal.append(JournalRecord.removeBook(bookId, library.getClock().millis()));
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(journal, seq);
+        return BatchResult.Outcome.SUCCESS;
     }
 
     /**
@@ -75,8 +283,65 @@ public class LibraryManager {
      * @param name The name of the member.
      */
     public void addMember(String id, String name) {
+        long start = System.nanoTime();
+        try {
+            addMemberJournalled(id, name, true);
+            metrics.record(Operation.ADD_MEMBER, start, BatchResult.Outcome.SUCCESS);
+        } catch (RuntimeException e) {
+            metrics.recordException(Operation.ADD_MEMBER, start);
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a member to the library unless a member with the same ID already exists.
+     * Unlike {@link #addMember}, it never replaces a member, who might have books on loan.
+     *
+     * @param id   The ID of the member.
+     * @param name The name of the member.
+     * @return The added member, or null if a member with the ID already exists.
+     */
+    public Member addMemberIfAbsent(String id, String name) {
+        long start = System.nanoTime();
+        try {
+            Member member = addMemberJournalled(id, name, false);
+            metrics.record(Operation.ADD_MEMBER, start, member != null ? BatchResult.Outcome.SUCCESS : BatchResult.Outcome.DUPLICATE_ID);
+            return member;
+        } catch (RuntimeException e) {
+            metrics.recordException(Operation.ADD_MEMBER, start);
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a member, first checking under the member's stripe that its ID is free unless it may replace a member.
+     *
+     * @return The added member, or null if the ID was taken and replacing was not allowed.
+     */
+    private Member addMemberJournalled(String id, String name, boolean replace) {
         Member member = new Member(id, name);
-        library.addMember(member);
+        LibraryJournal journal = this.journal;
+        if (journal == null && replace) {
+            library.addMember(member);
+            return member;
+        }
+        long seq;
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            if (!replace && library.findMemberById(id) != null) {
+                return null;
+            }
+            library.addMember(member);
+            if (journal == null) {
+                return member;
+            }
+            seq = journal.append(JournalRecord.addMember(id, name, library.getClock().millis()));
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(journal, seq);
+        return member;
     }
 
     /**
@@ -86,11 +351,37 @@ public class LibraryManager {
      * @return true if the member was successfully removed, false otherwise.
      */
     public boolean removeMember(String memberId) {
-        Member member = library.findMemberById(memberId);
-        if (member != null) {
-            return library.removeMember(member);
+        long start = System.nanoTime();
+        try {
+            BatchResult.Outcome outcome = removeMemberJournalled(memberId);
+            metrics.record(Operation.REMOVE_MEMBER, start, outcome);
+            return outcome == BatchResult.Outcome.SUCCESS;
+        } catch (RuntimeException e) {
+            metrics.recordException(Operation.REMOVE_MEMBER, start);
+            throw e;
         }
-        return false;
+    }
+
+    private BatchResult.Outcome removeMemberJournalled(String memberId) {
+        LibraryJournal journal = this.journal;
+        if (journal == null) {
+            Member member = library.findMemberById(memberId);
+            return member != null && library.removeMember(member) ? BatchResult.Outcome.SUCCESS : BatchResult.Outcome.MEMBER_NOT_FOUND;
+        }
+        long seq;
+        ReentrantLock lock = lockFor(memberId);
+        lock.lock();
+        try {
+            Member member = library.findMemberById(memberId);
+            if (member == null || !library.removeMember(member)) {
+                return BatchResult.Outcome.MEMBER_NOT_FOUND;
+            }
+            seq = journal.append(JournalRecord.removeMember(memberId, library.getClock().millis()));
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(journal, seq);
+        return BatchResult.Outcome.SUCCESS;
     }
 
     /**
@@ -101,13 +392,69 @@ public class LibraryManager {
      * @return true if the book was successfully borrowed, false otherwise.
      */
     public boolean borrowBook(String bookId, String memberId) {
+        return tryBorrowBook(bookId, memberId) == BatchResult.Outcome.SUCCESS;
+    }
+
+    /**
+     * Borrows a book for a member and tells why it could not be borrowed.
+     *
+     * @param bookId   The ID of the book to borrow.
+     * @param memberId The ID of the member borrowing the book.
+     * @return SUCCESS, BOOK_NOT_FOUND, MEMBER_NOT_FOUND or UNAVAILABLE.
+     */
+    public BatchResult.Outcome tryBorrowBook(String bookId, String memberId) {
+        long start = System.nanoTime();
+        BorrowEvent event = new BorrowEvent();
+        event.begin();
+        try {
+            BatchResult.Outcome outcome = borrowBookJournalled(bookId, memberId);
+            metrics.record(Operation.BORROW_BOOK, start, outcome);
+            event.complete(bookId, memberId, outcome.name());
+            return outcome;
+        } catch (RuntimeException e) {
+            metrics.recordException(Operation.BORROW_BOOK, start);
+            event.complete(bookId, memberId, "EXCEPTION");
+            throw e;
+        }
+    }
+
+    private BatchResult.Outcome borrowBookJournalled(String bookId, String memberId) {
+        LibraryJournal journal = this.journal;
+        if (journal == null) {
+            return borrow(bookId, memberId, library.getClock().millis());
+        }
+        long seq;
+        int first = stripeOf(bookId);
+        int second = stripeOf(memberId);
+        lockStripes(first, second);
+        try {
+            long now = library.getClock().millis();
+            BatchResult.Outcome outcome = borrow(bookId, memberId, now);
+            if (outcome != BatchResult.Outcome.SUCCESS) {
+                return outcome;
+            }
+            seq = journal.append(JournalRecord.borrowBook(bookId, memberId, now));
+        } finally {
+            unlockStripes(first, second);
+        }
+        awaitDurable(journal, seq);
+        return BatchResult.Outcome.SUCCESS;
+    }
+
+    /**
+     * Borrows a book at the given time.
+     */
+    private BatchResult.Outcome borrow(String bookId, String memberId, long borrowTime) {
         Book book = library.findBookById(bookId);
+        if (book == null) {
+            return BatchResult.Outcome.BOOK_NOT_FOUND;
+        }
         Member member = library.findMemberById(memberId);
-        if (book != null && member != null) {
-            Loan loan = library.borrowBook(book, member);
-            return loan != null;
+        if (member == null) {
+            return BatchResult.Outcome.MEMBER_NOT_FOUND;
         }
-        return false;
+        Loan loan = library.borrowBook(book, member, borrowTime);
+        return loan != null ? BatchResult.Outcome.SUCCESS : BatchResult.Outcome.UNAVAILABLE;
     }
 
     /**
@@ -117,27 +464,444 @@ public class LibraryManager {
      * @return true if the book was successfully returned, false otherwise.
      */
     public boolean returnBook(String bookId) {
+        return tryReturnBook(bookId) == BatchResult.Outcome.SUCCESS;
+    }
+
+    /**
+     * Returns a borrowed book and tells why it could not be returned.
+     *
+     * @param bookId The ID of the book to return.
+     * @return SUCCESS, BOOK_NOT_FOUND or NOT_BORROWED.
+     */
+    public BatchResult.Outcome tryReturnBook(String bookId) {
+        long start = System.nanoTime();
+        ReturnEvent event = new ReturnEvent();
+        event.begin();
+        try {
+            BatchResult.Outcome outcome = returnBookJournalled(bookId);
+            metrics.record(Operation.RETURN_BOOK, start, outcome);
+            event.complete(bookId, outcome.name());
+            return outcome;
+        } catch (RuntimeException e) {
+            metrics.recordException(Operation.RETURN_BOOK, start);
+            event.complete(bookId, "EXCEPTION");
+            throw e;
+        }
+    }
+
+    private BatchResult.Outcome returnBookJournalled(String bookId) {
+        LibraryJournal journal = this.journal;
+        if (journal == null) {
+            return giveBack(bookId, library.getClock().millis());
+        }
+        long seq;
+        ReentrantLock lock = lockFor(bookId);
+        lock.lock();
+        try {
+            long now = library.getClock().millis();
+            BatchResult.Outcome outcome = giveBack(bookId, now);
+            if (outcome != BatchResult.Outcome.SUCCESS) {
+                return outcome;
+            }
+            seq = journal.append(JournalRecord.returnBook(bookId, now));
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(journal, seq);
+        return BatchResult.Outcome.SUCCESS;
+    }
+
+    /**
+     * Returns a book at the given time.
+     */
+    private BatchResult.Outcome giveBack(String bookId, long returnTime) {
         Book book = library.findBookById(bookId);
-        if (book != null && book.getStatus() == BookStatus.BORROWED) {
-            Loan loan = library.getActiveLoans().stream()
-                    .filter(l -> l.getBook().getId().equals(bookId))
-                    .findFirst()
-                    .orElse(null);
-            if (loan != null) {
-                library.returnBook(loan);
-                return true;
+        if (book == null) {
+            return BatchResult.Outcome.BOOK_NOT_FOUND;
+        }
+        if (book.getStatus() == BookStatus.BORROWED) {
+            Loan loan = library.findActiveLoanForBook(bookId);
+            if (loan != null && library.returnBook(loan, returnTime)) {
+                return BatchResult.Outcome.SUCCESS;
+            }
+        }
+        return BatchResult.Outcome.NOT_BORROWED;
+    }
+
+    /**
+     * Borrows several books for one member, for example a tray at a self-checkout station.
+     * The IDs are resolved in one pass and the loans are made together; with a journal attached,
+     * the batch takes the stripes it needs once and waits for durability once.
+     *
+     * @param memberId The ID of the member borrowing the books.
+     * @param bookIds  The IDs of the books to borrow.
+     * @return The outcome for each book, in the order of the IDs.
+     */
+    public BatchResult borrowBooks(String memberId, Collection<String> bookIds) {
+        long start = System.nanoTime();
+        try {
+            BatchResult result = borrowBooksJournalled(memberId, bookIds);
+            metrics.record(Operation.BORROW_BOOKS, start, result);
+            return result;
+        } catch (RuntimeException e) {
+            metrics.recordException(Operation.BORROW_BOOKS, start);
+            throw e;
+        }
+    }
+
+    private BatchResult borrowBooksJournalled(String memberId, Collection<String> bookIds) {
+        String[] ids = bookIds.toArray(new String[0]);
+        BatchResult result = new BatchResult(ids.length);
+        LibraryJournal journal = this.journal;
+        if (journal == null) {
+            borrowAll(memberId, ids, library.getClock().millis(), result);
+            return result;
+        }
+        long seq;
+        boolean[] stripes = stripesOf(ids);
+        stripes[stripeOf(memberId)] = true;
+        lockStripes(stripes);
+        try {
+            long now = library.getClock().millis();
+            Loan[] loans = borrowAll(memberId, ids, now, result);
+            List<JournalRecord> records = new ArrayList<>(result.getSuccessCount());
+            for (int i = 0; i < loans.length; i++) {
+                if (loans[i] != null) {
+                    records.add(JournalRecord.borrowBook(ids[i], memberId, now));
+                }
+            }
+            seq = journal.appendAll(records);
+        } finally {
+            unlockStripes(stripes);
+        }
+        awaitDurable(journal, seq);
+        return result;
+    }
+
+    private Loan[] borrowAll(String memberId, String[] bookIds, long borrowTime, BatchResult result) {
+        Member member = library.findMemberById(memberId);
+        if (member == null) {
+            for (int i = 0; i < bookIds.length; i++) {
+                result.set(i, BatchResult.Outcome.MEMBER_NOT_FOUND);
+            }
+            return new Loan[bookIds.length];
+        }
+        Book[] books = new Book[bookIds.length];
+        for (int i = 0; i < bookIds.length; i++) {
+            books[i] = library.findBookById(bookIds[i]);
+            if (books[i] == null) {
+                result.set(i, BatchResult.Outcome.BOOK_NOT_FOUND);
+            }
+        }
+        Loan[] loans = library.borrowBooks(member, books, borrowTime);
+        for (int i = 0; i < loans.length; i++) {
+            if (books[i] != null && loans[i] == null) {
+                result.set(i, BatchResult.Outcome.UNAVAILABLE);
             }
         }
+        return loans;
+    }
+
+    /**
+     * Returns several borrowed books, for example the contents of a drop box.
+     * With a journal attached, the batch takes the stripes it needs once and waits for durability once.
+     *
+     * @param bookIds The IDs of the books to return.
+     * @return The outcome for each book, in the order of the IDs.
+     */
+    public BatchResult returnBooks(Collection<String> bookIds) {
+        long start = System.nanoTime();
+        try {
+            BatchResult result = returnBooksJournalled(bookIds);
+            metrics.record(Operation.RETURN_BOOKS, start, result);
+            return result;
+        } catch (RuntimeException e) {
+            metrics.recordException(Operation.RETURN_BOOKS, start);
+            throw e;
+        }
+    }
+
+    private BatchResult returnBooksJournalled(Collection<String> bookIds) {
+        String[] ids = bookIds.toArray(new String[0]);
+        BatchResult result = new BatchResult(ids.length);
+        LibraryJournal journal = this.journal;
+        if (journal == null) {
+            returnAll(ids, library.getClock().millis(), result);
+            return result;
+        }
+        long seq;
+        boolean[] stripes = stripesOf(ids);
+        lockStripes(stripes);
+        try {
+            long now = library.getClock().millis();
+            returnAll(ids, now, result);
+            List<JournalRecord> records = new ArrayList<>(result.getSuccessCount());
+            for (int i = 0; i < ids.length; i++) {
+                if (result.isSuccess(i)) {
+                    records.add(JournalRecord.returnBook(ids[i], now));
+                }
+            }
+            seq = journal.appendAll(records);
+        } finally {
+            unlockStripes(stripes);
+        }
+        awaitDurable(journal, seq);
+        return result;
+    }
+
+    private void returnAll(String[] bookIds, long returnTime, BatchResult result) {
+        Loan[] loans = new Loan[bookIds.length];
+        for (int i = 0; i < bookIds.length; i++) {
+            Book book = library.findBookById(bookIds[i]);
+            if (book == null) {
+                result.set(i, BatchResult.Outcome.BOOK_NOT_FOUND);
+            } else if (book.getStatus() == BookStatus.BORROWED) {
+                loans[i] = library.findActiveLoanForBook(bookIds[i]);
+            }
+        }
+        boolean[] returned = library.returnBooks(loans, returnTime);
+        for (int i = 0; i < returned.length; i++) {
+            if (!returned[i] && result.isSuccess(i)) {
+                result.set(i, BatchResult.Outcome.NOT_BORROWED);
+            }
+        }
+    }
+
+    /**
+     * Reserves a book for a member.
+     *
+     * @param bookId   The ID of the book to reserve.
+     * @param memberId The ID of the member reserving the book.
+     * @return The member's zero-based position in the book's queue, or -1 if the book or member does not exist.
+     */
+    public int reserveBook(String bookId, String memberId) {
+        Book book = library.findBookById(bookId);
+        Member member = library.findMemberById(memberId);
+        if (book != null && member != null) {
+            return library.reserveBook(book, member);
+        }
+        return -1;
+    }
+
+    /**
+     * Cancels a member's reservation of a book.
+     *
+     * @param bookId   The ID of the reserved book.
+     * @param memberId The ID of the member cancelling the reservation.
+     * @return true if the reservation was cancelled, false otherwise.
+     */
+    public boolean cancelReservation(String bookId, String memberId) {
+        Book book = library.findBookById(bookId);
+        Member member = library.findMemberById(memberId);
+        if (book != null && member != null) {
+            return library.cancelReservation(book, member);
+        }
         return false;
     }
 
+    /**
+     * Gets a member's position in a book's reservation queue.
+     *
+     * @param bookId   The ID of the reserved book.
+     * @param memberId The ID of the member.
+     * @return The zero-based position, or -1 if the member is not waiting for the book.
+     */
+    public int getReservationPosition(String bookId, String memberId) {
+        Book book = library.findBookById(bookId);
+        Member member = library.findMemberById(memberId);
+        if (book != null && member != null) {
+            return library.getReservationPosition(book, member);
+        }
+        return -1;
+    }
+
+    /**
+     * Searches the titles and authors of the catalog.
+     *
+     * @param query The query; words must all match, OR separates alternatives and quoted text is a phrase.
+     * @param limit The maximum number of results.
+     * @return The best matching books, best first.
+     */
+    public List<Book> searchBooks(String query, int limit) {
+        long start = System.nanoTime();
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        try {
+            List<Book> books = library.searchBooks(query, limit);
+            metrics.record(Operation.SEARCH_BOOKS, start, BatchResult.Outcome.SUCCESS);
+            event.complete(query, limit, books.size());
+            return books;
+        } catch (RuntimeException e) {
+            metrics.recordException(Operation.SEARCH_BOOKS, start);
+            event.complete(query, limit, -1);
+            throw e;
+        }
+    }
+
+    /**
+     * Completes book IDs, titles, authors, member IDs or member names from the text typed so far.
+     *
+     * @param prefix The text typed so far.
+     * @param limit  The maximum number of completions.
+     * @param kinds  The kinds of text to complete.
+     * @return The completions in alphabetical order.
+     */
+    public List<Completion> complete(String prefix, int limit, Set<Completion.Kind> kinds) {
+        return library.complete(prefix, limit, kinds);
+    }
+
+    /**
+     * Gets a page of the books published within a range of years, ordered by year.
+     *
+     * @param fromYear The first year, inclusive.
+     * @param toYear   The last year, inclusive.
+     * @param cursor   The cursor of the previous page, or null for the first page.
+     * @param limit    The maximum number of books on the page.
+     * @return The page of books.
+     */
+    public BookPage getBooksByYear(int fromYear, int toYear, String cursor, int limit) {
+        return library.getBooksByYear(fromYear, toYear, cursor, limit);
+    }
+
+    /**
+     * Gets a page of the catalog ordered by title.
+     *
+     * @param cursor The cursor of the previous page, or null for the first page.
+     * @param limit  The maximum number of books on the page.
+     * @return The page of books.
+     */
+    public BookPage getBooksByTitle(String cursor, int limit) {
+        return library.getBooksByTitle(cursor, limit);
+    }
+
+    /**
+     * Gets a page of the catalog ordered by title, starting a number of books after a cursor.
+     *
+     * @param cursor The cursor to start from, or null for the start of the catalog.
+     * @param offset The number of books to skip after the cursor.
+     * @param limit  The maximum number of books on the page.
+     * @return The page of books.
+     */
+    public BookPage getBooksByTitle(String cursor, int offset, int limit) {
+        return library.getBooksByTitle(cursor, offset, limit);
+    }
+
+    /**
+     * Gets the number of books in the catalog.
+     *
+     * @return The number of books.
+     */
+    public int getBookCount() {
+        return library.getBookCount();
+    }
+
+    /**
+     * Gets a page of the active loans, earliest due date first.
+     *
+     * @param cursor The cursor of the previous page, or null for the first page.
+     * @param limit  The maximum number of loans on the page.
+     * @return The page of loans.
+     */
+    public LoanPage getActiveLoans(String cursor, int limit) {
+        return library.getActiveLoans(cursor, limit);
+    }
+
+    /**
+     * Gets a page of the active loans, earliest due date first, starting a number of loans after a cursor.
+     *
+     * @param cursor The cursor to start from, or null for the first loan.
+     * @param offset The number of loans to skip after the cursor.
+     * @param limit  The maximum number of loans on the page.
+     * @return The page of loans.
+     */
+    public LoanPage getActiveLoans(String cursor, int offset, int limit) {
+        return library.getActiveLoans(cursor, offset, limit);
+    }
+
+    /**
+     * Gets the number of active loans.
+     *
+     * @return The number of books on loan.
+     */
+    public int getActiveLoanCount() {
+        return library.getActiveLoanCount();
+    }
+
+    /**
+     * Finds a book by its ID.
+     *
+     * @param bookId The ID of the book.
+     * @return The book, or null if there is no book with that ID.
+     */
+    public Book findBook(String bookId) {
+        return library.findBookById(bookId);
+    }
+
     /**
      * Gets a summary of the library's current state.
      *
      * @return A LibrarySummary object containing current statistics.
      */
     public LibrarySummary getLibrarySummary() {
-        return library.getLibrarySummary();
+        long start = System.nanoTime();
+        try {
+            LibrarySummary summary = library.getLibrarySummary();
+            metrics.record(Operation.GET_LIBRARY_SUMMARY, start, BatchResult.Outcome.SUCCESS);
+            return summary;
+        } catch (RuntimeException e) {
+            metrics.recordException(Operation.GET_LIBRARY_SUMMARY, start);
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the service-level metrics: the counters and latencies of each operation, the time spent
+     * waiting for the journal and the lag of availability notifications.
+     *
+     * @return A snapshot of the metrics.
+     */
+    public MetricsSnapshot getMetrics() {
+        return metrics.snapshot();
+    }
+
+    /**
+     * Estimates the heap taken by the catalog, before and after string pooling and columnar storage.
+     *
+     * @return The memory report.
+     */
+    public MemoryReport getMemoryReport() {
+        return library.getMemoryReport();
+    }
+
+    /**
+     * Streams the returned loans of a member.
+     *
+     * @param memberId The ID of the member.
+     * @return The member's returned loans.
+     */
+    public Stream<LoanRecord> getLoanHistoryByMember(String memberId) {
+        return library.getLoanHistoryByMember(memberId);
+    }
+
+    /**
+     * Streams the returned loans of a book.
+     *
+     * @param bookId The ID of the book.
+     * @return The book's returned loans.
+     */
+    public Stream<LoanRecord> getLoanHistoryByBook(String bookId) {
+        return library.getLoanHistoryByBook(bookId);
+    }
+
+    /**
+     * Streams the returned loans during which the book was out at some point of a time range.
+     *
+     * @param from The start of the range (inclusive).
+     * @param to   The end of the range (inclusive).
+     * @return The matching returned loans.
+     */
+    public Stream<LoanRecord> getLoanHistory(Date from, Date to) {
+        return library.getLoanHistory(from, to);
     }
 
     /**
@@ -147,6 +911,29 @@ public class LibraryManager {
      * @return The ID of the new book if successful, null otherwise.
      */
     public String duplicateBook(String bookId) {
+        LibraryJournal journal = this.journal;
+        if (journal == null) {
+            return duplicate(bookId);
+        }
+        long seq;
+        String newId;
+        int first = stripeOf(bookId);
+        int second = stripeOf(bookId + "_copy");
+        lockStripes(first, second);
+        try {
+            newId = duplicate(bookId);
+            if (newId == null) {
+                return null;
+            }
+            seq = journal.append(JournalRecord.duplicateBook(bookId, library.getClock().millis()));
+        } finally {
+            unlockStripes(first, second);
+        }
+        awaitDurable(journal, seq);
+        return newId;
+    }
+
+    private String duplicate(String bookId) {
         Book originalBook = library.findBookById(bookId);
         if (originalBook != null) {
             try {
@@ -161,4 +948,151 @@ public class LibraryManager {
         }
         return null;
     }
+
+    /**
+     * Attaches the journal that records every later mutation made through this manager.
+     * Records already in the journal should be replayed with {@link #replay(JournalRecord)} first.
+     *
+     * @param journal The journal to append to, or null to stop journalling.
+     */
+    public void attachJournal(LibraryJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Restores the library from a snapshot file. Must be called before anything is added
+     * and before the journal is replayed.
+     *
+     * @param snapshotPath The snapshot path, whose pointer file names the snapshot to open.
+     * @return The opened snapshot, whose generation the journal must continue from.
+     * @throws IOException If the snapshot cannot be read.
+     */
+    public LibrarySnapshot restoreSnapshot(Path snapshotPath) throws IOException {
+        LibrarySnapshot snapshot = LibrarySnapshot.open(snapshotPath, bookFactory);
+        library.restoreSnapshot(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Writes a snapshot of the library and truncates the journal, whose records it now contains.
+     * Journalled mutations wait while the snapshot is written.
+     *
+     * @param snapshotPath The snapshot path, whose pointer file is replaced.
+     * @throws IOException If the snapshot cannot be written or the journal cannot be truncated.
+     * @throws IllegalStateException If no journal is attached.
+     */
+    public void checkpoint(Path snapshotPath) throws IOException {
+        LibraryJournal journal = this.journal;
+        if (journal == null) {
+            throw new IllegalStateException("No journal attached");
+        }
+        for (ReentrantLock lock : journalLocks) {
+            lock.lock();
+        }
+        try {
+            journal.flush();
+            long generation = journal.getGeneration() + 1;
+            LibrarySnapshot.write(snapshotPath, generation, library, bookFactory);
+            journal.reset(generation);
+        } finally {
+            for (ReentrantLock lock : journalLocks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Applies a journalled mutation without journalling it again.
+     * Loans are borrowed and returned at the times recorded in the journal.
+     *
+     * @param record The record to apply.
+     * @return true if the mutation took effect, false if it no longer applies to the library's state.
+     */
+    public boolean replay(JournalRecord record) {
+        switch (record.getOperation()) {
+            case ADD_BOOK:
+                library.addBook(bookFactory.createBook(record.getBookType(), record.getBookId(),
+                        record.getTitle(), record.getAuthor(), record.getPublicationYear()));
+                return true;
+            case REMOVE_BOOK:
+                Book book = library.findBookById(record.getBookId());
+                return book != null && library.removeBook(book);
+            case ADD_MEMBER:
+                library.addMember(new Member(record.getMemberId(), record.getMemberName()));
+                return true;
+            case REMOVE_MEMBER:
+                Member member = library.findMemberById(record.getMemberId());
+                return member != null && library.removeMember(member);
+            case BORROW_BOOK:
+                return borrow(record.getBookId(), record.getMemberId(), record.getTimestamp()) == BatchResult.Outcome.SUCCESS;
+            case RETURN_BOOK:
+                return giveBack(record.getBookId(), record.getTimestamp()) == BatchResult.Outcome.SUCCESS;
+            case DUPLICATE_BOOK:
+                return duplicate(record.getBookId()) != null;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Waits for a journal record to become durable and records how long that took.
+     */
+    private void awaitDurable(LibraryJournal journal, long seq) {
+        long start = System.nanoTime();
+        journal.awaitDurable(seq);
+        metrics.recordJournalWait(start);
+    }
+
+    private ReentrantLock lockFor(String id) {
+        return journalLocks[stripeOf(id)];
+    }
+
+    private static int stripeOf(String id) {
+        int h = id.hashCode();
+        return (h ^ (h >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    /**
+     * Locks two stripes in index order, so that callers locking overlapping pairs cannot deadlock.
+     */
+    private void lockStripes(int first, int second) {
+        journalLocks[Math.min(first, second)].lock();
+        if (first != second) {
+            journalLocks[Math.max(first, second)].lock();
+        }
+    }
+
+    private void unlockStripes(int first, int second) {
+        journalLocks[first].unlock();
+        if (first != second) {
+            journalLocks[second].unlock();
+        }
+    }
+
+    private static boolean[] stripesOf(String[] ids) {
+        boolean[] stripes = new boolean[LOCK_STRIPES];
+        for (String id : ids) {
+            stripes[stripeOf(id)] = true;
+        }
+        return stripes;
+    }
+
+    /**
+     * Locks the marked stripes in index order, each once, however many IDs of a batch share it.
+     */
+    private void lockStripes(boolean[] stripes) {
+        for (int i = 0; i < stripes.length; i++) {
+            if (stripes[i]) {
+                journalLocks[i].lock();
+            }
+        }
+    }
+
+    private void unlockStripes(boolean[] stripes) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            if (stripes[i]) {
+                journalLocks[i].unlock();
+            }
+        }
+    }
 }
@@ -0,0 +1,203 @@
+package library.service;
+
+import library.model.BatchResult;
+import library.model.LatencySnapshot;
+import library.model.MetricsSnapshot;
+import library.model.OperationStats;
+import library.util.BookAvailabilityDispatcher;
+import library.util.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the operations of a {@link LibraryManager}.
+ * <p>
+ * Each operation has a call counter, a latency histogram and a failure counter per reason. The
+ * reasons are the failed {@link BatchResult.Outcome}s, plus {@code EXCEPTION} for calls that threw.
+ * Everything is recorded into {@link LongAdder}s, so recording is lock-free and does not allocate.
+ * The metrics are read through {@link #snapshot()} or through JMX.
+ */
+public final class LibraryMetrics implements LibraryMetricsMXBean {
+    /**
+     * The instrumented operations of the library manager.
+     */
+    public enum Operation {
+        ADD_BOOK("addBook"),
+        REMOVE_BOOK("removeBook"),
+        ADD_MEMBER("addMember"),
+        REMOVE_MEMBER("removeMember"),
+        BORROW_BOOK("borrowBook"),
+        RETURN_BOOK("returnBook"),
+        BORROW_BOOKS("borrowBooks"),
+        RETURN_BOOKS("returnBooks"),
+        SEARCH_BOOKS("searchBooks"),
+        GET_LIBRARY_SUMMARY("getLibrarySummary");
+
+        private final String methodName;
+
+        Operation(String methodName) {
+            this.methodName = methodName;
+        }
+
+        /**
+         * Gets the name of the library manager method measured by this operation.
+         *
+         * @return The method name, such as {@code borrowBook}.
+         */
+        public String getMethodName() {
+            return methodName;
+        }
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final BatchResult.Outcome[] OUTCOMES = BatchResult.Outcome.values();
+    private static final int EXCEPTION = OUTCOMES.length;
+    private static final LatencySnapshot NO_LATENCIES = new LatencySnapshot(0, 0, 0, 0, 0, 0);
+
+    private final Library library;
+    private final LongAdder[] calls = new LongAdder[OPERATIONS.length];
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private final LongAdder[][] failures = new LongAdder[OPERATIONS.length][OUTCOMES.length + 1];
+    private final LatencyHistogram journalWait = new LatencyHistogram();
+
+    /**
+     * Constructs the metrics of the manager of a library.
+     *
+     * @param library The library, whose availability dispatcher reports the dispatch lag.
+     */
+    LibraryMetrics(Library library) {
+        this.library = library;
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            calls[op] = new LongAdder();
+            latencies[op] = new LatencyHistogram();
+            for (int reason = 0; reason < failures[op].length; reason++) {
+                failures[op][reason] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * Records a call that completed.
+     *
+     * @param operation  The operation.
+     * @param startNanos The reading of {@link System#nanoTime()} taken when the call started.
+     * @param outcome    The outcome of the call.
+     */
+    void record(Operation operation, long startNanos, BatchResult.Outcome outcome) {
+        int op = operation.ordinal();
+        latencies[op].recordSince(startNanos);
+        calls[op].increment();
+        if (outcome != BatchResult.Outcome.SUCCESS) {
+            failures[op][outcome.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Records a batch call that completed, counting each failed item under its reason.
+     *
+     * @param operation  The operation.
+     * @param startNanos The reading of {@link System#nanoTime()} taken when the call started.
+     * @param result     The outcome of each item.
+     */
+    void record(Operation operation, long startNanos, BatchResult result) {
+        int op = operation.ordinal();
+        latencies[op].recordSince(startNanos);
+        calls[op].increment();
+        if (result.getSuccessCount() < result.size()) {
+            for (int i = 0; i < result.size(); i++) {
+                BatchResult.Outcome outcome = result.getOutcome(i);
+                if (outcome != BatchResult.Outcome.SUCCESS) {
+                    failures[op][outcome.ordinal()].increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Records a call that threw an exception.
+     *
+     * @param operation  The operation.
+     * @param startNanos The reading of {@link System#nanoTime()} taken when the call started.
+     */
+    void recordException(Operation operation, long startNanos) {
+        int op = operation.ordinal();
+        latencies[op].recordSince(startNanos);
+        calls[op].increment();
+        failures[op][EXCEPTION].increment();
+    }
+
+    /**
+     * Records how long a caller waited for its journal record to become durable.
+     *
+     * @param startNanos The reading of {@link System#nanoTime()} taken when the wait started.
+     */
+    void recordJournalWait(long startNanos) {
+        journalWait.recordSince(startNanos);
+    }
+
+    /**
+     * Takes a snapshot of all the metrics.
+     *
+     * @return The snapshot.
+     */
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(getOperations(), getJournalWait(), getDispatchLag(), getPendingNotifications());
+    }
+
+    @Override
+    public List<OperationStats> getOperations() {
+        List<OperationStats> operations = new ArrayList<>(OPERATIONS.length);
+        for (Operation operation : OPERATIONS) {
+            int op = operation.ordinal();
+            Map<String, Long> byReason = new LinkedHashMap<>();
+            long failed = 0;
+            for (int reason = 0; reason < failures[op].length; reason++) {
+                long count = failures[op][reason].sum();
+                if (count > 0) {
+                    byReason.put(reason == EXCEPTION ? "EXCEPTION" : OUTCOMES[reason].name(), count);
+                    failed += count;
+                }
+            }
+            operations.add(new OperationStats(operation.getMethodName(), calls[op].sum(), failed, byReason,
+                    latencies[op].snapshot()));
+        }
+        return operations;
+    }
+
+    @Override
+    public LatencySnapshot getJournalWait() {
+        return journalWait.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getDispatchLag() {
+        BookAvailabilityDispatcher dispatcher = library.getAvailabilityDispatcher();
+        return dispatcher != null ? dispatcher.getDeliveryLag().snapshot() : NO_LATENCIES;
+    }
+
+    @Override
+    public int getPendingNotifications() {
+        BookAvailabilityDispatcher dispatcher = library.getAvailabilityDispatcher();
+        return dispatcher != null ? dispatcher.getPendingCount() : 0;
+    }
+
+    /**
+     * Registers these metrics with an MBean server as {@code library:type=LibraryMetrics}.
+     *
+     * @param server The MBean server, usually the platform one.
+     * @return The name the metrics were registered under.
+     * @throws JMException If the name is taken or the registration fails.
+     */
+    public ObjectName register(MBeanServer server) throws JMException {
+        ObjectName name = new ObjectName("library:type=LibraryMetrics");
+        server.registerMBean(this, name);
+        return name;
+    }
+}
@@ -0,0 +1,40 @@
+package library.service;
+
+import library.model.LatencySnapshot;
+import library.model.OperationStats;
+
+import java.util.List;
+
+/**
+ * Management interface of a library's service-level metrics, registered with JMX as
+ * {@code library:type=LibraryMetrics} by the shared {@link LibraryManager}.
+ */
+public interface LibraryMetricsMXBean {
+    /**
+     * Gets the counters and latencies of each operation of the library manager.
+     *
+     * @return The statistics of each operation.
+     */
+    List<OperationStats> getOperations();
+
+    /**
+     * Gets the time callers waited for their journal records to become durable.
+     *
+     * @return The journal wait latencies.
+     */
+    LatencySnapshot getJournalWait();
+
+    /**
+     * Gets the time from queueing an availability notification to delivering it.
+     *
+     * @return The dispatch lag latencies.
+     */
+    LatencySnapshot getDispatchLag();
+
+    /**
+     * Gets the number of availability notifications waiting to be delivered.
+     *
+     * @return The number of pending notifications.
+     */
+    int getPendingNotifications();
+}
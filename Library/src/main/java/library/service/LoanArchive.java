@@ -0,0 +1,382 @@
+package library.service;
+
+import library.model.LoanRecord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * History of returned loans, kept out of the way of the active ones.
+ * <p>
+ * Returned loans are collected as {@link LoanRecord}s in a small open buffer. When it fills up
+ * it is sealed into a segment: the records are sorted by return date and encoded as bytes,
+ * with the book and member IDs replaced by positions in a dictionary of the segment's distinct
+ * IDs and every date stored as a variable-length difference from a nearby date. A segment
+ * takes a few bytes per loan, and no objects. Each segment keeps its date range and a Bloom
+ * filter of its IDs, so a query only decodes the segments that can hold a match.
+ * <p>
+ * Optionally, segments beyond a heap budget are spilled, oldest first, to a scratch file that
+ * is deleted when the archive is closed, and read back when a query needs them.
+ * <p>
+ * The archive is safe for concurrent use. Queries work on the segments sealed when they start.
+ */
+final class LoanArchive implements AutoCloseable {
+    private static final int SEGMENT_SIZE = 4096;
+    private static final int FILTER_BITS_PER_ID = 10;
+
+    private final List<Segment> segments = new ArrayList<>();
+    private LoanRecord[] open = new LoanRecord[SEGMENT_SIZE];
+    private int openCount;
+    private long count;
+    private long heapBytes;
+    private long maxHeapBytes = Long.MAX_VALUE;
+    private FileChannel spill;
+    private long spillPosition;
+
+    /**
+     * Adds a returned loan.
+     *
+     * @param record The loan's record.
+     */
+    synchronized void add(LoanRecord record) {
+        open[openCount++] = record;
+        count++;
+        if (openCount == SEGMENT_SIZE) {
+            seal();
+        }
+    }
+
+    /**
+     * Gets the number of loans in the archive.
+     *
+     * @return The number of loans.
+     */
+    synchronized long size() {
+        return count;
+    }
+
+    /**
+     * Starts spilling segments to a scratch file in a directory once they take more than a given amount of heap.
+     *
+     * @param directory    The directory for the scratch file.
+     * @param maxHeapBytes The most bytes of sealed segments to keep on the heap.
+     * @throws IOException If the scratch file cannot be created.
+     */
+    synchronized void spillTo(Path directory, long maxHeapBytes) throws IOException {
+        if (spill == null) {
+            Path file = Files.createTempFile(directory, "loans-", ".archive");
+            spill = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        this.maxHeapBytes = maxHeapBytes;
+        spillOldest();
+    }
+
+    /**
+     * Gets the number of sealed segments whose bytes are in the scratch file.
+     *
+     * @return The number of spilled segments.
+     */
+    synchronized int getSpilledSegmentCount() {
+        int spilled = 0;
+        for (Segment segment : segments) {
+            if (segment.data == null) {
+                spilled++;
+            }
+        }
+        return spilled;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    /**
+     * Streams the archived loans that match a query, oldest return first. Segments are decoded one at a time.
+     *
+     * @param bookId   The ID of the book, or null for any book.
+     * @param memberId The ID of the member, or null for any member.
+     * @param from     The start of the time range the loans must overlap, in epoch milliseconds.
+     * @param to       The end of that time range, in epoch milliseconds.
+     * @return The matching loans.
+     */
+    Stream<LoanRecord> stream(String bookId, String memberId, long from, long to) {
+        List<Segment> sealed;
+        LoanRecord[] recent;
+        synchronized (this) {
+            sealed = new ArrayList<>(segments);
+            recent = Arrays.copyOf(open, openCount);
+        }
+        Arrays.sort(recent, Comparator.comparingLong(LoanRecord::getReturnDate));
+        Stream<LoanRecord> fromSegments = sealed.stream()
+                .filter(segment -> segment.mayContain(bookId, memberId, from, to))
+                .flatMap(segment -> decode(segment).stream());
+        return Stream.concat(fromSegments, Arrays.stream(recent))
+                .filter(record -> (bookId == null || bookId.equals(record.getBookId()))
+                        && (memberId == null || memberId.equals(record.getMemberId()))
+                        && record.overlaps(from, to));
+    }
+
+    /**
+     * Visits every archived loan, oldest return first.
+     *
+     * @param action The action to perform on each loan.
+     */
+    void forEach(Consumer<? super LoanRecord> action) {
+        stream(null, null, Long.MIN_VALUE, Long.MAX_VALUE).forEach(action);
+    }
+
+    /**
+     * Encodes the open buffer as a segment and empties it.
+     */
+    private void seal() {
+        LoanRecord[] records = Arrays.copyOf(open, openCount);
+        Arrays.sort(records, Comparator.comparingLong(LoanRecord::getReturnDate));
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        long minBorrow = Long.MAX_VALUE;
+        for (LoanRecord record : records) {
+            dictionary.putIfAbsent(record.getBookId(), dictionary.size());
+            dictionary.putIfAbsent(record.getMemberId(), dictionary.size());
+            minBorrow = Math.min(minBorrow, record.getBorrowDate());
+        }
+        ByteSink out = new ByteSink(records.length * 12 + dictionary.size() * 8);
+        out.varint(dictionary.size());
+        for (String id : dictionary.keySet()) {
+            byte[] utf8 = id.getBytes(StandardCharsets.UTF_8);
+            out.varint(utf8.length);
+            out.bytes(utf8);
+        }
+        long previousReturn = records[0].getReturnDate();
+        for (LoanRecord record : records) {
+            out.varint(dictionary.get(record.getBookId()));
+            out.varint(dictionary.get(record.getMemberId()));
+            out.varint(record.getReturnDate() - previousReturn);
+            out.signedVarint(record.getReturnDate() - record.getBorrowDate());
+            out.signedVarint(record.getDueDate() - record.getBorrowDate());
+            previousReturn = record.getReturnDate();
+        }
+        long[] filter = new long[Math.max(1, (dictionary.size() * FILTER_BITS_PER_ID + 63) >>> 6)];
+        for (String id : dictionary.keySet()) {
+            setFilterBits(filter, id);
+        }
+        Segment segment = new Segment(records.length, records[0].getReturnDate(),
+                records[records.length - 1].getReturnDate(), minBorrow, filter, out.toByteArray());
+        segments.add(segment);
+        heapBytes += segment.length;
+        Arrays.fill(open, null);
+        openCount = 0;
+        spillOldest();
+    }
+
+    /**
+     * Writes the oldest segments still on the heap to the scratch file until the heap budget is met.
+     */
+    private void spillOldest() {
+        if (spill == null) {
+            return;
+        }
+        for (int i = 0; i < segments.size() && heapBytes > maxHeapBytes; i++) {
+            Segment segment = segments.get(i);
+            byte[] data = segment.data;
+            if (data == null) {
+                continue;
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                long position = spillPosition;
+                while (buffer.hasRemaining()) {
+                    position += spill.write(buffer, position);
+                }
+                segment.fileOffset = spillPosition;
+                segment.data = null;
+                spillPosition = position;
+                heapBytes -= data.length;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot spill loan history", e);
+            }
+        }
+    }
+
+    /**
+     * Decodes a segment, reading it back from the scratch file if it was spilled.
+     */
+    private List<LoanRecord> decode(Segment segment) {
+        byte[] data = segment.data;
+        if (data == null) {
+            data = new byte[segment.length];
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            try {
+                while (buffer.hasRemaining()) {
+                    if (spill.read(buffer, segment.fileOffset + buffer.position()) < 0) {
+                        throw new IOException("Loan history file is truncated");
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read loan history", e);
+            }
+        }
+        ByteSource in = new ByteSource(data);
+        String[] dictionary = new String[(int) in.varint()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = in.string((int) in.varint());
+        }
+        List<LoanRecord> records = new ArrayList<>(segment.count);
+        long returnDate = segment.minReturn;
+        for (int i = 0; i < segment.count; i++) {
+            String bookId = dictionary[(int) in.varint()];
+            String memberId = dictionary[(int) in.varint()];
+            returnDate += in.varint();
+            long borrowDate = returnDate - in.signedVarint();
+            long dueDate = borrowDate + in.signedVarint();
+            records.add(new LoanRecord(bookId, memberId, borrowDate, dueDate, returnDate));
+        }
+        return records;
+    }
+
+    private static void setFilterBits(long[] filter, String id) {
+        int hash = id.hashCode();
+        for (int probe = 0; probe < 3; probe++) {
+            int bit = filterBit(filter, hash, probe);
+            filter[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private static boolean filterContains(long[] filter, String id) {
+        int hash = id.hashCode();
+        for (int probe = 0; probe < 3; probe++) {
+            int bit = filterBit(filter, hash, probe);
+            if ((filter[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int filterBit(long[] filter, int hash, int probe) {
+        int mixed = (hash + probe * 0x9E3779B9) * 0x85EBCA6B;
+        mixed ^= mixed >>> 15;
+        return (int) ((mixed & 0xFFFFFFFFL) % ((long) filter.length << 6));
+    }
+
+    /**
+     * A sealed run of loans: its summary stays on the heap, its encoded bytes on the heap or in the scratch file.
+     */
+    private static final class Segment {
+        private final int count;
+        private final long minReturn;
+        private final long maxReturn;
+        private final long minBorrow;
+        private final long[] filter;
+        private final int length;
+        private volatile byte[] data;
+        private volatile long fileOffset;
+
+        Segment(int count, long minReturn, long maxReturn, long minBorrow, long[] filter, byte[] data) {
+            this.count = count;
+            this.minReturn = minReturn;
+            this.maxReturn = maxReturn;
+            this.minBorrow = minBorrow;
+            this.filter = filter;
+            this.length = data.length;
+            this.data = data;
+        }
+
+        boolean mayContain(String bookId, String memberId, long from, long to) {
+            return maxReturn >= from && minBorrow <= to
+                    && (bookId == null || filterContains(filter, bookId))
+                    && (memberId == null || filterContains(filter, memberId));
+        }
+    }
+
+    /**
+     * Growable byte buffer with variable-length integer encoding.
+     */
+    private static final class ByteSink {
+        private byte[] bytes;
+        private int length;
+
+        ByteSink(int capacity) {
+            this.bytes = new byte[Math.max(16, capacity)];
+        }
+
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) (value | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        void signedVarint(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        void bytes(byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, length, value.length);
+            length += value.length;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+
+    /**
+     * Reads what a {@link ByteSink} wrote.
+     */
+    private static final class ByteSource {
+        private final byte[] bytes;
+        private int position;
+
+        ByteSource(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        long signedVarint() {
+            long value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String string(int length) {
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package library.service;
+
+import library.model.Member;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * First-come, first-served queue of members waiting for one book.
+ * Each reservation takes the next ticket slot; a Fenwick tree over the slots counts the
+ * reservations still waiting, so a member's position and a cancellation cost O(log n)
+ * and taking the head costs amortized O(1). Callers synchronize on the queue.
+ */
+class ReservationQueue {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private Member[] slots = new Member[INITIAL_CAPACITY];
+    private int[] tree = new int[INITIAL_CAPACITY + 1];
+    private final Map<Member, Integer> tickets = new HashMap<>();
+    private int head;
+    private int tail;
+
+    /**
+     * Adds a member to the end of the queue unless it is already waiting.
+     *
+     * @param member The member reserving the book.
+     * @return The member's zero-based position in the queue.
+     */
+    int enqueue(Member member) {
+        Integer ticket = tickets.get(member);
+        if (ticket != null) {
+            return positionOf(ticket);
+        }
+        if (tail == slots.length) {
+            resize();
+        }
+        slots[tail] = member;
+        tickets.put(member, tail);
+        add(tail, 1);
+        tail++;
+        return tickets.size() - 1;
+    }
+
+    /**
+     * Removes and returns the member at the head of the queue.
+     *
+     * @return The member that has waited longest, or null if the queue is empty.
+     */
+    Member poll() {
+        while (head < tail) {
+            Member member = slots[head];
+            slots[head] = null;
+            if (member != null) {
+                add(head, -1);
+                tickets.remove(member);
+                head++;
+                return member;
+            }
+            head++;
+        }
+        return null;
+    }
+
+    /**
+     * Cancels a member's reservation.
+     *
+     * @param member The member whose reservation to cancel.
+     * @return true if the member was waiting, false otherwise.
+     */
+    boolean cancel(Member member) {
+        Integer ticket = tickets.remove(member);
+        if (ticket == null) {
+            return false;
+        }
+        slots[ticket] = null;
+        add(ticket, -1);
+        return true;
+    }
+
+    /**
+     * Gets a member's position in the queue.
+     *
+     * @param member The member to look up.
+     * @return The zero-based position, or -1 if the member is not waiting.
+     */
+    int positionOf(Member member) {
+        Integer ticket = tickets.get(member);
+        return ticket == null ? -1 : positionOf(ticket);
+    }
+
+    /**
+     * Gets the number of members waiting.
+     *
+     * @return The queue length.
+     */
+    int size() {
+        return tickets.size();
+    }
+
+    boolean isEmpty() {
+        return tickets.isEmpty();
+    }
+
+    private int positionOf(int ticket) {
+        return prefixSum(ticket) - 1;
+    }
+
+    /**
+     * Makes room at the tail, compacting away served and cancelled slots
+     * and doubling the capacity if the queue is more than half full.
+     */
+    private void resize() {
+        int live = tickets.size();
+        int capacity = live * 2 > slots.length ? slots.length * 2 : slots.length;
+        Member[] compacted = new Member[capacity];
+        int next = 0;
+        for (int i = head; i < tail; i++) {
+            if (slots[i] != null) {
+                compacted[next] = slots[i];
+                tickets.put(slots[i], next);
+                next++;
+            }
+        }
+        slots = compacted;
+        head = 0;
+        tail = next;
+        tree = new int[capacity + 1];
+        for (int i = 1; i <= tail; i++) {
+            tree[i] = 1;
+        }
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    private void add(int index, int delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private int prefixSum(int index) {
+        int sum = 0;
+        for (int i = index + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
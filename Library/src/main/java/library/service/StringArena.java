@@ -0,0 +1,261 @@
+package library.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Append-only store of strings packed as UTF-8 into large byte chunks.
+ * <p>
+ * A string is referred to by an int: the chunk it is in and its offset there. Each string is
+ * stored as its length in a variable number of bytes followed by its bytes, and never spans two
+ * chunks, so millions of strings cost their text plus one or two bytes each, in a handful of
+ * arrays the garbage collector never has to trace. The newest chunk starts small and doubles
+ * until it reaches its full size, so a small arena stays small. Strings that repeat, such as author names,
+ * can be interned so that each distinct one is stored once.
+ * <p>
+ * The arena is not safe for concurrent use; its owner guards it.
+ */
+final class StringArena {
+    private static final int CHUNK_SHIFT = 20;
+    private static final int CHUNK_BYTES = 1 << CHUNK_SHIFT;
+    private static final int MAX_CHUNKS = 1 << (31 - CHUNK_SHIFT);
+    private static final int MAX_STRING_BYTES = CHUNK_BYTES - 3;
+    private static final int FIRST_CHUNK_BYTES = 4096;
+
+    /**
+     * The reference standing for null.
+     */
+    static final int NULL = -1;
+
+    private byte[][] chunks = new byte[4][];
+    private int chunkCount;
+    private int position;
+    private long allocated;
+    private int[] internRefs = new int[0];
+    private int[] internHashes = new int[0];
+    private int internCount;
+
+    /**
+     * Appends a string.
+     *
+     * @param value The string, or null.
+     * @return The reference to the string, or {@link #NULL} for null.
+     * @throws IllegalArgumentException If the string is longer than a chunk.
+     */
+    int add(String value) {
+        return value == null ? NULL : add(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int add(byte[] utf8) {
+        if (utf8.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("String of " + utf8.length + " bytes is too long for the arena");
+        }
+        int needed = 3 + utf8.length;
+        if (chunkCount == 0 || position + needed > CHUNK_BYTES) {
+            if (chunkCount == MAX_CHUNKS) {
+                throw new IllegalStateException("String arena is full");
+            }
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            }
+            chunks[chunkCount++] = new byte[FIRST_CHUNK_BYTES];
+            allocated += FIRST_CHUNK_BYTES;
+            position = 0;
+        }
+        byte[] last = chunks[chunkCount - 1];
+        if (position + needed > last.length) {
+            int length = Math.min(CHUNK_BYTES, Math.max(last.length * 2, position + needed));
+            chunks[chunkCount - 1] = Arrays.copyOf(last, length);
+            allocated += length - last.length;
+        }
+        int ref = ((chunkCount - 1) << CHUNK_SHIFT) | position;
+        byte[] chunk = chunks[chunkCount - 1];
+        int length = utf8.length;
+        while (length >= 0x80) {
+            chunk[position++] = (byte) (length | 0x80);
+            length >>>= 7;
+        }
+        chunk[position++] = (byte) length;
+        System.arraycopy(utf8, 0, chunk, position, utf8.length);
+        position += utf8.length;
+        return ref;
+    }
+
+    /**
+     * Appends a string unless an equal one was interned before.
+     *
+     * @param value The string, or null.
+     * @return The reference to the string, shared by every equal interned string, or {@link #NULL} for null.
+     */
+    int intern(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        int hash = value.hashCode();
+        if (internCount * 2 >= internRefs.length) {
+            growInternTable();
+        }
+        int mask = internRefs.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int ref = internRefs[slot];
+            if (ref == 0) {
+                int added = add(utf8);
+                internRefs[slot] = added + 1;
+                internHashes[slot] = hash;
+                internCount++;
+                return added;
+            }
+            if (internHashes[slot] == hash && matches(ref - 1, utf8)) {
+                return ref - 1;
+            }
+        }
+    }
+
+    private void growInternTable() {
+        int[] oldRefs = internRefs;
+        int[] oldHashes = internHashes;
+        internRefs = new int[Math.max(64, oldRefs.length * 2)];
+        internHashes = new int[internRefs.length];
+        int mask = internRefs.length - 1;
+        for (int i = 0; i < oldRefs.length; i++) {
+            if (oldRefs[i] != 0) {
+                int slot = mix(oldHashes[i]) & mask;
+                while (internRefs[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                internRefs[slot] = oldRefs[i];
+                internHashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of a string hash for use as an open-addressing slot.
+     *
+     * @param hash The hash.
+     * @return The mixed hash.
+     */
+    static int mix(int hash) {
+        int mixed = hash * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    /**
+     * Decodes a string.
+     *
+     * @param ref The reference returned when the string was added.
+     * @return The string, or null for {@link #NULL}.
+     */
+    String get(int ref) {
+        if (ref == NULL) {
+            return null;
+        }
+        byte[] chunk = chunks[ref >>> CHUNK_SHIFT];
+        long span = span(chunk, ref);
+        return new String(chunk, (int) span, (int) (span >>> 32), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the number of UTF-8 bytes of a stored string.
+     *
+     * @param ref The reference to the string.
+     * @return The number of bytes, or 0 for {@link #NULL}.
+     */
+    int length(int ref) {
+        return ref == NULL ? 0 : (int) (span(chunks[ref >>> CHUNK_SHIFT], ref) >>> 32);
+    }
+
+    /**
+     * Appends a string stored in another arena, copying its bytes without decoding them.
+     *
+     * @param from The arena holding the string.
+     * @param ref  The reference to the string in that arena.
+     * @return The reference to the copy, or {@link #NULL} for {@link #NULL}.
+     */
+    int copy(StringArena from, int ref) {
+        if (ref == NULL) {
+            return NULL;
+        }
+        byte[] chunk = from.chunks[ref >>> CHUNK_SHIFT];
+        long span = span(chunk, ref);
+        int offset = (int) span;
+        return add(Arrays.copyOfRange(chunk, offset, offset + (int) (span >>> 32)));
+    }
+
+    /**
+     * Hashes a stored string's bytes like {@link #hash(byte[])}.
+     *
+     * @param ref The reference to the string.
+     * @return The hash.
+     */
+    int hash(int ref) {
+        byte[] chunk = chunks[ref >>> CHUNK_SHIFT];
+        long span = span(chunk, ref);
+        int offset = (int) span;
+        return hash(chunk, offset, offset + (int) (span >>> 32));
+    }
+
+    /**
+     * Hashes UTF-8 bytes.
+     *
+     * @param utf8 The bytes.
+     * @return The hash.
+     */
+    static int hash(byte[] utf8) {
+        return hash(utf8, 0, utf8.length);
+    }
+
+    private static int hash(byte[] bytes, int from, int to) {
+        int hash = 1;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash;
+    }
+
+    /**
+     * Reads the length prefix of a stored string.
+     *
+     * @return The offset of the string's bytes in the low half and their count in the high half.
+     */
+    private static long span(byte[] chunk, int ref) {
+        int offset = ref & (CHUNK_BYTES - 1);
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = chunk[offset++];
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        return (long) length << 32 | offset;
+    }
+
+    /**
+     * Checks whether a stored string equals some UTF-8 bytes, without decoding it.
+     *
+     * @param ref  The reference to the stored string.
+     * @param utf8 The bytes to compare with.
+     * @return true if the string is made of exactly those bytes, false otherwise.
+     */
+    boolean matches(int ref, byte[] utf8) {
+        if (ref == NULL) {
+            return false;
+        }
+        byte[] chunk = chunks[ref >>> CHUNK_SHIFT];
+        long span = span(chunk, ref);
+        int offset = (int) span;
+        int length = (int) (span >>> 32);
+        return length == utf8.length && Arrays.equals(chunk, offset, offset + length, utf8, 0, length);
+    }
+
+    /**
+     * Gets the number of bytes the arena has allocated.
+     *
+     * @return The size of its chunks and intern table in bytes.
+     */
+    long allocatedBytes() {
+        return allocated + (long) internRefs.length * 2 * Integer.BYTES;
+    }
+}
@@ -0,0 +1,177 @@
+package library.util;
+
+import library.model.Book;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers book availability notifications to observers asynchronously.
+ * Events are queued by the thread that made a book available and delivered in batches
+ * on the configured executor, so that thread never waits for the observers.
+ * Repeated events for a book that is still waiting to be delivered are coalesced into one,
+ * and a book that is no longer available by the time its event is delivered is skipped.
+ * The time from queueing an event to delivering it is recorded in {@link #getDeliveryLag()}.
+ */
+public class BookAvailabilityDispatcher implements AutoCloseable {
+    /** The default maximum number of books delivered by one drain task. */
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final int batchSize;
+    private final Queue<Book> pending = new ConcurrentLinkedQueue<>();
+    private final Map<Book, Long> queuedAt = new ConcurrentHashMap<>();
+    private final LatencyHistogram deliveryLag = new LatencyHistogram();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * Constructs a dispatcher that delivers on the given executor.
+     * The executor is not shut down when the dispatcher is closed.
+     *
+     * @param executor  The executor running the delivery tasks.
+     * @param batchSize The maximum number of books delivered by one task.
+     */
+    public BookAvailabilityDispatcher(Executor executor, int batchSize) {
+        this(executor, null, batchSize);
+    }
+
+    private BookAvailabilityDispatcher(Executor executor, ExecutorService ownedExecutor, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.executor = executor;
+        this.ownedExecutor = ownedExecutor;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Creates a dispatcher that delivers each batch on a new virtual thread.
+     *
+     * @return A dispatcher owning its executor.
+     */
+    public static BookAvailabilityDispatcher withVirtualThreads() {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        return new BookAvailabilityDispatcher(executor, executor, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a dispatcher that delivers on a fixed pool of daemon threads.
+     *
+     * @param threads The number of pool threads.
+     * @return A dispatcher owning its executor.
+     */
+    public static BookAvailabilityDispatcher withBoundedPool(int threads) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "book-availability-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new BookAvailabilityDispatcher(executor, executor, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Queues an availability event for a book.
+     * Does nothing if an event for the same book is already waiting.
+     *
+     * @param book The book that has become available.
+     */
+    public void dispatch(Book book) {
+        if (queuedAt.putIfAbsent(book, System.nanoTime()) == null) {
+            pending.add(book);
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Runs a one-off notification, such as telling a single member that a reserved book
+     * is being held for them, on the dispatcher's executor.
+     *
+     * @param notice The notification to deliver.
+     */
+    public void dispatchNotice(Runnable notice) {
+        executor.execute(() -> {
+            try {
+                notice.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Gets the number of books whose events are waiting to be delivered.
+     *
+     * @return The number of pending events.
+     */
+    public int getPendingCount() {
+        return queuedAt.size();
+    }
+
+    /**
+     * Gets the histogram of the time from queueing an event to delivering it, or to skipping it
+     * because the book was no longer available.
+     *
+     * @return The delivery lag histogram.
+     */
+    public LatencyHistogram getDeliveryLag() {
+        return deliveryLag;
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Delivers up to one batch of events and reschedules itself if more are waiting.
+     */
+    private void drain() {
+        try {
+            for (int i = 0; i < batchSize; i++) {
+                Book book = pending.poll();
+                if (book == null) {
+                    break;
+                }
+                Long since = queuedAt.remove(book);
+                if (since != null) {
+                    deliveryLag.recordSince(since);
+                }
+                if (book.getStatus() == BookStatus.AVAILABLE) {
+                    deliver(book);
+                }
+            }
+        } finally {
+            draining.set(false);
+            if (!pending.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    private void deliver(Book book) {
+        try {
+            book.notifyObservers();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Shuts down the executor if it was created by this dispatcher.
+     * Events that are still queued may not be delivered.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package library.util;
+
+import library.model.Book;
+
+/**
+ * Receives notifications about changes to a book's state.
+ * This interface is implemented by the catalog that owns a book so that
+ * it can keep its statistics in sync without rescanning every book.
+ */
+public interface BookChangeListener {
+    /**
+     * Called after a book's status has changed.
+     *
+     * @param book      The book whose status has changed.
+     * @param oldStatus The previous status of the book.
+     * @param newStatus The new status of the book.
+     */
+    void statusChanged(Book book, BookStatus oldStatus, BookStatus newStatus);
+
+    /**
+     * Offers the listener the delivery of availability notifications for a book that has just
+     * become available. A listener that returns true takes over notifying the book's observers.
+     *
+     * @param book The book that has become available.
+     * @return true if the listener delivers the notifications, false to let the book notify synchronously.
+     */
+    default boolean dispatchAvailability(Book book) {
+        return false;
+    }
+
+    /**
+     * Called after a book's title, author or publication year has changed.
+     *
+     * @param book The book whose details have changed.
+     */
+    default void metadataChanged(Book book) {
+    }
+}
@@ -0,0 +1,51 @@
+package library.util;
+
+/**
+ * A clock that reads the system time once per tick on a daemon thread and serves the cached
+ * value, so that reading it is a single volatile load. The time it reports lags the system time
+ * by up to one tick, which is plenty for loan dates measured in days.
+ */
+public class CoarseClock implements LibraryClock, AutoCloseable {
+    private final Thread ticker;
+    private volatile long now;
+
+    /**
+     * Constructs a new CoarseClock and starts its ticker.
+     *
+     * @param tickMillis The interval between readings of the system time, in milliseconds.
+     * @throws IllegalArgumentException If the interval is not positive.
+     */
+    public CoarseClock(long tickMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tickMillis);
+        }
+        this.now = System.currentTimeMillis();
+        this.ticker = new Thread(() -> tick(tickMillis), "library-coarse-clock");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    private void tick(long tickMillis) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.sleep(tickMillis);
+                now = System.currentTimeMillis();
+            }
+        } catch (InterruptedException e) {
+            // Closed; the clock keeps its last reading
+        }
+    }
+
+    @Override
+    public long millis() {
+        return now;
+    }
+
+    /**
+     * Stops the ticker. The clock keeps reporting the time of its last tick.
+     */
+    @Override
+    public void close() {
+        ticker.interrupt();
+    }
+}
@@ -0,0 +1,98 @@
+package library.util;
+
+/**
+ * Packs structured IDs such as {@code B001}, {@code M42} or {@code B001_copy_copy} into a long.
+ * <p>
+ * An ID can be packed if it is up to three capital letters, followed by one to twelve digits,
+ * followed by up to seven {@code _copy} suffixes as added by duplicating a book. The code keeps
+ * the letters, the number, the number of digits (so leading zeros survive) and the number of
+ * copies, and {@link #decode(long)} renders exactly the original ID again. Codes are never negative.
+ */
+public final class CompactId {
+    /**
+     * The code returned for IDs that cannot be packed.
+     */
+    public static final long NONE = -1;
+
+    private static final String COPY_SUFFIX = "_copy";
+    private static final int MAX_LETTERS = 3;
+    private static final int MAX_DIGITS = 12;
+    private static final int MAX_COPIES = 7;
+    private static final int NUMBER_BITS = 40;
+    private static final int COPIES_SHIFT = NUMBER_BITS;
+    private static final int DIGITS_SHIFT = COPIES_SHIFT + 3;
+    private static final int LETTERS_SHIFT = DIGITS_SHIFT + 4;
+
+    private CompactId() {
+    }
+
+    /**
+     * Packs an ID.
+     *
+     * @param id The ID.
+     * @return The code, or {@link #NONE} if the ID does not have a packable form.
+     */
+    public static long encode(String id) {
+        int length = id.length();
+        int i = 0;
+        long letters = 0;
+        while (i < length && i < MAX_LETTERS && id.charAt(i) >= 'A' && id.charAt(i) <= 'Z') {
+            letters = letters << 5 | (id.charAt(i) - 'A' + 1);
+            i++;
+        }
+        int digitsStart = i;
+        long number = 0;
+        while (i < length && i - digitsStart < MAX_DIGITS && id.charAt(i) >= '0' && id.charAt(i) <= '9') {
+            number = number * 10 + (id.charAt(i) - '0');
+            i++;
+        }
+        int digits = i - digitsStart;
+        if (digits == 0) {
+            return NONE;
+        }
+        int copies = 0;
+        while (i < length && copies < MAX_COPIES && id.startsWith(COPY_SUFFIX, i)) {
+            i += COPY_SUFFIX.length();
+            copies++;
+        }
+        if (i != length) {
+            return NONE;
+        }
+        return letters << LETTERS_SHIFT | (long) digits << DIGITS_SHIFT | (long) copies << COPIES_SHIFT | number;
+    }
+
+    /**
+     * Renders a packed ID.
+     *
+     * @param code A code returned by {@link #encode(String)}.
+     * @return The ID.
+     * @throws IllegalArgumentException If the value is not a valid code.
+     */
+    public static String decode(long code) {
+        if (code < 0) {
+            throw new IllegalArgumentException("Not a compact ID: " + code);
+        }
+        int letters = (int) (code >>> LETTERS_SHIFT);
+        int digits = (int) (code >>> DIGITS_SHIFT) & 0xF;
+        int copies = (int) (code >>> COPIES_SHIFT) & 0x7;
+        String number = Long.toString(code & ((1L << NUMBER_BITS) - 1));
+        if (letters >= 1 << (5 * MAX_LETTERS) || number.length() > digits) {
+            throw new IllegalArgumentException("Not a compact ID: " + code);
+        }
+        StringBuilder id = new StringBuilder(MAX_LETTERS + digits + copies * COPY_SUFFIX.length());
+        for (int shift = 10; shift >= 0; shift -= 5) {
+            int letter = (letters >>> shift) & 0x1F;
+            if (letter != 0) {
+                id.append((char) ('A' + letter - 1));
+            }
+        }
+        for (int pad = number.length(); pad < digits; pad++) {
+            id.append('0');
+        }
+        id.append(number);
+        for (int copy = 0; copy < copies; copy++) {
+            id.append(COPY_SUFFIX);
+        }
+        return id.toString();
+    }
+}
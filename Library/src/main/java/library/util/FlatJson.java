@@ -0,0 +1,160 @@
+package library.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses single-level JSON objects, such as the rows of a JSON-lines file.
+ * Values may be strings, numbers, booleans or null; numbers and booleans are returned as their text.
+ * Nested objects and arrays are rejected.
+ */
+public final class FlatJson {
+    private final String text;
+    private int position;
+
+    private FlatJson(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses a flat JSON object.
+     *
+     * @param text The JSON text of one object.
+     * @return The object's members, with null for JSON null values.
+     * @throws IllegalArgumentException If the text is not a flat JSON object.
+     */
+    public static Map<String, String> parse(String text) {
+        return new FlatJson(text).object();
+    }
+
+    private Map<String, String> object() {
+        Map<String, String> members = new HashMap<>();
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+        } else {
+            while (true) {
+                skipWhitespace();
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                members.put(key, value());
+                skipWhitespace();
+                char c = next();
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw error("Expected ',' or '}'");
+                }
+            }
+        }
+        skipWhitespace();
+        if (position < text.length()) {
+            throw error("Unexpected text after object");
+        }
+        return members;
+    }
+
+    private String value() {
+        char c = peek();
+        if (c == '"') {
+            return string();
+        }
+        if (c == '{' || c == '[') {
+            throw error("Nested values are not supported");
+        }
+        int start = position;
+        while (position < text.length()) {
+            c = text.charAt(position);
+            if (c == ',' || c == '}' || Character.isWhitespace(c)) {
+                break;
+            }
+            position++;
+        }
+        String literal = text.substring(start, position);
+        if (literal.isEmpty()) {
+            throw error("Expected a value");
+        }
+        return literal.equals("null") ? null : literal;
+    }
+
+    private String string() {
+        expect('"');
+        int start = position;
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c == '"') {
+                return text.substring(start, position++);
+            }
+            if (c == '\\') {
+                break;
+            }
+            position++;
+        }
+        // Slow path for strings with escapes
+        StringBuilder sb = new StringBuilder(text.substring(start, position));
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            c = next();
+            switch (c) {
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (position + 4 > text.length()) {
+                        throw error("Truncated unicode escape");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid unicode escape");
+                    }
+                    position += 4;
+                    break;
+                default: sb.append(c); break;
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private char peek() {
+        if (position >= text.length()) {
+            throw error("Unexpected end of input");
+        }
+        return text.charAt(position);
+    }
+
+    private char next() {
+        char c = peek();
+        position++;
+        return c;
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position);
+    }
+}
@@ -0,0 +1,17 @@
+package library.util;
+
+/**
+ * Receives progress reports from a bulk catalog import.
+ * Reports are made from the importing thread after each batch of books has been added.
+ */
+public interface ImportProgressListener {
+    /**
+     * Called after a batch of rows has been processed.
+     *
+     * @param bytesRead     The number of bytes of the file processed so far.
+     * @param totalBytes    The size of the file in bytes.
+     * @param booksImported The number of books added so far.
+     * @param rowsRejected  The number of rows rejected so far.
+     */
+    void progressed(long bytesRead, long totalBytes, long booksImported, long rowsRejected);
+}
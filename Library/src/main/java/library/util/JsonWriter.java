@@ -0,0 +1,195 @@
+package library.util;
+
+/**
+ * Writes JSON text into a buffer, one token at a time, without reflection.
+ * Commas are inserted automatically; the caller is responsible for balancing objects and arrays.
+ * The counterpart for reading is {@link FlatJson}.
+ */
+public final class JsonWriter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final StringBuilder out;
+    private boolean comma;
+
+    /**
+     * Constructs a new JsonWriter with an empty buffer.
+     */
+    public JsonWriter() {
+        this.out = new StringBuilder(256);
+    }
+
+    /**
+     * Starts an object.
+     *
+     * @return This writer.
+     */
+    public JsonWriter beginObject() {
+        separate();
+        out.append('{');
+        comma = false;
+        return this;
+    }
+
+    /**
+     * Ends the current object.
+     *
+     * @return This writer.
+     */
+    public JsonWriter endObject() {
+        out.append('}');
+        comma = true;
+        return this;
+    }
+
+    /**
+     * Starts an array.
+     *
+     * @return This writer.
+     */
+    public JsonWriter beginArray() {
+        separate();
+        out.append('[');
+        comma = false;
+        return this;
+    }
+
+    /**
+     * Ends the current array.
+     *
+     * @return This writer.
+     */
+    public JsonWriter endArray() {
+        out.append(']');
+        comma = true;
+        return this;
+    }
+
+    /**
+     * Writes the name of the next member of the current object.
+     *
+     * @param name The member name.
+     * @return This writer.
+     */
+    public JsonWriter name(String name) {
+        separate();
+        quote(name);
+        out.append(':');
+        comma = false;
+        return this;
+    }
+
+    /**
+     * Writes a string value, or null.
+     *
+     * @param value The value.
+     * @return This writer.
+     */
+    public JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            out.append("null");
+        } else {
+            quote(value);
+        }
+        comma = true;
+        return this;
+    }
+
+    /**
+     * Writes a number value.
+     *
+     * @param value The value.
+     * @return This writer.
+     */
+    public JsonWriter value(long value) {
+        separate();
+        out.append(value);
+        comma = true;
+        return this;
+    }
+
+    /**
+     * Writes a boolean value.
+     *
+     * @param value The value.
+     * @return This writer.
+     */
+    public JsonWriter value(boolean value) {
+        separate();
+        out.append(value);
+        comma = true;
+        return this;
+    }
+
+    /**
+     * Writes a member with a string value.
+     *
+     * @param name  The member name.
+     * @param value The value, or null.
+     * @return This writer.
+     */
+    public JsonWriter member(String name, String value) {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes a member with a number value.
+     *
+     * @param name  The member name.
+     * @param value The value.
+     * @return This writer.
+     */
+    public JsonWriter member(String name, long value) {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes a member with a boolean value.
+     *
+     * @param name  The member name.
+     * @param value The value.
+     * @return This writer.
+     */
+    public JsonWriter member(String name, boolean value) {
+        return name(name).value(value);
+    }
+
+    /**
+     * Gets the JSON text written so far.
+     *
+     * @return The JSON text.
+     */
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private void separate() {
+        if (comma) {
+            out.append(',');
+            comma = false;
+        }
+    }
+
+    private void quote(String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        out.append(c);
+                    }
+                    break;
+            }
+        }
+        out.append('"');
+    }
+}
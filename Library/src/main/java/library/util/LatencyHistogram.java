@@ -0,0 +1,131 @@
+package library.util;
+
+import library.model.LatencySnapshot;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in nanoseconds with log-linear buckets, in the manner of HdrHistogram.
+ * Each power of two is split into 16 equal buckets, so a reported value is within about 6% of the
+ * recorded one. Values from 0 to about 68 seconds are told apart; longer ones share the last bucket.
+ * <p>
+ * Every bucket is a {@link LongAdder}, so recording is lock-free, does not allocate once the adders
+ * have settled, and scales with the number of recording threads. Snapshots are not atomic: a value
+ * recorded while one is taken may be counted in some of its figures and not in others.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 36;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKET_COUNT = bucketOf(MAX_VALUE) + 1;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    /**
+     * Constructs a new, empty LatencyHistogram.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos The latency in nanoseconds; negative values count as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets[bucketOf(Math.min(value, MAX_VALUE))].increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Records the time elapsed since a reading of {@link System#nanoTime()}.
+     *
+     * @param startNanos The reading taken when the measured work started.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Gets the number of recorded latencies.
+     *
+     * @return The count.
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Summarises the recorded latencies.
+     *
+     * @return The count, mean, maximum and the 50th, 99th and 99.9th percentiles.
+     */
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[buckets.length];
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        long maxNanos = max.get();
+        return new LatencySnapshot(count, count == 0 ? 0 : total.sum() / count,
+                percentile(counts, count, 0.50, maxNanos), percentile(counts, count, 0.99, maxNanos),
+                percentile(counts, count, 0.999, maxNanos), maxNanos);
+    }
+
+    /**
+     * Finds the value at a percentile, reported as the highest value of its bucket but never above the maximum.
+     */
+    private static long percentile(long[] counts, long count, double fraction, long maxNanos) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    /**
+     * Gets the bucket of a value: values below 16 have a bucket each, and every power of two above
+     * is split into 16 buckets.
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Gets the highest value that falls into a bucket.
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
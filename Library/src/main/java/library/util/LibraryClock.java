@@ -0,0 +1,25 @@
+package library.util;
+
+/**
+ * Source of the current time for loans and the operations that record them.
+ * A library reads its clock instead of the system time, so that a cheaper coarse clock can be
+ * used on busy paths and tests and simulations can move time forward themselves.
+ */
+@FunctionalInterface
+public interface LibraryClock {
+    /**
+     * Gets the current time.
+     *
+     * @return The current time in epoch milliseconds.
+     */
+    long millis();
+
+    /**
+     * Gets the clock that reads the system time on every call.
+     *
+     * @return The system clock.
+     */
+    static LibraryClock system() {
+        return System::currentTimeMillis;
+    }
+}
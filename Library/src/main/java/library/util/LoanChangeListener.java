@@ -0,0 +1,18 @@
+package library.util;
+
+import library.model.Loan;
+
+/**
+ * Receives notifications about changes to a loan.
+ * This interface is implemented by indexes that order loans by their dates
+ * so that they can reposition a loan when it is renewed.
+ */
+public interface LoanChangeListener {
+    /**
+     * Called after a loan's due date has changed.
+     *
+     * @param loan       The loan whose due date has changed.
+     * @param oldDueTime The previous due date of the loan in epoch milliseconds.
+     */
+    void dueDateChanged(Loan loan, long oldDueTime);
+}
@@ -0,0 +1,44 @@
+package library.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A clock that only moves when it is told to, for tests and simulations that need loans to
+ * become due or overdue deterministically.
+ */
+public class ManualClock implements LibraryClock {
+    private final AtomicLong now;
+
+    /**
+     * Constructs a new ManualClock showing the given time.
+     *
+     * @param startMillis The initial time in epoch milliseconds.
+     */
+    public ManualClock(long startMillis) {
+        this.now = new AtomicLong(startMillis);
+    }
+
+    @Override
+    public long millis() {
+        return now.get();
+    }
+
+    /**
+     * Sets the time shown by the clock.
+     *
+     * @param millis The new time in epoch milliseconds.
+     */
+    public void set(long millis) {
+        now.set(millis);
+    }
+
+    /**
+     * Moves the clock forward.
+     *
+     * @param millis The number of milliseconds to advance by.
+     * @return The new time in epoch milliseconds.
+     */
+    public long advance(long millis) {
+        return now.addAndGet(millis);
+    }
+}
@@ -0,0 +1,94 @@
+package library.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Canonical instances of strings that repeat across the catalog, such as author names.
+ * Interning a string returns the first equal string the pool was given, so every book by
+ * the same author shares one String object instead of holding its own copy.
+ * <p>
+ * The pool is bounded: once it holds its maximum number of strings, strings it does not know
+ * are returned unchanged. It is meant for low-cardinality fields, where the bound is never
+ * reached, and is safe for concurrent use.
+ */
+public final class StringPool {
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final LongAdder sharedCount = new LongAdder();
+
+    /**
+     * Constructs a new, empty StringPool.
+     *
+     * @param maxSize The maximum number of distinct strings to keep.
+     */
+    public StringPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the canonical instance of a string, adding the string to the pool if it is new and the pool is not full.
+     *
+     * @param value The string, or null.
+     * @return The pooled string equal to the value, or the value itself.
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = strings.get(value);
+        if (canonical == null) {
+            if (strings.size() >= maxSize) {
+                return value;
+            }
+            canonical = strings.putIfAbsent(value, value);
+            if (canonical == null) {
+                return value;
+            }
+        }
+        if (canonical != value) {
+            sharedCount.increment();
+        }
+        return canonical;
+    }
+
+    /**
+     * Checks whether a string is the pool's canonical instance.
+     *
+     * @param value The string.
+     * @return true if the pool holds this very object, false otherwise.
+     */
+    public boolean isPooled(String value) {
+        return value != null && strings.get(value) == value;
+    }
+
+    /**
+     * Visits every pooled string.
+     *
+     * @param action The action to perform on each string.
+     */
+    public void forEach(Consumer<? super String> action) {
+        strings.keySet().forEach(action);
+    }
+
+    // Getters
+
+    /**
+     * Gets the number of distinct strings in the pool.
+     *
+     * @return The number of pooled strings.
+     */
+    public int size() {
+        return strings.size();
+    }
+
+    /**
+     * Gets how often an equal copy was replaced by the pooled string.
+     *
+     * @return The number of copies that were shared instead of kept.
+     */
+    public long getSharedCount() {
+        return sharedCount.sum();
+    }
+}
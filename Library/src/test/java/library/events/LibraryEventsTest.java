@@ -0,0 +1,123 @@
+package library.events;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.SettingDescriptor;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import library.persistence.LibraryJournal;
+import library.persistence.LibrarySnapshot;
+import library.persistence.SyncPolicy;
+import library.service.BookFactory;
+import library.service.Library;
+import library.service.LibraryManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LibraryEventsTest {
+    private static final String[] EVENTS = {"library.Borrow", "library.Return", "library.Search",
+            "library.Notification", "library.JournalWrite", "library.Snapshot"};
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("events");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    void testEventsAreEnabledByDefaultWithThresholds() {
+        FlightRecorder.register(BorrowEvent.class);
+        EventType borrow = EventType.getEventType(BorrowEvent.class);
+        assertEquals("library.Borrow", borrow.getName());
+        Map<String, String> defaults = borrow.getSettingDescriptors().stream()
+                .collect(Collectors.toMap(SettingDescriptor::getName, SettingDescriptor::getDefaultValue));
+        assertEquals("true", defaults.get("enabled"));
+        assertEquals("1 ms", defaults.get("threshold"));
+    }
+
+    @Test
+    void testLibraryOperationsAreRecorded() throws IOException {
+        Path recordingPath = directory.resolve("library.jfr");
+        try (Recording recording = new Recording()) {
+            for (String event : EVENTS) {
+                recording.enable(event).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+
+            BookFactory bookFactory = new BookFactory();
+            Library library = new Library();
+            LibraryManager manager = new LibraryManager(library, bookFactory);
+            try (LibraryJournal journal = LibraryJournal.open(directory.resolve("library.journal"), SyncPolicy.everyOperation(), record -> { })) {
+                manager.attachJournal(journal);
+                manager.addBook("fiction", "B1", "Dune", "Frank Herbert", 1965);
+                manager.addMember("M1", "Member");
+                library.findBookById("B1").addObserver(book -> { });
+                manager.borrowBook("B1", "M1");
+                manager.borrowBook("B2", "M1");
+                manager.returnBook("B1");
+                manager.searchBooks("dune", 10);
+                LibrarySnapshot.write(directory.resolve("library.snapshot"), 1, library, bookFactory);
+                LibrarySnapshot.open(directory.resolve("library.snapshot"), bookFactory);
+            }
+
+            recording.stop();
+            recording.dump(recordingPath);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingPath);
+        List<String> borrows = events.stream().filter(e -> e.getEventType().getName().equals("library.Borrow"))
+                .map(e -> e.getString("bookId") + "/" + e.getString("memberId") + "/" + e.getString("outcome"))
+                .collect(Collectors.toList());
+        assertEquals(List.of("B1/M1/SUCCESS", "B2/M1/BOOK_NOT_FOUND"), borrows);
+
+        RecordedEvent returned = only(events, "library.Return");
+        assertEquals("SUCCESS", returned.getString("outcome"));
+        RecordedEvent search = only(events, "library.Search");
+        assertEquals("dune", search.getString("query"));
+        assertEquals(1, search.getInt("results"));
+        assertEquals(1, only(events, "library.Notification").getInt("observers"));
+
+        List<RecordedEvent> writes = events.stream()
+                .filter(e -> e.getEventType().getName().equals("library.JournalWrite")).collect(Collectors.toList());
+        assertFalse(writes.isEmpty());
+        assertTrue(writes.stream().allMatch(e -> e.getBoolean("succeeded") && e.getLong("bytes") > 0));
+
+        List<RecordedEvent> snapshots = events.stream()
+                .filter(e -> e.getEventType().getName().equals("library.Snapshot")).collect(Collectors.toList());
+        assertEquals(2, snapshots.size());
+        assertTrue(snapshots.get(0).getBoolean("write"));
+        assertFalse(snapshots.get(1).getBoolean("write"));
+        assertEquals(1, snapshots.get(1).getInt("books"));
+        assertEquals(snapshots.get(0).getLong("bytes"), snapshots.get(1).getLong("bytes"));
+    }
+
+    private static RecordedEvent only(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream().filter(e -> e.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+        assertEquals(1, matching.size(), name);
+        return matching.get(0);
+    }
+}
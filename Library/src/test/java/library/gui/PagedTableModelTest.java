@@ -0,0 +1,135 @@
+package library.gui;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PagedTableModelTest {
+    private static final int ROWS = 1000;
+
+    private AtomicInteger fetches;
+    private AtomicInteger seeks;
+    private volatile int rows;
+    private PagedTableModel<Integer> model;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fetches = new AtomicInteger();
+        seeks = new AtomicInteger();
+        rows = ROWS;
+        // The cursor of a page is the number of the row before it
+        model = new PagedTableModel<>(new String[]{"Value", "Square"},
+                (value, column) -> column == 0 ? value : value * value,
+                (cursor, offset, limit) -> {
+                    fetches.incrementAndGet();
+                    if (offset >= PagedTableModel.PAGE_SIZE) {
+                        seeks.incrementAndGet();
+                    }
+                    int from = (cursor == null ? 0 : Integer.parseInt(cursor) + 1) + offset;
+                    List<Integer> page = new ArrayList<>();
+                    for (int i = from; i < Math.min(rows, from + limit); i++) {
+                        page.add(i);
+                    }
+                    return new PagedTableModel.Page<>(page, from + limit < rows ? String.valueOf(from + limit - 1) : null);
+                },
+                () -> rows);
+        onEdt(() -> {
+            model.refresh();
+            return null;
+        });
+        awaitValue(() -> model.getRowCount() == ROWS ? true : null);
+    }
+
+    @Test
+    void testLoadsPagesOnDemand() throws Exception {
+        assertEquals(0, fetches.get());
+        assertNull(onEdt(() -> model.getValueAt(5, 1)));
+        assertEquals(25, awaitValue(() -> model.getValueAt(5, 1)));
+        assertEquals(1, fetches.get());
+
+        assertEquals(PagedTableModel.PAGE_SIZE - 1, onEdt(() -> model.getValueAt(PagedTableModel.PAGE_SIZE - 1, 0)));
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void testJumpsAheadWithOneFetch() throws Exception {
+        int lastRow = ROWS - 1;
+        assertEquals(lastRow, awaitValue(() -> model.getValueAt(lastRow, 0)));
+        assertEquals(1, fetches.get());
+        assertEquals(1, seeks.get());
+
+        int middleRow = ROWS / 2;
+        assertEquals(middleRow, awaitValue(() -> model.getValueAt(middleRow, 0)));
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void testReportsFailedFetches() throws Exception {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        PagedTableModel<Integer> failing = new PagedTableModel<>(new String[]{"Value"}, (value, column) -> value,
+                (cursor, offset, limit) -> {
+                    throw new IllegalStateException("offline");
+                },
+                () -> ROWS);
+        onEdt(() -> {
+            failing.setFailureListener(failure::set);
+            failing.refresh();
+            return null;
+        });
+        awaitValue(() -> failing.getRowCount() == ROWS ? true : null);
+        assertNull(onEdt(() -> failing.getValueAt(0, 0)));
+        assertEquals("offline", awaitValue(() -> failure.get() != null ? failure.get().getMessage() : null));
+    }
+
+    @Test
+    void testRefreshDropsLoadedPages() throws Exception {
+        assertEquals(3, awaitValue(() -> model.getValueAt(3, 0)));
+        rows = 10;
+        onEdt(() -> {
+            model.refresh();
+            return null;
+        });
+        awaitValue(() -> model.getRowCount() == 10 ? true : null);
+        assertNull(onEdt(() -> model.getRow(3)));
+        assertEquals(9, awaitValue(() -> model.getValueAt(9, 0)));
+    }
+
+    private static <T> T onEdt(Callable<T> action) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                result.set(action.call());
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        });
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return result.get();
+    }
+
+    /**
+     * Asks for a value on the event dispatch thread until the background workers have provided it.
+     */
+    private static <T> T awaitValue(Callable<T> action) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            T value = onEdt(action);
+            if (value != null) {
+                return value;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("Timed out waiting for the model");
+    }
+}
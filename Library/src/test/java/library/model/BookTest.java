@@ -1,11 +1,14 @@
 package library.model;
 
+import library.util.BookChangeListener;
 import library.util.BookStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotSame;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class BookTest {
     private Book book;
@@ -40,4 +43,84 @@ public class BookTest {
         assertEquals(book.getPublicationYear(), clonedBook.getPublicationYear());
         assertEquals(book.getStatus(), clonedBook.getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCompareAndSetStatus() {
+        assertFalse(book.compareAndSetStatus(BookStatus.BORROWED, BookStatus.AVAILABLE));
+        assertEquals(BookStatus.AVAILABLE, book.getStatus());
+
+        assertTrue(book.compareAndSetStatus(BookStatus.AVAILABLE, BookStatus.BORROWED));
+        assertEquals(BookStatus.BORROWED, book.getStatus());
+        assertFalse(book.compareAndSetStatus(BookStatus.AVAILABLE, BookStatus.BORROWED));
+    }
+
+    @Test
+    void testOnlySuccessfulTransitionNotifies() {
+        List<Book> notified = new ArrayList<>();
+        book.addObserver(notified::add);
+        book.setStatus(BookStatus.BORROWED);
+
+        assertTrue(book.compareAndSetStatus(BookStatus.BORROWED, BookStatus.AVAILABLE));
+        assertFalse(book.compareAndSetStatus(BookStatus.BORROWED, BookStatus.AVAILABLE));
+        assertEquals(1, notified.size());
+    }
+
+    @Test
+    void testSecondListenerDoesNotTakeOverAttachedBook() {
+        List<BookStatus> first = new ArrayList<>();
+        List<BookStatus> second = new ArrayList<>();
+
+        book.attachChangeListener((b, oldStatus, newStatus) -> first.add(newStatus));
+        assertNull(book.attachChangeListener((b, oldStatus, newStatus) -> second.add(newStatus)));
+        book.setStatus(BookStatus.BORROWED);
+
+        assertEquals(List.of(BookStatus.BORROWED), first);
+        assertTrue(second.isEmpty());
+    }
+
+    @Test
+    void testChangeListenerSeesTransitionsWhileAttached() {
+        List<BookStatus> seen = new ArrayList<>();
+        BookChangeListener listener = (b, oldStatus, newStatus) -> seen.add(newStatus);
+
+        assertEquals(BookStatus.AVAILABLE, book.attachChangeListener(listener));
+        assertNull(book.attachChangeListener(listener));
+        book.compareAndSetStatus(BookStatus.AVAILABLE, BookStatus.BORROWED);
+        assertEquals(BookStatus.BORROWED, book.detachChangeListener());
+        assertNull(book.detachChangeListener());
+        book.setStatus(BookStatus.AVAILABLE);
+
+        assertEquals(List.of(BookStatus.BORROWED), seen);
+    }
+
+    @Test
+    void testCloneIsDetached() throws CloneNotSupportedException {
+        book.attachChangeListener((b, oldStatus, newStatus) -> fail("clone must not report to the original's listener"));
+        Book clonedBook = book.clone();
+        clonedBook.setStatus(BookStatus.BORROWED);
+        assertNull(clonedBook.detachChangeListener());
+    }
+
+    @Test
+    void testMetadataChangesAreReportedToAttachedListener() {
+        List<Book> changed = new ArrayList<>();
+        BookChangeListener listener = new BookChangeListener() {
+            @Override
+            public void statusChanged(Book book, BookStatus oldStatus, BookStatus newStatus) {
+            }
+
+            @Override
+            public void metadataChanged(Book book) {
+                changed.add(book);
+            }
+        };
+        book.setTitle("Before");
+        book.attachChangeListener(listener);
+        book.setTitle("New Title");
+        book.setAuthor("New Author");
+        book.setPublicationYear(2024);
+        book.detachChangeListener();
+        book.setTitle("After");
+        assertEquals(List.of(book, book, book), changed);
+    }
+}
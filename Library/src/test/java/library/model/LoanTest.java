@@ -30,7 +30,7 @@ public class LoanTest {
 
     @Test
     void testReturnBook() {
-        loan.returnBook();
+        loan.returnBook(System.currentTimeMillis());
         assertNotNull(loan.getReturnDate());
         assertEquals(new Date().getDate(), loan.getReturnDate().getDate());
     }
@@ -50,6 +50,21 @@ public class LoanTest {
         Date dateMinusFifteenDays = calendar.getTime();
 
         loan = new Loan(book, member, dateMinusFifteenDays, new Date()); // Assuming 14-day loan period
-        assertFalse(loan.isOverdue());
+        assertFalse(loan.isOverdue(loan.getDueTime()));
+    }
+
+    @Test
+    void testDatesAreEpochMilliseconds() {
+        loan = new Loan(book, member, 1_000L, 5_000L);
+        assertEquals(new Date(1_000L), loan.getBorrowDate());
+        assertEquals(5_000L, loan.getDueTime());
+        assertEquals(Loan.NOT_RETURNED, loan.getReturnTime());
+        assertFalse(loan.isOverdue(5_000L));
+        assertTrue(loan.isOverdue(5_001L));
+
+        loan.returnBook(6_000L);
+        assertEquals(new Date(6_000L), loan.getReturnDate());
+        assertFalse(loan.isActive());
+        assertFalse(loan.isOverdue(7_000L));
     }
 }
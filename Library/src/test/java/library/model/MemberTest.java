@@ -3,10 +3,12 @@ package library.model;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class MemberTest {
     private Member member;
@@ -33,4 +35,25 @@ public class MemberTest {
         member.removeLoan(loan);
         assertTrue(member.getLoans().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testLoansViewIsLiveAndReadOnly() {
+        Collection<Loan> view = member.getLoansView();
+        Loan loan = new Loan(new Book("1", "Test Book", "Test Author", 2023), member, new Date(), new Date());
+        member.addLoan(loan);
+        member.addLoan(loan);
+
+        assertEquals(1, view.size());
+        assertEquals(1, member.getActiveLoanCount());
+        assertThrows(UnsupportedOperationException.class, () -> view.remove(loan));
+
+        List<Loan> visited = new ArrayList<>();
+        member.forEachLoan(visited::add);
+        assertEquals(List.of(loan), visited);
+
+        member.removeLoan(loan);
+        member.removeLoan(loan);
+        assertTrue(view.isEmpty());
+        assertEquals(0, member.getActiveLoanCount());
+    }
+}
@@ -0,0 +1,199 @@
+package library.persistence;
+
+import library.model.Book;
+import library.model.Loan;
+import library.service.BookFactory;
+import library.service.Library;
+import library.service.LibraryManager;
+import library.util.BookStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LibraryJournalTest {
+    private Path path;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        path = Files.createTempFile("library", ".journal");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    private List<JournalRecord> reopen() throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        LibraryJournal journal = LibraryJournal.open(path, SyncPolicy.everyOperation(), records::add);
+        journal.close();
+        return records;
+    }
+
+    @Test
+    void testRecordsRoundTrip() throws IOException {
+        try (LibraryJournal journal = LibraryJournal.open(path, SyncPolicy.everyOperation(), r -> fail("Unexpected record " + r))) {
+            assertEquals(0, journal.getReplayedRecordCount());
+            journal.awaitDurable(journal.append(JournalRecord.addBook("fiction", "B1", "Tëst Bóok", "Author", 1999, 10L)));
+            journal.awaitDurable(journal.append(JournalRecord.addMember("M1", "Member", 11L)));
+            journal.awaitDurable(journal.append(JournalRecord.borrowBook("B1", "M1", 12L)));
+        }
+
+        List<JournalRecord> records = reopen();
+        assertEquals(3, records.size());
+        JournalRecord addBook = records.get(0);
+        assertEquals(JournalRecord.Operation.ADD_BOOK, addBook.getOperation());
+        assertEquals("fiction", addBook.getBookType());
+        assertEquals("B1", addBook.getBookId());
+        assertEquals("Tëst Bóok", addBook.getTitle());
+        assertEquals("Author", addBook.getAuthor());
+        assertEquals(1999, addBook.getPublicationYear());
+        assertEquals(10L, addBook.getTimestamp());
+        assertEquals("Member", records.get(1).getMemberName());
+        assertEquals(JournalRecord.Operation.BORROW_BOOK, records.get(2).getOperation());
+        assertEquals("M1", records.get(2).getMemberId());
+    }
+
+    @Test
+    void testTornTailIsDiscarded() throws IOException {
+        try (LibraryJournal journal = LibraryJournal.open(path, SyncPolicy.osManaged(), r -> { })) {
+            journal.append(JournalRecord.addMember("M1", "Member", 1L));
+            journal.append(JournalRecord.addMember("M2", "Other", 2L));
+        }
+        long size = Files.size(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        List<JournalRecord> records = reopen();
+        assertEquals(1, records.size());
+        assertEquals("M1", records.get(0).getMemberId());
+
+        try (LibraryJournal journal = LibraryJournal.open(path, SyncPolicy.everyOperation(), r -> { })) {
+            journal.awaitDurable(journal.append(JournalRecord.addMember("M3", "Third", 3L)));
+        }
+        records = reopen();
+        assertEquals(2, records.size());
+        assertEquals("M3", records.get(1).getMemberId());
+    }
+
+    @Test
+    void testCorruptRecordStopsReplay() throws IOException {
+        try (LibraryJournal journal = LibraryJournal.open(path, SyncPolicy.everyOperation(), r -> { })) {
+            journal.append(JournalRecord.addMember("M1", "Member", 1L));
+            journal.append(JournalRecord.addMember("M2", "Other", 2L));
+        }
+        long size = Files.size(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'x'}), size - 1);
+        }
+
+        assertEquals(1, reopen().size());
+    }
+
+    @Test
+    void testConcurrentAppendsAreAllDurable() throws Exception {
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (LibraryJournal journal = LibraryJournal.open(path, SyncPolicy.everyOperation(), r -> { })) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        journal.awaitDurable(journal.append(JournalRecord.addMember("M" + thread + "-" + i, "Member", i)));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(threads * perThread, reopen().size());
+    }
+
+    @Test
+    void testIntervalPolicyForcesOnClose() throws IOException {
+        try (LibraryJournal journal = LibraryJournal.open(path, SyncPolicy.interval(10_000), r -> { })) {
+            journal.awaitDurable(journal.append(JournalRecord.addMember("M1", "Member", 1L)));
+        }
+        assertEquals(1, reopen().size());
+    }
+
+    @Test
+    void testManagerStateIsRestoredFromJournal() throws IOException {
+        Library original = new Library();
+        LibraryManager manager = new LibraryManager(original, new BookFactory());
+        try (LibraryJournal journal = LibraryJournal.open(path, SyncPolicy.everyOperation(), manager::replay)) {
+            manager.attachJournal(journal);
+            manager.addBook("fiction", "B1", "Title", "Author", 2000);
+            manager.addBook("reference", "B2", "Other", "Author", 2001);
+            manager.addMember("M1", "Member");
+            assertTrue(manager.borrowBook("B1", "M1"));
+            assertTrue(manager.borrowBook("B2", "M1"));
+            assertTrue(manager.returnBook("B2"));
+            assertEquals("B2_copy", manager.duplicateBook("B2"));
+            assertTrue(manager.removeBook("B2"));
+            assertFalse(manager.borrowBook("B1", "M1"));
+        }
+
+        Library library = new Library();
+        LibraryManager restored = new LibraryManager(library, new BookFactory());
+        try (LibraryJournal journal = LibraryJournal.open(path, SyncPolicy.everyOperation(), restored::replay)) {
+            assertEquals(8, journal.getReplayedRecordCount());
+        }
+
+        assertNull(library.findBookById("B2"));
+        assertNotNull(library.findBookById("B2_copy"));
+        Book book = library.findBookById("B1");
+        assertEquals(BookStatus.BORROWED, book.getStatus());
+        Loan loan = library.findActiveLoanForBook("B1");
+        assertEquals("M1", loan.getMember().getId());
+        assertEquals(original.findActiveLoanForBook("B1").getBorrowDate(), loan.getBorrowDate());
+        assertEquals(original.findActiveLoanForBook("B1").getDueDate(), loan.getDueDate());
+        assertEquals(manager.getLibrarySummary(), restored.getLibrarySummary());
+    }
+
+    @Test
+    void testBatchesAreJournalledPerBook() throws IOException {
+        Library original = new Library();
+        LibraryManager manager = new LibraryManager(original, new BookFactory());
+        try (LibraryJournal journal = LibraryJournal.open(path, SyncPolicy.everyOperation(), manager::replay)) {
+            manager.attachJournal(journal);
+            for (int i = 0; i < 5; i++) {
+                manager.addBook("fiction", "B" + i, "Title " + i, "Author", 2000);
+            }
+            manager.addMember("M1", "Member");
+            assertEquals(4, manager.borrowBooks("M1", Arrays.asList("B0", "B1", "B2", "B3", "B9")).getSuccessCount());
+            assertEquals(2, manager.returnBooks(Arrays.asList("B1", "B3", "B4")).getSuccessCount());
+        }
+
+        Library library = new Library();
+        LibraryManager restored = new LibraryManager(library, new BookFactory());
+        try (LibraryJournal journal = LibraryJournal.open(path, SyncPolicy.everyOperation(), restored::replay)) {
+            assertEquals(12, journal.getReplayedRecordCount());
+        }
+        assertEquals(BookStatus.BORROWED, library.findBookById("B2").getStatus());
+        assertEquals(BookStatus.AVAILABLE, library.findBookById("B3").getStatus());
+        assertEquals(manager.getLibrarySummary(), restored.getLibrarySummary());
+    }
+}
@@ -0,0 +1,276 @@
+package library.persistence;
+
+import library.model.Book;
+import library.model.LibrarySummary;
+import library.model.Loan;
+import library.model.Member;
+import library.service.BookFactory;
+import library.service.Library;
+import library.service.LibraryManager;
+import library.util.BookStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LibrarySnapshotTest {
+    private Path directory;
+    private Path snapshotPath;
+    private BookFactory bookFactory;
+    private Library library;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshot");
+        snapshotPath = directory.resolve("library.snapshot");
+        bookFactory = new BookFactory();
+        library = new Library();
+        library.setCounterVerification(true);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private Library restore() throws IOException {
+        Library restored = new Library();
+        restored.setCounterVerification(true);
+        restored.restoreSnapshot(LibrarySnapshot.open(snapshotPath, bookFactory));
+        return restored;
+    }
+
+    private int loadedBooks(Library library) {
+        int[] count = new int[1];
+        library.forEachLoadedBook(book -> count[0]++);
+        return count[0];
+    }
+
+    @Test
+    void testRoundTripLoadsBooksLazily() throws IOException {
+        library.addBook(bookFactory.createBook("fiction", "B1", "Fiction", "Author", 2001));
+        library.addBook(bookFactory.createBook("reference", "B2", "Reference", "Author", 2002));
+        library.addBook(new Book("B3", "Plain", null, 2003));
+        library.addBook(bookFactory.createBook("non-fiction", "B4", "Repairs", "Author", 2004));
+        library.findBookById("B4").setStatus(BookStatus.UNDER_MAINTENANCE);
+        Member member = new Member("M1", "Member");
+        library.addMember(member);
+        library.addMember(new Member("M2", "Other"));
+        Date borrowDate = new Date(1_000_000L);
+        library.borrowBook(library.findBookById("B1"), member, borrowDate);
+        Loan returned = library.borrowBook(library.findBookById("B2"), member);
+        library.returnBook(returned, new Date(2_000_000L));
+        LibrarySummary summary = library.getLibrarySummary();
+
+        LibrarySnapshot.write(snapshotPath, 1, library, bookFactory);
+        Library restored = restore();
+
+        assertEquals(1, restored.getSnapshot().getGeneration());
+        assertEquals(1, restored.getSnapshot().getHistoricLoanCount());
+        assertEquals(1, loadedBooks(restored));
+        assertEquals(summary, restored.getLibrarySummary());
+        assertEquals(1, loadedBooks(restored));
+        Loan loan = restored.findActiveLoanForBook("B1");
+        assertEquals(borrowDate, loan.getBorrowDate());
+        assertSame(restored.findMemberById("M1"), loan.getMember());
+        assertEquals(1, restored.findMemberById("M1").getActiveLoanCount());
+
+        Book reference = restored.findBookById("B2");
+        assertEquals("reference", bookFactory.typeOf(reference));
+        assertEquals("Reference", reference.getTitle());
+        assertEquals(2002, reference.getPublicationYear());
+        assertNull(bookFactory.typeOf(restored.findBookById("B3")));
+        assertNull(restored.findBookById("B3").getAuthor());
+        assertEquals(BookStatus.UNDER_MAINTENANCE, restored.findBookById("B4").getStatus());
+        assertNull(restored.findBookById("B5"));
+        assertEquals(4, loadedBooks(restored));
+
+        assertEquals(summary, restored.getLibrarySummary());
+    }
+
+    @Test
+    void testLoanHistorySpansSnapshotAndArchive() throws IOException {
+        Member member = new Member("M1", "Member");
+        library.addMember(member);
+        library.addBook(bookFactory.createBook("fiction", "B1", "Fiction", "Author", 2001));
+        Loan before = library.borrowBook(library.findBookById("B1"), member, new Date(1_000L));
+        library.returnBook(before, new Date(2_000L));
+        LibrarySnapshot.write(snapshotPath, 1, library, bookFactory);
+        Library restored = restore();
+
+        Loan after = restored.borrowBook(restored.findBookById("B1"), restored.findMemberById("M1"), new Date(3_000L));
+        restored.returnBook(after, new Date(4_000L));
+
+        assertEquals(List.of(2_000L, 4_000L), restored.getLoanHistoryByMember("M1")
+                .map(record -> record.getReturnDate()).toList());
+        assertEquals(1, restored.getLoanHistory(new Date(0L), new Date(1_500L)).count());
+        assertEquals(0, restored.getLoanHistoryByBook("B2").count());
+        assertEquals(2, restored.getLoanHistoryByBook("B1").count());
+    }
+
+    @Test
+    void testChangesAfterRestoreShadowSnapshotBooks() throws IOException {
+        Member member = new Member("M1", "Member");
+        library.addMember(member);
+        for (int i = 0; i < 50; i++) {
+            library.addBook(bookFactory.createBook("fiction", String.format("B%03d", i), "Title " + i, "Author", 2000));
+        }
+        library.borrowBook(library.findBookById("B010"), member);
+        LibrarySnapshot.write(snapshotPath, 1, library, bookFactory);
+
+        Library restored = restore();
+        assertTrue(restored.removeBook(restored.findBookById("B020")));
+        restored.addBook(bookFactory.createBook("reference", "B030", "Replacement", "Author", 2020));
+        restored.addBook(bookFactory.createBook("fiction", "B100", "New", "Author", 2021));
+        Book borrowed = restored.findBookById("B040");
+        restored.borrowBook(borrowed, restored.findMemberById("M1"));
+        restored.returnBook(restored.findActiveLoanForBook("B010"));
+
+        assertNull(restored.findBookById("B020"));
+        assertEquals("Replacement", restored.findBookById("B030").getTitle());
+        assertEquals(new LibrarySummary(49, 1, 1, 2), restored.getLibrarySummary());
+
+        LibrarySnapshot.write(snapshotPath, 2, restored, bookFactory);
+        Library second = restore();
+        assertEquals(50, second.getSnapshot().getBookCount());
+        assertNull(second.findBookById("B020"));
+        assertEquals("Replacement", second.findBookById("B030").getTitle());
+        assertEquals("New", second.findBookById("B100").getTitle());
+        assertEquals(BookStatus.BORROWED, second.findBookById("B040").getStatus());
+        assertEquals(BookStatus.AVAILABLE, second.findBookById("B010").getStatus());
+
+        List<String> history = new ArrayList<>();
+        second.getSnapshot().forEachHistoricLoan((bookId, memberId, borrowDate, dueDate, returnDate) -> history.add(bookId));
+        assertEquals(List.of("B010"), history);
+        assertEquals(new LibrarySummary(49, 1, 1, 2), second.getLibrarySummary());
+    }
+
+    @Test
+    void testReservedBooksAreWrittenAsAvailable() throws IOException {
+        Book book = bookFactory.createBook("fiction", "B1", "Title", "Author", 2000);
+        library.addBook(book);
+        Member member = new Member("M1", "Member");
+        library.addMember(member);
+        library.reserveBook(book, member);
+        assertEquals(BookStatus.RESERVED, book.getStatus());
+
+        LibrarySnapshot.write(snapshotPath, 1, library, bookFactory);
+        Library restored = restore();
+        assertEquals(BookStatus.AVAILABLE, restored.findBookById("B1").getStatus());
+        assertEquals(1, restored.getLibrarySummary().getAvailableBooks());
+    }
+
+    @Test
+    void testFindsEveryBookInLargeCatalog() throws IOException {
+        int count = 20_000;
+        for (int i = 0; i < count; i++) {
+            library.addBook(new Book("ID-" + i, "Title " + i, "Author", 2000));
+        }
+        library.setCounterVerification(false);
+        LibrarySnapshot.write(snapshotPath, 1, library, bookFactory);
+
+        LibrarySnapshot snapshot = LibrarySnapshot.open(snapshotPath, bookFactory);
+        assertEquals(count, snapshot.getBookCount());
+        assertEquals(count, snapshot.getStatusCount(BookStatus.AVAILABLE));
+        for (int i = 0; i < count; i += 7) {
+            assertEquals("Title " + i, snapshot.loadBook("ID-" + i).getTitle());
+        }
+        assertFalse(snapshot.containsBook("ID-" + count));
+        for (int i = 1; i < count; i++) {
+            assertTrue(snapshot.bookIdAt(i - 1).compareTo(snapshot.bookIdAt(i)) < 0);
+        }
+    }
+
+    @Test
+    void testCheckpointTruncatesJournal() throws IOException {
+        Path journalPath = directory.resolve("library.journal");
+        LibraryManager manager = new LibraryManager(library, bookFactory);
+        try (LibraryJournal journal = LibraryJournal.open(journalPath, SyncPolicy.everyOperation(), manager::replay)) {
+            manager.attachJournal(journal);
+            manager.addBook("fiction", "B1", "Title", "Author", 2000);
+            manager.addMember("M1", "Member");
+            manager.checkpoint(snapshotPath);
+            assertEquals(1, journal.getGeneration());
+            manager.borrowBook("B1", "M1");
+        }
+
+        Library restoredLibrary = new Library();
+        LibraryManager restored = new LibraryManager(restoredLibrary, bookFactory);
+        LibrarySnapshot snapshot = restored.restoreSnapshot(snapshotPath);
+        try (LibraryJournal journal = LibraryJournal.open(journalPath, SyncPolicy.everyOperation(),
+                snapshot.getGeneration(), restored::replay)) {
+            assertEquals(1, journal.getReplayedRecordCount());
+        }
+        assertEquals(BookStatus.BORROWED, restoredLibrary.findBookById("B1").getStatus());
+        assertEquals(library.getLibrarySummary(), restoredLibrary.getLibrarySummary());
+    }
+
+    @Test
+    void testSnapshotsNeverReplaceTheMappedGeneration() throws IOException {
+        library.addBook(bookFactory.createBook("fiction", "B1", "Title 1", "Author", 2000));
+        LibrarySnapshot.write(snapshotPath, 1, library, bookFactory);
+        Library restored = restore();
+        restored.addBook(bookFactory.createBook("fiction", "B2", "Title 2", "Author", 2001));
+
+        LibrarySnapshot.write(snapshotPath, 2, restored, bookFactory);
+        LibrarySnapshot.write(snapshotPath, 3, restored, bookFactory);
+        assertEquals("library.snapshot.3", Files.readString(snapshotPath));
+        assertTrue(Files.exists(directory.resolve("library.snapshot.1")));
+        assertFalse(Files.exists(directory.resolve("library.snapshot.2")));
+        assertEquals("Title 1", restored.findBookById("B1").getTitle());
+
+        Library again = restore();
+        assertEquals(3, again.getSnapshot().getGeneration());
+        assertEquals(restored.getLibrarySummary(), again.getLibrarySummary());
+        assertEquals("Title 2", again.findBookById("B2").getTitle());
+    }
+
+    @Test
+    void testJournalGenerationsAreChecked() throws IOException {
+        Path journalPath = directory.resolve("library.journal");
+        try (LibraryJournal journal = LibraryJournal.open(journalPath, SyncPolicy.everyOperation(), 1, r -> { })) {
+            journal.append(JournalRecord.addMember("M1", "Member", 1L));
+        }
+
+        assertThrows(IOException.class, () -> LibraryJournal.open(journalPath, SyncPolicy.everyOperation(), 0, r -> { }));
+
+        try (LibraryJournal journal = LibraryJournal.open(journalPath, SyncPolicy.everyOperation(), 2,
+                r -> fail("Record from an older generation replayed"))) {
+            assertEquals(2, journal.getGeneration());
+            assertEquals(0, journal.getReplayedRecordCount());
+        }
+    }
+
+    @Test
+    void testSearchCoversUnloadedBooks() throws IOException {
+        library.addBook(bookFactory.createBook("fiction", "B1", "The Hobbit", "Tolkien", 1937));
+        library.addBook(bookFactory.createBook("fiction", "B2", "The Silmarillion", "Tolkien", 1977));
+        library.addBook(bookFactory.createBook("fiction", "B3", "Dune", "Herbert", 1965));
+        LibrarySnapshot.write(snapshotPath, 1, library, bookFactory);
+
+        Library restored = restore();
+        restored.removeBook(restored.findBookById("B2"));
+        assertEquals(0, loadedBooks(restored));
+        List<Book> found = restored.searchBooks("tolkien", 10);
+        assertEquals(1, found.size());
+        assertEquals("B1", found.get(0).getId());
+        assertEquals(1, loadedBooks(restored));
+
+        found.get(0).setTitle("There and Back Again");
+        assertTrue(restored.searchBooks("hobbit", 10).isEmpty());
+        assertEquals("B1", restored.searchBooks("back again", 10).get(0).getId());
+    }
+}
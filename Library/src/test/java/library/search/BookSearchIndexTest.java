@@ -0,0 +1,92 @@
+package library.search;
+
+import library.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookSearchIndexTest {
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.bookAdded(new Book("1", "The Hobbit", "J. R. R. Tolkien", 1937));
+        index.bookAdded(new Book("2", "The Lord of the Rings", "J. R. R. Tolkien", 1954));
+        index.bookAdded(new Book("3", "The Silmarillion", "J. R. R. Tolkien", 1977));
+        index.bookAdded(new Book("4", "Tolkien: A Biography", "Humphrey Carpenter", 1977));
+        index.bookAdded(new Book("5", "Cien años de soledad", "Gabriel García Márquez", 1967));
+    }
+
+    @Test
+    void testAllWordsMustMatch() {
+        assertEquals(List.of("1"), index.search("hobbit tolkien", 10));
+        assertEquals(List.of("2"), index.search("LORD rings", 10));
+        assertTrue(index.search("hobbit carpenter", 10).isEmpty());
+        assertTrue(index.search("dragon", 10).isEmpty());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    void testAlternatives() {
+        assertEquals(List.of("1", "3"), index.search("hobbit OR silmarillion", 10));
+        assertEquals(List.of("5"), index.search("dragon OR soledad", 10));
+    }
+
+    @Test
+    void testPhrases() {
+        assertEquals(List.of("2"), index.search("\"lord of the rings\"", 10));
+        assertTrue(index.search("\"rings of the lord\"", 10).isEmpty());
+        assertEquals(List.of("5"), index.search("\"garcia marquez\"", 10));
+        // Title and author are separate fields, so no phrase spans them
+        assertTrue(index.search("\"hobbit j\"", 10).isEmpty());
+    }
+
+    @Test
+    void testRanksTitleMatchesFirstAndLimitsResults() {
+        List<String> result = index.search("tolkien", 10);
+        assertEquals(4, result.size());
+        assertEquals("4", result.get(0));
+        assertEquals(List.of("4", "1"), index.search("tolkien", 2));
+        assertEquals("5", index.search("años", 1).get(0));
+    }
+
+    @Test
+    void testUpdatesAndRemovals() {
+        Book book = new Book("1", "The Hobbit", "J. R. R. Tolkien", 1937);
+        book.setTitle("There and Back Again");
+        index.bookChanged(book);
+        assertTrue(index.search("hobbit", 10).isEmpty());
+        assertEquals(List.of("1"), index.search("back again", 10));
+
+        index.bookAdded(new Book("1", "The Hobbit", "Tolkien", 1937));
+        assertEquals(List.of("1"), index.search("hobbit", 10));
+        assertTrue(index.search("again", 10).isEmpty());
+
+        index.bookRemoved(book);
+        assertTrue(index.search("hobbit", 10).isEmpty());
+        index.bookChanged(book);
+        assertTrue(index.search("hobbit", 10).isEmpty());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void testCompactionKeepsLiveBooks() {
+        for (int i = 0; i < 5000; i++) {
+            index.bookAdded(new Book("X" + i, "Volume " + i, "Prolific Writer", 2000));
+        }
+        for (int i = 0; i < 5000; i++) {
+            if (i % 100 != 0) {
+                index.bookRemoved(new Book("X" + i, null, null, 0));
+            }
+        }
+        assertEquals(55, index.size());
+        assertEquals(50, index.search("prolific writer", 100).size());
+        assertEquals(List.of("X4200"), index.search("volume 4200", 10));
+        assertTrue(index.search("volume 4201", 10).isEmpty());
+        assertEquals(List.of("3"), index.search("silmarillion", 10));
+    }
+}
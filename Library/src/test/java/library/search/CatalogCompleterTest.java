@@ -0,0 +1,84 @@
+package library.search;
+
+import library.model.Book;
+import library.model.Member;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogCompleterTest {
+    private Map<String, Book> books;
+    private Map<String, Member> members;
+    private CatalogCompleter completer;
+
+    @BeforeEach
+    void setUp() {
+        books = new HashMap<>();
+        members = new HashMap<>();
+        completer = new CatalogCompleter(books::get, members::get);
+        add(new Book("LOTR-1", "The Lord of the Rings", "Tolkien", 1954));
+        add(new Book("LOTR-2", "The Lord of the Rings", "Tolkien", 1954));
+        add(new Book("HOB-1", "The Hobbit", "Tolkien", 1937));
+        add(new Book("OWL-1", "The Owl Service", "Alan Garner", 1967));
+        Member member = new Member("M-17", "Åsa Larsson");
+        members.put(member.getId(), member);
+        completer.memberAdded(member);
+    }
+
+    private void add(Book book) {
+        books.put(book.getId(), book);
+        completer.bookAdded(book);
+    }
+
+    private List<String> texts(List<Completion> completions) {
+        return completions.stream().map(Completion::getText).collect(Collectors.toList());
+    }
+
+    @Test
+    void testCompletesDistinctTitlesAndIds() {
+        List<Completion> titles = completer.complete("the", 10, EnumSet.of(Completion.Kind.TITLE));
+        assertEquals(List.of("The Hobbit", "The Lord of the Rings", "The Owl Service"), texts(titles));
+        assertEquals("HOB-1", titles.get(0).getId());
+        assertEquals(List.of("The Hobbit"), texts(completer.complete("THE H", 10, EnumSet.of(Completion.Kind.TITLE))));
+
+        assertEquals(List.of("LOTR-1", "LOTR-2"), texts(completer.complete("lotr", 10, EnumSet.of(Completion.Kind.BOOK_ID))));
+        assertEquals(List.of("Tolkien"), texts(completer.complete("tol", 10, EnumSet.of(Completion.Kind.AUTHOR))));
+        assertTrue(completer.complete("", 10, EnumSet.allOf(Completion.Kind.class)).isEmpty());
+    }
+
+    @Test
+    void testMergesKindsAlphabetically() {
+        List<Completion> completions = completer.complete("h", 10, EnumSet.of(Completion.Kind.BOOK_ID, Completion.Kind.TITLE));
+        assertEquals(List.of("HOB-1"), texts(completions));
+        completions = completer.complete("asa", 10, EnumSet.of(Completion.Kind.MEMBER_ID, Completion.Kind.MEMBER_NAME));
+        assertEquals(1, completions.size());
+        assertEquals(Completion.Kind.MEMBER_NAME, completions.get(0).getKind());
+        assertEquals("M-17", completions.get(0).getId());
+        assertEquals(2, completer.complete("t", 2, EnumSet.allOf(Completion.Kind.class)).size());
+    }
+
+    @Test
+    void testFollowsRemovalsAndChanges() {
+        Book hobbit = books.remove("HOB-1");
+        completer.bookRemoved(hobbit);
+        assertTrue(completer.complete("the h", 10, EnumSet.of(Completion.Kind.TITLE)).isEmpty());
+
+        Book owl = books.get("OWL-1");
+        owl.setTitle("Elidor");
+        completer.bookChanged(owl);
+        assertEquals(List.of("The Lord of the Rings"), texts(completer.complete("the", 10, EnumSet.of(Completion.Kind.TITLE))));
+        assertEquals(List.of("Elidor"), texts(completer.complete("eli", 10, EnumSet.of(Completion.Kind.TITLE))));
+
+        books.remove("LOTR-1");
+        List<Completion> remaining = completer.complete("the lord", 10, EnumSet.of(Completion.Kind.TITLE));
+        assertEquals(1, remaining.size());
+        assertEquals("LOTR-2", remaining.get(0).getId());
+    }
+}
@@ -0,0 +1,78 @@
+package library.search;
+
+import library.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderedBookIndexTest {
+    private OrderedBookIndex<Integer> index;
+
+    @BeforeEach
+    void setUp() {
+        index = OrderedBookIndex.byPublicationYear();
+        index.bookAdded(new Book("B", "Second", "Author", 1960));
+        index.bookAdded(new Book("A", "First", "Author", 1960));
+        index.bookAdded(new Book("C", "Old", "Author", 1901));
+        index.bookAdded(new Book("D", "New", "Author", 2020));
+        index.bookAdded(new Book("E", "Middle", "Author", 1970));
+    }
+
+    @Test
+    void testRangeIsInclusiveAndOrdered() {
+        assertEquals(List.of("A", "B", "E"), index.page(1960, 1970, null, 10).getBookIds());
+        assertEquals(List.of("C", "A", "B", "E", "D"), index.page(null, null, null, 10).getBookIds());
+        assertTrue(index.page(1961, 1969, null, 10).getBookIds().isEmpty());
+        assertNull(index.page(1960, 1970, null, 10).getNextCursor());
+    }
+
+    @Test
+    void testCursorResumesAfterChanges() {
+        OrderedBookIndex.Page first = index.page(1900, 2100, null, 2);
+        assertEquals(List.of("C", "A"), first.getBookIds());
+        assertNotNull(first.getNextCursor());
+
+        index.bookRemoved(new Book("A", null, null, 0));
+        index.bookAdded(new Book("0", "Earlier", "Author", 1950));
+        OrderedBookIndex.Page second = index.page(1900, 2100, first.getNextCursor(), 2);
+        assertEquals(List.of("B", "E"), second.getBookIds());
+        OrderedBookIndex.Page third = index.page(1900, 2100, second.getNextCursor(), 2);
+        assertEquals(List.of("D"), third.getBookIds());
+        assertNull(third.getNextCursor());
+
+        assertThrows(IllegalArgumentException.class, () -> index.page(1900, 2100, "garbage", 2));
+    }
+
+    @Test
+    void testChangedKeyMovesBook() {
+        Book book = new Book("C", "Old", "Author", 1901);
+        book.setPublicationYear(1965);
+        index.bookChanged(book);
+        assertEquals(List.of("A", "B", "C", "E"), index.page(1960, 1970, null, 10).getBookIds());
+        assertEquals(5, index.size());
+
+        index.bookChanged(new Book("X", "Unknown", "Author", 1965));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void testTitleOrderIgnoresCase() {
+        OrderedBookIndex<String> titles = OrderedBookIndex.byTitle();
+        titles.bookAdded(new Book("1", "zebra", "Author", 2000));
+        titles.bookAdded(new Book("2", "Émile", "Author", 2000));
+        titles.bookAdded(new Book("3", "Apple", "Author", 2000));
+        titles.bookAdded(new Book("4", null, "Author", 2000));
+        List<String> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            OrderedBookIndex.Page page = titles.page(null, null, cursor, 1);
+            all.addAll(page.getBookIds());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(List.of("4", "3", "2", "1"), all);
+    }
+}
@@ -0,0 +1,60 @@
+package library.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefixIndexTest {
+
+    @Test
+    void testListsKeysWithPrefixInOrder() {
+        PrefixIndex index = new PrefixIndex();
+        for (String key : List.of("banana", "apple", "apricot", "application", "b", "app")) {
+            index.add(key);
+        }
+        index.add("apple");
+        assertEquals(6, index.size());
+        assertEquals(List.of("app", "apple", "application", "apricot"), index.withPrefix("ap", null, 10));
+        assertEquals(List.of("app", "apple"), index.withPrefix("ap", null, 2));
+        assertEquals(List.of("application", "apricot"), index.withPrefix("ap", "apple", 10));
+        assertTrue(index.withPrefix("c", null, 10).isEmpty());
+
+        index.remove("apple");
+        index.remove("cherry");
+        assertEquals(List.of("app", "application"), index.withPrefix("app", null, 10));
+    }
+
+    @Test
+    void testMergedKeysMatchSortedSet() {
+        PrefixIndex index = new PrefixIndex();
+        TreeSet<String> expected = new TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            String key = "key-" + Integer.toString(i * 7919 % 20_000, 36) + (i % 3 == 0 ? "-ü" : "");
+            index.add(key);
+            expected.add(key);
+        }
+        for (int i = 0; i < 20_000; i += 5) {
+            String key = expected.pollFirst();
+            index.remove(key);
+            index.add("late-" + i);
+            expected.add("late-" + i);
+        }
+        assertEquals(expected.size(), index.size());
+        for (String prefix : List.of("key-1", "key-a", "late-1", "k", "key-zz")) {
+            List<String> walked = new ArrayList<>();
+            String after = null;
+            List<String> page;
+            do {
+                page = index.withPrefix(prefix, after, 97);
+                walked.addAll(page);
+                after = page.isEmpty() ? null : page.get(page.size() - 1);
+            } while (page.size() == 97);
+            List<String> matching = new ArrayList<>(expected.subSet(prefix, prefix + Character.MAX_VALUE));
+            assertEquals(matching, walked, prefix);
+        }
+    }
+}
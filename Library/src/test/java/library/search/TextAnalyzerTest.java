@@ -0,0 +1,30 @@
+package library.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextAnalyzerTest {
+
+    @Test
+    void testSplitsOnPunctuationAndLowerCases() {
+        assertEquals(List.of("the", "lord", "of", "the", "rings", "1954"), TextAnalyzer.analyze("The Lord of the Rings (1954)"));
+        assertEquals(List.of("o", "brien"), TextAnalyzer.analyze("O'Brien"));
+    }
+
+    @Test
+    void testFoldsAccents() {
+        assertEquals(List.of("godel", "escher", "bach"), TextAnalyzer.analyze("Gödel, Escher, Bach"));
+        assertEquals(List.of("garcia", "marquez"), TextAnalyzer.analyze("García Márquez"));
+        assertEquals(TextAnalyzer.analyze("Amélie"), TextAnalyzer.analyze("Amélie"));
+    }
+
+    @Test
+    void testEmptyAndNullTextHaveNoTerms() {
+        assertTrue(TextAnalyzer.analyze(null).isEmpty());
+        assertTrue(TextAnalyzer.analyze("").isEmpty());
+        assertTrue(TextAnalyzer.analyze(" -- ").isEmpty());
+    }
+}
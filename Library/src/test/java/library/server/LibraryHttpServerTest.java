@@ -0,0 +1,185 @@
+package library.server;
+
+import library.service.BookFactory;
+import library.service.Library;
+import library.service.LibraryManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LibraryHttpServerTest {
+    private Library library;
+    private LibraryManager libraryManager;
+    private LibraryHttpServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        library = new Library();
+        libraryManager = new LibraryManager(library, new BookFactory());
+        server = LibraryHttpServer.start(libraryManager, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testAddBorrowAndReturn() throws Exception {
+        assertEquals(201, post("/books", "{\"type\":\"fiction\",\"id\":\"B1\",\"title\":\"Dune\",\"author\":\"Herbert\",\"year\":1965}").statusCode());
+        assertEquals(201, post("/members", "{\"id\":\"M1\",\"name\":\"Ann\"}").statusCode());
+
+        assertEquals(200, post("/loans", "{\"bookId\":\"B1\",\"memberId\":\"M1\"}").statusCode());
+        assertEquals(409, post("/loans", "{\"bookId\":\"B1\",\"memberId\":\"M1\"}").statusCode());
+        Map<String, String> book = JsonCodec.readObject(get("/books/B1").body());
+        assertEquals("Dune", book.get("title"));
+        assertEquals("1965", book.get("year"));
+        assertEquals("BORROWED", book.get("status"));
+
+        assertEquals(200, send(HttpRequest.newBuilder(uri("/loans/B1")).DELETE()).statusCode());
+        assertEquals(409, send(HttpRequest.newBuilder(uri("/loans/B1")).DELETE()).statusCode());
+        assertEquals("AVAILABLE", JsonCodec.readObject(get("/books/B1").body()).get("status"));
+    }
+
+    @Test
+    void testSingleOperationsTellUnknownIdsFromConflicts() throws Exception {
+        libraryManager.addBook("fiction", "B1", "Dune", "Herbert", 1965);
+        libraryManager.addMember("M1", "Ann");
+
+        HttpResponse<String> response = post("/loans", "{\"bookId\":\"B9\",\"memberId\":\"M1\"}");
+        assertEquals(404, response.statusCode());
+        assertEquals("BOOK_NOT_FOUND", JsonCodec.readObject(response.body()).get("outcome"));
+        response = post("/loans", "{\"bookId\":\"B1\",\"memberId\":\"M9\"}");
+        assertEquals(404, response.statusCode());
+        assertEquals("MEMBER_NOT_FOUND", JsonCodec.readObject(response.body()).get("outcome"));
+        response = send(HttpRequest.newBuilder(uri("/loans/B9")).DELETE());
+        assertEquals(404, response.statusCode());
+        assertEquals("BOOK_NOT_FOUND", JsonCodec.readObject(response.body()).get("outcome"));
+
+        response = send(HttpRequest.newBuilder(uri("/loans/B1")).DELETE());
+        assertEquals(409, response.statusCode());
+        assertEquals("NOT_BORROWED", JsonCodec.readObject(response.body()).get("outcome"));
+        assertEquals(200, post("/loans", "{\"bookId\":\"B1\",\"memberId\":\"M1\"}").statusCode());
+        response = post("/loans", "{\"bookId\":\"B1\",\"memberId\":\"M1\"}");
+        assertEquals(409, response.statusCode());
+        assertEquals("UNAVAILABLE", JsonCodec.readObject(response.body()).get("outcome"));
+    }
+
+    @Test
+    void testAddingAnExistingBookConflicts() throws Exception {
+        libraryManager.addBook("fiction", "B1", "Dune", "Herbert", 1965);
+        libraryManager.addMember("M1", "Ann");
+        libraryManager.borrowBook("B1", "M1");
+
+        HttpResponse<String> response = post("/books", "{\"type\":\"fiction\",\"id\":\"B1\",\"title\":\"Emma\",\"author\":\"Austen\",\"year\":1815}");
+        assertEquals(409, response.statusCode());
+        assertEquals("DUPLICATE_ID", JsonCodec.readObject(response.body()).get("outcome"));
+        assertEquals("Dune", libraryManager.findBook("B1").getTitle());
+        assertTrue(libraryManager.returnBook("B1"));
+    }
+
+    @Test
+    void testAddingAnExistingMemberConflicts() throws Exception {
+        libraryManager.addBook("fiction", "B1", "Dune", "Herbert", 1965);
+        libraryManager.addMember("M1", "Ann");
+        libraryManager.borrowBook("B1", "M1");
+
+        HttpResponse<String> response = post("/members", "{\"id\":\"M1\",\"name\":\"Bob\"}");
+        assertEquals(409, response.statusCode());
+        assertEquals("DUPLICATE_ID", JsonCodec.readObject(response.body()).get("outcome"));
+        assertEquals("Ann", library.findMemberById("M1").getName());
+        assertEquals(1, libraryManager.getLibrarySummary().getActiveMembers());
+        assertTrue(libraryManager.returnBook("B1"));
+    }
+
+    @Test
+    void testBatchesReportOutcomes() throws Exception {
+        libraryManager.addBook("fiction", "B1", "Dune", "Herbert", 1965);
+        libraryManager.addMember("M1", "Ann");
+
+        HttpResponse<String> response = post("/loans/batch", "{\"memberId\":\"M1\",\"bookIds\":\"B1, B9\"}");
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"successCount\":1,\"outcomes\":[\"SUCCESS\",\"BOOK_NOT_FOUND\"]}", response.body());
+
+        response = post("/returns", "{\"bookIds\":\"B1,B1\"}");
+        assertEquals("{\"successCount\":1,\"outcomes\":[\"SUCCESS\",\"NOT_BORROWED\"]}", response.body());
+    }
+
+    @Test
+    void testSearchPagesAndSummary() throws Exception {
+        libraryManager.addBook("fiction", "B1", "Dune", "Herbert", 1965);
+        libraryManager.addBook("fiction", "B2", "Emma", "Austen", 1815);
+
+        assertTrue(get("/books?q=dune").body().contains("\"id\":\"B1\""));
+        HttpResponse<String> page = get("/books?limit=1");
+        assertEquals(200, page.statusCode());
+        assertTrue(page.body().startsWith("{\"books\":[{\"id\":\"B1\""));
+        assertTrue(get("/summary").body().contains("\"availableBooks\":2"));
+        assertTrue(get("/metrics").body().contains("\"name\":\"searchBooks\",\"calls\":1"));
+    }
+
+    @Test
+    void testErrorsMapToStatusCodes() throws Exception {
+        assertEquals(404, get("/books/B9").statusCode());
+        assertEquals(404, get("/books/B9/x").statusCode());
+        assertEquals(404, send(HttpRequest.newBuilder(uri("/members/M9")).DELETE()).statusCode());
+        assertEquals(400, post("/members", "{\"id\":\"M1\"}").statusCode());
+        assertEquals(400, post("/members", "not json").statusCode());
+        assertEquals(400, get("/books?limit=0").statusCode());
+        assertEquals(405, send(HttpRequest.newBuilder(uri("/health")).DELETE()).statusCode());
+
+        HttpResponse<String> response = post("/books", "{\"type\":\"poetry\",\"id\":\"B1\",\"title\":\"T\",\"year\":2000}");
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().startsWith("{\"error\":"));
+        assertEquals("application/json; charset=utf-8", response.headers().firstValue("Content-Type").orElse(null));
+    }
+
+    @Test
+    void testServesConcurrentRequests() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            libraryManager.addBook("fiction", "B" + i, "Title " + i, "Author", 2000);
+            libraryManager.addMember("M" + i, "Member " + i);
+        }
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            responses.add(client.sendAsync(HttpRequest.newBuilder(uri("/loans"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"bookId\":\"B" + i + "\",\"memberId\":\"M" + i + "\"}")).build(),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.get().statusCode());
+        }
+        assertEquals(200, libraryManager.getLibrarySummary().getBorrowedBooks());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).GET());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
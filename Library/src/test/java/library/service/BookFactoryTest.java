@@ -47,6 +47,15 @@ public class BookFactoryTest {
         assertFalse(((ReferenceBook) book).canBeBorrowed());
     }
 
+    @Test
+    void testTypeOfRecreatesBookType() {
+        for (String type : new String[]{"fiction", "non-fiction", "reference"}) {
+            Book book = bookFactory.createBook(type, "T1", "Title", "Author", 2000);
+            assertEquals(type, bookFactory.typeOf(book));
+        }
+        assertNull(bookFactory.typeOf(new Book("P1", "Title", "Author", 2000)));
+    }
+
     @Test
     void testCreateBookWithInvalidType() {
         assertThrows(IllegalArgumentException.class, () -> {
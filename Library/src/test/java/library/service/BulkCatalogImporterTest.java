@@ -0,0 +1,142 @@
+package library.service;
+
+import library.model.Book;
+import library.model.ImportResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkCatalogImporterTest {
+    private Path file;
+    private Library library;
+    private BulkCatalogImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        library = new Library();
+        importer = new BulkCatalogImporter(library, new BookFactory());
+        importer.setParallelism(3);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Path write(String suffix, String content) throws IOException {
+        file = Files.createTempFile("catalog", suffix);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    void testImportCsvWithHeaderAndQuotes() throws IOException {
+        write(".csv", "\uFEFFid,title,author,year,type,shelf\r\n"
+                + "B1,\"Gatsby, The\",Fitzgerald,1925,fiction,A1\r\n"
+                + "B2,\"A \"\"Brief\"\" History\",Hawking,1988,non-fiction,B2\r\n"
+                + "\r\n"
+                + "B3,\"Multi\nLine\",Author,2010,reference,C3\r\n");
+
+        ImportResult result = importer.importFile(file);
+
+        assertEquals(3, result.getRowsRead());
+        assertEquals(3, result.getBooksImported());
+        assertEquals(0, result.getRowsRejected());
+        assertEquals("Gatsby, The", library.findBookById("B1").getTitle());
+        assertEquals("A \"Brief\" History", library.findBookById("B2").getTitle());
+        assertEquals("Multi\nLine", library.findBookById("B3").getTitle());
+        assertEquals(2010, library.findBookById("B3").getPublicationYear());
+    }
+
+    @Test
+    void testRowErrorsReportLineNumbers() throws IOException {
+        write(".csv", "fiction,B1,Title,Author,2000\n"
+                + "poetry,B2,Title,Author,2000\n"
+                + "fiction,B3,\"Two\nLines\",Author,2000\n"
+                + "fiction,B4,Title,Author,soon\n"
+                + "fiction,B5,Title\n"
+                + "fiction,B6,Title,,2000\n");
+
+        ImportResult result = importer.importFile(file);
+
+        assertEquals(6, result.getRowsRead());
+        assertEquals(2, result.getBooksImported());
+        assertEquals(4, result.getRowsRejected());
+        List<ImportResult.RowError> errors = result.getErrors();
+        assertEquals(2, errors.get(0).getLineNumber());
+        assertEquals("Unknown book type: poetry", errors.get(0).getMessage());
+        assertEquals(5, errors.get(1).getLineNumber());
+        assertEquals(6, errors.get(2).getLineNumber());
+        assertEquals(7, errors.get(3).getLineNumber());
+        assertEquals("Book author cannot be null or empty", errors.get(3).getMessage());
+        assertNotNull(library.findBookById("B3"));
+    }
+
+    @Test
+    void testImportJsonLines() throws IOException {
+        write(".jsonl", "{\"type\":\"fiction\",\"id\":\"J1\",\"title\":\"Caf\\u00e9 \\\"Noir\\\"\",\"author\":\"A\",\"publicationYear\":1999}\n"
+                + "\n"
+                + "{\"type\":\"fiction\",\"id\":\"J2\",\"title\":\"T\",\"author\":\"A\",\"year\":\"2001\"}\n"
+                + "{not json}\n");
+
+        ImportResult result = importer.importFile(file);
+
+        assertEquals(3, result.getRowsRead());
+        assertEquals(2, result.getBooksImported());
+        assertEquals("Café \"Noir\"", library.findBookById("J1").getTitle());
+        assertEquals(2001, library.findBookById("J2").getPublicationYear());
+        assertEquals(4, result.getErrors().get(0).getLineNumber());
+    }
+
+    @Test
+    void testHeaderLongerThanChunkIsDetected() throws IOException {
+        write(".csv", "\uFEFFshelf,year,author,title,id,type\n"
+                + "A1,1925,Fitzgerald,\"Gatsby, The\",B1,fiction\n"
+                + "B2,1988,Hawking,A Brief History,B2,non-fiction\n");
+        importer.setChunkBytes(16);
+
+        ImportResult result = importer.importFile(file);
+
+        assertEquals(2, result.getBooksImported());
+        assertEquals(0, result.getRowsRejected());
+        assertEquals("Gatsby, The", library.findBookById("B1").getTitle());
+        assertEquals("Fitzgerald", library.findBookById("B1").getAuthor());
+        assertEquals(1988, library.findBookById("B2").getPublicationYear());
+    }
+
+    @Test
+    void testSmallChunksKeepFileOrderAndReportProgress() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        int rows = 5_000;
+        for (int i = 0; i < rows; i++) {
+            csv.append("fiction,B").append(i % 1000).append(",\"Title ").append(i).append("\",Author,2000\n");
+        }
+        write(".csv", csv.toString());
+        importer.setChunkBytes(64);
+        List<Long> progress = new ArrayList<>();
+        importer.setProgressListener((bytesRead, totalBytes, imported, rejected) -> progress.add(bytesRead));
+
+        ImportResult result = importer.importFile(file);
+
+        assertEquals(rows, result.getBooksImported());
+        for (int i = 0; i < 1000; i++) {
+            Book book = library.findBookById("B" + i);
+            assertEquals("Title " + (rows - 1000 + i), book.getTitle());
+        }
+        assertEquals(Files.size(file), (long) progress.get(progress.size() - 1));
+        for (int i = 1; i < progress.size(); i++) {
+            assertTrue(progress.get(i) > progress.get(i - 1));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package library.service;
+
+import library.model.Book;
+import library.util.BookStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarBookStoreTest {
+    private BookFactory bookFactory;
+    private ColumnarBookStore store;
+
+    @BeforeEach
+    void setUp() {
+        bookFactory = new BookFactory();
+        store = new ColumnarBookStore(bookFactory);
+    }
+
+    @Test
+    void testBooksAreDecodedWithTheirDetails() {
+        store.add(bookFactory.createBook("reference", "R1", "Grammaire générale", "Émile Zola", 1880));
+        Book plain = new Book("P1", "日本語の本", null, -40000);
+        plain.setStatus(BookStatus.BORROWED);
+        store.add(plain);
+
+        assertTrue(store.contains("R1"));
+        assertFalse(store.contains("R2"));
+        assertEquals(2, store.size());
+        assertEquals(1, store.getStatusCount(BookStatus.BORROWED));
+
+        Book reference = store.take("R1");
+        assertEquals("reference", bookFactory.typeOf(reference));
+        assertEquals("Grammaire générale", reference.getTitle());
+        assertEquals("Émile Zola", reference.getAuthor());
+        assertEquals(1880, reference.getPublicationYear());
+        assertEquals(BookStatus.AVAILABLE, reference.getStatus());
+        assertFalse(store.contains("R1"));
+        assertNull(store.take("R1"));
+
+        Book decoded = store.take("P1");
+        assertNull(bookFactory.typeOf(decoded));
+        assertEquals("日本語の本", decoded.getTitle());
+        assertNull(decoded.getAuthor());
+        assertEquals(-40000, decoded.getPublicationYear());
+        assertEquals(BookStatus.BORROWED, decoded.getStatus());
+        assertEquals(0, store.size());
+        assertEquals(0, store.getStatusCount(BookStatus.BORROWED));
+    }
+
+    @Test
+    void testRemoveReportsTheStoredStatus() {
+        Book book = new Book("1", "Title", "Author", 2000);
+        book.setStatus(BookStatus.BORROWED);
+        store.add(book);
+
+        assertEquals(BookStatus.BORROWED, store.remove("1"));
+        assertNull(store.remove("1"));
+
+        store.add(new Book("1", "New Title", "Author", 2001));
+        assertEquals("New Title", store.take("1").getTitle());
+    }
+
+    @Test
+    void testStoreMatchesMapThroughGrowthAndPacking() {
+        Random random = new Random(18);
+        Map<String, String> expected = new HashMap<>();
+        for (int round = 0; round < 20_000; round++) {
+            String id = "B" + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id) != null, store.remove(id) != null);
+            } else if (!expected.containsKey(id)) {
+                String title = "Title " + round;
+                store.add(new Book(id, title, "Author " + random.nextInt(50), 1900 + round % 100));
+                expected.put(id, title);
+            }
+        }
+        assertEquals(expected.size(), store.size());
+        assertEquals(expected.size(), store.getStatusCount(BookStatus.AVAILABLE));
+
+        List<Book> all = new ArrayList<>();
+        store.forEach(all::add);
+        assertEquals(expected.size(), all.size());
+        for (Book book : all) {
+            assertEquals(expected.get(book.getId()), book.getTitle());
+        }
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), store.take(entry.getKey()).getTitle());
+        }
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void testStoredBooksTakeLittleHeap() {
+        int count = 100_000;
+        for (int i = 0; i < count; i++) {
+            store.add(new Book(Integer.toString(i), "Title " + i, "Author " + i % 1000, 2000));
+        }
+        // Columns, ID table and text, against several hundred bytes per Book object graph
+        assertTrue(store.estimatedBytes() < count * 64L, "Store takes " + store.estimatedBytes() + " bytes");
+    }
+}
@@ -0,0 +1,279 @@
+package library.service;
+
+import library.model.Book;
+import library.model.LibrarySummary;
+import library.model.Loan;
+import library.model.Member;
+import library.util.BookStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LibraryConcurrencyTest {
+    private static final int BOOKS_PER_THREAD = 256;
+
+    private Library library;
+
+    @BeforeEach
+    void setUp() {
+        library = new Library();
+    }
+
+    @Test
+    void testRacingBorrowersCreateSingleLoan() throws Exception {
+        int threads = 8;
+        Book book = new Book("B1", "Contended Book", "Test Author", 2023);
+        library.addBook(book);
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Member member = new Member("M" + i, "Member " + i);
+            library.addMember(member);
+            members.add(member);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                AtomicInteger winners = new AtomicInteger();
+                List<Future<?>> futures = new ArrayList<>();
+                for (Member member : members) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        if (library.borrowBook(book, member) != null) {
+                            winners.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                assertEquals(1, winners.get());
+                assertEquals(1, library.getActiveLoans().size());
+                library.returnBook(library.findActiveLoanForBook("B1"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        library.setCounterVerification(true);
+        assertEquals(new LibrarySummary(1, 0, 0, 200), library.getLibrarySummary());
+    }
+
+    @Test
+    void testConcurrentReturnsOfSameLoanSucceedOnce() throws Exception {
+        Book book = new Book("B1", "Returned Book", "Test Author", 2023);
+        Member member = new Member("M1", "Member");
+        library.addBook(book);
+        library.addMember(member);
+        Loan loan = library.borrowBook(book, member);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> library.returnBook(loan)));
+            }
+            int successes = 0;
+            for (Future<Boolean> future : futures) {
+                successes += future.get() ? 1 : 0;
+            }
+            assertEquals(1, successes);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(BookStatus.AVAILABLE, book.getStatus());
+        assertEquals(0, member.getActiveLoanCount());
+    }
+
+    @Test
+    void testRenewalRacingReturnLeavesNoLoanInDueDateIndex() throws Exception {
+        Book book = new Book("B1", "Renewed Book", "Test Author", 2023);
+        Member member = new Member("M1", "Member");
+        library.addBook(book);
+        library.addMember(member);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 2_000; round++) {
+                Loan loan = library.borrowBook(book, member, 0L);
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> renewal = executor.submit(() -> {
+                    start.await();
+                    for (int i = 1; i <= 20; i++) {
+                        loan.setDueTime(i * 1_000L);
+                    }
+                    return null;
+                });
+                Future<Boolean> returned = executor.submit(() -> {
+                    start.await();
+                    return library.returnBook(loan, 1L);
+                });
+                start.countDown();
+                renewal.get();
+                assertTrue(returned.get());
+                assertTrue(library.getActiveLoans(null, 10).getLoans().isEmpty());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testMixedWorkloadKeepsIndexesConsistent() throws Exception {
+        int threads = 8;
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            Book book = new Book("B" + i, "Book " + i, "Test Author", 2023);
+            library.addBook(book);
+            books.add(book);
+        }
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Member member = new Member("M" + i, "Member " + i);
+            library.addMember(member);
+            members.add(member);
+        }
+
+        runOnThreads(threads, index -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20_000; i++) {
+                Book book = books.get(random.nextInt(books.size()));
+                if (random.nextBoolean()) {
+                    library.borrowBook(book, members.get(index));
+                } else {
+                    Loan loan = library.findActiveLoanForBook(book.getId());
+                    if (loan != null) {
+                        library.returnBook(loan);
+                    }
+                }
+            }
+        });
+
+        for (Book book : books) {
+            Loan loan = library.findActiveLoanForBook(book.getId());
+            assertEquals(book.getStatus() == BookStatus.BORROWED, loan != null);
+        }
+        int heldLoans = members.stream().mapToInt(Member::getActiveLoanCount).sum();
+        assertEquals(library.getActiveLoans().size(), heldLoans);
+        library.setCounterVerification(true);
+        assertDoesNotThrow(() -> library.getLibrarySummary());
+    }
+
+    @Test
+    void testDisjointBorrowReturnLoopsKeepCountersExact() throws Exception {
+        int threads = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+        List<List<Book>> shelves = new ArrayList<>();
+        List<Member> members = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            List<Book> shelf = new ArrayList<>();
+            for (int i = 0; i < BOOKS_PER_THREAD; i++) {
+                Book book = new Book("B" + t + "-" + i, "Book " + i, "Test Author", 2023);
+                library.addBook(book);
+                shelf.add(book);
+            }
+            shelves.add(shelf);
+            Member member = new Member("M" + t, "Member " + t);
+            library.addMember(member);
+            members.add(member);
+        }
+
+        int operationsPerThread = 20_000;
+        runOnThreads(threads, index -> {
+            List<Book> shelf = shelves.get(index);
+            Member member = members.get(index);
+            for (int i = 0; i < operationsPerThread; i++) {
+                Loan loan = library.borrowBook(shelf.get(i % BOOKS_PER_THREAD), member);
+                assertNotNull(loan);
+                assertTrue(library.returnBook(loan));
+            }
+        });
+
+        assertTrue(library.getActiveLoans().isEmpty());
+        for (Member member : members) {
+            assertEquals(0, member.getActiveLoanCount());
+        }
+        for (List<Book> shelf : shelves) {
+            for (Book book : shelf) {
+                assertEquals(BookStatus.AVAILABLE, book.getStatus());
+            }
+        }
+        library.setCounterVerification(true);
+        assertEquals(new LibrarySummary(threads * BOOKS_PER_THREAD, 0, 0, operationsPerThread * threads),
+                library.getLibrarySummary());
+    }
+
+    @Test
+    void testCatalogChangedWhileFirstQueryBuildsIndexesIsIndexed() throws Exception {
+        int writers = 4;
+        int preloaded = 2_000;
+        for (int round = 0; round < 100; round++) {
+            Library library = new Library();
+            List<Book> originals = new ArrayList<>();
+            for (int i = 0; i < preloaded; i++) {
+                Book book = new Book("P" + i, "Common Title " + i, "Test Author", 1900 + i % 100);
+                library.addBook(book);
+                originals.add(book);
+            }
+
+            runOnThreads(writers + 1, index -> {
+                if (index == writers) {
+                    library.searchBooks("common", 1);
+                    library.getBookCount();
+                    library.getBooksByYear(1900, 1999, null, 1);
+                    return;
+                }
+                for (int i = index; i < preloaded; i += writers) {
+                    if (i % 2 == 0) {
+                        assertTrue(library.removeBook(originals.get(i)));
+                    }
+                    library.addBook(new Book("N" + i, "Common Title " + i, "Test Author", 1900 + i % 100));
+                }
+            });
+
+            int expected = preloaded / 2 + preloaded;
+            assertEquals(expected, library.searchBooks("common", 10 * preloaded).size());
+            assertEquals(expected, library.getBookCount());
+            assertEquals(expected, library.getBooksByYear(1900, 1999, null, 10 * preloaded).getBooks().size());
+        }
+    }
+
+    private static void runOnThreads(int threads, ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int index = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface ThreadTask {
+        void run(int index);
+    }
+}
@@ -1,10 +1,12 @@
 package library.service;
 
+import library.model.BatchResult;
 import library.model.Book;
 import library.model.LibrarySummary;
 import library.model.Loan;
 import library.model.Member;
 import library.util.BookStatus;
+import library.util.ManualClock;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -18,11 +20,14 @@ public class LibraryManagerTest {
     private LibraryManager libraryManager;
     private Library mockLibrary;
     private BookFactory mockBookFactory;
+    private ManualClock clock;
 
     @BeforeEach
     public void setUp() {
         mockLibrary = Mockito.mock(Library.class);
         mockBookFactory = Mockito.mock(BookFactory.class);
+        clock = new ManualClock(1_000_000L);
+        Mockito.when(mockLibrary.getClock()).thenReturn(clock);
         libraryManager = new LibraryManager(mockLibrary, mockBookFactory);
     }
 
@@ -56,12 +61,12 @@ public class LibraryManagerTest {
 
         Mockito.when(mockLibrary.findBookById("1")).thenReturn(mockBook);
         Mockito.when(mockLibrary.findMemberById("1")).thenReturn(mockMember);
-        Mockito.when(mockLibrary.borrowBook(mockBook, mockMember)).thenReturn(mockLoan);
+        Mockito.when(mockLibrary.borrowBook(mockBook, mockMember, clock.millis())).thenReturn(mockLoan);
 
         boolean result = libraryManager.borrowBook("1", "1");
 
         assertTrue(result);
-        Mockito.verify(mockLibrary).borrowBook(mockBook, mockMember);
+        Mockito.verify(mockLibrary).borrowBook(mockBook, mockMember, clock.millis());
     }
 
     @Test
@@ -71,14 +76,26 @@ public class LibraryManagerTest {
 
         Mockito.when(mockLibrary.findBookById("1")).thenReturn(mockBook);
         Mockito.when(mockBook.getStatus()).thenReturn(BookStatus.BORROWED);
-        Mockito.when(mockLibrary.getActiveLoans()).thenReturn(List.of(mockLoan));
-        Mockito.when(mockLoan.getBook()).thenReturn(mockBook);
-        Mockito.when(mockBook.getId()).thenReturn("1");
+        Mockito.when(mockLibrary.findActiveLoanForBook("1")).thenReturn(mockLoan);
+        Mockito.when(mockLibrary.returnBook(mockLoan, clock.millis())).thenReturn(true);
 
         boolean result = libraryManager.returnBook("1");
 
         assertTrue(result);
-        Mockito.verify(mockLibrary).returnBook(mockLoan);
+        Mockito.verify(mockLibrary).returnBook(mockLoan, clock.millis());
+    }
+
+    @Test
+    public void testReserveBook() {
+        Book mockBook = Mockito.mock(Book.class);
+        Member mockMember = Mockito.mock(Member.class);
+
+        Mockito.when(mockLibrary.findBookById("1")).thenReturn(mockBook);
+        Mockito.when(mockLibrary.findMemberById("1")).thenReturn(mockMember);
+        Mockito.when(mockLibrary.reserveBook(mockBook, mockMember)).thenReturn(2);
+
+        assertEquals(2, libraryManager.reserveBook("1", "1"));
+        assertEquals(-1, libraryManager.reserveBook("1", "2"));
     }
 
     @Test
@@ -108,4 +125,27 @@ public class LibraryManagerTest {
         assertNotNull(newId);
         Mockito.verify(mockLibrary).addBook(mockBook);
     }
+
+    @Test
+    public void testBorrowAndReturnBooksInBatch() {
+        LibraryManager manager = new LibraryManager(new Library(), new BookFactory());
+        manager.addBook("fiction", "1", "Title", "Author", 2023);
+        manager.addBook("fiction", "2", "Other", "Author", 2023);
+        manager.addMember("1", "Member");
+
+        BatchResult borrowed = manager.borrowBooks("1", List.of("1", "3", "2", "1"));
+        assertEquals(4, borrowed.size());
+        assertEquals(2, borrowed.getSuccessCount());
+        assertEquals(BatchResult.Outcome.SUCCESS, borrowed.getOutcome(0));
+        assertEquals(BatchResult.Outcome.BOOK_NOT_FOUND, borrowed.getOutcome(1));
+        assertEquals(BatchResult.Outcome.SUCCESS, borrowed.getOutcome(2));
+        assertEquals(BatchResult.Outcome.UNAVAILABLE, borrowed.getOutcome(3));
+        assertEquals(BatchResult.Outcome.MEMBER_NOT_FOUND, manager.borrowBooks("2", List.of("1")).getOutcome(0));
+
+        BatchResult returned = manager.returnBooks(List.of("2", "2", "3"));
+        assertTrue(returned.isSuccess(0));
+        assertEquals(BatchResult.Outcome.NOT_BORROWED, returned.getOutcome(1));
+        assertEquals(BatchResult.Outcome.BOOK_NOT_FOUND, returned.getOutcome(2));
+        assertEquals(new LibrarySummary(1, 1, 1, 2), manager.getLibrarySummary());
+    }
 }
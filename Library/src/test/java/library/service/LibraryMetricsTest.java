@@ -0,0 +1,87 @@
+package library.service;
+
+import library.model.BatchResult;
+import library.model.MetricsSnapshot;
+import library.model.OperationStats;
+import library.util.BookAvailabilityDispatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LibraryMetricsTest {
+    private Library library;
+    private LibraryManager manager;
+
+    @BeforeEach
+    void setUp() {
+        library = new Library();
+        manager = new LibraryManager(library, new BookFactory());
+        manager.addBook("fiction", "B1", "Title", "Author", 2000);
+        manager.addMember("M1", "Member");
+    }
+
+    @Test
+    void testCallsAndFailuresAreCountedByReason() {
+        assertTrue(manager.borrowBook("B1", "M1"));
+        assertFalse(manager.borrowBook("B1", "M1"));
+        assertFalse(manager.borrowBook("B2", "M1"));
+        assertFalse(manager.borrowBook("B1", "M2"));
+        assertTrue(manager.returnBook("B1"));
+        assertFalse(manager.returnBook("B1"));
+        manager.returnBooks(List.of("B1", "B9"));
+        assertThrows(IllegalArgumentException.class, () -> manager.addBook("comic", "B3", "Title", "Author", 2000));
+
+        MetricsSnapshot metrics = manager.getMetrics();
+        OperationStats borrow = metrics.getOperation("borrowBook");
+        assertEquals(4, borrow.getCalls());
+        assertEquals(3, borrow.getFailures());
+        assertEquals(Map.of("UNAVAILABLE", 1L, "BOOK_NOT_FOUND", 1L, "MEMBER_NOT_FOUND", 1L), borrow.getFailuresByReason());
+        assertEquals(4, borrow.getLatency().getCount());
+        assertTrue(borrow.getLatency().getP99Nanos() <= borrow.getLatency().getMaxNanos());
+
+        assertEquals(Map.of("NOT_BORROWED", 1L), metrics.getOperation("returnBook").getFailuresByReason());
+        assertEquals(Map.of("NOT_BORROWED", 1L, "BOOK_NOT_FOUND", 1L), metrics.getOperation("returnBooks").getFailuresByReason());
+        assertEquals(1, metrics.getOperation("returnBooks").getCalls());
+        assertEquals(Map.of("EXCEPTION", 1L), metrics.getOperation("addBook").getFailuresByReason());
+        assertEquals(2, metrics.getOperation("addBook").getCalls());
+        assertEquals(0, metrics.getOperation("getLibrarySummary").getCalls());
+        assertNull(metrics.getOperation("unknown"));
+    }
+
+    @Test
+    void testDispatchLagIsReported() {
+        assertEquals(0, manager.getMetrics().getDispatchLag().getCount());
+        library.setAvailabilityDispatcher(new BookAvailabilityDispatcher(Runnable::run, 16));
+        manager.borrowBook("B1", "M1");
+        manager.returnBook("B1");
+
+        MetricsSnapshot metrics = manager.getMetrics();
+        assertEquals(1, metrics.getDispatchLag().getCount());
+        assertEquals(0, metrics.getPendingNotifications());
+    }
+
+    @Test
+    void testMetricsAreExposedThroughJmx() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        LibraryMetrics metrics = new LibraryMetrics(library);
+        ObjectName name = metrics.register(server);
+        metrics.record(LibraryMetrics.Operation.GET_LIBRARY_SUMMARY, System.nanoTime(), BatchResult.Outcome.SUCCESS);
+
+        CompositeData[] operations = (CompositeData[]) server.getAttribute(name, "Operations");
+        assertEquals(LibraryMetrics.Operation.values().length, operations.length);
+        CompositeData summary = operations[LibraryMetrics.Operation.GET_LIBRARY_SUMMARY.ordinal()];
+        assertEquals("getLibrarySummary", summary.get("name"));
+        assertEquals(1L, summary.get("calls"));
+        assertEquals(1L, ((CompositeData) summary.get("latency")).get("count"));
+        assertEquals(0L, ((CompositeData) server.getAttribute(name, "JournalWait")).get("count"));
+        assertEquals(0, server.getAttribute(name, "PendingNotifications"));
+    }
+}
@@ -1,13 +1,25 @@
 package library.service;
 
 import library.model.Book;
+import library.model.BookPage;
 import library.model.LibrarySummary;
 import library.model.Loan;
+import library.model.LoanPage;
+import library.model.LoanRecord;
 import library.model.Member;
+import library.model.MemoryReport;
+import library.search.Completion;
 import library.util.BookStatus;
+import library.util.ManualClock;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class LibraryTest {
@@ -20,6 +32,7 @@ public class LibraryTest {
         library = new Library();
         book = new Book("1", "Test Book", "Test Author", 2023);
         member = new Member("1", "Test Member");
+        library.setCounterVerification(true);
     }
 
     @Test
@@ -40,6 +53,26 @@ public class LibraryTest {
         assertNull(library.findMemberById("1"));
     }
 
+    @Test
+    void testRemoveBookOnlyRemovesIndexedInstance() {
+        library.addBook(book);
+        Book other = new Book("1", "Other Book", "Other Author", 2020);
+
+        assertFalse(library.removeBook(other));
+        assertEquals(book, library.findBookById("1"));
+        assertTrue(library.removeBook(book));
+        assertFalse(library.removeBook(book));
+    }
+
+    @Test
+    void testFindByUnknownIdReturnsNull() {
+        library.addBook(book);
+        library.addMember(member);
+
+        assertNull(library.findBookById("2"));
+        assertNull(library.findMemberById("2"));
+    }
+
     @Test
     void testBorrowAndReturnBook() {
         library.addBook(book);
@@ -54,6 +87,21 @@ public class LibraryTest {
         assertNotNull(loan.getReturnDate());
     }
 
+    @Test
+    void testFindActiveLoanForBook() {
+        library.addBook(book);
+        library.addMember(member);
+        assertNull(library.findActiveLoanForBook("1"));
+
+        Loan loan = library.borrowBook(book, member);
+        assertSame(loan, library.findActiveLoanForBook("1"));
+        assertEquals(1, library.getActiveLoans().size());
+
+        library.returnBook(loan);
+        assertNull(library.findActiveLoanForBook("1"));
+        assertTrue(library.getActiveLoans().isEmpty());
+    }
+
     @Test
     void testGetLibrarySummary() {
         library.addBook(book);
@@ -66,4 +114,377 @@ public class LibraryTest {
         assertEquals(1, summary.getActiveMembers());
         assertEquals(1, summary.getTotalLoans());
     }
+
+    @Test
+    void testSummaryCountersTrackEveryTransition() {
+        Book second = new Book("2", "Second Book", "Test Author", 2020);
+        Member other = new Member("2", "Other Member");
+        library.addBook(book);
+        library.addBook(second);
+        library.addMember(member);
+        library.addMember(other);
+
+        Loan first = library.borrowBook(book, member);
+        Loan next = library.borrowBook(second, member);
+        assertEquals(new LibrarySummary(0, 2, 1, 2), library.getLibrarySummary());
+
+        library.returnBook(first);
+        assertEquals(new LibrarySummary(1, 1, 1, 2), library.getLibrarySummary());
+
+        second.setStatus(BookStatus.UNDER_MAINTENANCE);
+        assertEquals(new LibrarySummary(1, 0, 1, 2), library.getLibrarySummary());
+
+        library.removeMember(member);
+        library.removeBook(book);
+        assertEquals(new LibrarySummary(0, 0, 0, 2), library.getLibrarySummary());
+
+        library.returnBook(next);
+        assertEquals(BookStatus.UNDER_MAINTENANCE, second.getStatus());
+        assertNull(library.borrowBook(second, other));
+        second.setStatus(BookStatus.AVAILABLE);
+        assertEquals(new LibrarySummary(1, 0, 0, 2), library.getLibrarySummary());
+        library.borrowBook(second, other);
+        assertEquals(new LibrarySummary(0, 1, 1, 3), library.getLibrarySummary());
+    }
+
+    @Test
+    void testCounterVerificationDetectsDrift() {
+        library.addBook(book);
+        book.detachChangeListener();
+        book.setStatus(BookStatus.BORROWED);
+
+        assertThrows(IllegalStateException.class, () -> library.getLibrarySummary());
+
+        library.setCounterVerification(false);
+        assertEquals(1, library.getLibrarySummary().getAvailableBooks());
+    }
+
+    @Test
+    void testOverdueAndDueSoonQueries() {
+        Book second = new Book("2", "Second Book", "Test Author", 2020);
+        library.addBook(book);
+        library.addBook(second);
+        library.addMember(member);
+        Loan first = library.borrowBook(book, member);
+        Loan next = library.borrowBook(second, member);
+        long day = 24L * 60 * 60 * 1000;
+        Date now = new Date();
+
+        assertTrue(library.getOverdueLoans(now).isEmpty());
+        assertEquals(2, library.getOverdueLoans(new Date(now.getTime() + 15 * day)).size());
+
+        next.setDueDate(new Date(now.getTime() - day));
+        assertEquals(List.of(next), library.getOverdueLoans());
+        assertEquals(List.of(first), library.getLoansDueBetween(new Date(now.getTime() + 13 * day), new Date(now.getTime() + 15 * day)));
+        assertTrue(library.getLoansDueBetween(now, new Date(now.getTime() + 2 * day)).isEmpty());
+
+        first.setDueDate(new Date(now.getTime() + day));
+        assertEquals(List.of(first), library.getLoansDueBetween(now, new Date(now.getTime() + 2 * day)));
+
+        library.returnBook(next);
+        assertTrue(library.getOverdueLoans().isEmpty());
+        next.setDueDate(new Date(now.getTime() - 2 * day));
+        assertTrue(library.getOverdueLoans().isEmpty());
+    }
+
+    @Test
+    void testReturnHandsReservedBookToHeadOfQueue() {
+        Member second = new Member("2", "Second Member");
+        Member third = new Member("3", "Third Member");
+        Member watcher = new Member("4", "Watcher");
+        List<Book> broadcasts = new ArrayList<>();
+        library.addBook(book);
+        for (Member m : List.of(member, second, third, watcher)) {
+            library.addMember(m);
+        }
+        book.addObserver(broadcasts::add);
+
+        Loan loan = library.borrowBook(book, member);
+        assertEquals(0, library.reserveBook(book, second));
+        assertEquals(1, library.reserveBook(book, third));
+        assertEquals(1, library.getReservationPosition(book, third));
+
+        library.returnBook(loan);
+        assertEquals(BookStatus.RESERVED, book.getStatus());
+        assertSame(second, library.getReservationHolder(book));
+        assertEquals(-1, library.getReservationPosition(book, second));
+        assertEquals(0, library.getReservationPosition(book, third));
+        assertTrue(broadcasts.isEmpty());
+
+        assertNull(library.borrowBook(book, watcher));
+        Loan held = library.borrowBook(book, second);
+        assertNotNull(held);
+        assertNull(library.getReservationHolder(book));
+
+        library.returnBook(held);
+        assertSame(third, library.getReservationHolder(book));
+        assertTrue(library.cancelReservation(book, third));
+        assertEquals(BookStatus.AVAILABLE, book.getStatus());
+        assertEquals(List.of(book), broadcasts);
+        assertEquals(new LibrarySummary(1, 0, 0, 2), library.getLibrarySummary());
+    }
+
+    @Test
+    void testReservingAvailableBookHoldsItImmediately() {
+        Member second = new Member("2", "Second Member");
+        library.addBook(book);
+        library.addMember(member);
+        library.addMember(second);
+
+        assertEquals(0, library.reserveBook(book, member));
+        assertEquals(BookStatus.RESERVED, book.getStatus());
+        assertEquals(0, library.reserveBook(book, member));
+        assertEquals(0, library.reserveBook(book, second));
+
+        assertTrue(library.cancelReservation(book, member));
+        assertSame(second, library.getReservationHolder(book));
+        assertFalse(library.cancelReservation(book, member));
+        assertNotNull(library.borrowBook(book, second));
+    }
+
+    @Test
+    void testBorrowAndReturnBooksInBatch() {
+        Book second = new Book("2", "Second Book", "Test Author", 2023);
+        Book lent = new Book("3", "Lent Book", "Test Author", 2023);
+        Member other = new Member("2", "Other Member");
+        library.addBook(book);
+        library.addBook(second);
+        library.addBook(lent);
+        library.addMember(member);
+        library.addMember(other);
+        library.borrowBook(lent, other);
+
+        Date borrowDate = new Date(1_000_000L);
+        Loan[] loans = library.borrowBooks(member, new Book[]{book, null, lent, second, book}, borrowDate);
+        assertNotNull(loans[0]);
+        assertNull(loans[1]);
+        assertNull(loans[2]);
+        assertNotNull(loans[3]);
+        assertNull(loans[4]);
+        assertEquals(borrowDate, loans[3].getBorrowDate());
+        assertEquals(2, member.getActiveLoanCount());
+        assertSame(loans[0], library.findActiveLoanForBook("1"));
+        assertEquals(new LibrarySummary(0, 3, 2, 3), library.getLibrarySummary());
+
+        boolean[] returned = library.returnBooks(new Loan[]{loans[0], null, loans[3], loans[0]}, new Date());
+        assertArrayEquals(new boolean[]{true, false, true, false}, returned);
+        assertEquals(0, member.getActiveLoanCount());
+        assertEquals(BookStatus.AVAILABLE, second.getStatus());
+        assertEquals(new LibrarySummary(2, 1, 1, 3), library.getLibrarySummary());
+    }
+
+    @Test
+    void testSearchFollowsCatalogChanges() {
+        Book other = new Book("2", "Another Test", "Someone Else", 2020);
+        library.addBook(book);
+        library.addBook(other);
+        assertEquals(List.of(book, other), library.searchBooks("test", 10));
+
+        book.setTitle("Renamed");
+        assertTrue(library.searchBooks("book", 10).isEmpty());
+        assertEquals(List.of(book), library.searchBooks("renamed", 10));
+
+        library.removeBook(other);
+        other.setTitle("Detached Test");
+        assertTrue(library.searchBooks("another OR detached", 10).isEmpty());
+
+        Book replacement = new Book("1", "Replacement", "Test Author", 2023);
+        library.addBook(replacement);
+        assertEquals(List.of(replacement), library.searchBooks("author", 10));
+        book.setTitle("Stale");
+        assertTrue(library.searchBooks("stale", 10).isEmpty());
+    }
+
+    @Test
+    void testCompletionFollowsMembersAndBooks() {
+        library.addBook(book);
+        library.addMember(member);
+        List<Completion> completions = library.complete("test", 10, EnumSet.allOf(Completion.Kind.class));
+        assertEquals(3, completions.size());
+
+        Member renamed = new Member("1", "Other Name");
+        library.addMember(renamed);
+        library.addMember(new Member("2", "Test Person"));
+        completions = library.complete("test", 10, EnumSet.of(Completion.Kind.MEMBER_NAME));
+        assertEquals(1, completions.size());
+        assertEquals("2", completions.get(0).getId());
+
+        library.removeBook(book);
+        assertTrue(library.complete("test", 10, EnumSet.of(Completion.Kind.TITLE, Completion.Kind.AUTHOR)).isEmpty());
+        assertEquals("Other Name", library.complete("oth", 10, EnumSet.of(Completion.Kind.MEMBER_NAME)).get(0).getText());
+    }
+
+    @Test
+    void testCompletionFollowsRenamedMembers() {
+        library.addMember(member);
+        assertTrue(library.renameMember(member, "Other Name"));
+        assertEquals("Other Name", member.getName());
+        assertTrue(library.complete("test", 10, EnumSet.of(Completion.Kind.MEMBER_NAME)).isEmpty());
+        List<Completion> completions = library.complete("oth", 10, EnumSet.of(Completion.Kind.MEMBER_NAME));
+        assertEquals(1, completions.size());
+        assertEquals(member.getId(), completions.get(0).getId());
+
+        assertFalse(library.renameMember(new Member("9", "Stranger"), "Nobody"));
+        assertTrue(library.complete("nob", 10, EnumSet.of(Completion.Kind.MEMBER_NAME)).isEmpty());
+    }
+
+    @Test
+    void testBooksByYearArePagedInOrder() {
+        for (int i = 0; i < 10; i++) {
+            library.addBook(new Book("Y" + i, "Title " + i, "Author", 1950 + i * 5));
+        }
+        BookPage page = library.getBooksByYear(1955, 1985, null, 4);
+        assertEquals(List.of("Y1", "Y2", "Y3", "Y4"), page.getBooks().stream().map(Book::getId).toList());
+        assertTrue(page.hasNext());
+
+        library.findBookById("Y6").setPublicationYear(1951);
+        library.removeBook(library.findBookById("Y5"));
+        page = library.getBooksByYear(1955, 1985, page.getNextCursor(), 4);
+        assertEquals(List.of("Y7"), page.getBooks().stream().map(Book::getId).toList());
+        assertFalse(page.hasNext());
+        assertEquals("Y6", library.getBooksByYear(1951, 1951, null, 4).getBooks().get(0).getId());
+
+        BookPage titles = library.getBooksByTitle(null, 3);
+        assertEquals(List.of("Y0", "Y1", "Y2"), titles.getBooks().stream().map(Book::getId).toList());
+        titles = library.getBooksByTitle(titles.getNextCursor(), 4, 3);
+        assertEquals(List.of("Y8", "Y9"), titles.getBooks().stream().map(Book::getId).toList());
+        assertFalse(titles.hasNext());
+    }
+
+    @Test
+    void testActiveLoansArePagedByDueDate() {
+        library.addMember(member);
+        for (int i = 0; i < 5; i++) {
+            library.addBook(new Book("L" + i, "Title " + i, "Author", 2000));
+        }
+        for (int i = 4; i >= 0; i--) {
+            library.borrowBook(library.findBookById("L" + i), member, 1_000L * i);
+        }
+        assertEquals(5, library.getBookCount());
+        assertEquals(5, library.getActiveLoanCount());
+
+        LoanPage skipped = library.getActiveLoans(null, 3, 5);
+        assertEquals(List.of("L3", "L4"), skipped.getLoans().stream().map(l -> l.getBook().getId()).toList());
+        LoanPage page = library.getActiveLoans(null, 2);
+        assertEquals(List.of("L0", "L1"), page.getLoans().stream().map(l -> l.getBook().getId()).toList());
+        library.returnBook(library.findActiveLoanForBook("L0"));
+        library.returnBook(library.findActiveLoanForBook("L2"));
+        page = library.getActiveLoans(page.getNextCursor(), 2);
+        assertEquals(List.of("L3", "L4"), page.getLoans().stream().map(l -> l.getBook().getId()).toList());
+        assertFalse(page.hasNext());
+        assertThrows(IllegalArgumentException.class, () -> library.getActiveLoans("nonsense", 2));
+    }
+
+    @Test
+    void testColumnarStorageLoadsBooksOnFirstLookup() {
+        library = Library.withColumnarStorage(new BookFactory());
+        library.setCounterVerification(true);
+        library.addMember(member);
+        List<Book> imported = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            imported.add(new Book("C" + i, "Columnar " + i, "Author", 2000 + i));
+        }
+        library.addBooks(imported);
+        assertEquals(new LibrarySummary(5, 0, 0, 0), library.getLibrarySummary());
+        assertEquals("C3", library.searchBooks("columnar 3", 5).get(0).getId());
+
+        Book loaded = library.findBookById("C1");
+        assertNotSame(imported.get(1), loaded);
+        assertEquals("Columnar 1", loaded.getTitle());
+        assertSame(loaded, library.findBookById("C1"));
+        assertNotNull(library.borrowBook(loaded, member));
+        assertEquals(new LibrarySummary(4, 1, 1, 1), library.getLibrarySummary());
+
+        // A bulk add replaces both loaded and stored books
+        library.addBooks(List.of(new Book("C1", "Replaced", "Author", 2020), new Book("C2", "Replaced", "Author", 2020)));
+        assertEquals("Replaced", library.findBookById("C1").getTitle());
+        assertEquals(new LibrarySummary(5, 0, 1, 1), library.getLibrarySummary());
+
+        library.addBook(book);
+        assertTrue(library.removeBook(library.findBookById("C4")));
+        List<String> ids = new ArrayList<>();
+        library.forEachLoadedBook(b -> ids.add(b.getId()));
+        ids.sort(null);
+        assertEquals(List.of("1", "C0", "C1", "C2", "C3"), ids);
+        assertEquals(new LibrarySummary(5, 0, 1, 1), library.getLibrarySummary());
+    }
+
+    @Test
+    void testAuthorsArePooledAndReported() {
+        library.addBook(new Book("A1", "First", new String("Shared Author"), 2000));
+        library.addBook(new Book("A2", "Second", new String("Shared Author"), 2001));
+        assertSame(library.findBookById("A1").getAuthor(), library.findBookById("A2").getAuthor());
+
+        MemoryReport report = library.getMemoryReport();
+        assertEquals(2, report.getLoadedBooks());
+        assertEquals(0, report.getStoredBooks());
+        assertEquals(1, report.getPooledStrings());
+        assertEquals(1, report.getSharedStrings());
+        assertTrue(report.getBytesPerBook() < report.getPlainBytesPerBook());
+    }
+
+    @Test
+    void testColumnarStorageShrinksMemoryReport() {
+        library = Library.withColumnarStorage(new BookFactory());
+        List<Book> imported = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            imported.add(new Book(String.format("B%05d", i), "Title " + i, "Author " + i % 10, 2000));
+        }
+        library.addBooks(imported);
+        library.findBookById("B00042");
+
+        MemoryReport report = library.getMemoryReport();
+        assertEquals(1, report.getLoadedBooks());
+        assertEquals(9_999, report.getStoredBooks());
+        assertTrue(report.getBytesPerBook() * 3 < report.getPlainBytesPerBook(), report.toString());
+    }
+
+    @Test
+    void testReturnedLoansMoveToHistory() {
+        library.addBook(book);
+        Book other = new Book("2", "Other Book", "Test Author", 2020);
+        library.addBook(other);
+        library.addMember(member);
+        Member second = new Member("2", "Second Member");
+        library.addMember(second);
+
+        Loan first = library.borrowBook(book, member, new Date(1_000L));
+        library.returnBook(first, new Date(5_000L));
+        Loan active = library.borrowBook(other, member, new Date(2_000L));
+        Loan again = library.borrowBook(book, second, new Date(6_000L));
+        library.returnBook(again, new Date(9_000L));
+
+        assertEquals(List.of(new LoanRecord("1", "1", 1_000L, first.getDueDate().getTime(), 5_000L),
+                        new LoanRecord("1", "2", 6_000L, again.getDueDate().getTime(), 9_000L)),
+                library.getLoanHistoryByBook("1").collect(Collectors.toList()));
+        assertEquals(1, library.getLoanHistoryByMember("2").count());
+        assertEquals(0, library.getLoanHistoryByBook("2").count());
+        assertEquals(List.of("2"), library.getLoanHistory(new Date(7_000L), new Date(8_000L))
+                .map(LoanRecord::getMemberId).collect(Collectors.toList()));
+        assertEquals(List.of(active), library.getActiveLoans());
+        assertEquals(3, library.getLibrarySummary().getTotalLoans());
+    }
+
+    @Test
+    void testLoansFollowTheLibraryClock() {
+        ManualClock clock = new ManualClock(1_000_000L);
+        library.setClock(clock);
+        library.setLoanPeriodMillis(60_000L);
+        library.addBook(book);
+        library.addMember(member);
+
+        Loan loan = library.borrowBook(book, member);
+        assertEquals(1_000_000L, loan.getBorrowTime());
+        assertEquals(1_060_000L, loan.getDueTime());
+        assertTrue(library.getOverdueLoans().isEmpty());
+
+        clock.advance(60_001L);
+        assertEquals(List.of(loan), library.getOverdueLoans());
+        assertTrue(loan.isOverdue(clock.millis()));
+
+        library.returnBook(loan);
+        assertEquals(1_060_001L, loan.getReturnTime());
+        assertTrue(library.getOverdueLoans().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> library.setLoanPeriodMillis(0));
+    }
 }
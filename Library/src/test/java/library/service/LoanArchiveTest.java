@@ -0,0 +1,88 @@
+package library.service;
+
+import library.model.LoanRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoanArchiveTest {
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private LoanArchive archive;
+    private List<LoanRecord> added;
+
+    @BeforeEach
+    void setUp() {
+        archive = new LoanArchive();
+        added = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            long borrowDate = i * DAY / 8;
+            long returnDate = borrowDate + (i % 20) * DAY;
+            LoanRecord record = new LoanRecord("B" + (i % 700), "M" + (i % 90), borrowDate, borrowDate + 14 * DAY, returnDate);
+            archive.add(record);
+            added.add(record);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        archive.close();
+    }
+
+    @Test
+    void testRecordsSurviveEncoding() {
+        assertEquals(added.size(), archive.size());
+        List<LoanRecord> all = new ArrayList<>();
+        archive.forEach(all::add);
+        assertEquals(added.size(), all.size());
+        assertTrue(all.containsAll(added));
+    }
+
+    @Test
+    void testQueriesFilterByBookMemberAndDate() {
+        assertEquals(added.stream().filter(r -> r.getBookId().equals("B7")).collect(Collectors.toSet()),
+                archive.stream("B7", null, Long.MIN_VALUE, Long.MAX_VALUE).collect(Collectors.toSet()));
+        assertEquals(added.stream().filter(r -> r.getMemberId().equals("M12")).count(),
+                archive.stream(null, "M12", Long.MIN_VALUE, Long.MAX_VALUE).count());
+        assertEquals(0, archive.stream("B7", "M8", Long.MIN_VALUE, Long.MAX_VALUE).count());
+
+        long from = 300 * DAY;
+        long to = 310 * DAY;
+        assertEquals(added.stream().filter(r -> r.overlaps(from, to)).collect(Collectors.toSet()),
+                archive.stream(null, null, from, to).collect(Collectors.toSet()));
+        assertEquals(0, archive.stream("B999", null, Long.MIN_VALUE, Long.MAX_VALUE).count());
+    }
+
+    @Test
+    void testSpilledSegmentsAreReadBack() throws IOException {
+        Path directory = Files.createTempDirectory("loans");
+        try {
+            archive.spillTo(directory, 0);
+            assertEquals(2, archive.getSpilledSegmentCount());
+            for (int i = 0; i < 5_000; i++) {
+                archive.add(new LoanRecord("X" + i, "M1", i, i + 14 * DAY, i + DAY));
+            }
+            assertEquals(3, archive.getSpilledSegmentCount());
+
+            assertEquals(added.stream().filter(r -> r.getBookId().equals("B7")).collect(Collectors.toSet()),
+                    archive.stream("B7", null, Long.MIN_VALUE, Long.MAX_VALUE).collect(Collectors.toSet()));
+            assertEquals(1, archive.stream("X4999", null, Long.MIN_VALUE, Long.MAX_VALUE).count());
+            assertEquals(15_000, archive.size());
+        } finally {
+            archive.close();
+            try (var files = Files.list(directory)) {
+                assertEquals(0, files.count());
+            }
+            Files.delete(directory);
+        }
+    }
+}
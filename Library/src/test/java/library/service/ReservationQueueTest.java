@@ -0,0 +1,83 @@
+package library.service;
+
+import library.model.Member;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReservationQueueTest {
+    private ReservationQueue queue;
+    private List<Member> members;
+
+    @BeforeEach
+    void setUp() {
+        queue = new ReservationQueue();
+        members = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            members.add(new Member("M" + i, "Member " + i));
+        }
+    }
+
+    @Test
+    void testFirstComeFirstServed() {
+        assertEquals(0, queue.enqueue(members.get(0)));
+        assertEquals(1, queue.enqueue(members.get(1)));
+        assertEquals(2, queue.enqueue(members.get(2)));
+        assertEquals(1, queue.enqueue(members.get(1)));
+        assertEquals(3, queue.size());
+
+        assertSame(members.get(0), queue.poll());
+        assertEquals(0, queue.positionOf(members.get(1)));
+        assertSame(members.get(1), queue.poll());
+        assertSame(members.get(2), queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void testCancellationUpdatesPositions() {
+        for (int i = 0; i < 4; i++) {
+            queue.enqueue(members.get(i));
+        }
+        assertTrue(queue.cancel(members.get(1)));
+        assertFalse(queue.cancel(members.get(1)));
+
+        assertEquals(-1, queue.positionOf(members.get(1)));
+        assertEquals(1, queue.positionOf(members.get(2)));
+        assertEquals(2, queue.positionOf(members.get(3)));
+        assertSame(members.get(0), queue.poll());
+        assertSame(members.get(2), queue.poll());
+    }
+
+    @Test
+    void testMatchesReferenceQueueUnderRandomOperations() {
+        Random random = new Random(42);
+        Deque<Member> reference = new ArrayDeque<>();
+        for (int step = 0; step < 10_000; step++) {
+            Member member = members.get(random.nextInt(members.size()));
+            switch (random.nextInt(3)) {
+                case 0:
+                    queue.enqueue(member);
+                    if (!reference.contains(member)) {
+                        reference.addLast(member);
+                    }
+                    break;
+                case 1:
+                    assertSame(reference.pollFirst(), queue.poll());
+                    break;
+                default:
+                    assertEquals(reference.remove(member), queue.cancel(member));
+                    break;
+            }
+            assertEquals(reference.size(), queue.size());
+            assertEquals(new ArrayList<>(reference).indexOf(member), queue.positionOf(member));
+        }
+    }
+}
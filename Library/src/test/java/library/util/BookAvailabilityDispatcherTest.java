@@ -0,0 +1,105 @@
+package library.util;
+
+import library.model.Book;
+import library.model.Loan;
+import library.model.Member;
+import library.service.Library;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookAvailabilityDispatcherTest {
+    private Queue<Runnable> tasks;
+    private BookAvailabilityDispatcher dispatcher;
+    private Book book;
+    private List<Book> notified;
+
+    @BeforeEach
+    void setUp() {
+        tasks = new ArrayDeque<>();
+        dispatcher = new BookAvailabilityDispatcher(tasks::add, 2);
+        book = new Book("1", "Test Book", "Test Author", 2023);
+        notified = new ArrayList<>();
+        book.addObserver(notified::add);
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    @Test
+    void testRepeatedEventsAreCoalesced() {
+        dispatcher.dispatch(book);
+        dispatcher.dispatch(book);
+        dispatcher.dispatch(book);
+        assertEquals(1, dispatcher.getPendingCount());
+        assertEquals(1, tasks.size());
+
+        runTasks();
+        assertEquals(1, notified.size());
+        assertEquals(0, dispatcher.getPendingCount());
+    }
+
+    @Test
+    void testStaleEventsAreSkipped() {
+        dispatcher.dispatch(book);
+        book.setStatus(BookStatus.BORROWED);
+
+        runTasks();
+        assertTrue(notified.isEmpty());
+    }
+
+    @Test
+    void testEventsAreDeliveredInBatches() {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Book other = new Book("B" + i, "Book " + i, "Test Author", 2023);
+            other.addObserver(notified::add);
+            books.add(other);
+            dispatcher.dispatch(other);
+        }
+        assertEquals(1, tasks.size());
+
+        tasks.poll().run();
+        assertEquals(2, notified.size());
+        runTasks();
+        assertEquals(books, notified);
+    }
+
+    @Test
+    void testLibraryReturnDoesNotRunObservers() {
+        Library library = new Library();
+        Member member = new Member("1", "Test Member");
+        library.addBook(book);
+        library.addMember(member);
+        library.setAvailabilityDispatcher(dispatcher);
+
+        Loan loan = library.borrowBook(book, member);
+        library.returnBook(loan);
+        assertTrue(notified.isEmpty());
+
+        runTasks();
+        assertEquals(List.of(book), notified);
+    }
+
+    @Test
+    void testVirtualThreadDelivery() throws InterruptedException {
+        CountDownLatch delivered = new CountDownLatch(1);
+        book.addObserver(b -> delivered.countDown());
+        try (BookAvailabilityDispatcher virtual = BookAvailabilityDispatcher.withVirtualThreads()) {
+            virtual.dispatch(book);
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package library.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoarseClockTest {
+    @Test
+    void testClockTicksUntilClosed() throws InterruptedException {
+        long before = System.currentTimeMillis();
+        try (CoarseClock clock = new CoarseClock(1)) {
+            assertTrue(clock.millis() >= before);
+            long first = clock.millis();
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (clock.millis() == first && System.nanoTime() < deadline) {
+                Thread.sleep(2);
+            }
+            assertTrue(clock.millis() > first);
+            assertTrue(clock.millis() <= System.currentTimeMillis());
+        }
+    }
+
+    @Test
+    void testTickMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new CoarseClock(0));
+    }
+}
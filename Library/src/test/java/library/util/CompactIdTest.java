@@ -0,0 +1,37 @@
+package library.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactIdTest {
+    @Test
+    void testStructuredIdsRoundTrip() {
+        Set<Long> codes = new HashSet<>();
+        for (String id : List.of("B001", "B1", "B01", "M001", "1", "0", "BKS999999999999", "B001_copy",
+                "B001_copy_copy", "ABC42_copy_copy_copy_copy_copy_copy_copy")) {
+            long code = CompactId.encode(id);
+            assertTrue(code >= 0, id);
+            assertEquals(id, CompactId.decode(code));
+            assertTrue(codes.add(code), id);
+        }
+    }
+
+    @Test
+    void testOtherIdsAreNotPacked() {
+        for (String id : List.of("", "B", "b001", "ABCD1", "B1x", "B1_copy2", "B-1", "B1234567890123",
+                "B1_copy_copy_copy_copy_copy_copy_copy_copy", "1B")) {
+            assertEquals(CompactId.NONE, CompactId.encode(id), id);
+        }
+    }
+
+    @Test
+    void testDecodeRejectsInvalidCodes() {
+        assertThrows(IllegalArgumentException.class, () -> CompactId.decode(-5));
+        assertThrows(IllegalArgumentException.class, () -> CompactId.decode(123));
+    }
+}
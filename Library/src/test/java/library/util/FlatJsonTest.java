@@ -0,0 +1,32 @@
+package library.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlatJsonTest {
+    @Test
+    void testParsesValues() {
+        Map<String, String> values = FlatJson.parse(" { \"a\" : \"x\\ty\\u0041\", \"b\":42, \"c\":null, \"d\": true } ");
+        assertEquals("x\tyA", values.get("a"));
+        assertEquals("42", values.get("b"));
+        assertTrue(values.containsKey("c"));
+        assertNull(values.get("c"));
+        assertEquals("true", values.get("d"));
+    }
+
+    @Test
+    void testParsesEmptyObject() {
+        assertTrue(FlatJson.parse("{}").isEmpty());
+    }
+
+    @Test
+    void testRejectsMalformedInput() {
+        assertThrows(IllegalArgumentException.class, () -> FlatJson.parse("{\"a\":[1]}"));
+        assertThrows(IllegalArgumentException.class, () -> FlatJson.parse("{\"a\":\"x\""));
+        assertThrows(IllegalArgumentException.class, () -> FlatJson.parse("{\"a\":1} extra"));
+        assertThrows(IllegalArgumentException.class, () -> FlatJson.parse("[]"));
+    }
+}
@@ -0,0 +1,27 @@
+package library.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonWriterTest {
+    @Test
+    void testSeparatesMembersAndElements() {
+        String json = new JsonWriter().beginObject()
+                .member("a", "x").member("b", 42).member("c", true)
+                .name("d").beginArray().value(1).value("two").beginObject().endObject().endArray()
+                .member("e", (String) null)
+                .endObject().toString();
+        assertEquals("{\"a\":\"x\",\"b\":42,\"c\":true,\"d\":[1,\"two\",{}],\"e\":null}", json);
+    }
+
+    @Test
+    void testEscapesStrings() {
+        String json = new JsonWriter().beginObject().member("s", "q\"b\\n\nt\tc\u0001").endObject().toString();
+        assertEquals("{\"s\":\"q\\\"b\\\\n\\nt\\tc\\u0001\"}", json);
+        Map<String, String> parsed = FlatJson.parse(json);
+        assertEquals("q\"b\\n\nt\tc\u0001", parsed.get("s"));
+    }
+}
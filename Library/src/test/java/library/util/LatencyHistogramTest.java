@@ -0,0 +1,48 @@
+package library.util;
+
+import library.model.LatencySnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+    @Test
+    void testBucketsCoverEveryValueInOrder() {
+        long previousHighest = -1;
+        for (int bucket = 0; bucket <= LatencyHistogram.bucketOf(1L << 36); bucket++) {
+            long highest = LatencyHistogram.highestValueOf(bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(previousHighest + 1));
+            assertEquals(bucket, LatencyHistogram.bucketOf(highest));
+            assertTrue(highest - previousHighest <= Math.max(1, highest / 16));
+            previousHighest = highest;
+        }
+    }
+
+    @Test
+    void testPercentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000);
+        }
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.getCount());
+        assertEquals(5_000_500, snapshot.getMeanNanos());
+        assertEquals(10_000_000, snapshot.getMaxNanos());
+        assertEquals(5_000_000, snapshot.getP50Nanos(), 5_000_000 / 16.0);
+        assertEquals(9_900_000, snapshot.getP99Nanos(), 9_900_000 / 16.0);
+        assertEquals(9_990_000, snapshot.getP999Nanos(), 9_990_000 / 16.0);
+        assertTrue(snapshot.getP50Nanos() >= 5_000_000);
+    }
+
+    @Test
+    void testExtremeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE / 2);
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getP50Nanos());
+        assertEquals(Long.MAX_VALUE / 2, snapshot.getMaxNanos());
+        assertEquals(0, new LatencyHistogram().snapshot().getP999Nanos());
+    }
+}
@@ -0,0 +1,36 @@
+package library.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StringPoolTest {
+    @Test
+    void testEqualStringsShareOneInstance() {
+        StringPool pool = new StringPool(10);
+        String first = new String("Oxford University Press");
+        String second = new String("Oxford University Press");
+
+        assertSame(first, pool.intern(first));
+        assertSame(first, pool.intern(second));
+        assertSame(first, pool.intern(first));
+        assertTrue(pool.isPooled(first));
+        assertFalse(pool.isPooled(second));
+        assertNull(pool.intern(null));
+        assertEquals(1, pool.size());
+        assertEquals(1, pool.getSharedCount());
+    }
+
+    @Test
+    void testFullPoolReturnsNewStringsUnchanged() {
+        StringPool pool = new StringPool(2);
+        pool.intern("a");
+        pool.intern("b");
+        String c = new String("c");
+
+        assertSame(c, pool.intern(c));
+        assertFalse(pool.isPooled(c));
+        assertEquals(2, pool.size());
+        assertSame("a", pool.intern(new String("a")));
+    }
+}